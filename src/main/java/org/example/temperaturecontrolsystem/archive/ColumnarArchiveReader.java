@@ -0,0 +1,151 @@
+package org.example.temperaturecontrolsystem.archive;
+
+import org.example.temperaturecontrolsystem.entity.SchedulerBoardRecord;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.function.Consumer;
+
+/**
+ * 列式归档文件的只读访问，通过内存映射扫描，格式见 {@link ColumnarArchiveWriter}。
+ * <p>
+ * 实例不可变、线程安全：每次扫描都在映射缓冲区的 duplicate 上进行。
+ */
+public class ColumnarArchiveReader {
+
+    private final Path file;
+    private final MappedByteBuffer mapped;
+    private final int[] dictionary;
+    private final long[] blockMinStart;
+    private final long[] blockMaxStart;
+    private final int[] blockRows;
+    private final long[] blockOffset;
+
+    public ColumnarArchiveReader(Path file) throws IOException {
+        this.file = file;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            this.mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        ByteBuffer buf = mapped.duplicate();
+        int limit = buf.limit();
+        if (limit < 20 || buf.getInt(0) != ColumnarArchiveWriter.MAGIC || buf.getInt(limit - 4) != ColumnarArchiveWriter.MAGIC) {
+            throw new IOException("Not a columnar archive file: " + file);
+        }
+        if (buf.getInt(4) != ColumnarArchiveWriter.VERSION) {
+            throw new IOException("Unsupported columnar archive version in " + file);
+        }
+
+        buf.position((int) buf.getLong(limit - 12));
+        dictionary = new int[buf.getInt()];
+        for (int i = 0; i < dictionary.length; i++) {
+            dictionary[i] = buf.getInt();
+        }
+        int blocks = buf.getInt();
+        blockMinStart = new long[blocks];
+        blockMaxStart = new long[blocks];
+        blockRows = new int[blocks];
+        blockOffset = new long[blocks];
+        for (int b = 0; b < blocks; b++) {
+            blockMinStart[b] = buf.getLong();
+            blockMaxStart[b] = buf.getLong();
+            blockRows[b] = buf.getInt();
+            blockOffset[b] = buf.getLong();
+            buf.getInt(); // block length，顺序解码时用不到
+        }
+    }
+
+    public Path file() {
+        return file;
+    }
+
+    /**
+     * 扫描 start_time 落在 [startTime, endTime] 内的记录。
+     *
+     * @param roomId 为 null 时扫描所有房间；不为 null 时先查字典，房间不在本文件中则直接返回
+     */
+    public void scan(Integer roomId, LocalDateTime startTime, LocalDateTime endTime, Consumer<SchedulerBoardRecord> consumer) {
+        long from = startTime.toEpochSecond(ZoneOffset.UTC);
+        long to = endTime.toEpochSecond(ZoneOffset.UTC);
+        int roomIndex = -1;
+        if (roomId != null) {
+            for (int i = 0; i < dictionary.length; i++) {
+                if (dictionary[i] == roomId) {
+                    roomIndex = i;
+                    break;
+                }
+            }
+            if (roomIndex < 0) {
+                return;
+            }
+        }
+
+        ByteBuffer buf = mapped.duplicate();
+        for (int b = 0; b < blockRows.length; b++) {
+            if (blockMaxStart[b] < from || blockMinStart[b] > to) {
+                continue;
+            }
+            scanBlock(buf, b, roomIndex, from, to, consumer);
+        }
+    }
+
+    private void scanBlock(ByteBuffer buf, int block, int roomIndex, long from, long to, Consumer<SchedulerBoardRecord> consumer) {
+        int n = blockRows[block];
+        long[] starts = new long[n];
+        long[] ends = new long[n];
+        long[] durations = new long[n];
+        int[] rooms = new int[n];
+        byte[] speeds = new byte[n];
+
+        buf.position((int) blockOffset[block]);
+        starts[0] = buf.getLong();
+        for (int i = 1; i < n; i++) {
+            starts[i] = starts[i - 1] + unzigzag(readVarLong(buf));
+        }
+        for (int i = 0; i < n; i++) {
+            ends[i] = starts[i] + unzigzag(readVarLong(buf));
+        }
+        for (int i = 0; i < n; i++) {
+            durations[i] = unzigzag(readVarLong(buf));
+        }
+        for (int i = 0; i < n; i++) {
+            rooms[i] = (int) readVarLong(buf);
+        }
+        buf.get(speeds);
+        for (int i = 0; i < n; i++) {
+            long cost = unzigzag(readVarLong(buf));
+            if (starts[i] < from || starts[i] > to || (roomIndex >= 0 && rooms[i] != roomIndex)) {
+                continue;
+            }
+            consumer.accept(new SchedulerBoardRecord(
+                    dictionary[rooms[i]],
+                    LocalDateTime.ofEpochSecond(starts[i], 0, ZoneOffset.UTC),
+                    LocalDateTime.ofEpochSecond(ends[i], 0, ZoneOffset.UTC),
+                    durations[i],
+                    (int) speeds[i],
+                    ColumnarArchiveWriter.costOf(cost)));
+        }
+    }
+
+    private static long readVarLong(ByteBuffer buf) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buf.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
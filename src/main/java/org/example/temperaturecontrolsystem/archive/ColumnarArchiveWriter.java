@@ -0,0 +1,188 @@
+package org.example.temperaturecontrolsystem.archive;
+
+import org.example.temperaturecontrolsystem.entity.SchedulerBoardRecord;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 计费记录的列式归档文件写入器。
+ * <p>
+ * 文件布局（所有整数大端）：
+ * <pre>
+ * [magic int][version int]
+ * block 0 .. block n-1
+ * footer: [dictSize int][roomId int * dictSize]
+ *         [blockCount int]([minStart long][maxStart long][rows int][offset long][length int]) * blockCount
+ * trailer: [footerOffset long][magic int]
+ * </pre>
+ * 每个 block 最多 {@link #BLOCK_ROWS} 行，各列依次存放：
+ * <ul>
+ *     <li>start_time：第一行为绝对 epoch 秒（8 字节），之后为与上一行差值的 zigzag varint；</li>
+ *     <li>end_time：与本行 start_time 的差值 varint；</li>
+ *     <li>duration_seconds：varint；</li>
+ *     <li>room_id：字典下标 varint；</li>
+ *     <li>speed：1 字节；</li>
+ *     <li>cost：按 {@link #COST_SCALE} 位小数的定点整数，zigzag varint。</li>
+ * </ul>
+ * 行按 start_time 升序写入时时间差最小、压缩效果最好，footer 中的 min/max 用来跳过不相关的 block。
+ * <p>
+ * 时间只保存到秒（按 UTC 换算 epoch 秒，不涉及时区），秒以下的部分写入时截掉，与 MySQL 中 DATETIME 列的精度相同；
+ * {@link ColumnarArchiveReader#scan} 的查询范围同样按秒比较。cost 超过 {@link #COST_SCALE} 位的小数四舍五入。
+ */
+public class ColumnarArchiveWriter implements AutoCloseable {
+
+    static final int MAGIC = 0x54435343; // "TCSC"
+    static final int VERSION = 1;
+    static final int BLOCK_ROWS = 4096;
+    static final int COST_SCALE = 6;
+
+    private final Path tmp;
+    private final Path target;
+    private final DataOutputStream out;
+
+    private final Map<Integer, Integer> dictionary = new HashMap<>();
+    private final List<Integer> dictionaryValues = new ArrayList<>();
+    private final List<long[]> blockIndex = new ArrayList<>();
+
+    private final long[] starts = new long[BLOCK_ROWS];
+    private final long[] ends = new long[BLOCK_ROWS];
+    private final long[] durations = new long[BLOCK_ROWS];
+    private final int[] rooms = new int[BLOCK_ROWS];
+    private final byte[] speeds = new byte[BLOCK_ROWS];
+    private final long[] costs = new long[BLOCK_ROWS];
+    private int buffered;
+
+    private long position;
+    private long rows;
+    private boolean committed;
+
+    ColumnarArchiveWriter(Path tmp, Path target) throws IOException {
+        this.tmp = tmp;
+        this.target = target;
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 64 * 1024));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        position = 8;
+    }
+
+    public void append(SchedulerBoardRecord record) throws IOException {
+        int i = buffered;
+        starts[i] = record.getStartTime().toEpochSecond(ZoneOffset.UTC);
+        ends[i] = record.getEndTime().toEpochSecond(ZoneOffset.UTC);
+        durations[i] = record.getDurationSeconds();
+        rooms[i] = dictionary.computeIfAbsent(record.getRoomId(), id -> {
+            dictionaryValues.add(id);
+            return dictionaryValues.size() - 1;
+        });
+        speeds[i] = record.getSpeed().byteValue();
+        costs[i] = record.getCost().setScale(COST_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        buffered++;
+        rows++;
+        if (buffered == BLOCK_ROWS) {
+            flushBlock();
+        }
+    }
+
+    public long rows() {
+        return rows;
+    }
+
+    public void commit() throws IOException {
+        flushBlock();
+
+        long footerOffset = position;
+        out.writeInt(dictionaryValues.size());
+        for (int roomId : dictionaryValues) {
+            out.writeInt(roomId);
+        }
+        out.writeInt(blockIndex.size());
+        for (long[] entry : blockIndex) {
+            out.writeLong(entry[0]);
+            out.writeLong(entry[1]);
+            out.writeInt((int) entry[2]);
+            out.writeLong(entry[3]);
+            out.writeInt((int) entry[4]);
+        }
+        out.writeLong(footerOffset);
+        out.writeInt(MAGIC);
+        out.close();
+
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        committed = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!committed) {
+            out.close();
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private void flushBlock() throws IOException {
+        int n = buffered;
+        if (n == 0) {
+            return;
+        }
+        long minStart = Long.MAX_VALUE;
+        long maxStart = Long.MIN_VALUE;
+        for (int i = 0; i < n; i++) {
+            minStart = Math.min(minStart, starts[i]);
+            maxStart = Math.max(maxStart, starts[i]);
+        }
+
+        long blockOffset = position;
+        int before = out.size();
+
+        out.writeLong(starts[0]);
+        for (int i = 1; i < n; i++) {
+            writeVarLong(zigzag(starts[i] - starts[i - 1]));
+        }
+        for (int i = 0; i < n; i++) {
+            writeVarLong(zigzag(ends[i] - starts[i]));
+        }
+        for (int i = 0; i < n; i++) {
+            writeVarLong(zigzag(durations[i]));
+        }
+        for (int i = 0; i < n; i++) {
+            writeVarLong(rooms[i]);
+        }
+        out.write(speeds, 0, n);
+        for (int i = 0; i < n; i++) {
+            writeVarLong(zigzag(costs[i]));
+        }
+
+        int length = out.size() - before;
+        position += length;
+        blockIndex.add(new long[]{minStart, maxStart, n, blockOffset, length});
+        buffered = 0;
+    }
+
+    private void writeVarLong(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static BigDecimal costOf(long unscaled) {
+        return BigDecimal.valueOf(unscaled, COST_SCALE);
+    }
+}
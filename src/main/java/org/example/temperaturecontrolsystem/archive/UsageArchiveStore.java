@@ -0,0 +1,190 @@
+package org.example.temperaturecontrolsystem.archive;
+
+import org.example.temperaturecontrolsystem.entity.OpRecord;
+import org.example.temperaturecontrolsystem.entity.SchedulerBoardRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 冷数据归档文件。
+ * <p>
+ * 每张表每个月一个文件：scheduler_board 使用列式格式 {@code <dir>/scheduler_board/scheduler_board-yyyy-MM.col}
+ * （见 {@link ColumnarArchiveWriter}），op_records 使用 gzip 压缩的制表符分隔文件 {@code <table>-yyyy-MM.tsv.gz}。
+ * 分区轮转任务在删除某个月的分区之前先写出这个文件。scheduler_board 的归档由报表查询继续读取；
+ * 应用里没有读取 op_records 的接口，它的归档只作留存，需要时离线解压查看。
+ */
+@Component
+public class UsageArchiveStore {
+
+    public static final String SCHEDULER_BOARD = "scheduler_board";
+    public static final String OP_RECORDS = "op_records";
+
+    private static final String SUFFIX = ".tsv.gz";
+    private static final String COLUMNAR_SUFFIX = ".col";
+
+    private final Path baseDir;
+    private final Map<Path, ColumnarArchiveReader> readers = new ConcurrentHashMap<>();
+
+    public UsageArchiveStore(@Value("${archive.dir:data/archive}") String baseDir) {
+        this.baseDir = Path.of(baseDir);
+    }
+
+    /**
+     * 开始写 scheduler_board 某个月的列式归档。调用方按 start_time 升序 append，最后 commit。
+     */
+    public ColumnarArchiveWriter openSchedulerBoardMonth(YearMonth month) throws IOException {
+        Path dir = baseDir.resolve(SCHEDULER_BOARD);
+        Files.createDirectories(dir);
+        Path target = dir.resolve(SCHEDULER_BOARD + "-" + month + COLUMNAR_SUFFIX);
+        readers.remove(target);
+        return new ColumnarArchiveWriter(dir.resolve(target.getFileName() + ".tmp"), target);
+    }
+
+    /**
+     * 开始写 op_records 某个月的归档。调用方逐行 append，最后 commit；commit 之前文件对读者不可见。
+     */
+    public MonthWriter openOpRecordsMonth(YearMonth month) throws IOException {
+        Path dir = baseDir.resolve(OP_RECORDS);
+        Files.createDirectories(dir);
+        Path target = dir.resolve(OP_RECORDS + "-" + month + SUFFIX);
+        return new MonthWriter(dir.resolve(target.getFileName() + ".tmp"), target);
+    }
+
+    /**
+     * @return 已归档的最后一个月的下一个月的第一天；没有任何归档时返回 null。
+     *         早于这个时间的 scheduler_board 数据只存在于归档文件中。
+     */
+    public LocalDateTime archivedBefore() {
+        List<YearMonth> months = archivedMonths(SCHEDULER_BOARD);
+        if (months.isEmpty()) {
+            return null;
+        }
+        return months.get(months.size() - 1).plusMonths(1).atDay(1).atStartOfDay();
+    }
+
+    public List<YearMonth> archivedMonths(String table) {
+        Path dir = baseDir.resolve(table);
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        String prefix = table + "-";
+        String suffix = SCHEDULER_BOARD.equals(table) ? COLUMNAR_SUFFIX : SUFFIX;
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(p -> p.getFileName().toString())
+                    .filter(name -> name.startsWith(prefix) && name.endsWith(suffix))
+                    .map(name -> YearMonth.parse(name.substring(prefix.length(), name.length() - suffix.length())))
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 读取 start_time 落在 [startTime, endTime] 内的归档计费记录。
+     *
+     * @param roomId 为 null 时读取所有房间
+     */
+    public List<SchedulerBoardRecord> readSchedulerBoard(Integer roomId, LocalDateTime startTime, LocalDateTime endTime) {
+        List<SchedulerBoardRecord> result = new ArrayList<>();
+        for (YearMonth month : monthsOverlapping(SCHEDULER_BOARD, startTime, endTime)) {
+            Path columnar = baseDir.resolve(SCHEDULER_BOARD).resolve(SCHEDULER_BOARD + "-" + month + COLUMNAR_SUFFIX);
+            columnarReader(columnar).scan(roomId, startTime, endTime, result::add);
+        }
+        result.sort(Comparator.comparing(SchedulerBoardRecord::getRoomId).thenComparing(SchedulerBoardRecord::getStartTime));
+        return result;
+    }
+
+    private ColumnarArchiveReader columnarReader(Path file) {
+        return readers.computeIfAbsent(file, f -> {
+            try {
+                return new ColumnarArchiveReader(f);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to open archive " + f, e);
+            }
+        });
+    }
+
+    private List<YearMonth> monthsOverlapping(String table, LocalDateTime startTime, LocalDateTime endTime) {
+        YearMonth first = YearMonth.from(startTime);
+        YearMonth last = YearMonth.from(endTime);
+        return archivedMonths(table).stream()
+                .filter(m -> !m.isBefore(first) && !m.isAfter(last))
+                .toList();
+    }
+
+    /**
+     * 单个月归档文件的写入器。先写临时文件，commit 时原子改名，保证读者不会看到写了一半的文件。
+     */
+    public static class MonthWriter implements AutoCloseable {
+        private final Path tmp;
+        private final Path target;
+        private final Writer writer;
+        private boolean committed;
+        private long rows;
+
+        private MonthWriter(Path tmp, Path target) throws IOException {
+            this.tmp = tmp;
+            this.target = target;
+            this.writer = new BufferedWriter(new OutputStreamWriter(
+                    new GZIPOutputStream(Files.newOutputStream(tmp)), StandardCharsets.UTF_8));
+        }
+
+        public void append(OpRecord record) throws IOException {
+            writeRow(record.getRoomId(), record.getOpTime(), record.getOpType(),
+                    sanitize(record.getOldState()), sanitize(record.getNewState()));
+        }
+
+        public long rows() {
+            return rows;
+        }
+
+        public void commit() throws IOException {
+            writer.close();
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            committed = true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!committed) {
+                writer.close();
+                Files.deleteIfExists(tmp);
+            }
+        }
+
+        private void writeRow(Object... columns) throws IOException {
+            for (int i = 0; i < columns.length; i++) {
+                if (i > 0) {
+                    writer.write('\t');
+                }
+                writer.write(String.valueOf(columns[i]));
+            }
+            writer.write('\n');
+            rows++;
+        }
+
+        private static String sanitize(String value) {
+            return value == null ? "" : value.replace('\t', ' ').replace('\n', ' ');
+        }
+    }
+}
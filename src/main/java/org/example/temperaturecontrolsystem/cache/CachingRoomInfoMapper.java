@@ -0,0 +1,275 @@
+package org.example.temperaturecontrolsystem.cache;
+
+import org.example.temperaturecontrolsystem.dto.RoomStateCounts;
+import org.example.temperaturecontrolsystem.dto.TemperatureReading;
+import org.example.temperaturecontrolsystem.entity.OpRecord;
+import org.example.temperaturecontrolsystem.entity.RoomInfo;
+import org.example.temperaturecontrolsystem.event.RoomStateChangedEvent;
+import org.example.temperaturecontrolsystem.mapper.RoomInfoMapper;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * 带缓存的 {@link RoomInfoMapper}。
+ * <p>
+ * 作为 @Primary 注入到所有使用 RoomInfoMapper 的地方：读操作优先走 {@link RoomInfoCache}，
+ * 写操作先写数据库，影响行数大于 0 时再把同样的变化应用到缓存。
+ * 每次真正改变了房间状态的写入都会发布 {@link RoomStateChangedEvent}。
+ * <p>
+ * 事务中的写入同样立即应用到缓存，不等提交，缓存的隔离级别相当于读未提交：
+ * <ul>
+ *     <li>同一事务之后的读能读到自己的写（例如入住后立即查询房间状态）；</li>
+ *     <li>其他线程在提交之前也会从缓存读到这些值，包括之后回滚的值。事务回滚时淘汰对应条目，
+ *     下一次读取从数据库加载已提交的值，脏读只存在于事务进行期间；</li>
+ *     <li>需要只依据已提交状态行动的地方不能依赖缓存的读：调度器消息由 SchedulerDispatcher 在提交后投递，
+ *     房间状态事件的监听器是 @TransactionalEventListener，在提交后处理。</li>
+ * </ul>
+ */
+@Primary
+@Component
+public class CachingRoomInfoMapper implements RoomInfoMapper {
+
+    private final RoomInfoMapper delegate;
+    private final RoomInfoCache cache;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public CachingRoomInfoMapper(@Qualifier("roomInfoMapper") RoomInfoMapper delegate, RoomInfoCache cache,
+                                 ApplicationEventPublisher eventPublisher) {
+        this.delegate = delegate;
+        this.cache = cache;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            cache.persistUnpersisted();
+            List<RoomInfo> rooms = delegate.findAll();
+            cache.warm(rooms);
+            System.out.println("Room info cache warmed with " + rooms.size() + " room(s).");
+        } catch (Exception e) {
+            System.err.println("Room info cache warm-up failed, falling back to lazy loading: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void insertForCheckIn(RoomInfo roomInfo) {
+        delegate.insertForCheckIn(roomInfo);
+
+        // 与 INSERT 语句中的默认值保持一致
+        RoomInfo inserted = RoomInfoCache.copy(roomInfo);
+        inserted.setCheckoutTime(null);
+        inserted.setState(1);
+        inserted.setAcState(0);
+        inserted.setCurrentSpeed("medium");
+        inserted.setCurrentTempera(25.0);
+        inserted.setTargetTempera(25.0);
+        publish(roomInfo.getRoomId(), cache.put(inserted));
+        evictOnRollback(roomInfo.getRoomId());
+    }
+
+    @Override
+    public int updateForCheckIn(RoomInfo roomInfo) {
+        return applied(roomInfo.getRoomId(), delegate.updateForCheckIn(roomInfo), room -> {
+            room.setClientId(roomInfo.getClientId());
+            room.setClientName(roomInfo.getClientName());
+            room.setCheckinTime(roomInfo.getCheckinTime());
+            room.setCheckoutTime(null);
+            room.setState(1);
+            room.setCurrentSpeed("medium");
+            room.setTargetTempera(25.0);
+        });
+    }
+
+    @Override
+    public int updateForCheckOut(int roomNumber, LocalDateTime checkoutTime) {
+        return applied(roomNumber, delegate.updateForCheckOut(roomNumber, checkoutTime), room -> {
+            room.setCheckoutTime(checkoutTime);
+            room.setState(0);
+        });
+    }
+
+    @Override
+    public Optional<RoomInfo> findById(int roomNumber) {
+        return cache.get(roomNumber, () -> delegate.findById(roomNumber));
+    }
+
+    @Override
+    public List<RoomInfo> findAll() {
+        return cache.getAll(delegate::findAll);
+    }
+
+    @Override
+    public int updateState(int roomNumber, int state) {
+        return applied(roomNumber, delegate.updateState(roomNumber, state), room -> room.setState(state));
+    }
+
+    @Override
+    public int updateAcStateIfEquals(int roomNumber, int newState) {
+        return applied(roomNumber, delegate.updateAcStateIfEquals(roomNumber, newState), room -> room.setAcState(newState));
+    }
+
+    @Override
+    public int updateSpeed(int roomNumber, String speed) {
+        return applied(roomNumber, delegate.updateSpeed(roomNumber, speed), room -> room.setCurrentSpeed(speed));
+    }
+
+    @Override
+    public int updateCurrentTemperature(int roomNumber, double temperature) {
+        return applied(roomNumber, delegate.updateCurrentTemperature(roomNumber, temperature),
+                room -> room.setCurrentTempera(temperature));
+    }
+
+    /**
+     * 语句只返回总行数，因此调用方需要事先确认所有房间都存在；每个房间分别应用到缓存并发布事件。
+     */
+    @Override
+    public int updateCurrentTemperatures(List<TemperatureReading> readings) {
+        int updatedRows = delegate.updateCurrentTemperatures(readings);
+        if (updatedRows > 0) {
+            for (TemperatureReading reading : readings) {
+                double temperature = reading.getTemperature();
+                applied(reading.getRoomId(), 1, room -> room.setCurrentTempera(temperature));
+            }
+        }
+        return updatedRows;
+    }
+
+    @Override
+    public int updateTargetTemperature(int roomNumber, double targetTemperature) {
+        return applied(roomNumber, delegate.updateTargetTemperature(roomNumber, targetTemperature),
+                room -> room.setTargetTempera(targetTemperature));
+    }
+
+    @Override
+    public int updateAcState(int roomId, int acState) {
+        return applied(roomId, delegate.updateAcState(roomId, acState), room -> room.setAcState(acState));
+    }
+
+    /**
+     * 与 updateCurrentTemperatures 相同，调用方需要事先确认所有房间都存在。
+     */
+    @Override
+    public int updateAcStates(List<Integer> roomIds, int acState) {
+        int updatedRows = delegate.updateAcStates(roomIds, acState);
+        if (updatedRows > 0) {
+            for (Integer roomId : roomIds) {
+                applied(roomId, 1, room -> {
+                    room.setAcState(acState);
+                    if (acState == 0) {
+                        room.setCurrentSpeed("medium");
+                    }
+                });
+            }
+        }
+        return updatedRows;
+    }
+
+    @Override
+    public int updateSpeeds(List<Integer> roomIds, String speed) {
+        int updatedRows = delegate.updateSpeeds(roomIds, speed);
+        if (updatedRows > 0) {
+            for (Integer roomId : roomIds) {
+                applied(roomId, 1, room -> room.setCurrentSpeed(speed));
+            }
+        }
+        return updatedRows;
+    }
+
+    @Override
+    public int updateTargetTemperatures(List<Integer> roomIds, double targetTemperature) {
+        int updatedRows = delegate.updateTargetTemperatures(roomIds, targetTemperature);
+        if (updatedRows > 0) {
+            for (Integer roomId : roomIds) {
+                applied(roomId, 1, room -> room.setTargetTempera(targetTemperature));
+            }
+        }
+        return updatedRows;
+    }
+
+    @Override
+    public OpRecord turnAcOnLogged(int roomId, LocalDateTime opTime) {
+        return logged(roomId, delegate.turnAcOnLogged(roomId, opTime), room -> room.setAcState(1));
+    }
+
+    @Override
+    public OpRecord turnAcOffLogged(int roomId, LocalDateTime opTime) {
+        return logged(roomId, delegate.turnAcOffLogged(roomId, opTime), room -> {
+            room.setAcState(0);
+            room.setCurrentSpeed("medium");
+        });
+    }
+
+    @Override
+    public OpRecord updateSpeedLogged(int roomId, String speed, LocalDateTime opTime) {
+        return logged(roomId, delegate.updateSpeedLogged(roomId, speed, opTime), room -> room.setCurrentSpeed(speed));
+    }
+
+    @Override
+    public OpRecord updateTargetTemperatureLogged(int roomId, double targetTemperature, String newState, LocalDateTime opTime) {
+        return logged(roomId, delegate.updateTargetTemperatureLogged(roomId, targetTemperature, newState, opTime),
+                room -> room.setTargetTempera(targetTemperature));
+    }
+
+    @Override
+    public List<Integer> findAllActiveAcRoomIds() {
+        return findAll().stream()
+                .filter(room -> room.getAcState() != null && room.getAcState() != 0)
+                .map(RoomInfo::getRoomId)
+                .toList();
+    }
+
+    /**
+     * 计数用于校对内存中的计数器，始终查询数据库。
+     */
+    @Override
+    public RoomStateCounts countRoomStates() {
+        return delegate.countRoomStates();
+    }
+
+    private int applied(int roomId, int updatedRows, Consumer<RoomInfo> mutation) {
+        if (updatedRows > 0) {
+            publish(roomId, cache.applyWrite(roomId, mutation));
+            evictOnRollback(roomId);
+        }
+        return updatedRows;
+    }
+
+    private OpRecord logged(int roomId, OpRecord record, Consumer<RoomInfo> mutation) {
+        applied(roomId, record != null ? 1 : 0, mutation);
+        return record;
+    }
+
+    private void publish(int roomId, RoomInfoCache.Change change) {
+        if (change.after() != null && change.after().equals(change.before())) {
+            // 写入的值与原值相同（例如调度器重复设置 ac_state），不算一次状态变化
+            return;
+        }
+        eventPublisher.publishEvent(new RoomStateChangedEvent(roomId, change.before(), change.after()));
+    }
+
+    private void evictOnRollback(int roomId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    cache.invalidate(roomId);
+                }
+            }
+        });
+    }
+}
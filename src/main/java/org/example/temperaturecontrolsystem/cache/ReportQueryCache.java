@@ -0,0 +1,240 @@
+package org.example.temperaturecontrolsystem.cache;
+
+import org.example.temperaturecontrolsystem.entity.SchedulerBoardRecord;
+import org.example.temperaturecontrolsystem.event.BillingSettledEvent;
+import org.example.temperaturecontrolsystem.event.SchedulerBoardCompactedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 报表查询结果缓存（LRU，容量有界）。
+ * <p>
+ * 条目数和全部条目的记录总数都有上限，超出任一上限时淘汰最久未用的条目；一年的范围查询这类记录数超过
+ * report.cache.max-entry-records 的结果直接返回，不进缓存。
+ * <p>
+ * 失效是精确的：房间 R 在时间 T 产生一条新的计费记录时，只淘汰
+ * “房间 R 的全部记录”和时间范围覆盖 T 的“使用报表”两类条目，其它条目继续命中。
+ */
+@Component
+public class ReportQueryCache {
+
+    public enum QueryType { ROOM, RANGE }
+
+    public record Key(QueryType type, Integer roomId, LocalDateTime startTime, LocalDateTime endTime) {
+
+        public static Key room(int roomId) {
+            return new Key(QueryType.ROOM, roomId, null, null);
+        }
+
+        public static Key range(LocalDateTime startTime, LocalDateTime endTime) {
+            return new Key(QueryType.RANGE, null, startTime, endTime);
+        }
+
+        /**
+         * @return 房间 roomId 在 [from, to] 内的记录变化是否会影响这个查询的结果
+         */
+        boolean affectedBy(int roomId, LocalDateTime from, LocalDateTime to) {
+            if (type == QueryType.ROOM) {
+                return this.roomId == roomId;
+            }
+            return !to.isBefore(startTime) && !from.isAfter(endTime);
+        }
+    }
+
+    private final int maxEntries;
+    private final long maxRecords;
+    private final int maxEntryRecords;
+    private final LinkedHashMap<Key, List<SchedulerBoardRecord>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * 全部条目的记录总数。只在持有 entries 的锁时访问。
+     */
+    private long records;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder oversized = new LongAdder();
+
+    /**
+     * 每次失效都会递增。查询开始前记下它，结果回填时如果已经变化，说明查询期间可能有新的结算，放弃回填。
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * 最近的失效记录，供读副本的查询判断能否回填。超过 RECENT_INVALIDATIONS 条时丢弃最早的，
+     * 被丢弃的最后一条的时刻记在 recentOverflowNanos 中，查询的回看窗口覆盖到它时一律不回填。
+     */
+    private record Invalidation(long nanos, Integer roomId, LocalDateTime from, LocalDateTime to) {
+        boolean affects(Key key) {
+            return roomId == null || key.affectedBy(roomId, from, to);
+        }
+    }
+
+    private static final int RECENT_INVALIDATIONS = 4096;
+    private final Deque<Invalidation> recentInvalidations = new ArrayDeque<>();
+    private long recentOverflowNanos = System.nanoTime();
+
+    public ReportQueryCache(@Value("${report.cache.max-entries:256}") int maxEntries,
+                            @Value("${report.cache.max-records:200000}") long maxRecords,
+                            @Value("${report.cache.max-entry-records:20000}") int maxEntryRecords) {
+        this.maxEntries = maxEntries;
+        this.maxRecords = maxRecords;
+        this.maxEntryRecords = maxEntryRecords;
+    }
+
+    public List<SchedulerBoardRecord> get(Key key, Supplier<List<SchedulerBoardRecord>> loader) {
+        return get(key, loader, Duration.ZERO);
+    }
+
+    /**
+     * loader 读的数据可能落后最多 maxStaleness（只读副本）时使用：查询开始前这段时间内发生过影响这个查询的失效，
+     * 读到的结果可能还不包含那次结算，同样放弃回填。
+     */
+    public List<SchedulerBoardRecord> get(Key key, Supplier<List<SchedulerBoardRecord>> loader, Duration maxStaleness) {
+        synchronized (entries) {
+            List<SchedulerBoardRecord> cached = entries.get(key);
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+        }
+        misses.increment();
+
+        long before = generation.get();
+        long startNanos = System.nanoTime();
+        List<SchedulerBoardRecord> loaded = List.copyOf(loader.get());
+        if (loaded.size() > maxEntryRecords) {
+            oversized.increment();
+            return loaded;
+        }
+        synchronized (entries) {
+            if (generation.get() == before && !invalidatedWithin(key, startNanos - maxStaleness.toNanos())) {
+                put(key, loaded);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * 调用方持有 entries 的锁。
+     */
+    private void put(Key key, List<SchedulerBoardRecord> loaded) {
+        List<SchedulerBoardRecord> previous = entries.put(key, loaded);
+        records += loaded.size() - (previous == null ? 0 : previous.size());
+        Iterator<Map.Entry<Key, List<SchedulerBoardRecord>>> it = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || records > maxRecords) && it.hasNext()) {
+            Map.Entry<Key, List<SchedulerBoardRecord>> eldest = it.next();
+            if (eldest.getKey().equals(key)) {
+                continue;
+            }
+            records -= eldest.getValue().size();
+            it.remove();
+            evictions.increment();
+        }
+    }
+
+    @EventListener
+    public void onBillingSettled(BillingSettledEvent event) {
+        SchedulerBoardRecord record = event.record();
+        invalidate(record.getRoomId(), record.getStartTime(), record.getStartTime());
+    }
+
+    @EventListener
+    public void onCompacted(SchedulerBoardCompactedEvent event) {
+        invalidate(event.roomId(), event.from(), event.before());
+    }
+
+    public void invalidate(int roomId, LocalDateTime from, LocalDateTime to) {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            remember(new Invalidation(System.nanoTime(), roomId, from, to));
+            Iterator<Map.Entry<Key, List<SchedulerBoardRecord>>> it = entries.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Key, List<SchedulerBoardRecord>> entry = it.next();
+                if (entry.getKey().affectedBy(roomId, from, to)) {
+                    records -= entry.getValue().size();
+                    it.remove();
+                    invalidations.increment();
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            remember(new Invalidation(System.nanoTime(), null, null, null));
+            invalidations.add(entries.size());
+            entries.clear();
+            records = 0;
+        }
+    }
+
+    /**
+     * 调用方持有 entries 的锁。
+     */
+    private void remember(Invalidation invalidation) {
+        if (recentInvalidations.size() == RECENT_INVALIDATIONS) {
+            recentOverflowNanos = recentInvalidations.removeFirst().nanos();
+        }
+        recentInvalidations.addLast(invalidation);
+    }
+
+    /**
+     * 调用方持有 entries 的锁。sinceNanos 之后是否有影响 key 的失效。
+     */
+    private boolean invalidatedWithin(Key key, long sinceNanos) {
+        if (recentOverflowNanos - sinceNanos > 0) {
+            return true;
+        }
+        Iterator<Invalidation> it = recentInvalidations.descendingIterator();
+        while (it.hasNext()) {
+            Invalidation invalidation = it.next();
+            if (invalidation.nanos() - sinceNanos <= 0) {
+                break;
+            }
+            if (invalidation.affects(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public Map<String, Object> stats() {
+        long h = hits.sum();
+        long m = misses.sum();
+        int size;
+        long weight;
+        synchronized (entries) {
+            size = entries.size();
+            weight = records;
+        }
+        return Map.ofEntries(
+                Map.entry("size", size),
+                Map.entry("maxEntries", maxEntries),
+                Map.entry("records", weight),
+                Map.entry("maxRecords", maxRecords),
+                Map.entry("maxEntryRecords", maxEntryRecords),
+                Map.entry("oversized", oversized.sum()),
+                Map.entry("hits", h),
+                Map.entry("misses", m),
+                Map.entry("hitRate", h + m == 0 ? 0.0 : (double) h / (h + m)),
+                Map.entry("evictions", evictions.sum()),
+                Map.entry("invalidations", invalidations.sum()));
+    }
+}
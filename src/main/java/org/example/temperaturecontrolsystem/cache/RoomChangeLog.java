@@ -0,0 +1,98 @@
+package org.example.temperaturecontrolsystem.cache;
+
+import org.example.temperaturecontrolsystem.event.RoomStateChangedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 房间状态的变更日志。
+ * <p>
+ * 每次房间状态变化（事务提交后）分配一个单调递增的版本号，内存中只保留最近 room.changes.retention 条。
+ * 客户端带上上一次拿到的版本号来取增量；版本号早于保留范围时只能让客户端全量重同步。
+ * 版本号从启动时刻（微秒）开始编号，服务重启前拿到的版本号一定小于本次启动的起点，
+ * 会被当作过旧的版本要求全量重同步，不会和本次启动后的版本号混在一起。
+ * 日志只记录“哪个房间在哪个版本变了”，房间的最新状态在查询时从房间缓存读取。
+ */
+@Component
+public class RoomChangeLog {
+
+    private record Change(long version, int roomId) {
+    }
+
+    /**
+     * 增量查询结果：snapshotVersion 是查询时的最新版本，fullResync 为 true 时 roomIds 没有意义。
+     */
+    public record Delta(long snapshotVersion, boolean fullResync, Collection<Integer> roomIds) {
+    }
+
+    private final int retention;
+    private final Deque<Change> changes = new ArrayDeque<>();
+    private long version;
+
+    /**
+     * 被挤出日志的最大版本号。since 小于它时，中间的变化已经丢失。
+     */
+    private long truncatedVersion;
+
+    @Autowired
+    public RoomChangeLog(@Value("${room.changes.retention:10000}") int retention) {
+        this(retention, TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis()));
+    }
+
+    /**
+     * firstVersion 之前（含）的版本号都视为已经被挤出日志。
+     */
+    RoomChangeLog(int retention, long firstVersion) {
+        this.retention = retention;
+        this.version = firstVersion;
+        this.truncatedVersion = firstVersion;
+    }
+
+    /**
+     * 在事务提交后记录；不在事务中时立即记录。事务回滚的修改不会出现在日志里。
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRoomStateChanged(RoomStateChangedEvent event) {
+        append(event.roomId());
+    }
+
+    public synchronized long append(int roomId) {
+        version++;
+        changes.addLast(new Change(version, roomId));
+        while (changes.size() > retention) {
+            truncatedVersion = changes.removeFirst().version();
+        }
+        return version;
+    }
+
+    public synchronized long currentVersion() {
+        return version;
+    }
+
+    public synchronized Delta since(long since) {
+        if (since < truncatedVersion || since > version) {
+            // 首次轮询、过旧、服务重启前拿到的版本号，或者不是本服务发出的版本号
+            return new Delta(version, true, Set.of());
+        }
+        Set<Integer> roomIds = new LinkedHashSet<>();
+        Iterator<Change> it = changes.descendingIterator();
+        while (it.hasNext()) {
+            Change change = it.next();
+            if (change.version() <= since) {
+                break;
+            }
+            roomIds.add(change.roomId());
+        }
+        return new Delta(version, false, roomIds);
+    }
+}
@@ -0,0 +1,315 @@
+package org.example.temperaturecontrolsystem.cache;
+
+import org.example.temperaturecontrolsystem.entity.RoomInfo;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * 进程内的房间状态缓存，由 {@link CachingRoomInfoMapper} 维护。
+ * <p>
+ * 缓存中的 RoomInfo 一旦放入就不再修改（写入时整条替换），对外一律返回副本，调用方可以随意修改拿到的对象。
+ * <p>
+ * 两种一致性模式（room.cache.consistency）：
+ * <ul>
+ *     <li>write-through（默认）：写库成功后直接把新值写进缓存，本进程内的读永远能读到自己的写；</li>
+ *     <li>invalidate：写库后只淘汰条目，下一次读从数据库重新加载。</li>
+ * </ul>
+ * room.cache.max-staleness-seconds 大于 0 时，超过该时长未从数据库加载或写入过的条目会被视为过期并重新加载，
+ * 用来兜住绕过本进程直接改库的情况。
+ * <p>
+ * 通过 {@link #applyUnpersisted} 写入、还没落库的条目，在被淘汰或从数据库重新加载之前先交给
+ * {@link #setUnpersistedWriter} 注册的写入方落库，重新加载不会把最新值换回库里的旧值。
+ */
+@Component
+public class RoomInfoCache {
+
+    public enum Consistency { WRITE_THROUGH, INVALIDATE }
+
+    /**
+     * @param unpersisted 条目中可能有 {@link #applyUnpersisted} 写入、还没落库的值
+     */
+    private record Entry(RoomInfo room, long refreshedAtMillis, boolean unpersisted) {
+    }
+
+    /**
+     * 一次写入前后的房间状态（都是副本），任一侧可能为 null。
+     */
+    public record Change(RoomInfo before, RoomInfo after) {
+    }
+
+    private final Consistency consistency;
+    private final long maxStalenessMillis;
+
+    private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+    private volatile boolean complete;
+    private volatile IntConsumer unpersistedWriter = roomId -> { };
+
+    /**
+     * 每次写入或淘汰在修改条目前后各递增一次。从数据库加载前记下它，加载完成时如果已经变化就不回填，避免旧值覆盖新写入；
+     * 修改后的递增保证在修改过程中读到的序号一定会过期。
+     */
+    private final AtomicLong writeSequence = new AtomicLong();
+
+    /**
+     * 缓存内容的版本：条目的值真正变化（包括重新加载读到了不同的值）或被淘汰时递增，值相同的写入和读数不递增。
+     */
+    private final AtomicLong contentVersion = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder staleReloads = new LongAdder();
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public RoomInfoCache(@Value("${room.cache.consistency:write-through}") String consistency,
+                         @Value("${room.cache.max-staleness-seconds:0}") long maxStalenessSeconds) {
+        this.consistency = Consistency.valueOf(consistency.trim().toUpperCase().replace('-', '_'));
+        this.maxStalenessMillis = maxStalenessSeconds * 1000;
+    }
+
+    /**
+     * 注册未落库值的写入方：参数为房间号，返回前应把该房间还没落库的值写进数据库。
+     */
+    public void setUnpersistedWriter(IntConsumer writer) {
+        this.unpersistedWriter = writer;
+    }
+
+    public Optional<RoomInfo> get(int roomId, Supplier<Optional<RoomInfo>> loader) {
+        Entry entry = entries.get(roomId);
+        if (entry != null && !isStale(entry)) {
+            hits.increment();
+            return Optional.of(copy(entry.room()));
+        }
+        if (entry != null) {
+            staleReloads.increment();
+            persistBeforeReload(entry);
+        }
+        misses.increment();
+
+        long sequence = writeSequence.get();
+        Optional<RoomInfo> loaded = loader.get();
+        loaded.ifPresent(room -> {
+            if (writeSequence.get() == sequence) {
+                Entry previous = entries.put(roomId, new Entry(copy(room), System.currentTimeMillis(), false));
+                changed(previous == null ? null : previous.room(), room);
+            }
+        });
+        return loaded.map(RoomInfoCache::copy);
+    }
+
+    /**
+     * @return 缓存已由全表加载且没有过期条目时返回全部房间；否则通过 loader 从数据库读取并整体刷新
+     */
+    public List<RoomInfo> getAll(Supplier<List<RoomInfo>> loader) {
+        if (complete && entries.values().stream().noneMatch(this::isStale)) {
+            hits.increment();
+            List<RoomInfo> rooms = new ArrayList<>(entries.size());
+            for (Entry entry : entries.values()) {
+                rooms.add(copy(entry.room()));
+            }
+            rooms.sort(Comparator.comparing(RoomInfo::getRoomId));
+            return rooms;
+        }
+        misses.increment();
+        persistUnpersisted();
+        long sequence = writeSequence.get();
+        List<RoomInfo> rooms = loader.get();
+        if (writeSequence.get() == sequence) {
+            warm(rooms);
+        }
+        return rooms.stream().map(RoomInfoCache::copy).toList();
+    }
+
+    /**
+     * 用一次全表查询的结果填充缓存。查询前应先调用 {@link #persistUnpersisted}。
+     */
+    public void warm(List<RoomInfo> rooms) {
+        long now = System.currentTimeMillis();
+        for (RoomInfo room : rooms) {
+            Entry previous = entries.put(room.getRoomId(), new Entry(copy(room), now, false));
+            changed(previous == null ? null : previous.room(), room);
+        }
+        complete = true;
+    }
+
+    /**
+     * 把所有带未落库值的条目交给写入方落库，在全表重新加载之前调用。
+     */
+    public void persistUnpersisted() {
+        for (Entry entry : entries.values()) {
+            persistBeforeReload(entry);
+        }
+    }
+
+    /**
+     * 数据库写入成功后调用：write-through 模式下在副本上应用 mutation 并替换条目，invalidate 模式下淘汰条目。
+     * 条目不在缓存中时什么也不做，下一次读取会从数据库加载。
+     */
+    public Change applyWrite(int roomId, Consumer<RoomInfo> mutation) {
+        writes.increment();
+        writeSequence.incrementAndGet();
+        if (consistency == Consistency.INVALIDATE) {
+            return new Change(invalidate(roomId), null);
+        }
+        RoomInfo[] before = new RoomInfo[1];
+        Entry updated = entries.computeIfPresent(roomId, (id, entry) -> {
+            before[0] = entry.room();
+            RoomInfo room = copy(entry.room());
+            mutation.accept(room);
+            return new Entry(room, System.currentTimeMillis(), entry.unpersisted());
+        });
+        if (updated != null) {
+            changed(before[0], updated.room());
+        }
+        writeSequence.incrementAndGet();
+        return new Change(before[0] == null ? null : copy(before[0]), updated == null ? null : copy(updated.room()));
+    }
+
+    /**
+     * 只修改内存中的条目，不经过数据库，也不计入写入次数；用于还没落库的最新温度读数。
+     * 与一致性模式无关，条目不在缓存中时什么也不做。
+     */
+    public Change applyUnpersisted(int roomId, Consumer<RoomInfo> mutation) {
+        writeSequence.incrementAndGet();
+        RoomInfo[] before = new RoomInfo[1];
+        Entry updated = entries.computeIfPresent(roomId, (id, entry) -> {
+            before[0] = entry.room();
+            RoomInfo room = copy(entry.room());
+            mutation.accept(room);
+            return new Entry(room, entry.refreshedAtMillis(), true);
+        });
+        if (updated != null) {
+            changed(before[0], updated.room());
+        }
+        writeSequence.incrementAndGet();
+        return new Change(before[0] == null ? null : copy(before[0]), updated == null ? null : copy(updated.room()));
+    }
+
+    /**
+     * 新插入的房间直接放进缓存。
+     */
+    public Change put(RoomInfo room) {
+        writes.increment();
+        writeSequence.incrementAndGet();
+        if (consistency == Consistency.INVALIDATE) {
+            return new Change(invalidate(room.getRoomId()), null);
+        }
+        Entry previous = entries.put(room.getRoomId(), new Entry(copy(room), System.currentTimeMillis(), false));
+        changed(previous == null ? null : previous.room(), room);
+        writeSequence.incrementAndGet();
+        return new Change(previous == null ? null : copy(previous.room()), copy(room));
+    }
+
+    /**
+     * @return 被淘汰的房间状态副本，条目原本不存在时返回 null
+     */
+    public RoomInfo invalidate(int roomId) {
+        Entry current = entries.get(roomId);
+        if (current != null) {
+            persistBeforeReload(current);
+        }
+        writeSequence.incrementAndGet();
+        Entry removed = entries.remove(roomId);
+        if (removed != null) {
+            invalidations.increment();
+        }
+        // 缺了一条，不能再用缓存回答全表查询；库里的值可能已经变了（invalidate 模式的写入），内容版本一律递增
+        complete = false;
+        contentVersion.incrementAndGet();
+        writeSequence.incrementAndGet();
+        return removed == null ? null : copy(removed.room());
+    }
+
+    /**
+     * 本进程内对房间状态的写入与淘汰计数，值不变说明缓存内容没有被本进程修改过。
+     */
+    public long writeSequence() {
+        return writeSequence.get();
+    }
+
+    /**
+     * 缓存内容的版本，值不变说明从缓存读到的全部房间与上次相同。
+     */
+    public long contentVersion() {
+        return contentVersion.get();
+    }
+
+    /**
+     * @return room.cache.max-staleness-seconds 换算的毫秒数，0 表示条目不会过期
+     */
+    public long maxStalenessMillis() {
+        return maxStalenessMillis;
+    }
+
+    public Map<String, Object> stats() {
+        long h = hits.sum();
+        long m = misses.sum();
+        long now = System.currentTimeMillis();
+        long maxAge = 0;
+        long totalAge = 0;
+        int size = 0;
+        for (Entry entry : entries.values()) {
+            long age = now - entry.refreshedAtMillis();
+            maxAge = Math.max(maxAge, age);
+            totalAge += age;
+            size++;
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("consistency", consistency.name());
+        stats.put("size", size);
+        stats.put("complete", complete);
+        stats.put("hits", h);
+        stats.put("misses", m);
+        stats.put("hitRate", h + m == 0 ? 0.0 : (double) h / (h + m));
+        stats.put("staleReloads", staleReloads.sum());
+        stats.put("writes", writes.sum());
+        stats.put("invalidations", invalidations.sum());
+        stats.put("maxStalenessMillis", maxAge);
+        stats.put("avgStalenessMillis", size == 0 ? 0 : totalAge / size);
+        return stats;
+    }
+
+    private void changed(RoomInfo before, RoomInfo after) {
+        if (!after.equals(before)) {
+            contentVersion.incrementAndGet();
+        }
+    }
+
+    private void persistBeforeReload(Entry entry) {
+        if (entry.unpersisted()) {
+            unpersistedWriter.accept(entry.room().getRoomId());
+        }
+    }
+
+    private boolean isStale(Entry entry) {
+        return maxStalenessMillis > 0 && System.currentTimeMillis() - entry.refreshedAtMillis() > maxStalenessMillis;
+    }
+
+    static RoomInfo copy(RoomInfo source) {
+        RoomInfo room = new RoomInfo();
+        room.setRoomId(source.getRoomId());
+        room.setClientId(source.getClientId());
+        room.setClientName(source.getClientName());
+        room.setCheckinTime(source.getCheckinTime());
+        room.setCheckoutTime(source.getCheckoutTime());
+        room.setState(source.getState());
+        room.setAcState(source.getAcState());
+        room.setCurrentSpeed(source.getCurrentSpeed());
+        room.setCurrentTempera(source.getCurrentTempera());
+        room.setTargetTempera(source.getTargetTempera());
+        return room;
+    }
+}
@@ -0,0 +1,122 @@
+package org.example.temperaturecontrolsystem.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.temperaturecontrolsystem.entity.RoomInfo;
+import org.example.temperaturecontrolsystem.mapper.RoomInfoMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 全部房间状态的预序列化快照，供 GET /api/rooms/status 直接输出。
+ * <p>
+ * 快照以 {@link RoomInfoCache#contentVersion()} 标识：快照里的字段没有变化时一直复用同一份 JSON 字节
+ * （以及 gzip 后的字节），值不变的写入和传感器读数不会让 ETag 失效；变化后由第一个请求重建一次，
+ * 同一秒内的大量请求共享这次序列化。
+ * <p>
+ * 开启了 room.cache.max-staleness-seconds 时，快照超过这个时长后的第一个请求先读一次全部房间，
+ * 让缓存重新加载过期条目；重新加载读到了不同的值（绕过本进程直接改库）时版本号递增，快照随之重建。
+ * ETag 由进程启动时间和版本号组成，服务重启后不会与旧的 ETag 冲突。
+ */
+@Component
+public class RoomSnapshotPublisher {
+
+    /**
+     * @param gzip JSON 较小时不压缩，此时为 null
+     */
+    public record Snapshot(long version, String etag, byte[] json, byte[] gzip) {
+    }
+
+    private final RoomInfoMapper roomInfoMapper;
+    private final RoomInfoCache roomInfoCache;
+    private final ObjectMapper objectMapper;
+    private final int gzipMinBytes;
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    private volatile Snapshot current;
+    private volatile long checkedAtMillis;
+
+    private final LongAdder rebuilds = new LongAdder();
+    private final LongAdder reuses = new LongAdder();
+
+    public RoomSnapshotPublisher(RoomInfoMapper roomInfoMapper,
+                                 RoomInfoCache roomInfoCache,
+                                 ObjectMapper objectMapper,
+                                 @Value("${room.snapshot.gzip-min-bytes:1024}") int gzipMinBytes) {
+        this.roomInfoMapper = roomInfoMapper;
+        this.roomInfoCache = roomInfoCache;
+        this.objectMapper = objectMapper;
+        this.gzipMinBytes = gzipMinBytes;
+    }
+
+    public Snapshot current() {
+        long version = roomInfoCache.contentVersion();
+        Snapshot snapshot = current;
+        if (snapshot != null && snapshot.version() == version && !staleCheckDue()) {
+            reuses.increment();
+            return snapshot;
+        }
+        synchronized (this) {
+            if (staleCheckDue()) {
+                // 过期条目在这次读取中重新加载，内容变化时版本号随之递增
+                roomInfoMapper.findAll();
+                checkedAtMillis = System.currentTimeMillis();
+                version = roomInfoCache.contentVersion();
+            }
+            snapshot = current;
+            if (snapshot != null && snapshot.version() == version) {
+                reuses.increment();
+                return snapshot;
+            }
+            // 先取版本号再读数据：读到的数据只会比版本号新，下一次请求发现版本号变化后会重建
+            snapshot = build(version, roomInfoMapper.findAll());
+            current = snapshot;
+            rebuilds.increment();
+            return snapshot;
+        }
+    }
+
+    private boolean staleCheckDue() {
+        long maxStaleness = roomInfoCache.maxStalenessMillis();
+        return maxStaleness > 0 && System.currentTimeMillis() - checkedAtMillis > maxStaleness;
+    }
+
+    public Map<String, Object> stats() {
+        Snapshot snapshot = current;
+        return Map.of(
+                "version", snapshot == null ? 0 : snapshot.version(),
+                "jsonBytes", snapshot == null ? 0 : snapshot.json().length,
+                "gzipBytes", snapshot == null || snapshot.gzip() == null ? 0 : snapshot.gzip().length,
+                "rebuilds", rebuilds.sum(),
+                "reuses", reuses.sum());
+    }
+
+    private Snapshot build(long version, List<RoomInfo> rooms) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(rooms);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize room snapshot", e);
+        }
+        byte[] gzip = json.length >= gzipMinBytes ? gzip(json) : null;
+        return new Snapshot(version, "\"" + epoch + "-" + version + "\"", json, gzip);
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 64);
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,28 @@
+package org.example.temperaturecontrolsystem.config;
+
+import org.apache.ibatis.mapping.DatabaseIdProvider;
+import org.apache.ibatis.mapping.VendorDatabaseIdProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Properties;
+
+/**
+ * MyBatis 的数据库方言标识。
+ * <p>
+ * 生产环境是 MySQL，测试 / 压测用 MySQL 兼容模式的 H2。个别语句在两者上的写法不同，
+ * 在 mapper 注解里用 databaseId = "mysql" / "h2" 区分；没有标注 databaseId 的语句两边通用。
+ */
+@Configuration
+public class MyBatisConfig {
+
+    @Bean
+    public DatabaseIdProvider databaseIdProvider() {
+        Properties vendors = new Properties();
+        vendors.setProperty("MySQL", "mysql");
+        vendors.setProperty("H2", "h2");
+        VendorDatabaseIdProvider provider = new VendorDatabaseIdProvider();
+        provider.setProperties(vendors);
+        return provider;
+    }
+}
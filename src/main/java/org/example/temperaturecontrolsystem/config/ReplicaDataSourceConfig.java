@@ -0,0 +1,79 @@
+package org.example.temperaturecontrolsystem.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * 配置了 replica.datasource.url 时，主库和只读副本各用一个连接池，对外的 DataSource 按 {@link ReplicaRouter} 路由。
+ * <p>
+ * 主库连接池仍然由 spring.datasource.* 配置；副本的连接池较小，只承担报表和状态查询，
+ * 不会占满主库连接池而拖慢调度器的写入。Flyway、MyBatis 和事务管理器拿到的都是路由数据源，默认走主库。
+ */
+@Configuration
+@ConditionalOnProperty("replica.datasource.url")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public HikariDataSource replicaDataSource(@Value("${replica.datasource.url}") String url,
+                                              @Value("${replica.datasource.username:${spring.datasource.username:}}") String username,
+                                              @Value("${replica.datasource.password:${spring.datasource.password:}}") String password,
+                                              @Value("${replica.datasource.driver-class-name:${spring.datasource.driver-class-name:}}") String driverClassName,
+                                              @Value("${replica.datasource.maximum-pool-size:4}") int maximumPoolSize) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica");
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        if (!driverClassName.isBlank()) {
+            dataSource.setDriverClassName(driverClassName);
+        }
+        dataSource.setMaximumPoolSize(maximumPoolSize);
+        dataSource.setReadOnly(true);
+        // 副本暂时连不上时不影响启动，由延迟探测发现并回退到主库
+        dataSource.setInitializationFailTimeout(-1);
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier("replicaDataSource") DataSource replica,
+                                 ReplicaRouter router) {
+        RoutingDataSource routing = new RoutingDataSource(router);
+        routing.setTargetDataSources(Map.of(ReplicaRouter.Target.PRIMARY, primary, ReplicaRouter.Target.REPLICA, replica));
+        routing.setDefaultTargetDataSource(primary);
+        return routing;
+    }
+
+    private static final class RoutingDataSource extends AbstractRoutingDataSource {
+        private final ReplicaRouter router;
+
+        private RoutingDataSource(ReplicaRouter router) {
+            this.router = router;
+        }
+
+        @Override
+        protected Object determineCurrentLookupKey() {
+            return router.currentTarget();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.example.temperaturecontrolsystem.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 副本复制延迟探测：每隔 replica.lag.check-interval-millis 先从副本读回 replica_heartbeat，
+ * 再把当前时间写入主库的同一行。副本上读到的心跳距今的时间就是延迟（上限为真实延迟加一个探测间隔），
+ * 所以 replica.max-lag-seconds 应大于探测间隔。
+ */
+@Component
+@ConditionalOnProperty("replica.datasource.url")
+public class ReplicaLagMonitor {
+
+    private final JdbcTemplate primary;
+    private final JdbcTemplate replica;
+    private final ReplicaRouter router;
+    private final long intervalMillis;
+
+    private final ScheduledExecutorService probeTicker = Executors.newSingleThreadScheduledExecutor();
+
+    public ReplicaLagMonitor(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                             @Qualifier("replicaDataSource") DataSource replicaDataSource,
+                             ReplicaRouter router,
+                             @Value("${replica.lag.check-interval-millis:1000}") long intervalMillis) {
+        this.primary = new JdbcTemplate(primaryDataSource);
+        this.replica = new JdbcTemplate(replicaDataSource);
+        this.router = router;
+        this.intervalMillis = intervalMillis;
+    }
+
+    @PostConstruct
+    public void start() {
+        router.attach();
+        probeTicker.scheduleWithFixedDelay(this::checkSafely, 0, intervalMillis, TimeUnit.MILLISECONDS);
+        System.out.println("Replica lag probe scheduled every " + intervalMillis + "ms.");
+    }
+
+    @PreDestroy
+    public void stop() {
+        probeTicker.shutdownNow();
+    }
+
+    /**
+     * 立即探测一次并更新路由状态。
+     */
+    public void checkNow() {
+        Long beat = replica.queryForObject("SELECT beat_millis FROM replica_heartbeat WHERE id = 1", Long.class);
+        long now = System.currentTimeMillis();
+        primary.update("UPDATE replica_heartbeat SET beat_millis = ? WHERE id = 1", now);
+        router.lagMeasured(beat == null ? Long.MAX_VALUE : now - beat);
+    }
+
+    private void checkSafely() {
+        try {
+            checkNow();
+        } catch (Exception e) {
+            router.probeFailed(e.getMessage());
+        }
+    }
+}
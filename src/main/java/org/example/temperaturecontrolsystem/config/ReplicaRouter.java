@@ -0,0 +1,130 @@
+package org.example.temperaturecontrolsystem.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 把只读查询路由到只读副本。
+ * <p>
+ * 报表和状态查询用 {@link #read} 包住 mapper 调用：配置了副本（replica.datasource.url）、
+ * 副本的复制延迟不超过 replica.max-lag-seconds 且最近一次探测成功时，这次调用内取得的连接来自副本的连接池，
+ * 否则照常走主库。副本上的查询出错时标记副本不可用并在主库上重试，直到下一次延迟探测成功。
+ * <p>
+ * 已经处在事务中的调用沿用事务的主库连接，不会切换。没有配置副本时 {@link #read} 直接执行。
+ */
+@Component
+public class ReplicaRouter {
+
+    public enum Target { PRIMARY, REPLICA }
+
+    private static final ThreadLocal<Target> CURRENT = new ThreadLocal<>();
+
+    private final Duration maxLag;
+
+    private volatile boolean attached;
+    private volatile boolean usable;
+    private volatile long lagMillis = -1;
+    private volatile String lastProbeError;
+
+    private final LongAdder replicaReads = new LongAdder();
+    private final LongAdder primaryFallbacks = new LongAdder();
+    private final LongAdder replicaFailures = new LongAdder();
+
+    public ReplicaRouter(@Value("${replica.max-lag-seconds:5}") long maxLagSeconds) {
+        this.maxLag = Duration.ofSeconds(maxLagSeconds);
+    }
+
+    public <T> T read(Supplier<T> query) {
+        if (!attached || CURRENT.get() != null || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return query.get();
+        }
+        if (!usable) {
+            primaryFallbacks.increment();
+            return query.get();
+        }
+        CURRENT.set(Target.REPLICA);
+        try {
+            T result = query.get();
+            replicaReads.increment();
+            return result;
+        } catch (DataAccessException e) {
+            replicaFailures.increment();
+            primaryFallbacks.increment();
+            markUnusable("query failed: " + e.getMessage());
+        } finally {
+            CURRENT.remove();
+        }
+        return query.get();
+    }
+
+    /**
+     * 当前线程的查询应该使用的数据源，由路由数据源在取连接时调用。
+     */
+    public Target currentTarget() {
+        Target target = CURRENT.get();
+        return target != null ? target : Target.PRIMARY;
+    }
+
+    /**
+     * 没有配置副本时为 0。副本上读到的数据最多落后这么久，缓存读副本结果时据此判断能否回填。
+     */
+    public Duration maxStaleness() {
+        return attached ? maxLag : Duration.ZERO;
+    }
+
+    public boolean isReplicaUsable() {
+        return attached && usable;
+    }
+
+    void attach() {
+        attached = true;
+    }
+
+    void lagMeasured(long lagMillis) {
+        this.lagMillis = lagMillis;
+        this.lastProbeError = null;
+        boolean withinTolerance = lagMillis <= maxLag.toMillis();
+        if (withinTolerance != usable) {
+            System.out.println(withinTolerance
+                    ? "Replica lag " + lagMillis + "ms is within tolerance, routing reads to the replica."
+                    : "Replica lag " + lagMillis + "ms exceeds " + maxLag.toMillis() + "ms, routing reads to the primary.");
+        }
+        usable = withinTolerance;
+    }
+
+    void probeFailed(String error) {
+        lagMillis = -1;
+        markUnusable("lag probe failed: " + error);
+    }
+
+    private void markUnusable(String reason) {
+        lastProbeError = reason;
+        if (usable) {
+            System.err.println("Replica unavailable (" + reason + "), routing reads to the primary.");
+        }
+        usable = false;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("configured", attached);
+        stats.put("usable", isReplicaUsable());
+        stats.put("lagMillis", lagMillis);
+        stats.put("maxLagMillis", maxLag.toMillis());
+        stats.put("replicaReads", replicaReads.sum());
+        stats.put("primaryFallbacks", primaryFallbacks.sum());
+        stats.put("replicaFailures", replicaFailures.sum());
+        if (lastProbeError != null) {
+            stats.put("lastError", lastProbeError);
+        }
+        return stats;
+    }
+}
@@ -3,23 +3,47 @@ package org.example.temperaturecontrolsystem.controller;
 import lombok.RequiredArgsConstructor;
 import org.example.temperaturecontrolsystem.dto.*;
 import org.example.temperaturecontrolsystem.service.AirConditionerService;
+import org.example.temperaturecontrolsystem.service.BulkAcCommandService;
+import org.example.temperaturecontrolsystem.service.SchedulerDispatcher;
+import org.example.temperaturecontrolsystem.service.SchedulerService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @RestController
 @RequestMapping("/api/ac")
 @RequiredArgsConstructor
 public class AirConditionerController {
     private final AirConditionerService airConditionerService;
+    private final BulkAcCommandService bulkAcCommandService;
+    private final SchedulerService schedulerService;
+    private final SchedulerDispatcher schedulerDispatcher;
 
+    private static final String DEFAULT_WAIT_TIMEOUT_MILLIS = "10000";
+    private static final long MAX_WAIT_TIMEOUT_MILLIS = 60_000;
+
+    /**
+     * wait=true 时等待调度器处理完指令再返回（until=served 时等到房间开始送风），最多等 timeoutMillis；
+     * 超时返回 202，指令仍会继续执行。
+     */
     @PostMapping("/{roomNumber}/turn-on")
-    public ResponseEntity<?> turnOn(@PathVariable int roomNumber) {
+    public ResponseEntity<?> turnOn(@PathVariable int roomNumber,
+                                    @RequestParam(defaultValue = "false") boolean wait,
+                                    @RequestParam(defaultValue = "applied") String until,
+                                    @RequestParam(defaultValue = DEFAULT_WAIT_TIMEOUT_MILLIS) long timeoutMillis) {
+        if (wait && !validUntil(until)) {
+            return invalidUntil();
+        }
         try {
-            airConditionerService.turnOn(roomNumber);
-            return ResponseEntity.ok(Map.of("message", "Air conditioner in room " + roomNumber + " turned on successfully."));
+            CompletableFuture<Void> applied = airConditionerService.turnOn(roomNumber);
+            return completion(roomNumber, applied, wait, until, timeoutMillis,
+                    "Air conditioner in room " + roomNumber + " turned on successfully.");
         } catch (IllegalStateException e) {
             return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
@@ -28,10 +52,13 @@ public class AirConditionerController {
     }
 
     @PostMapping("/{roomNumber}/turn-off")
-    public ResponseEntity<?> turnOff(@PathVariable int roomNumber) {
+    public ResponseEntity<?> turnOff(@PathVariable int roomNumber,
+                                     @RequestParam(defaultValue = "false") boolean wait,
+                                     @RequestParam(defaultValue = DEFAULT_WAIT_TIMEOUT_MILLIS) long timeoutMillis) {
         try {
-            airConditionerService.turnOff(roomNumber);
-            return ResponseEntity.ok(Map.of("message", "Air conditioner in room " + roomNumber + " turned off successfully."));
+            CompletableFuture<Void> applied = airConditionerService.turnOff(roomNumber);
+            return completion(roomNumber, applied, wait, "applied", timeoutMillis,
+                    "Air conditioner in room " + roomNumber + " turned off successfully.");
         } catch (IllegalStateException e) {
             return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
@@ -41,10 +68,17 @@ public class AirConditionerController {
 
     // 对于需要其他参数的请求，我们将路径变量和请求体结合使用
     @PostMapping("/{roomNumber}/set-speed")
-    public ResponseEntity<?> setSpeed(@PathVariable int roomNumber, @RequestBody SetSpeedRequest request) {
+    public ResponseEntity<?> setSpeed(@PathVariable int roomNumber, @RequestBody SetSpeedRequest request,
+                                      @RequestParam(defaultValue = "false") boolean wait,
+                                      @RequestParam(defaultValue = "applied") String until,
+                                      @RequestParam(defaultValue = DEFAULT_WAIT_TIMEOUT_MILLIS) long timeoutMillis) {
+        if (wait && !validUntil(until)) {
+            return invalidUntil();
+        }
         try {
-            airConditionerService.setSpeed(roomNumber, request.getSpeed());
-            return ResponseEntity.ok(Map.of("message", "Speed set successfully for room " + roomNumber + "."));
+            CompletableFuture<Void> applied = airConditionerService.setSpeed(roomNumber, request.getSpeed());
+            return completion(roomNumber, applied, wait, until, timeoutMillis,
+                    "Speed set successfully for room " + roomNumber + ".");
         } catch (IllegalStateException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
@@ -63,4 +97,80 @@ public class AirConditionerController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", "An unexpected error occurred."));
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 对一组房间执行同一条指令，例如整层预冷或关闭所有空房的空调。
+     * POST /api/ac/bulk {"floor": 7, "action": "target", "temperature": 22}
+     */
+    @PostMapping("/bulk")
+    public ResponseEntity<?> bulkCommand(@RequestBody BulkAcCommandRequest request) {
+        try {
+            return ResponseEntity.ok(bulkAcCommandService.execute(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", "An unexpected error occurred."));
+        }
+    }
+
+    /**
+     * 风速调整防抖的统计。
+     * GET /api/ac/speed-debounce/stats
+     */
+    @GetMapping("/speed-debounce/stats")
+    public ResponseEntity<Map<String, Object>> getSpeedDebounceStats() {
+        return ResponseEntity.ok(schedulerService.speedDebounceStats());
+    }
+
+    /**
+     * 指令从提交到被调度器处理、到房间开始送风的延迟分位数，以及事务内消息合并、投递的计数。
+     * GET /api/ac/commands/stats
+     */
+    @GetMapping("/commands/stats")
+    public ResponseEntity<Map<String, Object>> getCommandStats() {
+        Map<String, Object> stats = schedulerService.commandStats();
+        stats.put("dispatch", schedulerDispatcher.stats());
+        return ResponseEntity.ok(stats);
+    }
+
+    private static boolean validUntil(String until) {
+        return "applied".equals(until) || "served".equals(until);
+    }
+
+    private static ResponseEntity<?> invalidUntil() {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", "until must be 'applied' or 'served'."));
+    }
+
+    /**
+     * 指令所在的事务此时已经提交，可以安全地等待调度器。until 已经在调用服务之前校验过。
+     */
+    private ResponseEntity<?> completion(int roomNumber, CompletableFuture<Void> applied, boolean wait, String until,
+                                         long timeoutMillis, String message) {
+        if (!wait) {
+            return ResponseEntity.ok(Map.of("message", message));
+        }
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(Math.min(Math.max(timeoutMillis, 0), MAX_WAIT_TIMEOUT_MILLIS));
+        CompletableFuture<Void> served = null;
+        try {
+            applied.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            if ("served".equals(until)) {
+                served = schedulerService.whenServed(roomNumber);
+                served.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            }
+            return ResponseEntity.ok(Map.of("message", message, "status", until,
+                    "waitedMillis", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+        } catch (TimeoutException e) {
+            if (served != null) {
+                served.cancel(false);
+            }
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(Map.of("message", message, "status", "pending",
+                    "waitedMillis", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+        } catch (ExecutionException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getCause().getMessage()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", "Interrupted while waiting."));
+        }
+    }
+}
@@ -2,23 +2,33 @@ package org.example.temperaturecontrolsystem.controller;
 
 import org.example.temperaturecontrolsystem.dto.LoginRequest;
 import org.example.temperaturecontrolsystem.dto.LoginResponse;
+import org.example.temperaturecontrolsystem.security.AuthTokenFilter;
 import org.example.temperaturecontrolsystem.service.AuthService;
+import org.example.temperaturecontrolsystem.service.TokenService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 @RestController
 @RequestMapping("/api")
 public class AuthController {
 
     private final AuthService authService;
+    private final TokenService tokenService;
+    private final AuthTokenFilter authTokenFilter;
 
     @Autowired
-    public AuthController(AuthService authService) {
+    public AuthController(AuthService authService, TokenService tokenService, AuthTokenFilter authTokenFilter) {
         this.authService = authService;
+        this.tokenService = tokenService;
+        this.authTokenFilter = authTokenFilter;
     }
 
     @PostMapping("/login")
@@ -26,8 +36,22 @@ public class AuthController {
         String identity = authService.authenticate(loginRequest.getAccount(), loginRequest.getPassword());
 
         System.out.println("Login successful");
-        LoginResponse response = new LoginResponse("Login successful", identity);
+        TokenService.Principal principal = tokenService.newPrincipal(loginRequest.getAccount(), identity);
+        LoginResponse response = new LoginResponse("Login successful", identity,
+                tokenService.sign(principal), principal.expiresAtMillis());
 
         return ResponseEntity.ok(response);
     }
+
+    /**
+     * 令牌校验结果计数和用户缓存命中率。
+     * GET /api/auth/stats
+     */
+    @GetMapping("/auth/stats")
+    public ResponseEntity<Map<String, Object>> getAuthStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("requests", authTokenFilter.stats());
+        stats.put("userCache", authService.userCacheStats());
+        return ResponseEntity.ok(stats);
+    }
 }
@@ -0,0 +1,37 @@
+package org.example.temperaturecontrolsystem.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.example.temperaturecontrolsystem.dto.DashboardSummary;
+import org.example.temperaturecontrolsystem.service.DashboardService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/dashboard")
+@RequiredArgsConstructor
+public class DashboardController {
+
+    private final DashboardService dashboardService;
+
+    /**
+     * 前台仪表盘汇总：入住率、送风 / 等待中的空调数、当日空调营收。直接读内存计数器，不查询数据库。
+     * GET /api/dashboard/summary
+     */
+    @GetMapping("/summary")
+    public ResponseEntity<DashboardSummary> getSummary() {
+        return ResponseEntity.ok(dashboardService.getSummary());
+    }
+
+    /**
+     * 计数器与数据库的核对情况。
+     * GET /api/dashboard/stats
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        return ResponseEntity.ok(dashboardService.stats());
+    }
+}
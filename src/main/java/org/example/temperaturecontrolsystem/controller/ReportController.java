@@ -1,6 +1,7 @@
 package org.example.temperaturecontrolsystem.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.example.temperaturecontrolsystem.dto.RoomUsageSummary;
 import org.example.temperaturecontrolsystem.entity.SchedulerBoardRecord;
 import org.example.temperaturecontrolsystem.service.ReportService;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -48,4 +49,29 @@ public class ReportController {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", e.getMessage()));
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 按房间汇总某个时间范围内的送风时长与费用。
+     * GET /api/reports/usage/summary?startTime=2023-01-01T00:00:00&endTime=2023-06-30T23:59:59
+     */
+    @GetMapping("/usage/summary")
+    public ResponseEntity<?> getUsageSummary(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTime,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endTime) {
+        try {
+            List<RoomUsageSummary> summaries = reportService.getUsageSummary(startTime, endTime);
+            return ResponseEntity.ok(summaries);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * 报表查询缓存的命中 / 未命中 / 淘汰统计。
+     * GET /api/reports/cache/stats
+     */
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        return ResponseEntity.ok(reportService.getCacheStats());
+    }
+}
@@ -1,15 +1,26 @@
 package org.example.temperaturecontrolsystem.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.example.temperaturecontrolsystem.cache.RoomSnapshotPublisher;
+import org.example.temperaturecontrolsystem.dto.BulkTemperatureRequest;
+import org.example.temperaturecontrolsystem.dto.BulkTemperatureResponse;
 import org.example.temperaturecontrolsystem.dto.CheckOutBillResponse;
+import org.example.temperaturecontrolsystem.dto.RoomChangesResponse;
 import org.example.temperaturecontrolsystem.dto.RoomStatusResponse;
+import org.example.temperaturecontrolsystem.dto.TemperatureSample;
 import org.example.temperaturecontrolsystem.dto.UpdateCurrentTemperatureRequest;
-import org.example.temperaturecontrolsystem.entity.RoomInfo;
+import org.example.temperaturecontrolsystem.ingest.UdpTemperatureListener;
 import org.example.temperaturecontrolsystem.service.RoomStateService;
+import org.example.temperaturecontrolsystem.service.TemperatureIngestionService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
@@ -18,11 +29,49 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class RoomController {
     private final RoomStateService roomStateService;
+    private final TemperatureIngestionService temperatureIngestionService;
+    private final UdpTemperatureListener udpTemperatureListener;
 
+    /**
+     * 返回预序列化的全部房间状态。If-None-Match 与当前 ETag 相同时返回 304，不查库也不序列化；
+     * 客户端接受 gzip 且快照足够大时直接输出预先压缩好的字节。
+     */
     @GetMapping("/status")
-    public ResponseEntity<List<RoomInfo>> getAllRooms() {
-        List<RoomInfo> rooms = roomStateService.getAllRooms();
-        return ResponseEntity.ok(rooms);
+    public ResponseEntity<byte[]> getAllRooms(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        RoomSnapshotPublisher.Snapshot snapshot = roomStateService.getRoomSnapshot();
+        if (ifNoneMatch != null && ifNoneMatch.contains(snapshot.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(snapshot.etag())
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(snapshot.etag())
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (snapshot.gzip() != null && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(snapshot.gzip());
+        }
+        return response.body(snapshot.json());
+    }
+
+    @GetMapping("/changes")
+    public ResponseEntity<RoomChangesResponse> getRoomChanges(@RequestParam(defaultValue = "0") long since) {
+        return ResponseEntity.ok(roomStateService.getRoomChanges(since));
+    }
+
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Object>> getRoomCacheStats() {
+        return ResponseEntity.ok(roomStateService.getRoomCacheStats());
+    }
+
+    @GetMapping("/udp-ingest/stats")
+    public ResponseEntity<Map<String, Object>> getUdpIngestStats() {
+        return ResponseEntity.ok(udpTemperatureListener.stats());
     }
 
     @GetMapping("/{roomId}/status")
@@ -62,6 +111,39 @@ public class RoomController {
         }
     }
 
+    /**
+     * 批量上报多个房间的当前温度。未知房间和非法读数逐条列在 rejected 中，不影响其它读数写入。
+     */
+    @PostMapping("/current-temperatures")
+    public ResponseEntity<?> ingestCurrentTemperatures(@RequestBody BulkTemperatureRequest request) {
+        try {
+            BulkTemperatureResponse response = temperatureIngestionService.ingest(request.getReadings());
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", "An unexpected error occurred."));
+        }
+    }
+
+    /**
+     * 房间的温度历史。
+     * GET /api/rooms/101/temperature-history?startTime=2025-01-01T00:00:00&endTime=2025-01-02T00:00:00&stepSeconds=300
+     */
+    @GetMapping("/{roomId}/temperature-history")
+    public ResponseEntity<?> getTemperatureHistory(
+            @PathVariable int roomId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTime,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endTime,
+            @RequestParam(defaultValue = "0") long stepSeconds) {
+        try {
+            List<TemperatureSample> samples = roomStateService.getTemperatureHistory(roomId, startTime, endTime, stepSeconds);
+            return ResponseEntity.ok(samples);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", e.getMessage()));
+        }
+    }
+
     @GetMapping("/{roomId}/bill")
     public ResponseEntity<?> getCheckOutBill(@PathVariable int roomId) {
         try {
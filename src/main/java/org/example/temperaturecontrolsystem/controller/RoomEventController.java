@@ -0,0 +1,46 @@
+package org.example.temperaturecontrolsystem.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.example.temperaturecontrolsystem.push.RoomEventBroadcaster;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Map;
+
+/**
+ * 房间状态推送（Server-Sent Events）。
+ * <ul>
+ *     <li>GET /api/rooms/events?roomId=101：单个房间</li>
+ *     <li>GET /api/rooms/events?floor=1：一层楼</li>
+ *     <li>GET /api/rooms/events：全部房间</li>
+ * </ul>
+ * 连接建立后先收到一个 snapshot 事件，之后收到 room（状态变化）和 cost（费用结算）事件。
+ */
+@RestController
+@RequestMapping("/api/rooms")
+@RequiredArgsConstructor
+public class RoomEventController {
+    private final RoomEventBroadcaster broadcaster;
+
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(@RequestParam(required = false) Integer roomId,
+                                @RequestParam(required = false) Integer floor) {
+        if (roomId != null) {
+            return broadcaster.subscribeRoom(roomId);
+        }
+        if (floor != null) {
+            return broadcaster.subscribeFloor(floor);
+        }
+        return broadcaster.subscribeAll();
+    }
+
+    @GetMapping("/events/stats")
+    public ResponseEntity<Map<String, Integer>> getSubscriberCounts() {
+        return ResponseEntity.ok(broadcaster.subscriberCounts());
+    }
+}
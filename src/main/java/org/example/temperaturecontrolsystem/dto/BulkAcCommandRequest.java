@@ -0,0 +1,22 @@
+package org.example.temperaturecontrolsystem.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 批量空调指令。房间集合三选一：roomIds 列表、[fromRoom, toRoom] 闭区间，或楼层 floor（房间号 / 100）；
+ * occupancy 可以再按入住状态筛选（"occupied" / "vacant"）。
+ * action 为 on / off / speed / target，speed 与 target 分别需要 speed（low / medium / high）和 temperature。
+ */
+@Data
+public class BulkAcCommandRequest {
+    private List<Integer> roomIds;
+    private Integer fromRoom;
+    private Integer toRoom;
+    private Integer floor;
+    private String occupancy;
+    private String action;
+    private String speed;
+    private Double temperature;
+}
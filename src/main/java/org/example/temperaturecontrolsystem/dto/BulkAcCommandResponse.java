@@ -0,0 +1,27 @@
+package org.example.temperaturecontrolsystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class BulkAcCommandResponse {
+    private String action;
+    private int matched;       // 房间集合中存在的房间数
+    private int applied;       // 状态发生变化的房间数
+    private int unchanged;     // 已经处于目标状态、跳过的房间数
+    private List<Integer> appliedRoomIds = new ArrayList<>();
+    private List<Rejection> rejected = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Rejection {
+        private Integer roomId;
+        private String reason;
+    }
+}
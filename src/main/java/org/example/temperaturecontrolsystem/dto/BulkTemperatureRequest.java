@@ -0,0 +1,10 @@
+package org.example.temperaturecontrolsystem.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BulkTemperatureRequest {
+    private List<TemperatureReading> readings;
+}
@@ -0,0 +1,25 @@
+package org.example.temperaturecontrolsystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class BulkTemperatureResponse {
+    private int received;      // 请求中的读数条数
+    private int applied;       // 接受的房间数（同一房间多条读数只取最新一条；启用写缓冲时为进入缓冲的房间数）
+    private int superseded;    // 被同一房间更新的读数覆盖而未写入的条数
+    private List<Rejection> rejected = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Rejection {
+        private Integer roomId;
+        private String reason;
+    }
+}
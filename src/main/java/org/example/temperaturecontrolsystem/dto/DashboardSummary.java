@@ -0,0 +1,28 @@
+package org.example.temperaturecontrolsystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 前台仪表盘的汇总指标。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DashboardSummary {
+    private long totalRooms;
+    private long occupiedRooms;
+    private long vacantRooms;
+    private double occupancyRate;
+    private long supplyingRooms;
+    private long waitingRooms;
+    private LocalDate day;
+    private long todaySettlements;
+    private BigDecimal todayRevenue;
+    private LocalDateTime lastReconciledAt;
+}
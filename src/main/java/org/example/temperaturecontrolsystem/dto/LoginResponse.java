@@ -8,4 +8,9 @@ import lombok.Data;
 public class LoginResponse {
     private String message;
     private String identity;
+    /**
+     * 之后的请求放在 Authorization: Bearer 头中。
+     */
+    private String token;
+    private long expiresAt;
 }
\ No newline at end of file
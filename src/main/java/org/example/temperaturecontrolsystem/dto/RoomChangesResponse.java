@@ -0,0 +1,17 @@
+package org.example.temperaturecontrolsystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.temperaturecontrolsystem.entity.RoomInfo;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoomChangesResponse {
+    private long version;          // 下一次轮询时作为 since 传回
+    private boolean fullResync;    // true 表示 since 已超出保留范围或来自服务重启之前，rooms 为全部房间
+    private List<RoomInfo> rooms;  // since 之后发生过变化的房间的最新状态
+}
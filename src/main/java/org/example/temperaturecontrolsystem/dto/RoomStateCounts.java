@@ -0,0 +1,18 @@
+package org.example.temperaturecontrolsystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * room_infos 按入住状态和空调状态的计数，用于校对仪表盘计数器。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoomStateCounts {
+    private long totalRooms;
+    private long occupiedRooms;
+    private long supplyingRooms;
+    private long waitingRooms;
+}
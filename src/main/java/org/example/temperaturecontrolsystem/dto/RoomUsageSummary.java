@@ -0,0 +1,31 @@
+package org.example.temperaturecontrolsystem.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+public class RoomUsageSummary {
+    private int roomId;
+    private long recordCount;
+    private long totalDurationSeconds;
+    private BigDecimal totalCost = BigDecimal.ZERO;
+
+    public RoomUsageSummary(int roomId) {
+        this.roomId = roomId;
+    }
+
+    public void add(long durationSeconds, BigDecimal cost) {
+        recordCount++;
+        totalDurationSeconds += durationSeconds;
+        totalCost = totalCost.add(cost);
+    }
+
+    public void merge(RoomUsageSummary other) {
+        recordCount += other.recordCount;
+        totalDurationSeconds += other.totalDurationSeconds;
+        totalCost = totalCost.add(other.totalCost);
+    }
+}
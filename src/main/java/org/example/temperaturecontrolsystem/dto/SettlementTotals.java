@@ -0,0 +1,18 @@
+package org.example.temperaturecontrolsystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * 一段时间内结算的计费记录条数与金额合计。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SettlementTotals {
+    private long settlements;
+    private BigDecimal revenue = BigDecimal.ZERO;
+}
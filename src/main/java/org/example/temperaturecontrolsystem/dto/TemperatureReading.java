@@ -0,0 +1,16 @@
+package org.example.temperaturecontrolsystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TemperatureReading {
+    private Integer roomId;
+    private Double temperature;
+    private LocalDateTime timestamp; // 传感器采样时间，可为空
+}
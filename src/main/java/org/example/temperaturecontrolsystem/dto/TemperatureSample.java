@@ -0,0 +1,18 @@
+package org.example.temperaturecontrolsystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TemperatureSample {
+    private LocalDateTime timestamp; // 采样时间；降采样时为桶的起始时间
+    private double temperature;      // 降采样时为桶内平均值
+    private double min;
+    private double max;
+    private int count;               // 桶内原始点数，未降采样时为 1
+}
@@ -0,0 +1,134 @@
+package org.example.temperaturecontrolsystem.embedded;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 只追加的日志文件，组提交：写线程一次取走队列里积攒的所有提交，顺序写入后只 fsync 一次，再统一通知等待者。
+ * 一次 fsync 期间到达的提交自然攒成下一组，并发越高每次 fsync 分摊的提交越多。
+ */
+final class EmbeddedJournal implements Closeable {
+
+    private record Pending(byte[] data, CompletableFuture<Void> durable) {
+    }
+
+    private static final Pending CLOSE = new Pending(new byte[0], new CompletableFuture<>());
+
+    private final Path file;
+    private final boolean fsync;
+    private final FileChannel channel;
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+
+    private final AtomicLong appends = new AtomicLong();
+    private final AtomicLong groupCommits = new AtomicLong();
+    private final AtomicLong bytesWritten = new AtomicLong();
+
+    EmbeddedJournal(Path file, boolean fsync) throws IOException {
+        this.file = file;
+        this.fsync = fsync;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        this.writer = new Thread(this::run, "embedded-journal");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * @return 数据写入并（fsync 开启时）落盘后完成
+     */
+    CompletableFuture<Void> append(byte[] data) {
+        Pending pending = new Pending(data, new CompletableFuture<>());
+        appends.incrementAndGet();
+        queue.add(pending);
+        return pending.durable();
+    }
+
+    /**
+     * 清空日志。调用方必须保证期间没有新的追加，并且之前的追加都已落盘。
+     */
+    void truncate() throws IOException {
+        append(new byte[0]).join();
+        synchronized (channel) {
+            channel.truncate(0);
+            channel.force(true);
+        }
+    }
+
+    long appends() {
+        return appends.get();
+    }
+
+    long groupCommits() {
+        return groupCommits.get();
+    }
+
+    long bytesWritten() {
+        return bytesWritten.get();
+    }
+
+    Path file() {
+        return file;
+    }
+
+    private void run() {
+        List<Pending> group = new ArrayList<>();
+        while (true) {
+            try {
+                group.add(queue.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            queue.drainTo(group);
+            boolean closing = group.remove(CLOSE);
+            try {
+                synchronized (channel) {
+                    for (Pending pending : group) {
+                        ByteBuffer buffer = ByteBuffer.wrap(pending.data());
+                        while (buffer.hasRemaining()) {
+                            channel.write(buffer);
+                        }
+                        bytesWritten.addAndGet(pending.data().length);
+                    }
+                    if (fsync && !group.isEmpty()) {
+                        channel.force(false);
+                    }
+                }
+                if (!group.isEmpty()) {
+                    groupCommits.incrementAndGet();
+                }
+                group.forEach(pending -> pending.durable().complete(null));
+            } catch (IOException e) {
+                System.err.println("Embedded journal write failed: " + e.getMessage());
+                UncheckedIOException failure = new UncheckedIOException(e);
+                group.forEach(pending -> pending.durable().completeExceptionally(failure));
+            }
+            group.clear();
+            if (closing) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        queue.add(CLOSE);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+    }
+}
@@ -0,0 +1,35 @@
+package org.example.temperaturecontrolsystem.embedded;
+
+import org.example.temperaturecontrolsystem.entity.OpRecord;
+import org.example.temperaturecontrolsystem.mapper.OpRecordMapper;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * op_records 的进程内实现，只有写入。
+ */
+@Component("opRecordMapper")
+@Profile("embedded")
+public class EmbeddedOpRecordMapper implements OpRecordMapper {
+
+    private final EmbeddedStore store;
+
+    public EmbeddedOpRecordMapper(EmbeddedStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public void insert(OpRecord record) {
+        store.write(work -> store.insertOp(work, record));
+    }
+
+    @Override
+    public void insertBatch(List<OpRecord> records) {
+        store.write(work -> {
+            records.forEach(record -> store.insertOp(work, record));
+            return null;
+        });
+    }
+}
@@ -0,0 +1,248 @@
+package org.example.temperaturecontrolsystem.embedded;
+
+import org.example.temperaturecontrolsystem.dto.RoomStateCounts;
+import org.example.temperaturecontrolsystem.dto.TemperatureReading;
+import org.example.temperaturecontrolsystem.entity.OpRecord;
+import org.example.temperaturecontrolsystem.entity.RoomInfo;
+import org.example.temperaturecontrolsystem.mapper.RoomInfoMapper;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * room_infos 的进程内实现，语义与 {@link RoomInfoMapper} 上的 SQL 一致：更新方法返回命中的行数，条件更新的条件相同。
+ * bean 名与 MyBatis 生成的 mapper 相同，{@link org.example.temperaturecontrolsystem.cache.CachingRoomInfoMapper} 照常包在外面。
+ */
+@Component("roomInfoMapper")
+@Profile("embedded")
+public class EmbeddedRoomInfoMapper implements RoomInfoMapper {
+
+    private final EmbeddedStore store;
+
+    public EmbeddedRoomInfoMapper(EmbeddedStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public void insertForCheckIn(RoomInfo roomInfo) {
+        store.write(work -> {
+            if (store.room(roomInfo.getRoomId()) != null) {
+                throw new DuplicateKeyException("Duplicate entry '" + roomInfo.getRoomId() + "' for key 'room_infos.PRIMARY'");
+            }
+            RoomInfo room = new RoomInfo();
+            room.setRoomId(roomInfo.getRoomId());
+            room.setClientId(roomInfo.getClientId());
+            room.setClientName(roomInfo.getClientName());
+            room.setCheckinTime(roomInfo.getCheckinTime());
+            room.setState(1);
+            room.setAcState(0);
+            room.setCurrentSpeed("medium");
+            room.setCurrentTempera(25.0);
+            room.setTargetTempera(25.0);
+            store.insertRoom(work, room);
+            return null;
+        });
+    }
+
+    @Override
+    public int updateForCheckIn(RoomInfo roomInfo) {
+        return update(roomInfo.getRoomId(), room -> Objects.equals(room.getState(), 0), room -> {
+            room.setClientId(roomInfo.getClientId());
+            room.setClientName(roomInfo.getClientName());
+            room.setCheckinTime(roomInfo.getCheckinTime());
+            room.setCheckoutTime(null);
+            room.setState(1);
+            room.setCurrentSpeed("medium");
+            room.setTargetTempera(25.0);
+        });
+    }
+
+    @Override
+    public int updateForCheckOut(int roomNumber, LocalDateTime checkoutTime) {
+        return update(roomNumber, room -> Objects.equals(room.getState(), 1), room -> {
+            room.setCheckoutTime(checkoutTime);
+            room.setState(0);
+        });
+    }
+
+    @Override
+    public Optional<RoomInfo> findById(int roomNumber) {
+        return store.read(() -> Optional.ofNullable(store.room(roomNumber)).map(EmbeddedStore::copy));
+    }
+
+    @Override
+    public List<RoomInfo> findAll() {
+        return store.read(() -> store.rooms().stream().map(EmbeddedStore::copy).toList());
+    }
+
+    @Override
+    public int updateState(int roomNumber, int state) {
+        return update(roomNumber, room -> true, room -> room.setState(state));
+    }
+
+    @Override
+    public int updateAcStateIfEquals(int roomNumber, int newState) {
+        return update(roomNumber, room -> !Objects.equals(room.getAcState(), newState), room -> room.setAcState(newState));
+    }
+
+    @Override
+    public int updateSpeed(int roomNumber, String speed) {
+        return update(roomNumber, room -> true, room -> room.setCurrentSpeed(speed));
+    }
+
+    @Override
+    public int updateCurrentTemperature(int roomNumber, double temperature) {
+        return update(roomNumber, room -> true, room -> room.setCurrentTempera(temperature));
+    }
+
+    @Override
+    public int updateCurrentTemperatures(List<TemperatureReading> readings) {
+        return store.write(work -> {
+            int updated = 0;
+            for (TemperatureReading reading : readings) {
+                updated += apply(work, reading.getRoomId(), room -> true, room -> room.setCurrentTempera(reading.getTemperature()));
+            }
+            return updated;
+        });
+    }
+
+    @Override
+    public int updateTargetTemperature(int roomNumber, double targetTemperature) {
+        return update(roomNumber, room -> true, room -> room.setTargetTempera(targetTemperature));
+    }
+
+    @Override
+    public int updateAcState(int roomId, int acState) {
+        return update(roomId, room -> true, room -> room.setAcState(acState));
+    }
+
+    @Override
+    public int updateAcStates(List<Integer> roomIds, int acState) {
+        return updateAll(roomIds, room -> {
+            room.setAcState(acState);
+            if (acState == 0) {
+                room.setCurrentSpeed("medium");
+            }
+        });
+    }
+
+    @Override
+    public int updateSpeeds(List<Integer> roomIds, String speed) {
+        return updateAll(roomIds, room -> room.setCurrentSpeed(speed));
+    }
+
+    @Override
+    public int updateTargetTemperatures(List<Integer> roomIds, double targetTemperature) {
+        return updateAll(roomIds, room -> room.setTargetTempera(targetTemperature));
+    }
+
+    @Override
+    public OpRecord turnAcOnLogged(int roomId, LocalDateTime opTime) {
+        return logged(roomId, room -> Objects.equals(room.getAcState(), 0), room -> room.setAcState(1),
+                room -> new OpRecord(roomId, opTime, 1, "AC_STATE_OFF", "AC_STATE_ON"));
+    }
+
+    @Override
+    public OpRecord turnAcOffLogged(int roomId, LocalDateTime opTime) {
+        return logged(roomId, room -> !Objects.equals(room.getAcState(), 0), room -> {
+            room.setAcState(0);
+            room.setCurrentSpeed("medium");
+        }, room -> new OpRecord(roomId, opTime, 2, "AC_STATE_ON", "AC_STATE_OFF"));
+    }
+
+    @Override
+    public OpRecord updateSpeedLogged(int roomId, String speed, LocalDateTime opTime) {
+        return logged(roomId, room -> room.getCurrentSpeed() == null || !room.getCurrentSpeed().equalsIgnoreCase(speed),
+                room -> room.setCurrentSpeed(speed),
+                room -> new OpRecord(roomId, opTime, 4, room.getCurrentSpeed(), speed));
+    }
+
+    @Override
+    public OpRecord updateTargetTemperatureLogged(int roomId, double targetTemperature, String newState, LocalDateTime opTime) {
+        return logged(roomId,
+                room -> room.getTargetTempera() == null || Math.abs(room.getTargetTempera() - targetTemperature) >= 0.01,
+                room -> room.setTargetTempera(targetTemperature),
+                room -> new OpRecord(roomId, opTime, 3,
+                        room.getTargetTempera() == null ? null : String.valueOf(room.getTargetTempera()), newState));
+    }
+
+    @Override
+    public List<Integer> findAllActiveAcRoomIds() {
+        return store.read(() -> store.rooms().stream()
+                .filter(room -> room.getAcState() != null && room.getAcState() != 0)
+                .map(RoomInfo::getRoomId)
+                .toList());
+    }
+
+    @Override
+    public RoomStateCounts countRoomStates() {
+        return store.read(() -> {
+            RoomStateCounts counts = new RoomStateCounts();
+            for (RoomInfo room : store.rooms()) {
+                counts.setTotalRooms(counts.getTotalRooms() + 1);
+                if (Objects.equals(room.getState(), 1)) {
+                    counts.setOccupiedRooms(counts.getOccupiedRooms() + 1);
+                }
+                if (Objects.equals(room.getAcState(), 1)) {
+                    counts.setSupplyingRooms(counts.getSupplyingRooms() + 1);
+                }
+                if (Objects.equals(room.getAcState(), 2)) {
+                    counts.setWaitingRooms(counts.getWaitingRooms() + 1);
+                }
+            }
+            return counts;
+        });
+    }
+
+    private int update(int roomId, Predicate<RoomInfo> condition, Consumer<RoomInfo> change) {
+        return store.write(work -> apply(work, roomId, condition, change));
+    }
+
+    private int updateAll(List<Integer> roomIds, Consumer<RoomInfo> change) {
+        return store.write(work -> {
+            int updated = 0;
+            // 与 WHERE room_id IN (...) 一样，重复的房间号只算一行
+            for (Integer roomId : new LinkedHashSet<>(roomIds)) {
+                updated += apply(work, roomId, room -> true, change);
+            }
+            return updated;
+        });
+    }
+
+    /**
+     * 调用方持有写锁。
+     */
+    private int apply(EmbeddedStore.Work work, int roomId, Predicate<RoomInfo> condition, Consumer<RoomInfo> change) {
+        RoomInfo room = store.room(roomId);
+        if (room == null || !condition.test(room)) {
+            return 0;
+        }
+        store.updateRoom(work, room, change);
+        return 1;
+    }
+
+    /**
+     * 条件更新并写一条操作记录；操作记录由更新前的行生成（old_state 即旧值）。
+     */
+    private OpRecord logged(int roomId, Predicate<RoomInfo> condition, Consumer<RoomInfo> change,
+                            Function<RoomInfo, OpRecord> record) {
+        return store.write(work -> {
+            RoomInfo room = store.room(roomId);
+            if (room == null || !condition.test(room)) {
+                return null;
+            }
+            OpRecord op = record.apply(room);
+            store.updateRoom(work, room, change);
+            return store.insertOp(work, op);
+        });
+    }
+}
@@ -0,0 +1,180 @@
+package org.example.temperaturecontrolsystem.embedded;
+
+import org.apache.ibatis.executor.result.DefaultResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.example.temperaturecontrolsystem.dto.SettlementTotals;
+import org.example.temperaturecontrolsystem.entity.SchedulerBoardRecord;
+import org.example.temperaturecontrolsystem.mapper.SchedulerMapper;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * scheduler_board 的进程内实现。按时间的查询走开始时间 / 结束时间索引，按房间的查询走房间索引。
+ * 与 SQL 一致，没有选出 id 列的查询返回的记录 id 为 null。
+ */
+@Component("schedulerMapper")
+@Profile("embedded")
+public class EmbeddedSchedulerMapper implements SchedulerMapper {
+
+    private static final Comparator<SchedulerBoardRecord> BY_START =
+            Comparator.comparing(SchedulerBoardRecord::getStartTime).thenComparing(SchedulerBoardRecord::getId);
+
+    private final EmbeddedStore store;
+
+    public EmbeddedSchedulerMapper(EmbeddedStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public void insertRecord(SchedulerBoardRecord record) {
+        store.write(work -> {
+            store.insertBoard(work, record);
+            return null;
+        });
+    }
+
+    @Override
+    public void insertRecords(List<SchedulerBoardRecord> records) {
+        store.write(work -> {
+            records.forEach(record -> store.insertBoard(work, record));
+            return null;
+        });
+    }
+
+    @Override
+    public Optional<BigDecimal> getTotalCostByRoomIdSince(int roomId, LocalDateTime checkinTime) {
+        return store.read(() -> roomRecordsSince(roomId, checkinTime)
+                .map(SchedulerBoardRecord::getCost)
+                .filter(cost -> cost != null)
+                .reduce(BigDecimal::add));
+    }
+
+    @Override
+    public SettlementTotals sumSettlementsEndedBetween(LocalDateTime from, LocalDateTime to) {
+        return store.read(() -> {
+            SettlementTotals totals = new SettlementTotals();
+            if (!from.isBefore(to)) {
+                return totals;
+            }
+            for (Map<Long, SchedulerBoardRecord> records : store.boardByEnd().subMap(from, true, to, false).values()) {
+                for (SchedulerBoardRecord record : records.values()) {
+                    totals.setSettlements(totals.getSettlements() + 1);
+                    if (record.getCost() != null) {
+                        totals.setRevenue(totals.getRevenue().add(record.getCost()));
+                    }
+                }
+            }
+            return totals;
+        });
+    }
+
+    @Override
+    public List<SchedulerBoardRecord> findRecordsByRoomIdSince(int roomId, LocalDateTime checkinTime) {
+        return store.read(() -> roomRecordsSince(roomId, checkinTime).sorted(BY_START).map(EmbeddedSchedulerMapper::withoutId).toList());
+    }
+
+    @Override
+    public List<SchedulerBoardRecord> findAllRecordsByRoomId(int roomId) {
+        return store.read(() -> store.boardOfRoom(roomId).stream()
+                .filter(record -> record.getStartTime() != null)
+                .sorted(BY_START)
+                .map(EmbeddedSchedulerMapper::withoutId)
+                .toList());
+    }
+
+    @Override
+    public List<SchedulerBoardRecord> findRecordsInTimeRange(LocalDateTime startTime, LocalDateTime endTime) {
+        return store.read(() -> startedBetween(startTime, true, endTime, true)
+                .sorted(Comparator.comparing(SchedulerBoardRecord::getRoomId).thenComparing(BY_START))
+                .map(EmbeddedSchedulerMapper::withoutId)
+                .toList());
+    }
+
+    @Override
+    public List<Integer> findRoomIdsWithRecordsBetween(LocalDateTime from, LocalDateTime before) {
+        return store.read(() -> {
+            Set<Integer> roomIds = new LinkedHashSet<>();
+            startedBetween(from, true, before, false).forEach(record -> roomIds.add(record.getRoomId()));
+            return List.copyOf(roomIds);
+        });
+    }
+
+    @Override
+    public List<SchedulerBoardRecord> findLateSettlements(LocalDateTime settledSince, LocalDateTime before) {
+        return store.read(() -> store.boardByEnd().tailMap(settledSince, true).values().stream()
+                .flatMap(records -> records.values().stream())
+                .filter(record -> record.getStartTime() != null && record.getStartTime().isBefore(before))
+                .map(EmbeddedSchedulerMapper::withoutId)
+                .toList());
+    }
+
+    @Override
+    public List<SchedulerBoardRecord> findCompactionCandidates(int roomId, LocalDateTime from, LocalDateTime before) {
+        return store.read(() -> store.boardOfRoom(roomId).stream()
+                .filter(record -> record.getStartTime() != null
+                        && !record.getStartTime().isBefore(from) && record.getStartTime().isBefore(before))
+                .sorted(Comparator.comparing(SchedulerBoardRecord::getSpeed, Comparator.nullsFirst(Comparator.naturalOrder()))
+                        .thenComparing(BY_START))
+                .map(EmbeddedStore::copy)
+                .toList());
+    }
+
+    @Override
+    public int deleteByIds(List<Long> ids) {
+        return store.write(work -> store.deleteBoard(work, new LinkedHashSet<>(ids)));
+    }
+
+    /**
+     * 先在读锁内取出这个时间窗的记录再逐条交给 handler，handler 里再访问存储也不会和读锁冲突。
+     * 时间窗由调用方按 report.aggregation.chunk-hours 切分，一次取出的记录数是有界的。
+     */
+    @Override
+    public void streamRecordsInChunk(LocalDateTime from, LocalDateTime to, boolean lastChunk,
+                                     ResultHandler<SchedulerBoardRecord> handler) {
+        List<SchedulerBoardRecord> chunk = store.read(() ->
+                startedBetween(from, true, to, lastChunk).map(EmbeddedSchedulerMapper::withoutId).toList());
+        DefaultResultContext<SchedulerBoardRecord> context = new DefaultResultContext<>();
+        for (SchedulerBoardRecord record : chunk) {
+            context.nextResultObject(record);
+            handler.handleResult(context);
+            if (context.isStopped()) {
+                return;
+            }
+        }
+    }
+
+    private Stream<SchedulerBoardRecord> roomRecordsSince(int roomId, LocalDateTime since) {
+        return store.boardOfRoom(roomId).stream()
+                .filter(record -> record.getStartTime() != null && !record.getStartTime().isBefore(since));
+    }
+
+    private Stream<SchedulerBoardRecord> startedBetween(LocalDateTime from, boolean fromInclusive,
+                                                        LocalDateTime to, boolean toInclusive) {
+        if (from.isAfter(to)) {
+            return Stream.empty();
+        }
+        if (from.equals(to) && !(fromInclusive && toInclusive)) {
+            return Stream.empty();
+        }
+        Collection<Map<Long, SchedulerBoardRecord>> buckets =
+                store.boardByStart().subMap(from, fromInclusive, to, toInclusive).values();
+        return buckets.stream().flatMap(records -> records.values().stream());
+    }
+
+    private static SchedulerBoardRecord withoutId(SchedulerBoardRecord source) {
+        SchedulerBoardRecord record = EmbeddedStore.copy(source);
+        record.setId(null);
+        return record;
+    }
+}
@@ -0,0 +1,630 @@
+package org.example.temperaturecontrolsystem.embedded;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import jakarta.annotation.PreDestroy;
+import org.example.temperaturecontrolsystem.entity.OpRecord;
+import org.example.temperaturecontrolsystem.entity.RoomInfo;
+import org.example.temperaturecontrolsystem.entity.SchedulerBoardRecord;
+import org.example.temperaturecontrolsystem.entity.UserEntity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 进程内的存储引擎，embedded profile 下代替远程 MySQL。
+ * <p>
+ * 四张表都在内存中：room_infos 按房间号，scheduler_board 按主键并建有房间号、开始时间、结束时间三个索引，
+ * op_records 和 users 按主键。读写由一把读写锁保护，读操作返回副本。
+ * <p>
+ * 持久化：事务提交时把这次写入的结果追加到 {@link EmbeddedJournal}（房间写整行镜像，其他表写插入 / 删除），
+ * 等待组提交落盘后才返回；定期把全部数据写成快照并清空日志。启动时加载快照再重放日志。
+ * 日志条目都带主键，重放是幂等的，快照与清空日志之间崩溃也不会重复数据。
+ * <p>
+ * 事务由 {@link EmbeddedTransactionManager} 管理：写入立即作用于内存并记录撤销动作，回滚时逆序撤销，
+ * 撤销后的结果同样写入日志。隔离级别相当于读未提交；没有事务时每次写入单独提交。
+ * 快照只包含已提交的数据：写快照前不让新事务开始写入，并等待已经写过的事务提交或回滚。
+ */
+@Component
+@Profile("embedded")
+public class EmbeddedStore {
+
+    private static final String SNAPSHOT = "snapshot.json";
+    private static final String JOURNAL = "journal.log";
+    private static final long SNAPSHOT_QUIESCE_MILLIS = 5_000;
+
+    /**
+     * 一次事务（或一次自动提交）中的写入：撤销动作，以及提交时要写入日志的条目。
+     */
+    static final class Work {
+        private final List<Supplier<JournalEntry>> undo = new ArrayList<>();
+        private final Set<Integer> touchedRooms = new LinkedHashSet<>();
+        private final List<JournalEntry> entries = new ArrayList<>();
+        private boolean open;
+        boolean rollbackOnly;
+    }
+
+    /**
+     * 日志中的一条记录。type 为 room / roomDel / board / boardDel / op / opDel / user / userDel。
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    record JournalEntry(String type, RoomInfo room, SchedulerBoardRecord board, OpRecord op, UserEntity user,
+                        Integer roomId, Long id, String account) {
+        static JournalEntry room(RoomInfo room) {
+            return new JournalEntry("room", room, null, null, null, null, null, null);
+        }
+
+        static JournalEntry roomDeleted(int roomId) {
+            return new JournalEntry("roomDel", null, null, null, null, roomId, null, null);
+        }
+
+        static JournalEntry board(SchedulerBoardRecord board) {
+            return new JournalEntry("board", null, board, null, null, null, null, null);
+        }
+
+        static JournalEntry boardDeleted(long id) {
+            return new JournalEntry("boardDel", null, null, null, null, null, id, null);
+        }
+
+        static JournalEntry op(OpRecord op) {
+            return new JournalEntry("op", null, null, op, null, null, null, null);
+        }
+
+        static JournalEntry opDeleted(long id) {
+            return new JournalEntry("opDel", null, null, null, null, null, id, null);
+        }
+
+        static JournalEntry user(UserEntity user) {
+            return new JournalEntry("user", null, null, null, user, null, null, null);
+        }
+
+        static JournalEntry userDeleted(String account) {
+            return new JournalEntry("userDel", null, null, null, null, null, null, account);
+        }
+    }
+
+    record Snapshot(List<RoomInfo> rooms, List<SchedulerBoardRecord> board, List<OpRecord> ops, List<UserEntity> users) {
+    }
+
+    private final ObjectMapper json = JsonMapper.builder()
+            .findAndAddModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .serializationInclusion(JsonInclude.Include.NON_NULL)
+            .build();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Condition quiesced = lock.writeLock().newCondition();
+    /** 已经写过、还没提交或回滚的事务数，以及是否有快照在等它们结束；都在写锁中访问 */
+    private int openTransactions;
+    private boolean snapshotPending;
+
+    private final NavigableMap<Integer, RoomInfo> rooms = new TreeMap<>();
+    private final NavigableMap<Long, SchedulerBoardRecord> board = new TreeMap<>();
+    private final Map<Integer, NavigableMap<Long, SchedulerBoardRecord>> boardByRoom = new HashMap<>();
+    private final NavigableMap<LocalDateTime, Map<Long, SchedulerBoardRecord>> boardByStart = new TreeMap<>();
+    private final NavigableMap<LocalDateTime, Map<Long, SchedulerBoardRecord>> boardByEnd = new TreeMap<>();
+    private final NavigableMap<Long, OpRecord> ops = new TreeMap<>();
+    private final Map<String, UserEntity> users = new HashMap<>();
+    private long nextBoardId = 1;
+    private long nextOpId = 1;
+
+    private final Path dir;
+    private final EmbeddedJournal journal;
+    private final ScheduledExecutorService snapshotTicker = Executors.newSingleThreadScheduledExecutor();
+    private long snapshots;
+    private long lastSnapshotMillis;
+
+    public EmbeddedStore(@Value("${embedded.dir:data/embedded}") String dir,
+                         @Value("${embedded.journal.fsync:true}") boolean fsync,
+                         @Value("${embedded.snapshot.interval-seconds:300}") long snapshotIntervalSeconds,
+                         @Value("${embedded.seed-users:}") String seedUsers) throws IOException {
+        this.dir = Path.of(dir);
+        Files.createDirectories(this.dir);
+        long start = System.nanoTime();
+        int replayed = recover();
+        this.journal = new EmbeddedJournal(this.dir.resolve(JOURNAL), fsync);
+        System.out.printf("Embedded store opened %s: %d room(s), %d billing record(s), %d op record(s), %d journal entr(ies) replayed in %dms.%n",
+                this.dir.toAbsolutePath(), rooms.size(), board.size(), ops.size(), replayed,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        seedUsers(seedUsers);
+        if (snapshotIntervalSeconds > 0) {
+            snapshotTicker.scheduleWithFixedDelay(this::snapshotSafely, snapshotIntervalSeconds, snapshotIntervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        snapshotTicker.shutdownNow();
+        snapshot();
+        journal.close();
+        System.out.println("Embedded store closed.");
+    }
+
+    // ---- 读写入口 ----
+
+    <T> T read(Supplier<T> query) {
+        lock.readLock().lock();
+        try {
+            return query.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 在写锁中执行一次写入。处在事务中时写入记在事务上，提交时统一写日志；否则立即提交并等待落盘。
+     */
+    <T> T write(Function<Work, T> action) {
+        Work transactional = (Work) TransactionSynchronizationManager.getResource(this);
+        Work work = transactional != null ? transactional : new Work();
+        CompletableFuture<Void> durable = null;
+        T result;
+        lock.writeLock().lock();
+        try {
+            if (transactional != null && !work.open) {
+                awaitSnapshot();
+                work.open = true;
+                openTransactions++;
+            }
+            result = action.apply(work);
+            if (transactional == null) {
+                durable = append(work, work.entries);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (durable != null) {
+            durable.join();
+        }
+        return result;
+    }
+
+    void commit(Work work) {
+        CompletableFuture<Void> durable;
+        lock.writeLock().lock();
+        try {
+            durable = append(work, work.entries);
+            finish(work);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        durable.join();
+    }
+
+    void rollback(Work work) {
+        CompletableFuture<Void> durable;
+        lock.writeLock().lock();
+        try {
+            // 撤销后的状态也写入日志：其他事务提交时写的房间整行镜像可能带上了这次事务未提交的列
+            List<JournalEntry> compensations = new ArrayList<>();
+            for (int i = work.undo.size() - 1; i >= 0; i--) {
+                JournalEntry entry = work.undo.get(i).get();
+                if (entry != null) {
+                    compensations.add(entry);
+                }
+            }
+            durable = append(work, compensations);
+            finish(work);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        durable.join();
+    }
+
+    /**
+     * 调用方持有写锁。有快照在等待时，还没写过的事务先等快照写完再开始写。
+     */
+    private void awaitSnapshot() {
+        while (snapshotPending) {
+            quiesced.awaitUninterruptibly();
+        }
+    }
+
+    /**
+     * 调用方持有写锁。事务结束，唤醒等待中的快照。
+     */
+    private void finish(Work work) {
+        if (work.open) {
+            work.open = false;
+            openTransactions--;
+            quiesced.signalAll();
+        }
+    }
+
+    /**
+     * 调用方持有写锁。房间写入提交时的整行镜像，保证日志顺序与内存中的修改顺序一致。
+     */
+    private CompletableFuture<Void> append(Work work, List<JournalEntry> entries) {
+        if (entries.isEmpty() && work.touchedRooms.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            for (Integer roomId : work.touchedRooms) {
+                RoomInfo room = rooms.get(roomId);
+                writeLine(out, room != null ? JournalEntry.room(room) : JournalEntry.roomDeleted(roomId));
+            }
+            for (JournalEntry entry : entries) {
+                writeLine(out, entry);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return journal.append(out.toByteArray());
+    }
+
+    private void writeLine(ByteArrayOutputStream out, JournalEntry entry) throws IOException {
+        out.write(json.writeValueAsBytes(entry));
+        out.write('\n');
+    }
+
+    // ---- room_infos ----
+
+    RoomInfo room(int roomId) {
+        return rooms.get(roomId);
+    }
+
+    Collection<RoomInfo> rooms() {
+        return rooms.values();
+    }
+
+    void insertRoom(Work work, RoomInfo room) {
+        int roomId = room.getRoomId();
+        rooms.put(roomId, copy(room));
+        work.touchedRooms.add(roomId);
+        work.undo.add(() -> {
+            rooms.remove(roomId);
+            return JournalEntry.roomDeleted(roomId);
+        });
+    }
+
+    /**
+     * 修改一行。撤销时只恢复这次修改改动过的列，不覆盖其他事务对同一行其他列的修改。
+     */
+    void updateRoom(Work work, RoomInfo live, Consumer<RoomInfo> change) {
+        RoomInfo before = copy(live);
+        change.accept(live);
+        RoomInfo after = copy(live);
+        int roomId = live.getRoomId();
+        work.touchedRooms.add(roomId);
+        work.undo.add(() -> {
+            RoomInfo current = rooms.get(roomId);
+            if (current == null) {
+                return null;
+            }
+            restoreChangedColumns(current, before, after);
+            return JournalEntry.room(copy(current));
+        });
+    }
+
+    // ---- scheduler_board ----
+
+    void insertBoard(Work work, SchedulerBoardRecord record) {
+        SchedulerBoardRecord stored = copy(record);
+        stored.setId(nextBoardId++);
+        indexBoard(stored);
+        work.entries.add(JournalEntry.board(copy(stored)));
+        work.undo.add(() -> {
+            unindexBoard(stored.getId());
+            return JournalEntry.boardDeleted(stored.getId());
+        });
+    }
+
+    int deleteBoard(Work work, Collection<Long> ids) {
+        int deleted = 0;
+        for (Long id : ids) {
+            SchedulerBoardRecord removed = unindexBoard(id);
+            if (removed == null) {
+                continue;
+            }
+            deleted++;
+            work.entries.add(JournalEntry.boardDeleted(id));
+            work.undo.add(() -> {
+                indexBoard(removed);
+                return JournalEntry.board(copy(removed));
+            });
+        }
+        return deleted;
+    }
+
+    Collection<SchedulerBoardRecord> boardOfRoom(int roomId) {
+        NavigableMap<Long, SchedulerBoardRecord> records = boardByRoom.get(roomId);
+        return records == null ? List.of() : records.values();
+    }
+
+    NavigableMap<LocalDateTime, Map<Long, SchedulerBoardRecord>> boardByStart() {
+        return boardByStart;
+    }
+
+    NavigableMap<LocalDateTime, Map<Long, SchedulerBoardRecord>> boardByEnd() {
+        return boardByEnd;
+    }
+
+    private void indexBoard(SchedulerBoardRecord record) {
+        board.put(record.getId(), record);
+        boardByRoom.computeIfAbsent(record.getRoomId(), id -> new TreeMap<>()).put(record.getId(), record);
+        if (record.getStartTime() != null) {
+            boardByStart.computeIfAbsent(record.getStartTime(), t -> new LinkedHashMap<>()).put(record.getId(), record);
+        }
+        if (record.getEndTime() != null) {
+            boardByEnd.computeIfAbsent(record.getEndTime(), t -> new LinkedHashMap<>()).put(record.getId(), record);
+        }
+    }
+
+    private SchedulerBoardRecord unindexBoard(long id) {
+        SchedulerBoardRecord record = board.remove(id);
+        if (record == null) {
+            return null;
+        }
+        NavigableMap<Long, SchedulerBoardRecord> byRoom = boardByRoom.get(record.getRoomId());
+        if (byRoom != null && byRoom.remove(id) != null && byRoom.isEmpty()) {
+            boardByRoom.remove(record.getRoomId());
+        }
+        removeFromTimeIndex(boardByStart, record.getStartTime(), id);
+        removeFromTimeIndex(boardByEnd, record.getEndTime(), id);
+        return record;
+    }
+
+    private static void removeFromTimeIndex(NavigableMap<LocalDateTime, Map<Long, SchedulerBoardRecord>> index,
+                                            LocalDateTime time, long id) {
+        if (time == null) {
+            return;
+        }
+        Map<Long, SchedulerBoardRecord> records = index.get(time);
+        if (records != null && records.remove(id) != null && records.isEmpty()) {
+            index.remove(time);
+        }
+    }
+
+    // ---- op_records ----
+
+    OpRecord insertOp(Work work, OpRecord record) {
+        OpRecord stored = copy(record);
+        stored.setId(nextOpId++);
+        ops.put(stored.getId(), stored);
+        work.entries.add(JournalEntry.op(copy(stored)));
+        work.undo.add(() -> {
+            ops.remove(stored.getId());
+            return JournalEntry.opDeleted(stored.getId());
+        });
+        return copy(stored);
+    }
+
+    // ---- users ----
+
+    UserEntity user(String account) {
+        return users.get(account);
+    }
+
+    void putUser(Work work, UserEntity user) {
+        UserEntity previous = users.put(user.getAccountColumn(), copy(user));
+        work.entries.add(JournalEntry.user(copy(user)));
+        work.undo.add(() -> {
+            if (previous == null) {
+                users.remove(user.getAccountColumn());
+                return JournalEntry.userDeleted(user.getAccountColumn());
+            }
+            users.put(previous.getAccountColumn(), previous);
+            return JournalEntry.user(copy(previous));
+        });
+    }
+
+    // ---- 快照与恢复 ----
+
+    /**
+     * 写快照并清空日志。先等已经写过的事务全部结束（期间新事务不能开始写入），再在写锁中复制数据，
+     * 快照里不会有之后可能回滚的写入。等待超时则放弃这次快照，日志保留，数据不受影响。
+     */
+    public void snapshot() throws IOException {
+        long start = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            snapshotPending = true;
+            long remaining = TimeUnit.MILLISECONDS.toNanos(SNAPSHOT_QUIESCE_MILLIS);
+            while (openTransactions > 0 && remaining > 0) {
+                remaining = quiesced.awaitNanos(remaining);
+            }
+            if (openTransactions > 0) {
+                System.err.println("Embedded store snapshot skipped: " + openTransactions + " transaction(s) still open after "
+                        + SNAPSHOT_QUIESCE_MILLIS + "ms.");
+                return;
+            }
+            Snapshot snapshot = new Snapshot(new ArrayList<>(rooms.values()), new ArrayList<>(board.values()),
+                    new ArrayList<>(ops.values()), new ArrayList<>(users.values()));
+            Path tmp = dir.resolve(SNAPSHOT + ".tmp");
+            try (var out = Files.newOutputStream(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE, StandardOpenOption.SYNC)) {
+                json.writeValue(out, snapshot);
+            }
+            Files.move(tmp, dir.resolve(SNAPSHOT), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            journal.truncate();
+            snapshots++;
+            lastSnapshotMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for open transactions", e);
+        } finally {
+            snapshotPending = false;
+            quiesced.signalAll();
+            lock.writeLock().unlock();
+        }
+        System.out.println("Embedded store snapshot written in " + lastSnapshotMillis + "ms.");
+    }
+
+    private void snapshotSafely() {
+        try {
+            snapshot();
+        } catch (Exception e) {
+            System.err.println("Embedded store snapshot failed: " + e.getMessage());
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        read(() -> {
+            stats.put("rooms", rooms.size());
+            stats.put("billingRecords", board.size());
+            stats.put("opRecords", ops.size());
+            stats.put("users", users.size());
+            return null;
+        });
+        stats.put("journalAppends", journal.appends());
+        stats.put("journalGroupCommits", journal.groupCommits());
+        stats.put("journalBytes", journal.bytesWritten());
+        stats.put("snapshots", snapshots);
+        stats.put("lastSnapshotMillis", lastSnapshotMillis);
+        return stats;
+    }
+
+    private int recover() throws IOException {
+        Path snapshotFile = dir.resolve(SNAPSHOT);
+        if (Files.exists(snapshotFile)) {
+            Snapshot snapshot = json.readValue(snapshotFile.toFile(), Snapshot.class);
+            snapshot.rooms().forEach(room -> rooms.put(room.getRoomId(), room));
+            snapshot.board().forEach(this::indexBoard);
+            snapshot.ops().forEach(op -> ops.put(op.getId(), op));
+            snapshot.users().forEach(user -> users.put(user.getAccountColumn(), user));
+        }
+        int replayed = 0;
+        Path journalFile = dir.resolve(JOURNAL);
+        if (Files.exists(journalFile)) {
+            try (BufferedReader reader = Files.newBufferedReader(journalFile, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    JournalEntry entry;
+                    try {
+                        entry = json.readValue(line, JournalEntry.class);
+                    } catch (IOException e) {
+                        // 崩溃时写了一半的最后一行
+                        System.err.println("Ignoring unreadable journal entry: " + e.getMessage());
+                        break;
+                    }
+                    replay(entry);
+                    replayed++;
+                }
+            }
+        }
+        nextBoardId = board.isEmpty() ? 1 : board.lastKey() + 1;
+        nextOpId = ops.isEmpty() ? 1 : ops.lastKey() + 1;
+        return replayed;
+    }
+
+    private void replay(JournalEntry entry) {
+        switch (entry.type()) {
+            case "room" -> rooms.put(entry.room().getRoomId(), entry.room());
+            case "roomDel" -> rooms.remove(entry.roomId());
+            case "board" -> {
+                unindexBoard(entry.board().getId());
+                indexBoard(entry.board());
+            }
+            case "boardDel" -> unindexBoard(entry.id());
+            case "op" -> ops.put(entry.op().getId(), entry.op());
+            case "opDel" -> ops.remove(entry.id());
+            case "user" -> users.put(entry.user().getAccountColumn(), entry.user());
+            case "userDel" -> users.remove(entry.account());
+            default -> System.err.println("Ignoring unknown journal entry type: " + entry.type());
+        }
+    }
+
+    /**
+     * embedded.seed-users=account:password:role,...，账号不存在时写入。嵌入式模式下没有其他途径创建用户。
+     */
+    private void seedUsers(String seedUsers) {
+        for (String spec : seedUsers.split(",")) {
+            String[] parts = spec.trim().split(":", 3);
+            if (parts.length != 3) {
+                continue;
+            }
+            write(work -> {
+                if (users.get(parts[0]) == null) {
+                    putUser(work, new UserEntity(parts[0], parts[1], parts[2]));
+                }
+                return null;
+            });
+        }
+    }
+
+    // ---- 副本 ----
+
+    static RoomInfo copy(RoomInfo source) {
+        RoomInfo room = new RoomInfo();
+        room.setRoomId(source.getRoomId());
+        room.setClientId(source.getClientId());
+        room.setClientName(source.getClientName());
+        room.setCheckinTime(source.getCheckinTime());
+        room.setCheckoutTime(source.getCheckoutTime());
+        room.setState(source.getState());
+        room.setAcState(source.getAcState());
+        room.setCurrentSpeed(source.getCurrentSpeed());
+        room.setCurrentTempera(source.getCurrentTempera());
+        room.setTargetTempera(source.getTargetTempera());
+        return room;
+    }
+
+    static SchedulerBoardRecord copy(SchedulerBoardRecord source) {
+        SchedulerBoardRecord record = new SchedulerBoardRecord(source.getRoomId(), source.getStartTime(), source.getEndTime(),
+                source.getDurationSeconds(), source.getSpeed(), source.getCost());
+        record.setId(source.getId());
+        return record;
+    }
+
+    static OpRecord copy(OpRecord source) {
+        OpRecord record = new OpRecord(source.getRoomId(), source.getOpTime(), source.getOpType(),
+                source.getOldState(), source.getNewState());
+        record.setId(source.getId());
+        return record;
+    }
+
+    static UserEntity copy(UserEntity source) {
+        return new UserEntity(source.getAccountColumn(), source.getPasswordColumn(), source.getRoleColumn());
+    }
+
+    private static void restoreChangedColumns(RoomInfo current, RoomInfo before, RoomInfo after) {
+        if (!Objects.equals(before.getClientId(), after.getClientId())) current.setClientId(before.getClientId());
+        if (!Objects.equals(before.getClientName(), after.getClientName())) current.setClientName(before.getClientName());
+        if (!Objects.equals(before.getCheckinTime(), after.getCheckinTime())) current.setCheckinTime(before.getCheckinTime());
+        if (!Objects.equals(before.getCheckoutTime(), after.getCheckoutTime())) current.setCheckoutTime(before.getCheckoutTime());
+        if (!Objects.equals(before.getState(), after.getState())) current.setState(before.getState());
+        if (!Objects.equals(before.getAcState(), after.getAcState())) current.setAcState(before.getAcState());
+        if (!Objects.equals(before.getCurrentSpeed(), after.getCurrentSpeed())) current.setCurrentSpeed(before.getCurrentSpeed());
+        if (!Objects.equals(before.getCurrentTempera(), after.getCurrentTempera())) current.setCurrentTempera(before.getCurrentTempera());
+        if (!Objects.equals(before.getTargetTempera(), after.getTargetTempera())) current.setTargetTempera(before.getTargetTempera());
+    }
+}
@@ -0,0 +1,89 @@
+package org.example.temperaturecontrolsystem.embedded;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.SmartTransactionObject;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * embedded profile 下的事务管理器，@Transactional 和 TransactionTemplate 照常使用。
+ * <p>
+ * 事务开始时把一个 {@link EmbeddedStore.Work} 绑定到当前线程，mapper 的写入都记在上面；
+ * 提交时写日志并等待落盘，回滚时由存储引擎撤销。事务同步（提交后回调等）由父类按 Spring 的规则处理。
+ */
+@Component("transactionManager")
+@Profile("embedded")
+public class EmbeddedTransactionManager extends AbstractPlatformTransactionManager {
+
+    private static final class EmbeddedTransaction implements SmartTransactionObject {
+        private EmbeddedStore.Work work;
+
+        @Override
+        public boolean isRollbackOnly() {
+            return work != null && work.rollbackOnly;
+        }
+
+        @Override
+        public void flush() {
+        }
+    }
+
+    private final EmbeddedStore store;
+
+    public EmbeddedTransactionManager(EmbeddedStore store) {
+        this.store = store;
+    }
+
+    @Override
+    protected Object doGetTransaction() {
+        EmbeddedTransaction transaction = new EmbeddedTransaction();
+        transaction.work = (EmbeddedStore.Work) TransactionSynchronizationManager.getResource(store);
+        return transaction;
+    }
+
+    @Override
+    protected boolean isExistingTransaction(Object transaction) {
+        return ((EmbeddedTransaction) transaction).work != null;
+    }
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+        EmbeddedTransaction embedded = (EmbeddedTransaction) transaction;
+        embedded.work = new EmbeddedStore.Work();
+        TransactionSynchronizationManager.bindResource(store, embedded.work);
+    }
+
+    @Override
+    protected Object doSuspend(Object transaction) {
+        ((EmbeddedTransaction) transaction).work = null;
+        return TransactionSynchronizationManager.unbindResource(store);
+    }
+
+    @Override
+    protected void doResume(Object transaction, Object suspendedResources) {
+        TransactionSynchronizationManager.bindResource(store, suspendedResources);
+    }
+
+    @Override
+    protected void doCommit(DefaultTransactionStatus status) {
+        store.commit(((EmbeddedTransaction) status.getTransaction()).work);
+    }
+
+    @Override
+    protected void doRollback(DefaultTransactionStatus status) {
+        store.rollback(((EmbeddedTransaction) status.getTransaction()).work);
+    }
+
+    @Override
+    protected void doSetRollbackOnly(DefaultTransactionStatus status) {
+        ((EmbeddedTransaction) status.getTransaction()).work.rollbackOnly = true;
+    }
+
+    @Override
+    protected void doCleanupAfterCompletion(Object transaction) {
+        TransactionSynchronizationManager.unbindResourceIfPossible(store);
+    }
+}
@@ -0,0 +1,27 @@
+package org.example.temperaturecontrolsystem.embedded;
+
+import org.example.temperaturecontrolsystem.entity.UserEntity;
+import org.example.temperaturecontrolsystem.mapper.UserMapper;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * users 的进程内实现。账号由 embedded.seed-users 写入。
+ */
+@Component("userMapper")
+@Profile("embedded")
+public class EmbeddedUserMapper implements UserMapper {
+
+    private final EmbeddedStore store;
+
+    public EmbeddedUserMapper(EmbeddedStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public Optional<UserEntity> findByAccount(String account) {
+        return store.read(() -> Optional.ofNullable(store.user(account)).map(EmbeddedStore::copy));
+    }
+}
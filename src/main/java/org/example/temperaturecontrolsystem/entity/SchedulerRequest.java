@@ -2,6 +2,9 @@ package org.example.temperaturecontrolsystem.entity;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.ToString;
+
+import java.util.List;
 
 @Data
 @AllArgsConstructor
@@ -9,4 +12,18 @@ public class SchedulerRequest {
     private int roomId;
     private String type;
     private String speed;
+
+    /**
+     * type 为 "batch" 时的一组消息，调度器在同一次加锁中依次处理。
+     */
+    @ToString.Exclude
+    private List<SchedulerRequest> batch;
+
+    public SchedulerRequest(int roomId, String type, String speed) {
+        this(roomId, type, speed, null);
+    }
+
+    public static SchedulerRequest batch(List<SchedulerRequest> requests) {
+        return new SchedulerRequest(0, "batch", null, List.copyOf(requests));
+    }
 }
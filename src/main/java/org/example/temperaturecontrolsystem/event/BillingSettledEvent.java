@@ -0,0 +1,11 @@
+package org.example.temperaturecontrolsystem.event;
+
+import org.example.temperaturecontrolsystem.entity.SchedulerBoardRecord;
+
+/**
+ * 一段送风服务结算完成、计费记录已写入 scheduler_board 时发布。
+ *
+ * @param record 刚写入的计费记录
+ */
+public record BillingSettledEvent(SchedulerBoardRecord record) {
+}
@@ -0,0 +1,13 @@
+package org.example.temperaturecontrolsystem.event;
+
+import org.example.temperaturecontrolsystem.entity.RoomInfo;
+
+/**
+ * room_infos 中某个房间的状态被本进程修改时发布（入住 / 退房、空调状态、风速、目标温度、当前温度）。
+ * 监听方通常使用 @TransactionalEventListener，在事务提交之后才处理。
+ *
+ * @param before 修改前的状态，缓存中没有该房间时为 null
+ * @param after  修改后的状态，缓存处于 invalidate 模式时为 null，需要时通过 RoomInfoMapper 重新读取
+ */
+public record RoomStateChangedEvent(int roomId, RoomInfo before, RoomInfo after) {
+}
@@ -0,0 +1,10 @@
+package org.example.temperaturecontrolsystem.event;
+
+import java.time.LocalDateTime;
+
+/**
+ * 某房间 start_time 在 [from, before) 内的计费记录被后台压缩改写时发布。
+ * 费用总额不变，但明细行发生了变化。
+ */
+public record SchedulerBoardCompactedEvent(int roomId, LocalDateTime from, LocalDateTime before) {
+}
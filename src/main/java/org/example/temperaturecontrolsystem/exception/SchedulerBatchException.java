@@ -0,0 +1,29 @@
+package org.example.temperaturecontrolsystem.exception;
+
+import java.util.Map;
+
+/**
+ * 批量消息中有消息处理失败。其余消息已经正常生效；failures 以消息在批量中的下标为键。
+ */
+public class SchedulerBatchException extends RuntimeException {
+
+    private final Map<Integer, RuntimeException> failures;
+
+    public SchedulerBatchException(int batchSize, Map<Integer, RuntimeException> failures) {
+        super(failures.size() + " of " + batchSize + " batched scheduler message(s) failed.",
+                failures.values().iterator().next());
+        this.failures = Map.copyOf(failures);
+        failures.values().stream().skip(1).forEach(this::addSuppressed);
+    }
+
+    /**
+     * @return 下标对应的消息失败时返回它的异常，否则返回 null
+     */
+    public RuntimeException failureAt(int index) {
+        return failures.get(index);
+    }
+
+    public Map<Integer, RuntimeException> failures() {
+        return failures;
+    }
+}
@@ -0,0 +1,277 @@
+package org.example.temperaturecontrolsystem.ingest;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.example.temperaturecontrolsystem.metrics.LatencyHistogram;
+import org.example.temperaturecontrolsystem.service.RoomStateService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 温控器硬件的二进制 UDP 上报（可选，udp.ingest.enabled）。
+ * <p>
+ * 报文固定 {@value #DATAGRAM_SIZE} 字节，大端：
+ * <pre>
+ *  0  int   roomId
+ *  4  int   sequence     每个温控器单调递增，允许回绕
+ *  8  float temperature
+ * 12  long  sentAtMillis 发送时刻（epoch 毫秒），0 表示不提供；只用于统计端到端延迟，精度受两端时钟影响
+ * </pre>
+ * 一个线程在非阻塞 DatagramChannel 上用 Selector 收包，每个报文读进同一个复用的直接缓冲区解码，解码过程不分配对象。
+ * 序号不大于该房间上一次序号的报文视为乱序或重复，直接丢弃；但某个房间超过 udp.ingest.sequence-reset-seconds
+ * 没有收到报文时，下一个报文无论序号大小都接受并作为新的起点，温控器重启后序号从头开始也不会被一直丢弃。
+ * <p>
+ * 收包线程只解码和查重，读数放进容量为 udp.ingest.queue-capacity 的环形队列（基本类型数组，不分配对象），
+ * 由单独的写入线程取出后与 PUT /api/rooms/{roomId}/current-temperature 走同一条路径
+ * {@link RoomStateService#updateCurrentTemperature}（包括写温度历史），写入变慢时不会拖住收包。队列满时丢弃新读数并计数。
+ */
+@Component
+public class UdpTemperatureListener {
+
+    public static final int DATAGRAM_SIZE = 20;
+
+    private final RoomStateService roomStateService;
+    private final boolean enabled;
+    private final String bindAddress;
+    private final int port;
+    private final int receiveBufferBytes;
+    private final int maxRoomId;
+    private final long sequenceResetNanos;
+
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(512).order(ByteOrder.BIG_ENDIAN);
+    private final int[] lastSequence;
+    private final long[] lastSeenNanos;
+    private final boolean[] seen;
+
+    /**
+     * 收包线程写入、写入线程读取的环形队列，head / size 由 queueLock 保护。
+     */
+    private final Object queueLock = new Object();
+    private final int[] queuedRoomIds;
+    private final float[] queuedTemperatures;
+    private final long[] queuedReceivedAt;
+    private final long[] queuedSentAtMillis;
+    private int queueHead;
+    private int queueSize;
+
+    private final LongAdder received = new LongAdder();
+    private final LongAdder applied = new LongAdder();
+    private final LongAdder malformed = new LongAdder();
+    private final LongAdder outOfOrder = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder sequenceResets = new LongAdder();
+    private final LongAdder queueOverflow = new LongAdder();
+    private final LatencyHistogram ingestLatency = new LatencyHistogram();
+    private final LatencyHistogram endToEndLatency = new LatencyHistogram();
+
+    private volatile DatagramChannel channel;
+    private volatile Selector selector;
+    private Thread receiver;
+    private Thread writer;
+
+    public UdpTemperatureListener(RoomStateService roomStateService,
+                                  @Value("${udp.ingest.enabled:false}") boolean enabled,
+                                  @Value("${udp.ingest.bind-address:0.0.0.0}") String bindAddress,
+                                  @Value("${udp.ingest.port:9876}") int port,
+                                  @Value("${udp.ingest.receive-buffer-bytes:4194304}") int receiveBufferBytes,
+                                  @Value("${udp.ingest.max-room-id:99999}") int maxRoomId,
+                                  @Value("${udp.ingest.sequence-reset-seconds:30}") long sequenceResetSeconds,
+                                  @Value("${udp.ingest.queue-capacity:65536}") int queueCapacity) {
+        this.roomStateService = roomStateService;
+        this.enabled = enabled;
+        this.bindAddress = bindAddress;
+        this.port = port;
+        this.receiveBufferBytes = receiveBufferBytes;
+        this.maxRoomId = maxRoomId;
+        this.sequenceResetNanos = TimeUnit.SECONDS.toNanos(sequenceResetSeconds);
+        this.lastSequence = new int[maxRoomId + 1];
+        this.lastSeenNanos = new long[maxRoomId + 1];
+        this.seen = new boolean[maxRoomId + 1];
+        this.queuedRoomIds = new int[queueCapacity];
+        this.queuedTemperatures = new float[queueCapacity];
+        this.queuedReceivedAt = new long[queueCapacity];
+        this.queuedSentAtMillis = new long[queueCapacity];
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        channel = DatagramChannel.open();
+        channel.setOption(StandardSocketOptions.SO_RCVBUF, receiveBufferBytes);
+        channel.bind(new InetSocketAddress(bindAddress, port));
+        channel.configureBlocking(false);
+        selector = Selector.open();
+        channel.register(selector, SelectionKey.OP_READ);
+
+        writer = new Thread(this::writeLoop, "udp-temperature-writer");
+        writer.setDaemon(true);
+        writer.start();
+        receiver = new Thread(this::receiveLoop, "udp-temperature-listener");
+        receiver.setDaemon(true);
+        receiver.start();
+        System.out.println("UDP temperature listener bound to " + channel.getLocalAddress());
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        if (receiver == null) {
+            return;
+        }
+        receiver.interrupt();
+        selector.wakeup();
+        writer.interrupt();
+        try {
+            receiver.join(2000);
+            writer.join(2000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        selector.close();
+        channel.close();
+    }
+
+    /**
+     * @return 实际绑定的端口，udp.ingest.port=0 时由系统分配
+     */
+    public int getLocalPort() throws IOException {
+        return ((InetSocketAddress) channel.getLocalAddress()).getPort();
+    }
+
+    private void receiveLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                if (selector.select(1000) == 0) {
+                    continue;
+                }
+                selector.selectedKeys().clear();
+                // 一次就绪把内核缓冲区里的报文全部取完
+                while (channel.receive(buffer) != null) {
+                    long receivedAt = System.nanoTime();
+                    buffer.flip();
+                    handle(receivedAt);
+                    buffer.clear();
+                }
+            } catch (IOException e) {
+                if (!channel.isOpen()) {
+                    break;
+                }
+                System.err.println("UDP temperature listener receive failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private void handle(long receivedAt) {
+        received.increment();
+        if (buffer.remaining() != DATAGRAM_SIZE) {
+            malformed.increment();
+            return;
+        }
+        int roomId = buffer.getInt();
+        int sequence = buffer.getInt();
+        float temperature = buffer.getFloat();
+        long sentAtMillis = buffer.getLong();
+
+        if (roomId <= 0 || roomId > maxRoomId || !Float.isFinite(temperature)) {
+            malformed.increment();
+            return;
+        }
+        // 差值按有符号比较，序号回绕后仍然正确
+        if (seen[roomId] && sequence - lastSequence[roomId] <= 0) {
+            if (receivedAt - lastSeenNanos[roomId] < sequenceResetNanos) {
+                outOfOrder.increment();
+                return;
+            }
+            sequenceResets.increment();
+        }
+        seen[roomId] = true;
+        lastSequence[roomId] = sequence;
+        lastSeenNanos[roomId] = receivedAt;
+
+        synchronized (queueLock) {
+            if (queueSize == queuedRoomIds.length) {
+                queueOverflow.increment();
+                return;
+            }
+            int tail = (queueHead + queueSize) % queuedRoomIds.length;
+            queuedRoomIds[tail] = roomId;
+            queuedTemperatures[tail] = temperature;
+            queuedReceivedAt[tail] = receivedAt;
+            queuedSentAtMillis[tail] = sentAtMillis;
+            if (queueSize++ == 0) {
+                queueLock.notify();
+            }
+        }
+    }
+
+    private void writeLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            int roomId;
+            float temperature;
+            long receivedAt;
+            long sentAtMillis;
+            synchronized (queueLock) {
+                while (queueSize == 0) {
+                    try {
+                        queueLock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                roomId = queuedRoomIds[queueHead];
+                temperature = queuedTemperatures[queueHead];
+                receivedAt = queuedReceivedAt[queueHead];
+                sentAtMillis = queuedSentAtMillis[queueHead];
+                queueHead = (queueHead + 1) % queuedRoomIds.length;
+                queueSize--;
+            }
+
+            try {
+                roomStateService.updateCurrentTemperature(roomId, temperature);
+                applied.increment();
+            } catch (RuntimeException e) {
+                rejected.increment();
+            }
+            ingestLatency.recordNanos(System.nanoTime() - receivedAt);
+            if (sentAtMillis > 0) {
+                endToEndLatency.recordNanos(Math.max(0, System.currentTimeMillis() - sentAtMillis) * 1_000_000);
+            }
+        }
+    }
+
+    private int queued() {
+        synchronized (queueLock) {
+            return queueSize;
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("received", received.sum());
+        stats.put("applied", applied.sum());
+        stats.put("malformed", malformed.sum());
+        stats.put("outOfOrder", outOfOrder.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("sequenceResets", sequenceResets.sum());
+        stats.put("queued", queued());
+        stats.put("queueOverflow", queueOverflow.sum());
+        stats.put("ingestLatency", ingestLatency.snapshot());
+        stats.put("endToEndLatency", endToEndLatency.snapshot());
+        return stats;
+    }
+}
@@ -2,12 +2,26 @@ package org.example.temperaturecontrolsystem.mapper;
 
 import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 import org.example.temperaturecontrolsystem.entity.OpRecord;
 
+import java.util.List;
+
 @Mapper
 public interface OpRecordMapper {
 
     @Insert("INSERT INTO op_records (room_id, op_time, op_type, old_state, new_state) " +
             "VALUES (#{roomId}, #{opTime}, #{opType}, #{oldState}, #{newState})")
     void insert(OpRecord record);
-}
\ No newline at end of file
+
+    /**
+     * 一条多行 INSERT 写入多条操作记录。
+     */
+    @Insert("<script>" +
+            "INSERT INTO op_records (room_id, op_time, op_type, old_state, new_state) VALUES " +
+            "<foreach collection='records' item='r' separator=','>" +
+            "(#{r.roomId}, #{r.opTime}, #{r.opType}, #{r.oldState}, #{r.newState})" +
+            "</foreach>" +
+            "</script>")
+    void insertBatch(@Param("records") List<OpRecord> records);
+}
@@ -1,6 +1,9 @@
 package org.example.temperaturecontrolsystem.mapper;
 
 import org.apache.ibatis.annotations.*;
+import org.example.temperaturecontrolsystem.dto.RoomStateCounts;
+import org.example.temperaturecontrolsystem.dto.TemperatureReading;
+import org.example.temperaturecontrolsystem.entity.OpRecord;
 import org.example.temperaturecontrolsystem.entity.RoomInfo;
 import java.time.LocalDateTime;
 import java.util.List;
@@ -79,12 +82,144 @@ public interface RoomInfoMapper {
     @Update("UPDATE room_infos SET current_tempera = #{temperature} WHERE room_id = #{roomNumber}")
     int updateCurrentTemperature(@Param("roomNumber") int roomNumber, @Param("temperature") double temperature);
 
+    /**
+     * 一条语句更新多个房间的当前温度。readings 中的房间号不能重复。
+     * @return 更新的行数
+     */
+    @Update("<script>" +
+            "UPDATE room_infos SET current_tempera = CASE room_id " +
+            "<foreach collection='readings' item='r'>WHEN #{r.roomId} THEN #{r.temperature} </foreach>" +
+            "END WHERE room_id IN " +
+            "<foreach collection='readings' item='r' open='(' separator=',' close=')'>#{r.roomId}</foreach>" +
+            "</script>")
+    int updateCurrentTemperatures(@Param("readings") List<TemperatureReading> readings);
+
     @Update("UPDATE room_infos SET target_tempera = #{targetTemperature} WHERE room_id = #{roomNumber}")
     int updateTargetTemperature(@Param("roomNumber") int roomNumber, @Param("targetTemperature") double targetTemperature);
 
     @Update("UPDATE room_infos SET ac_state = #{acState} WHERE room_id = #{roomId}")
     int updateAcState(@Param("roomId") int roomId, @Param("acState") int acState);
 
+    /**
+     * 批量设置空调状态，用于批量指令。关机时（acState = 0）同时把风速恢复为 medium，与单个房间关机一致。
+     * @return 更新的行数
+     */
+    @Update("<script>" +
+            "UPDATE room_infos SET ac_state = #{acState}" +
+            "<if test='acState == 0'>, current_speed = 'medium'</if> " +
+            "WHERE room_id IN " +
+            "<foreach collection='roomIds' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int updateAcStates(@Param("roomIds") List<Integer> roomIds, @Param("acState") int acState);
+
+    @Update("<script>" +
+            "UPDATE room_infos SET current_speed = #{speed} WHERE room_id IN " +
+            "<foreach collection='roomIds' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int updateSpeeds(@Param("roomIds") List<Integer> roomIds, @Param("speed") String speed);
+
+    @Update("<script>" +
+            "UPDATE room_infos SET target_tempera = #{targetTemperature} WHERE room_id IN " +
+            "<foreach collection='roomIds' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int updateTargetTemperatures(@Param("roomIds") List<Integer> roomIds, @Param("targetTemperature") double targetTemperature);
+
+    /*
+     * 带操作记录的条件更新：只有状态确实改变时才更新 room_infos 并写一条 op_records，整条指令一次往返。
+     * 返回写入的操作记录（old_state 即更新前的值）；状态没有变化或房间不存在时返回 null。
+     * MySQL 版是一组多语句，用 ROW_COUNT() 判断上一条语句是否生效。连接参数必须带 allowMultiQueries=true，
+     * 否则驱动拒绝多语句，第一条空调指令就会抛 SQLSyntaxErrorException；换数据源（包括只读副本以外的新库）时要保留这个参数。
+     * 这条路径由 RoomInfoMapperMySqlTests 在真实 MySQL 上验证（mvn test -Pmysql，需要 Docker）。
+     * H2 版用 data change delta table 嵌套成一条语句。
+     * 这些语句会写库，执行前清空 MyBatis 的本地缓存，保证每次都真正执行。
+     */
+
+    @Select(databaseId = "mysql", value = {
+            "UPDATE room_infos SET ac_state = 1 WHERE room_id = #{roomId} AND ac_state = 0;",
+            "INSERT INTO op_records (room_id, op_time, op_type, old_state, new_state)",
+            "SELECT #{roomId}, #{opTime}, 1, 'AC_STATE_OFF', 'AC_STATE_ON' FROM DUAL WHERE ROW_COUNT() > 0;",
+            LOGGED_OP_RECORD_MYSQL})
+    @Select(databaseId = "h2", value = {
+            "SELECT id, room_id, op_time, op_type, old_state, new_state FROM FINAL TABLE (",
+            "INSERT INTO op_records (room_id, op_time, op_type, old_state, new_state)",
+            "SELECT room_id, #{opTime}, 1, 'AC_STATE_OFF', 'AC_STATE_ON' FROM OLD TABLE (",
+            "UPDATE room_infos SET ac_state = 1 WHERE room_id = #{roomId} AND ac_state = 0))"})
+    @Options(flushCache = Options.FlushCachePolicy.TRUE)
+    OpRecord turnAcOnLogged(@Param("roomId") int roomId, @Param("opTime") LocalDateTime opTime);
+
+    /**
+     * 关机的同时把风速恢复为 medium。
+     */
+    @Select(databaseId = "mysql", value = {
+            "UPDATE room_infos SET ac_state = 0, current_speed = 'medium' WHERE room_id = #{roomId} AND ac_state <> 0;",
+            "INSERT INTO op_records (room_id, op_time, op_type, old_state, new_state)",
+            "SELECT #{roomId}, #{opTime}, 2, 'AC_STATE_ON', 'AC_STATE_OFF' FROM DUAL WHERE ROW_COUNT() > 0;",
+            LOGGED_OP_RECORD_MYSQL})
+    @Select(databaseId = "h2", value = {
+            "SELECT id, room_id, op_time, op_type, old_state, new_state FROM FINAL TABLE (",
+            "INSERT INTO op_records (room_id, op_time, op_type, old_state, new_state)",
+            "SELECT room_id, #{opTime}, 2, 'AC_STATE_ON', 'AC_STATE_OFF' FROM OLD TABLE (",
+            "UPDATE room_infos SET ac_state = 0, current_speed = 'medium' WHERE room_id = #{roomId} AND ac_state <> 0))"})
+    @Options(flushCache = Options.FlushCachePolicy.TRUE)
+    OpRecord turnAcOffLogged(@Param("roomId") int roomId, @Param("opTime") LocalDateTime opTime);
+
+    /**
+     * 风速比较不区分大小写，与原先 Java 里的 equalsIgnoreCase 一致。
+     */
+    @Select(databaseId = "mysql", value = {
+            "SELECT current_speed INTO @old_speed FROM room_infos WHERE room_id = #{roomId} FOR UPDATE;",
+            "UPDATE room_infos SET current_speed = #{speed}",
+            "WHERE room_id = #{roomId} AND (current_speed IS NULL OR LOWER(current_speed) <> LOWER(#{speed}));",
+            "INSERT INTO op_records (room_id, op_time, op_type, old_state, new_state)",
+            "SELECT #{roomId}, #{opTime}, 4, @old_speed, #{speed} FROM DUAL WHERE ROW_COUNT() > 0;",
+            LOGGED_OP_RECORD_MYSQL})
+    @Select(databaseId = "h2", value = {
+            "SELECT id, room_id, op_time, op_type, old_state, new_state FROM FINAL TABLE (",
+            "INSERT INTO op_records (room_id, op_time, op_type, old_state, new_state)",
+            "SELECT room_id, #{opTime}, 4, current_speed, #{speed} FROM OLD TABLE (",
+            "UPDATE room_infos SET current_speed = #{speed}",
+            "WHERE room_id = #{roomId} AND (current_speed IS NULL OR LOWER(current_speed) <> LOWER(#{speed}))))"})
+    @Options(flushCache = Options.FlushCachePolicy.TRUE)
+    OpRecord updateSpeedLogged(@Param("roomId") int roomId, @Param("speed") String speed,
+                               @Param("opTime") LocalDateTime opTime);
+
+    /**
+     * 目标温度变化不到 0.01 度视为没有变化。newState 由调用方格式化，与原先写入的格式一致。
+     * old_state 按 String.valueOf(double) 的格式写入（25.0）：MySQL 把整数值的 DOUBLE 转成 "25"，这里补上 ".0"，
+     * H2 的 CAST AS VARCHAR 本身就是 Java 的格式。
+     */
+    @Select(databaseId = "mysql", value = {
+            "SELECT IF(target_tempera = TRUNCATE(target_tempera, 0) AND ABS(target_tempera) < 1e7,",
+            "CONCAT(CAST(target_tempera AS CHAR), '.0'), CAST(target_tempera AS CHAR))",
+            "INTO @old_target FROM room_infos WHERE room_id = #{roomId} FOR UPDATE;",
+            "UPDATE room_infos SET target_tempera = #{targetTemperature}",
+            "WHERE room_id = #{roomId} AND (target_tempera IS NULL OR ABS(target_tempera - #{targetTemperature}) >= 0.01);",
+            "INSERT INTO op_records (room_id, op_time, op_type, old_state, new_state)",
+            "SELECT #{roomId}, #{opTime}, 3, @old_target, #{newState} FROM DUAL WHERE ROW_COUNT() > 0;",
+            LOGGED_OP_RECORD_MYSQL})
+    @Select(databaseId = "h2", value = {
+            "SELECT id, room_id, op_time, op_type, old_state, new_state FROM FINAL TABLE (",
+            "INSERT INTO op_records (room_id, op_time, op_type, old_state, new_state)",
+            "SELECT room_id, #{opTime}, 3, CAST(target_tempera AS VARCHAR), #{newState} FROM OLD TABLE (",
+            "UPDATE room_infos SET target_tempera = #{targetTemperature}",
+            "WHERE room_id = #{roomId} AND (target_tempera IS NULL OR ABS(target_tempera - #{targetTemperature}) >= 0.01)))"})
+    @Options(flushCache = Options.FlushCachePolicy.TRUE)
+    OpRecord updateTargetTemperatureLogged(@Param("roomId") int roomId, @Param("targetTemperature") double targetTemperature,
+                                           @Param("newState") String newState, @Param("opTime") LocalDateTime opTime);
+
+    /**
+     * MySQL 多语句的最后一条：INSERT 生效时读回刚写入的操作记录（主键查找），否则返回空结果。
+     */
+    String LOGGED_OP_RECORD_MYSQL = "SELECT id, room_id, op_time, op_type, old_state, new_state FROM op_records "
+            + "WHERE id = LAST_INSERT_ID() AND ROW_COUNT() > 0";
+
     @Select("SELECT room_id FROM room_infos WHERE ac_state <> 0")
     List<Integer> findAllActiveAcRoomIds();
+
+    @Select("SELECT COUNT(*) AS totalRooms, " +
+            "COALESCE(SUM(CASE WHEN state = 1 THEN 1 ELSE 0 END), 0) AS occupiedRooms, " +
+            "COALESCE(SUM(CASE WHEN ac_state = 1 THEN 1 ELSE 0 END), 0) AS supplyingRooms, " +
+            "COALESCE(SUM(CASE WHEN ac_state = 2 THEN 1 ELSE 0 END), 0) AS waitingRooms " +
+            "FROM room_infos")
+    RoomStateCounts countRoomStates();
 }
@@ -1,9 +1,14 @@
 package org.example.temperaturecontrolsystem.mapper;
 
+import org.apache.ibatis.annotations.Delete;
 import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.ResultType;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.session.ResultHandler;
+import org.example.temperaturecontrolsystem.dto.SettlementTotals;
 import org.example.temperaturecontrolsystem.entity.SchedulerBoardRecord;
 
 import java.math.BigDecimal;
@@ -13,15 +18,33 @@ import java.util.Optional;
 
 @Mapper
 public interface SchedulerMapper {
+
+    int STREAM_FETCH_SIZE = 1000;
+
     @Insert("INSERT INTO scheduler_board (room_id, start_time, end_time, duration_seconds, speed, cost) " +
             "VALUES (#{roomId}, #{startTime}, #{endTime}, #{durationSeconds}, #{speed}, #{cost})")
     void insertRecord(SchedulerBoardRecord record);
 
+    /**
+     * 一条多行 INSERT 写入多条计费记录。
+     */
+    @Insert("<script>" +
+            "INSERT INTO scheduler_board (room_id, start_time, end_time, duration_seconds, speed, cost) VALUES " +
+            "<foreach collection='records' item='r' separator=','>" +
+            "(#{r.roomId}, #{r.startTime}, #{r.endTime}, #{r.durationSeconds}, #{r.speed}, #{r.cost})" +
+            "</foreach>" +
+            "</script>")
+    void insertRecords(@Param("records") List<SchedulerBoardRecord> records);
+
     @Select("SELECT SUM(cost) FROM scheduler_board " +
             "WHERE room_id = #{roomId} AND start_time >= #{checkinTime}")
     Optional<BigDecimal> getTotalCostByRoomIdSince(@Param("roomId") int roomId,
                                                    @Param("checkinTime") LocalDateTime checkinTime);
 
+    @Select("SELECT COUNT(*) AS settlements, COALESCE(SUM(cost), 0) AS revenue FROM scheduler_board " +
+            "WHERE end_time >= #{from} AND end_time < #{to}")
+    SettlementTotals sumSettlementsEndedBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
     @Select("SELECT " +
             "room_id, " +
             "start_time, " +
@@ -51,4 +74,56 @@ public interface SchedulerMapper {
             @Param("startTime") LocalDateTime startTime,
             @Param("endTime") LocalDateTime endTime
     );
-}
\ No newline at end of file
+
+    /**
+     * 查询在 [from, before) 时间窗内开始、且需要压缩的房间号。
+     */
+    @Select("SELECT DISTINCT room_id FROM scheduler_board " +
+            "WHERE start_time >= #{from} AND start_time < #{before}")
+    List<Integer> findRoomIdsWithRecordsBetween(@Param("from") LocalDateTime from,
+                                                @Param("before") LocalDateTime before);
+
+    /**
+     * 查询 end_time 不早于 settledSince、但 start_time 早于 before 的记录（只有房间号和开始时间），
+     * 即压缩时间窗已经扫过之后才结算入库的记录。走 end_time 索引。
+     */
+    @Select("SELECT room_id, start_time FROM scheduler_board " +
+            "WHERE end_time >= #{settledSince} AND start_time < #{before}")
+    List<SchedulerBoardRecord> findLateSettlements(@Param("settledSince") LocalDateTime settledSince,
+                                                   @Param("before") LocalDateTime before);
+
+    /**
+     * 查询某房间在 [from, before) 时间窗内的全部记录（带主键），供后台压缩使用。
+     */
+    @Select("SELECT id, room_id, start_time, end_time, duration_seconds, speed, cost " +
+            "FROM scheduler_board " +
+            "WHERE room_id = #{roomId} AND start_time >= #{from} AND start_time < #{before} " +
+            "ORDER BY speed ASC, start_time ASC")
+    List<SchedulerBoardRecord> findCompactionCandidates(@Param("roomId") int roomId,
+                                                        @Param("from") LocalDateTime from,
+                                                        @Param("before") LocalDateTime before);
+
+    @Delete("<script>" +
+            "DELETE FROM scheduler_board WHERE id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int deleteByIds(@Param("ids") List<Long> ids);
+
+    /**
+     * 流式读取 [from, to) 内的记录（lastChunk 为 true 时右端闭合），逐行交给 handler，不在内存中物化整个结果集。
+     * 每批从数据库取回 {@value #STREAM_FETCH_SIZE} 行。MySQL Connector/J 只有在连接串带 useCursorFetch=true 时
+     * 才按 fetchSize 用服务端游标分批读取，否则会把整个结果集读进内存。
+     */
+    @Select("<script>" +
+            "SELECT room_id, start_time, end_time, duration_seconds, speed, cost " +
+            "FROM scheduler_board " +
+            "WHERE start_time &gt;= #{from} AND " +
+            "<choose><when test='lastChunk'>start_time &lt;= #{to}</when><otherwise>start_time &lt; #{to}</otherwise></choose>" +
+            "</script>")
+    @ResultType(SchedulerBoardRecord.class)
+    @Options(fetchSize = STREAM_FETCH_SIZE)
+    void streamRecordsInChunk(@Param("from") LocalDateTime from,
+                              @Param("to") LocalDateTime to,
+                              @Param("lastChunk") boolean lastChunk,
+                              ResultHandler<SchedulerBoardRecord> handler);
+}
@@ -0,0 +1,66 @@
+package org.example.temperaturecontrolsystem.offheap;
+
+/**
+ * {@link RoomStateTable} 一行的可复用视图（flyweight）。
+ * <p>
+ * 由 {@link RoomStateTable#read} / {@link RoomStateTable#forEach} 填充，字段都是基本类型，
+ * 遍历全部房间时只复用这一个对象，不为每个房间创建 RoomInfo。
+ */
+public final class RoomRowView {
+
+    int roomId;
+    byte state;
+    byte acState;
+    byte speed;
+    float currentTemperature;
+    float targetTemperature;
+    long checkinMillis;
+    long checkoutMillis;
+
+    public int roomId() {
+        return roomId;
+    }
+
+    /**
+     * @return 0=空闲, 1=已入住
+     */
+    public int state() {
+        return state;
+    }
+
+    /**
+     * @return 0=关机, 1=送风中, 2=等待
+     */
+    public int acState() {
+        return acState;
+    }
+
+    /**
+     * @return 1=low, 2=medium, 3=high，未知为 0
+     */
+    public int speed() {
+        return speed;
+    }
+
+    public float currentTemperature() {
+        return currentTemperature;
+    }
+
+    public float targetTemperature() {
+        return targetTemperature;
+    }
+
+    /**
+     * @return 入住时间（epoch 毫秒），没有时为 {@link RoomStateTable#NO_TIME}
+     */
+    public long checkinMillis() {
+        return checkinMillis;
+    }
+
+    /**
+     * @return 退房时间（epoch 毫秒），没有时为 {@link RoomStateTable#NO_TIME}
+     */
+    public long checkoutMillis() {
+        return checkoutMillis;
+    }
+}
@@ -0,0 +1,174 @@
+package org.example.temperaturecontrolsystem.offheap;
+
+import org.example.temperaturecontrolsystem.entity.RoomInfo;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * 堆外、按列存储的房间状态表，供需要遍历全部房间的批量计算使用。
+ * <p>
+ * 以房间号为下标，每一列是一块直接内存：状态、空调状态、风速各 1 字节，当前 / 目标温度为 float，
+ * 入住 / 退房时间为 epoch 毫秒。每个房间约 {@value #BYTES_PER_ROW} 字节，不含客户姓名等字符串字段。
+ * <p>
+ * 每行有一个版本号，按 seqlock 方式并发控制：写入方把版本号 CAS 成奇数、经 store-store 屏障后写列、
+ * 再以 release 语义加到下一个偶数；读取方以 acquire 读版本号，读列后经 load-load 屏障再读一次，
+ * 版本号为偶数且前后一致时才接受读到的值，否则重读。读写都不加锁，读取不分配对象。
+ */
+public class RoomStateTable {
+
+    public static final long NO_TIME = Long.MIN_VALUE;
+
+    static final int BYTES_PER_ROW = 4 + 1 + 1 + 1 + 1 + 4 + 4 + 8 + 8;
+
+    private static final VarHandle INT_VIEW = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    private final int maxRoomId;
+
+    private final ByteBuffer versions;
+    private final ByteBuffer present;
+    private final ByteBuffer states;
+    private final ByteBuffer acStates;
+    private final ByteBuffer speeds;
+    private final ByteBuffer currentTemperatures;
+    private final ByteBuffer targetTemperatures;
+    private final ByteBuffer checkinTimes;
+    private final ByteBuffer checkoutTimes;
+
+    public RoomStateTable(int maxRoomId) {
+        this.maxRoomId = maxRoomId;
+        int rows = maxRoomId + 1;
+        this.versions = column(rows * 4);
+        this.present = column(rows);
+        this.states = column(rows);
+        this.acStates = column(rows);
+        this.speeds = column(rows);
+        this.currentTemperatures = column(rows * 4);
+        this.targetTemperatures = column(rows * 4);
+        this.checkinTimes = column(rows * 8);
+        this.checkoutTimes = column(rows * 8);
+    }
+
+    public int maxRoomId() {
+        return maxRoomId;
+    }
+
+    public long offHeapBytes() {
+        return (long) (maxRoomId + 1) * BYTES_PER_ROW;
+    }
+
+    public boolean accepts(int roomId) {
+        return roomId >= 0 && roomId <= maxRoomId;
+    }
+
+    /**
+     * 用 RoomInfo 的全部字段覆盖一行。
+     */
+    public void put(RoomInfo room) {
+        int roomId = room.getRoomId();
+        int version = beginWrite(roomId);
+        present.put(roomId, (byte) 1);
+        states.put(roomId, room.getState() == null ? 0 : room.getState().byteValue());
+        acStates.put(roomId, room.getAcState() == null ? 0 : room.getAcState().byteValue());
+        speeds.put(roomId, speedCode(room.getCurrentSpeed()));
+        currentTemperatures.putFloat(roomId * 4, room.getCurrentTempera() == null ? Float.NaN : room.getCurrentTempera().floatValue());
+        targetTemperatures.putFloat(roomId * 4, room.getTargetTempera() == null ? Float.NaN : room.getTargetTempera().floatValue());
+        checkinTimes.putLong(roomId * 8, toMillis(room.getCheckinTime()));
+        checkoutTimes.putLong(roomId * 8, toMillis(room.getCheckoutTime()));
+        endWrite(roomId, version);
+    }
+
+    public void remove(int roomId) {
+        int version = beginWrite(roomId);
+        present.put(roomId, (byte) 0);
+        endWrite(roomId, version);
+    }
+
+    /**
+     * 把一行的一致快照读进 view。
+     *
+     * @return 该房间不存在时返回 false
+     */
+    public boolean read(int roomId, RoomRowView view) {
+        int offset = roomId * 4;
+        while (true) {
+            int before = (int) INT_VIEW.getAcquire(versions, offset);
+            if ((before & 1) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            boolean exists = present.get(roomId) != 0;
+            view.roomId = roomId;
+            view.state = states.get(roomId);
+            view.acState = acStates.get(roomId);
+            view.speed = speeds.get(roomId);
+            view.currentTemperature = currentTemperatures.getFloat(offset);
+            view.targetTemperature = targetTemperatures.getFloat(offset);
+            view.checkinMillis = checkinTimes.getLong(roomId * 8);
+            view.checkoutMillis = checkoutTimes.getLong(roomId * 8);
+            VarHandle.loadLoadFence();
+            if ((int) INT_VIEW.getAcquire(versions, offset) == before) {
+                return exists;
+            }
+        }
+    }
+
+    /**
+     * 按房间号升序遍历所有存在的房间，全程复用同一个 view。
+     */
+    public void forEach(RowVisitor visitor) {
+        RoomRowView view = new RoomRowView();
+        for (int roomId = 0; roomId <= maxRoomId; roomId++) {
+            if (present.get(roomId) != 0 && read(roomId, view)) {
+                visitor.visit(view);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface RowVisitor {
+        void visit(RoomRowView row);
+    }
+
+    private int beginWrite(int roomId) {
+        int offset = roomId * 4;
+        while (true) {
+            int version = (int) INT_VIEW.getVolatile(versions, offset);
+            if ((version & 1) == 0 && INT_VIEW.compareAndSet(versions, offset, version, version + 1)) {
+                // 奇数版本号必须先于任何一列的写入可见，否则读取方可能拿到新旧混合的行
+                VarHandle.storeStoreFence();
+                return version;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    private void endWrite(int roomId, int version) {
+        INT_VIEW.setRelease(versions, roomId * 4, version + 2);
+    }
+
+    static byte speedCode(String speed) {
+        if (speed == null) {
+            return 0;
+        }
+        return switch (speed) {
+            case "low" -> 1;
+            case "medium" -> 2;
+            case "high" -> 3;
+            default -> 0;
+        };
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time == null ? NO_TIME : time.atZone(ZONE).toInstant().toEpochMilli();
+    }
+
+    private static ByteBuffer column(int bytes) {
+        return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+    }
+}
@@ -0,0 +1,99 @@
+package org.example.temperaturecontrolsystem.offheap;
+
+import org.example.temperaturecontrolsystem.entity.RoomInfo;
+import org.example.temperaturecontrolsystem.event.RoomStateChangedEvent;
+import org.example.temperaturecontrolsystem.mapper.RoomInfoMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 把房间状态同步到 {@link RoomStateTable}。
+ * <p>
+ * 启动后从房间缓存全量装载一次，之后在每个房间状态变化事件提交后覆盖对应的行。
+ * 房间号超过 room.table.max-room-id 的房间不进表，只计数。
+ * 表的内容在事务提交后才更新，读取方看到的是最近一次提交的状态；装载完成前 {@link #isLoaded()} 为 false。
+ */
+@Component
+public class RoomStateTableMirror {
+
+    private final RoomInfoMapper roomInfoMapper;
+    private final RoomStateTable table;
+
+    private final LongAdder applied = new LongAdder();
+    private final LongAdder outOfRange = new LongAdder();
+
+    private volatile boolean loaded;
+
+    public RoomStateTableMirror(RoomInfoMapper roomInfoMapper,
+                                @Value("${room.table.max-room-id:99999}") int maxRoomId) {
+        this.roomInfoMapper = roomInfoMapper;
+        this.table = new RoomStateTable(maxRoomId);
+    }
+
+    public RoomStateTable table() {
+        return table;
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        try {
+            List<RoomInfo> rooms = roomInfoMapper.findAll();
+            rooms.forEach(this::apply);
+            loaded = true;
+            System.out.println("Off-heap room table loaded with " + rooms.size() + " room(s), "
+                    + table.offHeapBytes() + " bytes reserved.");
+        } catch (Exception e) {
+            System.err.println("Off-heap room table load failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 事件里没有变化后的状态时（缓存条目被淘汰），从房间缓存重新读取。
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRoomStateChanged(RoomStateChangedEvent event) {
+        if (!table.accepts(event.roomId())) {
+            outOfRange.increment();
+            return;
+        }
+        if (event.after() != null) {
+            apply(event.after());
+            return;
+        }
+        roomInfoMapper.findById(event.roomId()).ifPresentOrElse(this::apply, () -> table.remove(event.roomId()));
+    }
+
+    private void apply(RoomInfo room) {
+        if (room.getRoomId() == null || !table.accepts(room.getRoomId())) {
+            outOfRange.increment();
+            return;
+        }
+        table.put(room);
+        applied.increment();
+    }
+
+    /**
+     * 只返回计数，不扫描表；各状态的房间数见 /api/dashboard/summary。
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("loaded", loaded);
+        stats.put("maxRoomId", table.maxRoomId());
+        stats.put("offHeapBytes", table.offHeapBytes());
+        stats.put("appliedUpdates", applied.sum());
+        stats.put("outOfRange", outOfRange.sum());
+        return stats;
+    }
+}
@@ -0,0 +1,217 @@
+package org.example.temperaturecontrolsystem.push;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.example.temperaturecontrolsystem.entity.RoomInfo;
+import org.example.temperaturecontrolsystem.entity.SchedulerBoardRecord;
+import org.example.temperaturecontrolsystem.event.BillingSettledEvent;
+import org.example.temperaturecontrolsystem.event.RoomStateChangedEvent;
+import org.example.temperaturecontrolsystem.mapper.RoomInfoMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 房间状态与费用的 SSE 推送。
+ * <p>
+ * 订阅者按主题分组：单个房间（room:101）、一层楼（floor:1，房间号 / 100）或全部房间（all）。
+ * 一个事件只序列化一次，得到的 SSE 帧被该房间、所在楼层和 all 三个主题下的所有连接共享。
+ * 序列化和写出都在单独的推送线程上进行，调度器线程发布事件后立即返回，慢客户端不会拖慢调度。
+ * <p>
+ * 新连接的快照也在推送线程上读取、发送，发送后才加入主题：之前发布的事件已经推送完、结果包含在快照里，
+ * 之后发布的事件排在快照后面，订阅期间的变化不会漏掉，也不会先于快照到达。
+ */
+@Component
+public class RoomEventBroadcaster {
+
+    private static final String TOPIC_ALL = "all";
+
+    private final RoomInfoMapper roomInfoMapper;
+    private final ObjectMapper objectMapper;
+    private final long emitterTimeoutMillis;
+    private final long heartbeatSeconds;
+
+    private final Map<String, Set<SseEmitter>> topics = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService pushExecutor = Executors.newSingleThreadScheduledExecutor();
+
+    public RoomEventBroadcaster(RoomInfoMapper roomInfoMapper,
+                                ObjectMapper objectMapper,
+                                @Value("${push.sse.timeout-minutes:30}") long timeoutMinutes,
+                                @Value("${push.sse.heartbeat-seconds:20}") long heartbeatSeconds) {
+        this.roomInfoMapper = roomInfoMapper;
+        this.objectMapper = objectMapper;
+        this.emitterTimeoutMillis = TimeUnit.MINUTES.toMillis(timeoutMinutes);
+        this.heartbeatSeconds = heartbeatSeconds;
+    }
+
+    @PostConstruct
+    public void start() {
+        // 心跳让代理不断开空闲连接，也能及时发现已断开的客户端
+        pushExecutor.scheduleAtFixedRate(this::heartbeat, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 在 Web 服务器优雅停机之前结束所有 SSE 连接，否则停机会一直等这些长连接直到超时。
+     */
+    @EventListener(ContextClosedEvent.class)
+    public void closeSubscriptions() {
+        topics.values().forEach(emitters -> emitters.forEach(SseEmitter::complete));
+        topics.clear();
+    }
+
+    @PreDestroy
+    public void stop() {
+        pushExecutor.shutdownNow();
+    }
+
+    public SseEmitter subscribeRoom(int roomId) {
+        return subscribe(roomTopic(roomId), () -> roomInfoMapper.findById(roomId).map(List::of).orElse(List.of()));
+    }
+
+    public SseEmitter subscribeFloor(int floor) {
+        return subscribe(floorTopic(floor), () -> roomInfoMapper.findAll().stream()
+                .filter(room -> room.getRoomId() / 100 == floor)
+                .toList());
+    }
+
+    public SseEmitter subscribeAll() {
+        return subscribe(TOPIC_ALL, roomInfoMapper::findAll);
+    }
+
+    public Map<String, Integer> subscriberCounts() {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        topics.forEach((topic, emitters) -> counts.put(topic, emitters.size()));
+        return counts;
+    }
+
+    /**
+     * 房间状态变化：ac_state 在 0/1/2 间切换（调度器开始或停止服务）、风速、目标温度、当前温度、入住状态。
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRoomStateChanged(RoomStateChangedEvent event) {
+        if (topics.isEmpty()) {
+            return;
+        }
+        pushExecutor.execute(() -> {
+            RoomInfo room = event.after() != null ? event.after() : roomInfoMapper.findById(event.roomId()).orElse(null);
+            if (room == null) {
+                return;
+            }
+            Map<String, Object> payload = new LinkedHashMap<>();
+            payload.put("roomId", event.roomId());
+            payload.put("changed", changedFields(event.before(), room));
+            payload.put("room", room);
+            broadcast(event.roomId(), "room", payload);
+        });
+    }
+
+    /**
+     * 一段送风服务结算完成，推送本段费用。
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBillingSettled(BillingSettledEvent event) {
+        if (topics.isEmpty()) {
+            return;
+        }
+        SchedulerBoardRecord record = event.record();
+        pushExecutor.execute(() -> broadcast(record.getRoomId(), "cost", record));
+    }
+
+    private SseEmitter subscribe(String topic, Supplier<List<RoomInfo>> snapshot) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMillis);
+        Set<SseEmitter> emitters = topics.computeIfAbsent(topic, t -> new CopyOnWriteArraySet<>());
+        Runnable remove = () -> emitters.remove(emitter);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(e -> remove.run());
+
+        // 先发当前快照，之后只推变化，客户端无需再轮询一次；与事件推送在同一个线程上按顺序进行
+        pushExecutor.execute(() -> {
+            try {
+                emitter.send(SseEmitter.event().name("snapshot").data(objectMapper.writeValueAsString(snapshot.get())));
+            } catch (Exception e) {
+                emitter.completeWithError(e);
+                return;
+            }
+            emitters.add(emitter);
+        });
+        return emitter;
+    }
+
+    private void broadcast(int roomId, String eventName, Object payload) {
+        Set<ResponseBodyEmitter.DataWithMediaType> frame;
+        try {
+            frame = SseEmitter.event().name(eventName).data(objectMapper.writeValueAsString(payload)).build();
+        } catch (JsonProcessingException e) {
+            System.err.println("Failed to serialize " + eventName + " event for room " + roomId + ": " + e.getMessage());
+            return;
+        }
+        sendFrame(topics.get(roomTopic(roomId)), frame);
+        sendFrame(topics.get(floorTopic(roomId / 100)), frame);
+        sendFrame(topics.get(TOPIC_ALL), frame);
+    }
+
+    private void heartbeat() {
+        Set<ResponseBodyEmitter.DataWithMediaType> frame = SseEmitter.event().comment("heartbeat").build();
+        topics.values().forEach(emitters -> sendFrame(emitters, frame));
+    }
+
+    private void sendFrame(Set<SseEmitter> emitters, Set<ResponseBodyEmitter.DataWithMediaType> frame) {
+        if (emitters == null) {
+            return;
+        }
+        for (SseEmitter emitter : emitters) {
+            try {
+                emitter.send(frame);
+            } catch (IOException | IllegalStateException e) {
+                // 客户端已断开
+                emitters.remove(emitter);
+                emitter.completeWithError(e);
+            }
+        }
+    }
+
+    private static List<String> changedFields(RoomInfo before, RoomInfo after) {
+        List<String> changed = new ArrayList<>();
+        if (before == null) {
+            changed.add("all");
+            return changed;
+        }
+        if (!Objects.equals(before.getState(), after.getState())) changed.add("state");
+        if (!Objects.equals(before.getAcState(), after.getAcState())) changed.add("acState");
+        if (!Objects.equals(before.getCurrentSpeed(), after.getCurrentSpeed())) changed.add("currentSpeed");
+        if (!Objects.equals(before.getTargetTempera(), after.getTargetTempera())) changed.add("targetTempera");
+        if (!Objects.equals(before.getCurrentTempera(), after.getCurrentTempera())) changed.add("currentTempera");
+        if (!Objects.equals(before.getCheckinTime(), after.getCheckinTime())
+                || !Objects.equals(before.getCheckoutTime(), after.getCheckoutTime())) changed.add("checkInOut");
+        return changed;
+    }
+
+    private static String roomTopic(int roomId) {
+        return "room:" + roomId;
+    }
+
+    private static String floorTopic(int floor) {
+        return "floor:" + floor;
+    }
+}
@@ -0,0 +1,182 @@
+package org.example.temperaturecontrolsystem.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.temperaturecontrolsystem.service.TokenService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 校验 /api/** 请求的登录令牌并按角色限制访问，全部在内存中完成，不查数据库。
+ * <p>
+ * 令牌放在 Authorization: Bearer 头中；浏览器的 EventSource 不能设置请求头，也可以用 access_token 查询参数。
+ * 三类角色对应 users.role_column 的取值，由 auth.roles.* 配置，可以逗号分隔多个值：
+ * <ul>
+ *     <li>manager：报表、各类 /stats 统计</li>
+ *     <li>front-desk（以及 manager）：入住 / 退房、账单、仪表盘、批量空调指令</li>
+ *     <li>guest-panel（以及上面两类）：其余接口，即房间状态、单个房间的空调指令、温度上报和推送</li>
+ * </ul>
+ * 校验通过后身份放在请求属性 {@link #PRINCIPAL_ATTRIBUTE} 中。
+ * <p>
+ * 路径按解析后的路径段判断（去掉 ;矩阵参数、解码 %XX），与 Spring MVC 路由时的匹配方式一致，
+ * /api/rooms/cache/stats;x 这类写法不能绕过规则。
+ */
+@Component
+public class AuthTokenFilter extends OncePerRequestFilter {
+
+    public static final String PRINCIPAL_ATTRIBUTE = "auth.principal";
+
+    private static final String BEARER = "Bearer ";
+    private static final List<String> LOGIN = List.of("api", "login");
+
+    private record Rule(PathPattern pattern, Set<String> roles) {
+        Rule(String pattern, Set<String> roles) {
+            this(PathPatternParser.defaultInstance.parse(pattern), roles);
+        }
+    }
+
+    private final TokenService tokenService;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final List<Rule> rules;
+    private final Set<String> anyRole;
+    private final Set<String> managerOnly;
+
+    private final AtomicLong allowed = new AtomicLong();
+    private final AtomicLong unauthorized = new AtomicLong();
+    private final AtomicLong forbidden = new AtomicLong();
+
+    public AuthTokenFilter(TokenService tokenService, ObjectMapper objectMapper,
+                           @Value("${auth.enabled:true}") boolean enabled,
+                           @Value("${auth.roles.manager:manager}") String[] managerRoles,
+                           @Value("${auth.roles.front-desk:front-desk}") String[] frontDeskRoles,
+                           @Value("${auth.roles.guest-panel:guest-panel}") String[] guestPanelRoles) {
+        this.tokenService = tokenService;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+
+        Set<String> manager = union(Set.of(), managerRoles);
+        Set<String> frontDesk = union(manager, frontDeskRoles);
+        this.anyRole = union(frontDesk, guestPanelRoles);
+        // 以 /stats 结尾的统计接口只有 manager 可以访问；其余按顺序匹配，第一条命中的规则生效，都不命中时任何角色都可以访问
+        this.managerOnly = manager;
+        this.rules = List.of(
+                new Rule("/api/reports/**", manager),
+                new Rule("/api/dashboard/**", frontDesk),
+                new Rule("/api/check-in", frontDesk),
+                new Rule("/api/check-out", frontDesk),
+                new Rule("/api/rooms/*/bill", frontDesk),
+                new Rule("/api/rooms/*/detail_bill", frontDesk),
+                new Rule("/api/ac/bulk", frontDesk)
+        );
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!enabled || "OPTIONS".equals(request.getMethod())) {
+            return true;
+        }
+        List<String> segments = segments(PathContainer.parsePath(path(request)));
+        return segments.isEmpty()
+                || !"api".equals(segments.get(0))
+                || segments.equals(LOGIN);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        TokenService.Principal principal = tokenService.verify(token(request));
+        if (principal == null) {
+            unauthorized.incrementAndGet();
+            reject(response, HttpStatus.UNAUTHORIZED, "Missing, invalid or expired token.");
+            return;
+        }
+        String path = path(request);
+        if (!requiredRoles(PathContainer.parsePath(path)).contains(principal.role())) {
+            forbidden.incrementAndGet();
+            reject(response, HttpStatus.FORBIDDEN, "Role '" + principal.role() + "' may not access " + path + ".");
+            return;
+        }
+        allowed.incrementAndGet();
+        request.setAttribute(PRINCIPAL_ATTRIBUTE, principal);
+        chain.doFilter(request, response);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("allowed", allowed.get());
+        stats.put("unauthorized", unauthorized.get());
+        stats.put("forbidden", forbidden.get());
+        return stats;
+    }
+
+    private Set<String> requiredRoles(PathContainer container) {
+        List<String> segments = segments(container);
+        if (!segments.isEmpty() && "stats".equals(segments.get(segments.size() - 1))) {
+            return managerOnly;
+        }
+        for (Rule rule : rules) {
+            if (rule.pattern().matches(container)) {
+                return rule.roles();
+            }
+        }
+        return anyRole;
+    }
+
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    /**
+     * 非空的路径段，取去掉矩阵参数并解码后的值。
+     */
+    private static List<String> segments(PathContainer container) {
+        List<String> segments = new ArrayList<>();
+        for (PathContainer.Element element : container.elements()) {
+            if (element instanceof PathContainer.PathSegment segment && !segment.valueToMatch().isEmpty()) {
+                segments.add(segment.valueToMatch());
+            }
+        }
+        return segments;
+    }
+
+    private static String token(HttpServletRequest request) {
+        String header = request.getHeader("Authorization");
+        if (header != null && header.regionMatches(true, 0, BEARER, 0, BEARER.length())) {
+            return header.substring(BEARER.length()).trim();
+        }
+        return "GET".equals(request.getMethod()) ? request.getParameter("access_token") : null;
+    }
+
+    private void reject(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        objectMapper.writeValue(response.getOutputStream(), Map.of("error", message));
+    }
+
+    private static Set<String> union(Set<String> base, String[] more) {
+        Set<String> roles = new HashSet<>(base);
+        roles.addAll(List.of(more));
+        return Set.copyOf(roles);
+    }
+}
@@ -1,145 +1,87 @@
 package org.example.temperaturecontrolsystem.service;
 
-import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import org.example.temperaturecontrolsystem.entity.SchedulerRequest;
 import org.example.temperaturecontrolsystem.entity.OpRecord;
-import org.example.temperaturecontrolsystem.entity.RoomInfo;
-import org.example.temperaturecontrolsystem.mapper.OpRecordMapper;
 import org.example.temperaturecontrolsystem.mapper.RoomInfoMapper;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 @RequiredArgsConstructor
 public class AirConditionerService {
     private final RoomInfoMapper roomInfoMapper;
-    private final OpRecordMapper opRecordMapper;
-    private final SchedulerService schedulerService;
+    private final SchedulerDispatcher schedulerDispatcher;
 
-    private static final int STATE_ON = 1;
-    private static final int STATE_OFF = 0;
+    static final int STATE_ON = 1;
+    static final int STATE_OFF = 0;
 
-    private static final int OP_TYPE_POWER_ON = 1;
-    private static final int OP_TYPE_POWER_OFF = 2;
-    private static final int OP_TYPE_TEMP = 3;
-    private static final int OP_TYPE_SPEED = 4;
+    static final int OP_TYPE_POWER_ON = 1;
+    static final int OP_TYPE_POWER_OFF = 2;
+    static final int OP_TYPE_TEMP = 3;
+    static final int OP_TYPE_SPEED = 4;
 
-    @Transactional
-    public void turnOn(int roomNumber) {
-        RoomInfo room = roomInfoMapper.findById(roomNumber)
-                .orElseThrow(() -> new IllegalStateException("Room " + roomNumber + " not found."));
+    /*
+     * 每条指令只有一次数据库往返：条件更新、写操作记录在同一批语句里完成，返回 null 表示状态没有变化。
+     * 这时再查一次（通常命中缓存）区分房间不存在和重复指令。
+     */
 
-        if (room.getAcState() == STATE_ON || room.getAcState() == 2) {
-            return;
+    /**
+     * @return 调度器处理完这条指令时完成，空调已经开着时立即完成。消息在事务提交后才投递给调度器，调用方要等待时必须在事务提交之后等待
+     */
+    @Transactional
+    public CompletableFuture<Void> turnOn(int roomNumber) {
+        OpRecord record = roomInfoMapper.turnAcOnLogged(roomNumber, LocalDateTime.now());
+        if (record == null) {
+            requireRoom(roomNumber);
+            return CompletableFuture.completedFuture(null);
         }
-
-        int updatedRows = roomInfoMapper.updateAcStateIfEquals(roomNumber, STATE_ON);
-
-        OpRecord record = new OpRecord(
-                roomNumber,
-                LocalDateTime.now(),
-                OP_TYPE_POWER_ON,
-                "AC_STATE_OFF", // 旧状态是 1
-                "AC_STATE_ON"
-        );
-        opRecordMapper.insert(record);
-        schedulerService.submitMsg(new SchedulerRequest(roomNumber, "add", "medium"));
+        return schedulerDispatcher.dispatch(new SchedulerRequest(roomNumber, "add", "medium"));
     }
 
     @Transactional
-    public void turnOff(int roomNumber) {
-        RoomInfo room = roomInfoMapper.findById(roomNumber)
-                .orElseThrow(() -> new IllegalStateException("Room " + roomNumber + " not found."));
-
-        if (room.getAcState() == STATE_OFF) {
-            return;
+    public CompletableFuture<Void> turnOff(int roomNumber) {
+        OpRecord record = roomInfoMapper.turnAcOffLogged(roomNumber, LocalDateTime.now());
+        if (record == null) {
+            requireRoom(roomNumber);
+            return CompletableFuture.completedFuture(null);
         }
-
-        int updatedRows = roomInfoMapper.updateAcStateIfEquals(roomNumber, STATE_OFF);
-
-        roomInfoMapper.updateSpeed(roomNumber, "medium");
-
-
-        OpRecord record = new OpRecord(
-                roomNumber,
-                LocalDateTime.now(),
-                OP_TYPE_POWER_OFF,
-                "AC_STATE_ON",
-                "AC_STATE_OFF"
-        );
-        opRecordMapper.insert(record);
-        schedulerService.submitMsg(new SchedulerRequest(roomNumber, "delete", null));
+        return schedulerDispatcher.dispatch(new SchedulerRequest(roomNumber, "delete", null));
     }
 
+    /**
+     * @return 最终风速被调度器处理时完成（风速调整有防抖窗口），风速未变时立即完成
+     */
     @Transactional
-    public void setSpeed(int roomNumber, String newSpeed) {
-
-        RoomInfo room = roomInfoMapper.findById(roomNumber)
-                .orElseThrow(() -> new IllegalStateException("Room " + roomNumber + " not found."));
-
-        String oldSpeed = room.getCurrentSpeed();
-
-        if (newSpeed.equalsIgnoreCase(oldSpeed)) {
-            return;
+    public CompletableFuture<Void> setSpeed(int roomNumber, String newSpeed) {
+        OpRecord record = roomInfoMapper.updateSpeedLogged(roomNumber, newSpeed, LocalDateTime.now());
+        if (record == null) {
+            requireRoom(roomNumber);
+            return CompletableFuture.completedFuture(null);
         }
 
-        roomInfoMapper.updateSpeed(roomNumber, newSpeed);
-
-        opRecordMapper.insert(new OpRecord(roomNumber, LocalDateTime.now(), OP_TYPE_SPEED, oldSpeed, newSpeed));
-
-        schedulerService.submitMsg(new SchedulerRequest(roomNumber, "update", newSpeed));
-        System.out.println("Room " + roomNumber + " speed updated from '" + oldSpeed + "' to '" + newSpeed + "'. Update message sent to scheduler.");
+        CompletableFuture<Void> applied = schedulerDispatcher.dispatch(new SchedulerRequest(roomNumber, "update", newSpeed));
+        System.out.println("Room " + roomNumber + " speed updated from '" + record.getOldState() + "' to '" + newSpeed + "'. Update message sent to scheduler.");
+        return applied;
     }
 
     @Transactional
     public void setTemperature(int roomNumber, double newTemperature) {
-        RoomInfo room = roomInfoMapper.findById(roomNumber)
-                .orElseThrow(() -> new IllegalStateException("Room " + roomNumber + " not found."));
-
-
-        double oldTemperature = room.getTargetTempera();
-
-        if (Math.abs(newTemperature - oldTemperature) < 0.01) {
+        OpRecord record = roomInfoMapper.updateTargetTemperatureLogged(roomNumber, newTemperature,
+                String.valueOf(newTemperature), LocalDateTime.now());
+        if (record == null) {
+            requireRoom(roomNumber);
             return;
         }
 
-        roomInfoMapper.updateTargetTemperature(roomNumber, newTemperature);
-
-        opRecordMapper.insert(new OpRecord(
-                roomNumber,
-                LocalDateTime.now(),
-                OP_TYPE_TEMP,
-                String.valueOf(oldTemperature),
-                String.valueOf(newTemperature)
-        ));
-
-        System.out.println("Room " + roomNumber + " temperature updated from '" + oldTemperature + "' to '" + newTemperature + "'.");
+        System.out.println("Room " + roomNumber + " temperature updated from '" + record.getOldState() + "' to '" + newTemperature + "'.");
     }
 
-    @PreDestroy
-    @Transactional
-    public void cleanupOnShutdown() {
-        System.out.println("Application is shutting down. Gracefully turning off all active air conditioners...");
-
-        List<Integer> activeRoomIds = roomInfoMapper.findAllActiveAcRoomIds();
-
-        if (activeRoomIds.isEmpty()) {
-            return;
-        }
-
-        System.out.println("Found " + activeRoomIds.size() + " active air conditioner(s) to turn off: " + activeRoomIds);
-
-        for (Integer roomId : activeRoomIds) {
-            try {
-                this.turnOff(roomId);
-            } catch (Exception e) {
-                // 在循环中捕获异常，防止一个房间的关闭失败影响到其他房间
-            }
-        }
-        System.out.println("Finished shutdown cleanup task for air conditioners.");
+    private void requireRoom(int roomNumber) {
+        roomInfoMapper.findById(roomNumber)
+                .orElseThrow(() -> new IllegalStateException("Room " + roomNumber + " not found."));
     }
 }
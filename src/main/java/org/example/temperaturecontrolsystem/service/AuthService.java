@@ -3,23 +3,47 @@ package org.example.temperaturecontrolsystem.service;
 import org.example.temperaturecontrolsystem.entity.UserEntity;
 import org.example.temperaturecontrolsystem.exception.InvalidCredentialsException;
 import org.example.temperaturecontrolsystem.mapper.UserMapper;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class AuthService {
 
+    /**
+     * 缓存的用户记录及其过期时刻。
+     */
+    private record CachedUser(UserEntity user, long expiresAtNanos) {
+    }
+
     private final UserMapper userMapper;
+    private final long userCacheTtlNanos;
+    private final int userCacheMaxEntries;
 
-    @Autowired
-    public AuthService(UserMapper userMapper) {
+    /**
+     * 账号 -> 用户记录。只缓存查到的用户，不存在的账号每次都查库，避免缓存被随意的账号名撑满。
+     */
+    private final Map<String, CachedUser> users = new ConcurrentHashMap<>();
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cacheMisses = new AtomicLong();
+
+    public AuthService(UserMapper userMapper,
+                       @Value("${auth.user-cache.ttl-seconds:60}") long userCacheTtlSeconds,
+                       @Value("${auth.user-cache.max-entries:1000}") int userCacheMaxEntries) {
         this.userMapper = userMapper;
+        this.userCacheTtlNanos = TimeUnit.SECONDS.toNanos(userCacheTtlSeconds);
+        this.userCacheMaxEntries = userCacheMaxEntries;
     }
 
     /**
-     * 认证逻辑。现在它调用mapper来获取用户数据。
+     * 认证逻辑。用户记录先查 TTL 缓存，过期或未命中时再调用 mapper。
+     * 修改密码或角色后最多 auth.user-cache.ttl-seconds 秒生效。
      * @param account  用户名
      * @param password 密码
      * @return 用户身份
@@ -27,8 +51,10 @@ public class AuthService {
      */
     public String authenticate(String account, String password) {
 
-        UserEntity user = userMapper.findByAccount(account)
-                .orElseThrow(() -> new InvalidCredentialsException("用户名或密码错误"));
+        UserEntity user = findUser(account);
+        if (user == null) {
+            throw new InvalidCredentialsException("用户名或密码错误");
+        }
 
         // 校验密码
         if (!Objects.equals(user.getPasswordColumn(), password)) {
@@ -38,4 +64,38 @@ public class AuthService {
         // 认证成功，返回身份
         return user.getRoleColumn();
     }
+
+    public Map<String, Object> userCacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entries", users.size());
+        stats.put("hits", cacheHits.get());
+        stats.put("misses", cacheMisses.get());
+        stats.put("ttlSeconds", TimeUnit.NANOSECONDS.toSeconds(userCacheTtlNanos));
+        return stats;
+    }
+
+    private UserEntity findUser(String account) {
+        long now = System.nanoTime();
+        CachedUser cached = users.get(account);
+        if (cached != null && cached.expiresAtNanos() - now > 0) {
+            cacheHits.incrementAndGet();
+            return cached.user();
+        }
+        cacheMisses.incrementAndGet();
+        UserEntity user = userMapper.findByAccount(account).orElse(null);
+        if (user == null) {
+            users.remove(account);
+            return null;
+        }
+        if (userCacheTtlNanos > 0) {
+            if (users.size() >= userCacheMaxEntries) {
+                users.values().removeIf(entry -> entry.expiresAtNanos() - now <= 0);
+                if (users.size() >= userCacheMaxEntries) {
+                    users.clear();
+                }
+            }
+            users.put(account, new CachedUser(user, now + userCacheTtlNanos));
+        }
+        return user;
+    }
 }
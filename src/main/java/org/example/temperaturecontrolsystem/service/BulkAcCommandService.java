@@ -0,0 +1,214 @@
+package org.example.temperaturecontrolsystem.service;
+
+import org.example.temperaturecontrolsystem.dto.BulkAcCommandRequest;
+import org.example.temperaturecontrolsystem.dto.BulkAcCommandResponse;
+import org.example.temperaturecontrolsystem.entity.OpRecord;
+import org.example.temperaturecontrolsystem.entity.RoomInfo;
+import org.example.temperaturecontrolsystem.entity.SchedulerRequest;
+import org.example.temperaturecontrolsystem.mapper.OpRecordMapper;
+import org.example.temperaturecontrolsystem.mapper.RoomInfoMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.example.temperaturecontrolsystem.service.AirConditionerService.OP_TYPE_POWER_OFF;
+import static org.example.temperaturecontrolsystem.service.AirConditionerService.OP_TYPE_POWER_ON;
+import static org.example.temperaturecontrolsystem.service.AirConditionerService.OP_TYPE_SPEED;
+import static org.example.temperaturecontrolsystem.service.AirConditionerService.OP_TYPE_TEMP;
+import static org.example.temperaturecontrolsystem.service.AirConditionerService.STATE_OFF;
+import static org.example.temperaturecontrolsystem.service.AirConditionerService.STATE_ON;
+
+/**
+ * 对一组房间（列表、区间或楼层）执行同一条空调指令。
+ * <p>
+ * 与逐个调用 {@link AirConditionerService} 的效果相同，但房间状态从房间缓存一次取出，
+ * room_infos 的修改按 ac.bulk.chunk-size 分块、每块一条 UPDATE ... IN 语句，op_records 每块一条多行 INSERT，
+ * 全部在同一个事务中完成；需要调度器处理的房间在事务提交后合成一条批量消息提交。
+ */
+@Service
+public class BulkAcCommandService {
+
+    private static final Set<String> SPEEDS = Set.of("low", "medium", "high");
+
+    private final RoomInfoMapper roomInfoMapper;
+    private final OpRecordMapper opRecordMapper;
+    private final SchedulerDispatcher schedulerDispatcher;
+    private final int maxRooms;
+    private final int chunkSize;
+
+    public BulkAcCommandService(RoomInfoMapper roomInfoMapper,
+                                OpRecordMapper opRecordMapper,
+                                SchedulerDispatcher schedulerDispatcher,
+                                @Value("${ac.bulk.max-rooms:5000}") int maxRooms,
+                                @Value("${ac.bulk.chunk-size:500}") int chunkSize) {
+        this.roomInfoMapper = roomInfoMapper;
+        this.opRecordMapper = opRecordMapper;
+        this.schedulerDispatcher = schedulerDispatcher;
+        this.maxRooms = maxRooms;
+        this.chunkSize = chunkSize;
+    }
+
+    @Transactional
+    public BulkAcCommandResponse execute(BulkAcCommandRequest request) {
+        String action = request.getAction() == null ? "" : request.getAction().toLowerCase();
+        validateAction(action, request);
+
+        BulkAcCommandResponse response = new BulkAcCommandResponse();
+        response.setAction(action);
+        List<RoomInfo> rooms = resolveRooms(request, response);
+        if (rooms.size() > maxRooms) {
+            throw new IllegalArgumentException("Too many rooms in one command: " + rooms.size() + " > " + maxRooms);
+        }
+        response.setMatched(rooms.size());
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Integer> changed = new ArrayList<>();
+        List<OpRecord> records = new ArrayList<>();
+        List<SchedulerRequest> messages = new ArrayList<>();
+        switch (action) {
+            case "on" -> {
+                for (RoomInfo room : rooms) {
+                    if (room.getAcState() != null && room.getAcState() != STATE_OFF) {
+                        continue;
+                    }
+                    changed.add(room.getRoomId());
+                    records.add(new OpRecord(room.getRoomId(), now, OP_TYPE_POWER_ON, "AC_STATE_OFF", "AC_STATE_ON"));
+                    messages.add(new SchedulerRequest(room.getRoomId(), "add", "medium"));
+                }
+                inChunks(changed, ids -> roomInfoMapper.updateAcStates(ids, STATE_ON));
+            }
+            case "off" -> {
+                for (RoomInfo room : rooms) {
+                    if (room.getAcState() == null || room.getAcState() == STATE_OFF) {
+                        continue;
+                    }
+                    changed.add(room.getRoomId());
+                    records.add(new OpRecord(room.getRoomId(), now, OP_TYPE_POWER_OFF, "AC_STATE_ON", "AC_STATE_OFF"));
+                    messages.add(new SchedulerRequest(room.getRoomId(), "delete", null));
+                }
+                inChunks(changed, ids -> roomInfoMapper.updateAcStates(ids, STATE_OFF));
+            }
+            case "speed" -> {
+                String speed = request.getSpeed().toLowerCase();
+                for (RoomInfo room : rooms) {
+                    if (speed.equalsIgnoreCase(room.getCurrentSpeed())) {
+                        continue;
+                    }
+                    changed.add(room.getRoomId());
+                    records.add(new OpRecord(room.getRoomId(), now, OP_TYPE_SPEED, room.getCurrentSpeed(), speed));
+                    if (room.getAcState() != null && room.getAcState() != STATE_OFF) {
+                        // 关着的空调不在调度器里，不需要通知
+                        messages.add(new SchedulerRequest(room.getRoomId(), "update", speed));
+                    }
+                }
+                inChunks(changed, ids -> roomInfoMapper.updateSpeeds(ids, speed));
+            }
+            case "target" -> {
+                double target = request.getTemperature();
+                for (RoomInfo room : rooms) {
+                    if (room.getTargetTempera() != null && Math.abs(target - room.getTargetTempera()) < 0.01) {
+                        continue;
+                    }
+                    changed.add(room.getRoomId());
+                    records.add(new OpRecord(room.getRoomId(), now, OP_TYPE_TEMP,
+                            String.valueOf(room.getTargetTempera()), String.valueOf(target)));
+                }
+                inChunks(changed, ids -> roomInfoMapper.updateTargetTemperatures(ids, target));
+            }
+            default -> throw new IllegalArgumentException("Unknown action: " + action);
+        }
+
+        for (int from = 0; from < records.size(); from += chunkSize) {
+            opRecordMapper.insertBatch(records.subList(from, Math.min(from + chunkSize, records.size())));
+        }
+        schedulerDispatcher.dispatchAll(messages);
+
+        response.setApplied(changed.size());
+        response.setUnchanged(rooms.size() - changed.size());
+        response.setAppliedRoomIds(changed);
+        System.out.println("Bulk AC command '" + action + "' applied to " + changed.size() + " of " + rooms.size() + " room(s).");
+        return response;
+    }
+
+    private static void validateAction(String action, BulkAcCommandRequest request) {
+        switch (action) {
+            case "on", "off" -> {
+            }
+            case "speed" -> {
+                if (request.getSpeed() == null || !SPEEDS.contains(request.getSpeed().toLowerCase())) {
+                    throw new IllegalArgumentException("Action 'speed' requires speed to be one of low, medium, high.");
+                }
+            }
+            case "target" -> {
+                if (request.getTemperature() == null || !Double.isFinite(request.getTemperature())) {
+                    throw new IllegalArgumentException("Action 'target' requires a temperature.");
+                }
+            }
+            default -> throw new IllegalArgumentException("Unknown action '" + request.getAction() + "', expected on, off, speed or target.");
+        }
+    }
+
+    /**
+     * 按请求解析房间集合，结果按房间号排序。列表中不存在的房间记入 rejected。
+     */
+    private List<RoomInfo> resolveRooms(BulkAcCommandRequest request, BulkAcCommandResponse response) {
+        int selectors = (request.getRoomIds() != null ? 1 : 0)
+                + (request.getFromRoom() != null || request.getToRoom() != null ? 1 : 0)
+                + (request.getFloor() != null ? 1 : 0);
+        if (selectors != 1) {
+            throw new IllegalArgumentException("Specify exactly one of roomIds, fromRoom/toRoom or floor.");
+        }
+        if (request.getOccupancy() != null && !Set.of("occupied", "vacant").contains(request.getOccupancy())) {
+            throw new IllegalArgumentException("occupancy must be 'occupied' or 'vacant'.");
+        }
+
+        // 房间列表走房间缓存，不逐个 findById
+        Map<Integer, RoomInfo> known = roomInfoMapper.findAll().stream()
+                .collect(Collectors.toMap(RoomInfo::getRoomId, Function.identity()));
+
+        List<RoomInfo> rooms = new ArrayList<>();
+        if (request.getRoomIds() != null) {
+            for (Integer roomId : new LinkedHashSet<>(request.getRoomIds())) {
+                RoomInfo room = roomId == null ? null : known.get(roomId);
+                if (room == null) {
+                    response.getRejected().add(new BulkAcCommandResponse.Rejection(roomId, "Room " + roomId + " not found."));
+                } else {
+                    rooms.add(room);
+                }
+            }
+        } else if (request.getFloor() != null) {
+            int floor = request.getFloor();
+            known.values().stream().filter(room -> room.getRoomId() / 100 == floor).forEach(rooms::add);
+        } else {
+            if (request.getFromRoom() == null || request.getToRoom() == null || request.getFromRoom() > request.getToRoom()) {
+                throw new IllegalArgumentException("fromRoom and toRoom must both be set and fromRoom <= toRoom.");
+            }
+            int from = request.getFromRoom();
+            int to = request.getToRoom();
+            known.values().stream().filter(room -> room.getRoomId() >= from && room.getRoomId() <= to).forEach(rooms::add);
+        }
+
+        if (request.getOccupancy() != null) {
+            int state = "occupied".equals(request.getOccupancy()) ? 1 : 0;
+            rooms.removeIf(room -> !Objects.equals(room.getState(), state));
+        }
+        rooms.sort((a, b) -> Integer.compare(a.getRoomId(), b.getRoomId()));
+        return rooms;
+    }
+
+    private void inChunks(List<Integer> roomIds, Function<List<Integer>, Integer> update) {
+        for (int from = 0; from < roomIds.size(); from += chunkSize) {
+            update.apply(roomIds.subList(from, Math.min(from + chunkSize, roomIds.size())));
+        }
+    }
+}
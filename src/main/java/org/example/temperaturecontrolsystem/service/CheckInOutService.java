@@ -17,7 +17,7 @@ import java.util.Optional;
 public class CheckInOutService {
     private final RoomInfoMapper roomInfoMapper;
     private final AirConditionerService airConditionerService;
-    private final SchedulerService schedulerService;
+    private final SchedulerDispatcher schedulerDispatcher;
 
     public void checkIn(CheckInRequest request) {
         RoomInfo roomInfo = new RoomInfo();
@@ -62,7 +62,8 @@ public class CheckInOutService {
             throw new IllegalStateException("Checkout failed: Room " + roomNumber + " is not currently occupied or does not exist.");
         }
 
-        schedulerService.submitMsg(new SchedulerRequest(roomNumber, "delete", null));
+        // 空调开着时 turnOff 已经发过 delete，同一事务里重复的消息会被合并
+        schedulerDispatcher.dispatch(new SchedulerRequest(roomNumber, "delete", null));
         System.out.println("通知结算系统：为房间 " + request.getRoomNumber() + " 进行结算。");
     }
 }
@@ -0,0 +1,275 @@
+package org.example.temperaturecontrolsystem.service;
+
+import jakarta.annotation.PreDestroy;
+import org.example.temperaturecontrolsystem.dto.DashboardSummary;
+import org.example.temperaturecontrolsystem.dto.RoomStateCounts;
+import org.example.temperaturecontrolsystem.dto.SettlementTotals;
+import org.example.temperaturecontrolsystem.entity.RoomInfo;
+import org.example.temperaturecontrolsystem.entity.SchedulerBoardRecord;
+import org.example.temperaturecontrolsystem.event.BillingSettledEvent;
+import org.example.temperaturecontrolsystem.event.RoomStateChangedEvent;
+import org.example.temperaturecontrolsystem.mapper.RoomInfoMapper;
+import org.example.temperaturecontrolsystem.mapper.SchedulerMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 前台仪表盘指标：入住率、送风 / 等待中的空调数、当日空调营收。
+ * <p>
+ * 指标保存在内存计数器里，查询不访问数据库。计数器随房间状态变化事件（入住、退房，以及调度器
+ * startService / stopService 引起的 ac_state 变化）和结算事件（collectAndSettle）在事务提交后增量更新。
+ * <p>
+ * 后台任务每隔 dashboard.reconcile-interval-seconds 用两条聚合查询与数据库核对，发现偏差就以数据库为准。
+ * 核对期间如果有事件改动了计数器，或者有已经发布、还没随事务提交送达的事件（它的修改可能已经包含在查询结果里，
+ * 送达后又会再加一次），本轮结果可能已经过时，直接丢弃，等下一轮再核对。
+ */
+@Service
+public class DashboardService {
+
+    private final RoomInfoMapper roomInfoMapper;
+    private final SchedulerMapper schedulerMapper;
+    private final long reconcileIntervalSeconds;
+
+    private final ScheduledExecutorService reconcileTicker = Executors.newSingleThreadScheduledExecutor();
+
+    private long totalRooms;
+    private long occupiedRooms;
+    private long supplyingRooms;
+    private long waitingRooms;
+    private LocalDate day = LocalDate.now();
+    private long todaySettlements;
+    private BigDecimal todayRevenue = BigDecimal.ZERO;
+
+    /**
+     * 每次计数器被事件改动时加一，用来判断核对查询期间是否有并发修改。
+     */
+    private long modifications;
+    /**
+     * 已在事务中发布、还没送达的事件。提交后由监听器送达时移除，回滚时由事务同步移除；
+     * 按对象身份区分，两次相同的变化是两个事件。
+     */
+    private final Set<Object> pendingEvents = Collections.newSetFromMap(new IdentityHashMap<>());
+    /**
+     * 事件里缺少变化前或变化后的状态（invalidate 模式），只能等下一次核对时修正。
+     */
+    private long unresolvedEvents;
+    private long reconciliations;
+    private long corrections;
+    private long skippedReconciliations;
+    private LocalDateTime lastReconciledAt;
+
+    public DashboardService(RoomInfoMapper roomInfoMapper,
+                            SchedulerMapper schedulerMapper,
+                            @Value("${dashboard.reconcile-interval-seconds:300}") long reconcileIntervalSeconds) {
+        this.roomInfoMapper = roomInfoMapper;
+        this.schedulerMapper = schedulerMapper;
+        this.reconcileIntervalSeconds = reconcileIntervalSeconds;
+    }
+
+    /**
+     * 启动后先同步核对一次作为初始值，再开始周期核对。
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        reconcileSafely();
+        reconcileTicker.scheduleWithFixedDelay(this::reconcileSafely,
+                reconcileIntervalSeconds, reconcileIntervalSeconds, TimeUnit.SECONDS);
+        System.out.println("Dashboard counters reconcile every " + reconcileIntervalSeconds + "s.");
+    }
+
+    @PreDestroy
+    public void stop() {
+        reconcileTicker.shutdownNow();
+    }
+
+    public synchronized DashboardSummary getSummary() {
+        rollOver(LocalDate.now());
+        double occupancyRate = totalRooms == 0 ? 0.0 : (double) occupiedRooms / totalRooms;
+        return new DashboardSummary(totalRooms, occupiedRooms, totalRooms - occupiedRooms, occupancyRate,
+                supplyingRooms, waitingRooms, day, todaySettlements,
+                todayRevenue.setScale(2, RoundingMode.HALF_UP), lastReconciledAt);
+    }
+
+    /**
+     * 发布时同步调用，记下还没送达的事件。不在事务中发布的事件会被下面的监听器立即处理，不需要记。
+     */
+    @EventListener({RoomStateChangedEvent.class, BillingSettledEvent.class})
+    public void onPublished(Object event) {
+        if (event instanceof RoomStateChangedEvent changed && !affectsCounters(changed)
+                || !TransactionSynchronizationManager.isSynchronizationActive()
+                || !TransactionSynchronizationManager.isActualTransactionActive()) {
+            return;
+        }
+        synchronized (this) {
+            pendingEvents.add(event);
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    synchronized (DashboardService.this) {
+                        pendingEvents.remove(event);
+                    }
+                }
+            }
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onRoomStateChanged(RoomStateChangedEvent event) {
+        pendingEvents.remove(event);
+        RoomInfo before = event.before();
+        RoomInfo after = event.after();
+        if (after == null) {
+            unresolvedEvents++;
+            return;
+        }
+        if (before == null) {
+            // 新插入的房间（write-through 模式下缓存已预热，缓存里没有即数据库里没有）
+            totalRooms++;
+        }
+        long occupiedDelta = flag(after.getState(), 1) - flag(before == null ? null : before.getState(), 1);
+        long supplyingDelta = flag(after.getAcState(), 1) - flag(before == null ? null : before.getAcState(), 1);
+        long waitingDelta = flag(after.getAcState(), 2) - flag(before == null ? null : before.getAcState(), 2);
+        if (before != null && occupiedDelta == 0 && supplyingDelta == 0 && waitingDelta == 0) {
+            // 温度、风速等变化不影响计数
+            return;
+        }
+        occupiedRooms += occupiedDelta;
+        supplyingRooms += supplyingDelta;
+        waitingRooms += waitingDelta;
+        modifications++;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onBillingSettled(BillingSettledEvent event) {
+        pendingEvents.remove(event);
+        SchedulerBoardRecord record = event.record();
+        if (record.getEndTime() == null || record.getCost() == null) {
+            return;
+        }
+        LocalDate settledOn = record.getEndTime().toLocalDate();
+        rollOver(settledOn);
+        if (settledOn.equals(day)) {
+            todaySettlements++;
+            todayRevenue = todayRevenue.add(record.getCost());
+            modifications++;
+        }
+    }
+
+    /**
+     * 与数据库核对一次。
+     *
+     * @return 是否采用了本轮的查询结果
+     */
+    public boolean reconcile() {
+        long seen;
+        LocalDate today = LocalDate.now();
+        synchronized (this) {
+            rollOver(today);
+            seen = modifications;
+        }
+
+        RoomStateCounts rooms = roomInfoMapper.countRoomStates();
+        SettlementTotals settlements = schedulerMapper.sumSettlementsEndedBetween(
+                today.atStartOfDay(), today.plusDays(1).atStartOfDay());
+
+        synchronized (this) {
+            if (modifications != seen || !pendingEvents.isEmpty() || !day.equals(today)) {
+                skippedReconciliations++;
+                return false;
+            }
+            BigDecimal revenue = settlements.getRevenue() == null ? BigDecimal.ZERO : settlements.getRevenue();
+            boolean drifted = totalRooms != rooms.getTotalRooms()
+                    || occupiedRooms != rooms.getOccupiedRooms()
+                    || supplyingRooms != rooms.getSupplyingRooms()
+                    || waitingRooms != rooms.getWaitingRooms()
+                    || todaySettlements != settlements.getSettlements()
+                    || todayRevenue.compareTo(revenue) != 0;
+            if (drifted && reconciliations > 0) {
+                corrections++;
+                System.out.printf("Dashboard counters drifted, corrected from the database: rooms %d->%d, occupied %d->%d, " +
+                                "supplying %d->%d, waiting %d->%d, settlements %d->%d, revenue %s->%s%n",
+                        totalRooms, rooms.getTotalRooms(), occupiedRooms, rooms.getOccupiedRooms(),
+                        supplyingRooms, rooms.getSupplyingRooms(), waitingRooms, rooms.getWaitingRooms(),
+                        todaySettlements, settlements.getSettlements(), todayRevenue, revenue);
+            }
+            totalRooms = rooms.getTotalRooms();
+            occupiedRooms = rooms.getOccupiedRooms();
+            supplyingRooms = rooms.getSupplyingRooms();
+            waitingRooms = rooms.getWaitingRooms();
+            todaySettlements = settlements.getSettlements();
+            todayRevenue = revenue;
+            unresolvedEvents = 0;
+            reconciliations++;
+            lastReconciledAt = LocalDateTime.now();
+            return true;
+        }
+    }
+
+    private void reconcileSafely() {
+        try {
+            reconcile();
+        } catch (Exception e) {
+            System.err.println("Dashboard reconciliation failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 跨天后清零当日营收。只会向后滚动，迟到的前一天结算不会把日期拨回去。
+     */
+    private void rollOver(LocalDate date) {
+        if (date.isAfter(day)) {
+            day = date;
+            todaySettlements = 0;
+            todayRevenue = BigDecimal.ZERO;
+            modifications++;
+        }
+    }
+
+    /**
+     * 温度、风速等变化不影响计数。
+     */
+    private static boolean affectsCounters(RoomStateChangedEvent event) {
+        RoomInfo before = event.before();
+        RoomInfo after = event.after();
+        return before == null || after == null
+                || !Objects.equals(before.getState(), after.getState())
+                || !Objects.equals(before.getAcState(), after.getAcState());
+    }
+
+    private static long flag(Integer value, int expected) {
+        return Objects.equals(value, expected) ? 1 : 0;
+    }
+
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("reconcileIntervalSeconds", reconcileIntervalSeconds);
+        stats.put("reconciliations", reconciliations);
+        stats.put("corrections", corrections);
+        stats.put("skippedReconciliations", skippedReconciliations);
+        stats.put("unresolvedEvents", unresolvedEvents);
+        stats.put("pendingEvents", pendingEvents.size());
+        stats.put("lastReconciledAt", lastReconciledAt);
+        return stats;
+    }
+}
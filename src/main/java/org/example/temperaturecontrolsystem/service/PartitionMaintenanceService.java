@@ -0,0 +1,230 @@
+package org.example.temperaturecontrolsystem.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.example.temperaturecontrolsystem.archive.ColumnarArchiveWriter;
+import org.example.temperaturecontrolsystem.archive.UsageArchiveStore;
+import org.example.temperaturecontrolsystem.entity.OpRecord;
+import org.example.temperaturecontrolsystem.entity.SchedulerBoardRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.DatabaseMetaData;
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * scheduler_board / op_records 的按月分区维护任务（仅 MySQL）。
+ * <p>
+ * 1. 从 p_future 中拆出未来若干个月的分区，保证新数据总是落在月分区里；
+ * 2. 超过保留期的月分区先导出到 {@link UsageArchiveStore}，再 DROP PARTITION。
+ * <p>
+ * 分区本身由运维在维护窗口内手动执行 db/manual/mysql/partition_by_month.sql 建立（会重建表，不放在自动迁移里），
+ * 这里只做轮转；表还没有分区时跳过。
+ * embedded profile 下没有数据库，不加载。
+ */
+@Service
+@Profile("!embedded")
+public class PartitionMaintenanceService {
+
+    private static final String FUTURE_PARTITION = "p_future";
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'uuuuMM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+    private final UsageArchiveStore archiveStore;
+
+    private final boolean enabled;
+    private final int monthsAhead;
+    private final int retentionMonths;
+    private final long intervalHours;
+
+    private final ScheduledExecutorService maintenanceTicker = Executors.newSingleThreadScheduledExecutor();
+
+    public PartitionMaintenanceService(JdbcTemplate jdbcTemplate,
+                                       DataSource dataSource,
+                                       UsageArchiveStore archiveStore,
+                                       @Value("${partition.maintenance.enabled:true}") boolean enabled,
+                                       @Value("${partition.maintenance.months-ahead:3}") int monthsAhead,
+                                       @Value("${partition.retention-months:6}") int retentionMonths,
+                                       @Value("${partition.maintenance.interval-hours:24}") long intervalHours) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSource = dataSource;
+        this.archiveStore = archiveStore;
+        this.enabled = enabled;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+        this.intervalHours = intervalHours;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            System.out.println("Partition maintenance is disabled.");
+            return;
+        }
+        maintenanceTicker.scheduleWithFixedDelay(this::runSafely, 1, intervalHours * 60, TimeUnit.MINUTES);
+        System.out.println("Partition maintenance scheduled every " + intervalHours + "h, retention " + retentionMonths + " month(s).");
+    }
+
+    @PreDestroy
+    public void stop() {
+        maintenanceTicker.shutdownNow();
+    }
+
+    private void runSafely() {
+        try {
+            maintain();
+        } catch (Exception e) {
+            System.err.println("Partition maintenance failed: " + e.getMessage());
+        }
+    }
+
+    public void maintain() {
+        if (!isMySql()) {
+            System.out.println("Partition maintenance skipped: database is not MySQL.");
+            return;
+        }
+        YearMonth current = YearMonth.now();
+        YearMonth retainFrom = current.minusMonths(retentionMonths);
+
+        rotate(UsageArchiveStore.SCHEDULER_BOARD, "start_time", current.plusMonths(monthsAhead), retainFrom);
+        rotate(UsageArchiveStore.OP_RECORDS, "op_time", current.plusMonths(monthsAhead), retainFrom);
+    }
+
+    private void rotate(String table, String column, YearMonth createUntil, YearMonth retainFrom) {
+        List<YearMonth> months = monthPartitions(table);
+        if (months == null) {
+            System.out.println("Table " + table + " is not partitioned, skipping rotation.");
+            return;
+        }
+
+        // 1. 创建分区：从最后一个月分区（或表中最早的数据所在月份）一直建到 createUntil
+        YearMonth next;
+        if (months.isEmpty()) {
+            Timestamp min = jdbcTemplate.queryForObject("SELECT MIN(" + column + ") FROM " + table, Timestamp.class);
+            next = min == null ? YearMonth.now() : YearMonth.from(min.toLocalDateTime());
+        } else {
+            next = months.get(months.size() - 1).plusMonths(1);
+        }
+        List<String> newPartitions = new ArrayList<>();
+        for (YearMonth m = next; !m.isAfter(createUntil); m = m.plusMonths(1)) {
+            newPartitions.add("PARTITION " + m.format(PARTITION_NAME) +
+                    " VALUES LESS THAN ('" + m.plusMonths(1).atDay(1) + "')");
+            months.add(m);
+        }
+        if (!newPartitions.isEmpty()) {
+            newPartitions.add("PARTITION " + FUTURE_PARTITION + " VALUES LESS THAN (MAXVALUE)");
+            jdbcTemplate.execute("ALTER TABLE " + table + " REORGANIZE PARTITION " + FUTURE_PARTITION +
+                    " INTO (" + String.join(", ", newPartitions) + ")");
+            System.out.println("Created " + (newPartitions.size() - 1) + " partition(s) for " + table + " up to " + createUntil);
+        }
+
+        // 2. 归档并删除超过保留期的分区
+        for (YearMonth month : months) {
+            if (!month.isBefore(retainFrom)) {
+                break;
+            }
+            long rows = archive(table, month);
+            jdbcTemplate.execute("ALTER TABLE " + table + " DROP PARTITION " + month.format(PARTITION_NAME));
+            System.out.println("Archived and dropped partition " + month.format(PARTITION_NAME) + " of " + table + " (" + rows + " rows).");
+        }
+    }
+
+    /**
+     * @return 按时间升序排列的月分区；表未分区时返回 null
+     */
+    private List<YearMonth> monthPartitions(String table) {
+        List<String> names = jdbcTemplate.queryForList(
+                "SELECT PARTITION_NAME FROM INFORMATION_SCHEMA.PARTITIONS " +
+                        "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? ORDER BY PARTITION_ORDINAL_POSITION",
+                String.class, table);
+        if (names.isEmpty() || names.get(0) == null) {
+            return null;
+        }
+        List<YearMonth> months = new ArrayList<>();
+        for (String name : names) {
+            if (!FUTURE_PARTITION.equals(name)) {
+                months.add(YearMonth.parse(name, PARTITION_NAME));
+            }
+        }
+        return months;
+    }
+
+    private long archive(String table, YearMonth month) {
+        String partition = month.format(PARTITION_NAME);
+        try {
+            if (UsageArchiveStore.SCHEDULER_BOARD.equals(table)) {
+                // 按 start_time 排序导出，列式文件里的时间差最小
+                try (ColumnarArchiveWriter writer = archiveStore.openSchedulerBoardMonth(month)) {
+                    jdbcTemplate.query("SELECT room_id, start_time, end_time, duration_seconds, speed, cost " +
+                            "FROM scheduler_board PARTITION (" + partition + ") ORDER BY start_time", rs -> {
+                        SchedulerBoardRecord record = new SchedulerBoardRecord(
+                                rs.getInt("room_id"),
+                                rs.getTimestamp("start_time").toLocalDateTime(),
+                                rs.getTimestamp("end_time").toLocalDateTime(),
+                                rs.getLong("duration_seconds"),
+                                rs.getInt("speed"),
+                                rs.getBigDecimal("cost"));
+                        appendUnchecked(writer, record);
+                    });
+                    writer.commit();
+                    return writer.rows();
+                }
+            }
+            try (UsageArchiveStore.MonthWriter writer = archiveStore.openOpRecordsMonth(month)) {
+                jdbcTemplate.query("SELECT room_id, op_time, op_type, old_state, new_state " +
+                        "FROM op_records PARTITION (" + partition + ") ORDER BY op_time", rs -> {
+                    OpRecord record = new OpRecord(
+                            rs.getInt("room_id"),
+                            rs.getTimestamp("op_time").toLocalDateTime(),
+                            rs.getInt("op_type"),
+                            rs.getString("old_state"),
+                            rs.getString("new_state"));
+                    appendUnchecked(writer, record);
+                });
+                writer.commit();
+                return writer.rows();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to archive " + table + " " + partition, e);
+        }
+    }
+
+    private static void appendUnchecked(ColumnarArchiveWriter writer, SchedulerBoardRecord record) {
+        try {
+            writer.append(record);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void appendUnchecked(UsageArchiveStore.MonthWriter writer, OpRecord record) {
+        try {
+            writer.append(record);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private boolean isMySql() {
+        try {
+            String product = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+            return product != null && product.toLowerCase().contains("mysql");
+        } catch (Exception e) {
+            return false;
+        }
+    }
+}
@@ -1,13 +1,21 @@
 package org.example.temperaturecontrolsystem.service;
 
 import lombok.RequiredArgsConstructor;
+import org.example.temperaturecontrolsystem.archive.UsageArchiveStore;
+import org.example.temperaturecontrolsystem.cache.ReportQueryCache;
+import org.example.temperaturecontrolsystem.config.ReplicaRouter;
+import org.example.temperaturecontrolsystem.dto.RoomUsageSummary;
 import org.example.temperaturecontrolsystem.entity.SchedulerBoardRecord;
 import org.example.temperaturecontrolsystem.mapper.RoomInfoMapper;
 import org.example.temperaturecontrolsystem.mapper.SchedulerMapper;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
@@ -15,6 +23,10 @@ public class ReportService {
 
     private final SchedulerMapper schedulerMapper;
     private final RoomInfoMapper roomInfoMapper;
+    private final UsageArchiveStore archiveStore;
+    private final ReportQueryCache reportQueryCache;
+    private final UsageAggregationService usageAggregationService;
+    private final ReplicaRouter replicaRouter;
 
     /**
      * (对应新查询 1)
@@ -27,7 +39,21 @@ public class ReportService {
         roomInfoMapper.findById(roomId)
                 .orElseThrow(() -> new IllegalStateException("Room with ID " + roomId + " not found."));
 
-        return schedulerMapper.findAllRecordsByRoomId(roomId);
+        return reportQueryCache.get(ReportQueryCache.Key.room(roomId), () -> loadAllRecordsForRoom(roomId),
+                replicaRouter.maxStaleness());
+    }
+
+    private List<SchedulerBoardRecord> loadAllRecordsForRoom(int roomId) {
+        LocalDateTime archivedBefore = archiveStore.archivedBefore();
+        if (archivedBefore == null) {
+            return replicaRouter.read(() -> schedulerMapper.findAllRecordsByRoomId(roomId));
+        }
+
+        // 早于 archivedBefore 的分区已经归档并删除，库里只查热分区
+        List<SchedulerBoardRecord> records = new ArrayList<>(
+                archiveStore.readSchedulerBoard(roomId, LocalDateTime.MIN, archivedBefore.minusNanos(1)));
+        records.addAll(replicaRouter.read(() -> schedulerMapper.findRecordsByRoomIdSince(roomId, archivedBefore)));
+        return records;
     }
 
     /**
@@ -43,6 +69,46 @@ public class ReportService {
             throw new IllegalArgumentException("Start time cannot be after end time.");
         }
 
-        return schedulerMapper.findRecordsInTimeRange(startTime, endTime);
+        return reportQueryCache.get(ReportQueryCache.Key.range(startTime, endTime),
+                () -> loadRecordsInTimeRange(startTime, endTime), replicaRouter.maxStaleness());
+    }
+
+    /**
+     * 按房间汇总某个时间范围内的送风时长与费用，适用于跨多个月的大范围报表。
+     *
+     * @param startTime 查询范围的开始时间
+     * @param endTime   查询范围的结束时间
+     * @return 每个房间的汇总，按房间号升序
+     */
+    public List<RoomUsageSummary> getUsageSummary(LocalDateTime startTime, LocalDateTime endTime) {
+        if (startTime.isAfter(endTime)) {
+            throw new IllegalArgumentException("Start time cannot be after end time.");
+        }
+
+        return usageAggregationService.summarize(startTime, endTime);
+    }
+
+    /**
+     * 报表查询缓存的命中率等统计信息，以及只读副本的路由情况。
+     */
+    public Map<String, Object> getCacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(reportQueryCache.stats());
+        stats.put("replica", replicaRouter.stats());
+        return stats;
+    }
+
+    private List<SchedulerBoardRecord> loadRecordsInTimeRange(LocalDateTime startTime, LocalDateTime endTime) {
+        LocalDateTime archivedBefore = archiveStore.archivedBefore();
+        if (archivedBefore == null || !startTime.isBefore(archivedBefore)) {
+            return replicaRouter.read(() -> schedulerMapper.findRecordsInTimeRange(startTime, endTime));
+        }
+
+        List<SchedulerBoardRecord> records = new ArrayList<>(archiveStore.readSchedulerBoard(
+                null, startTime, endTime.isBefore(archivedBefore) ? endTime : archivedBefore.minusNanos(1)));
+        if (!endTime.isBefore(archivedBefore)) {
+            records.addAll(replicaRouter.read(() -> schedulerMapper.findRecordsInTimeRange(archivedBefore, endTime)));
+        }
+        records.sort(Comparator.comparing(SchedulerBoardRecord::getRoomId).thenComparing(SchedulerBoardRecord::getStartTime));
+        return records;
     }
 }
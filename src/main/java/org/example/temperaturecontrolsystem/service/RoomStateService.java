@@ -1,26 +1,44 @@
 package org.example.temperaturecontrolsystem.service;
 
 import lombok.RequiredArgsConstructor;
+import org.example.temperaturecontrolsystem.cache.RoomChangeLog;
+import org.example.temperaturecontrolsystem.cache.RoomInfoCache;
+import org.example.temperaturecontrolsystem.cache.RoomSnapshotPublisher;
+import org.example.temperaturecontrolsystem.config.ReplicaRouter;
 import org.example.temperaturecontrolsystem.dto.CheckOutBillResponse;
+import org.example.temperaturecontrolsystem.dto.RoomChangesResponse;
 import org.example.temperaturecontrolsystem.dto.RoomStatusResponse;
+import org.example.temperaturecontrolsystem.dto.TemperatureSample;
 import org.example.temperaturecontrolsystem.entity.RoomInfo;
 import org.example.temperaturecontrolsystem.entity.SchedulerBoardRecord;
 import org.example.temperaturecontrolsystem.mapper.RoomInfoMapper;
 import org.example.temperaturecontrolsystem.mapper.SchedulerMapper;
+import org.example.temperaturecontrolsystem.offheap.RoomStateTableMirror;
+import org.example.temperaturecontrolsystem.timeseries.TemperatureSeriesStore;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 public class RoomStateService {
     private final RoomInfoMapper roomInfoMapper;
     private final SchedulerMapper schedulerMapper;
+    private final RoomInfoCache roomInfoCache;
+    private final RoomChangeLog roomChangeLog;
+    private final RoomSnapshotPublisher roomSnapshotPublisher;
+    private final TemperatureWriteBuffer temperatureWriteBuffer;
+    private final TemperatureSeriesStore temperatureSeriesStore;
+    private final RoomStateTableMirror roomStateTableMirror;
+    private final ReplicaRouter replicaRouter;
 
     private static final BigDecimal DAILY_ROOM_RATE = new BigDecimal("298.00");
 
@@ -31,7 +49,8 @@ public class RoomStateService {
         BigDecimal totalCost = BigDecimal.ZERO;
 
         if (roomInfo.getState() == 1 && roomInfo.getCheckinTime() != null) {
-            totalCost = schedulerMapper.getTotalCostByRoomIdSince(roomId, roomInfo.getCheckinTime())
+            // 状态轮询展示的累计费用可以容忍副本的复制延迟；账单仍在主库上计算，见 getCheckOutBill
+            totalCost = replicaRouter.read(() -> schedulerMapper.getTotalCostByRoomIdSince(roomId, roomInfo.getCheckinTime()))
                     .orElse(BigDecimal.ZERO);
         }
         RoomStatusResponse response = new RoomStatusResponse();
@@ -54,14 +73,26 @@ public class RoomStateService {
         return room.getAcState();
     }
 
-    @Transactional
+    /**
+     * 单条 UPDATE 自动提交即可，不开事务：UDP 和批量上报的每条读数都会走到这里。
+     */
     public void updateCurrentTemperature(int roomId, double newCurrentTemperature) {
+        if (temperatureWriteBuffer.isEnabled()) {
+            // 先进内存，按死区和刷新周期合并落库
+            if (roomInfoMapper.findById(roomId).isEmpty()) {
+                throw new IllegalStateException("Room " + roomId + " not found, cannot update current temperature.");
+            }
+            temperatureWriteBuffer.offer(roomId, newCurrentTemperature);
+            temperatureSeriesStore.append(roomId, System.currentTimeMillis(), newCurrentTemperature);
+            return;
+        }
 
         int updatedRows = roomInfoMapper.updateCurrentTemperature(roomId, newCurrentTemperature);
 
         if (updatedRows == 0) {
             throw new IllegalStateException("Room " + roomId + " not found, cannot update current temperature.");
         }
+        temperatureSeriesStore.append(roomId, System.currentTimeMillis(), newCurrentTemperature);
 
         System.out.println("Successfully updated current temperature for room " + roomId + " to " + newCurrentTemperature);
     }
@@ -79,6 +110,7 @@ public class RoomStateService {
 
         BigDecimal roomFee = calculateRoomFee(checkinTime, checkoutTime);
 
+        // 退房时刚结算的计费记录可能还没复制到副本，账单只读主库
         BigDecimal totalAcCost = schedulerMapper.getTotalCostByRoomIdSince(roomId, roomInfo.getCheckinTime())
                 .orElse(BigDecimal.ZERO)
                 .setScale(2, RoundingMode.HALF_UP);
@@ -165,7 +197,63 @@ public class RoomStateService {
     }
 
 
+    /**
+     * 房间在 [startTime, endTime] 内的温度历史；stepSeconds 大于 0 时按该步长求平均、最小、最大值。
+     */
+    public List<TemperatureSample> getTemperatureHistory(int roomId, LocalDateTime startTime, LocalDateTime endTime,
+                                                         long stepSeconds) {
+        if (endTime.isBefore(startTime)) {
+            throw new IllegalArgumentException("endTime must not be before startTime.");
+        }
+        if (stepSeconds < 0) {
+            throw new IllegalArgumentException("stepSeconds must not be negative.");
+        }
+        ZoneId zone = ZoneId.systemDefault();
+        long from = startTime.atZone(zone).toInstant().toEpochMilli();
+        long to = endTime.atZone(zone).toInstant().toEpochMilli();
+        return temperatureSeriesStore.query(roomId, from, to, stepSeconds * 1000).stream()
+                .map(sample -> new TemperatureSample(
+                        LocalDateTime.ofInstant(Instant.ofEpochMilli(sample.timestampMillis()), zone),
+                        sample.value(), sample.min(), sample.max(), sample.count()))
+                .toList();
+    }
+
     public List<RoomInfo> getAllRooms() {
         return roomInfoMapper.findAll();
     }
+
+    /**
+     * 全部房间状态的预序列化 JSON，房间状态没有变化时直接复用上一次的结果。
+     */
+    public RoomSnapshotPublisher.Snapshot getRoomSnapshot() {
+        return roomSnapshotPublisher.current();
+    }
+
+    /**
+     * 房间状态缓存的命中率、条目数和数据陈旧程度。
+     */
+    public Map<String, Object> getRoomCacheStats() {
+        Map<String, Object> stats = roomInfoCache.stats();
+        stats.put("snapshot", roomSnapshotPublisher.stats());
+        stats.put("temperatureBuffer", temperatureWriteBuffer.stats());
+        stats.put("temperatureSeries", temperatureSeriesStore.stats());
+        stats.put("offHeapTable", roomStateTableMirror.stats());
+        return stats;
+    }
+
+    /**
+     * 返回版本号 since 之后状态发生过变化的房间。since 超出变更日志的保留范围时返回全部房间。
+     * 返回的 version 在读取房间状态之前取得，读取期间发生的变化会在下一次轮询时再次返回。
+     */
+    public RoomChangesResponse getRoomChanges(long since) {
+        RoomChangeLog.Delta delta = roomChangeLog.since(since);
+        if (delta.fullResync()) {
+            return new RoomChangesResponse(delta.snapshotVersion(), true, roomInfoMapper.findAll());
+        }
+        List<RoomInfo> rooms = new ArrayList<>(delta.roomIds().size());
+        for (Integer roomId : delta.roomIds()) {
+            roomInfoMapper.findById(roomId).ifPresent(rooms::add);
+        }
+        return new RoomChangesResponse(delta.snapshotVersion(), false, rooms);
+    }
 }
@@ -0,0 +1,255 @@
+package org.example.temperaturecontrolsystem.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.example.temperaturecontrolsystem.entity.RoomInfo;
+import org.example.temperaturecontrolsystem.entity.SchedulerBoardRecord;
+import org.example.temperaturecontrolsystem.event.SchedulerBoardCompactedEvent;
+import org.example.temperaturecontrolsystem.mapper.RoomInfoMapper;
+import org.example.temperaturecontrolsystem.mapper.SchedulerMapper;
+import org.example.temperaturecontrolsystem.offheap.RoomRowView;
+import org.example.temperaturecontrolsystem.offheap.RoomStateTable;
+import org.example.temperaturecontrolsystem.offheap.RoomStateTableMirror;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * scheduler_board 后台压缩任务。
+ * <p>
+ * 时间片轮转和抢占会把一段连续的送风拆成很多条短记录。本任务把足够“老”的记录
+ * 按 (房间, 风速, 开始时间所在的小时) 分组，每组合并成一条汇总记录：
+ * startTime 取最早开始时间，endTime 取最晚结束时间，durationSeconds 与 cost 精确求和。
+ * <p>
+ * 为保证账单不变，分组永远不会跨越房间当前的入住时间（账单按 start_time >= checkin_time 求和）。
+ * 汇总记录的 start_time 仍落在原来的小时内，所以起止时间都在整点上的时间范围报表结果不变；
+ * 起止时间不在整点上时，被压缩的那个小时整体按其最早的开始时间计入或排除，与压缩前的明细可能不同。
+ * <p>
+ * 进度保存在 maintenance_watermark 表中，重启后从上次的位置继续：compactedBefore 是已经扫过的时间窗上界，
+ * settledSince 是上一轮开始的时间。每轮除了新的时间窗，还会找出 end_time 不早于 settledSince、
+ * start_time 却落在已扫过的时间窗里的记录（长时间送风、时间窗扫过之后才结算），把它们所在的小时再压缩一次。
+ * 内嵌存储（embedded profile）没有这张表，进度只在内存中，重启后从头扫描一次。
+ * <p>
+ * 各房间的入住时间从堆外房间表 {@link RoomStateTable} 逐行读取，不为每轮压缩复制全部 RoomInfo；
+ * 房间表尚未装载或房间号超出表的范围时退回房间缓存。
+ */
+@Service
+public class SchedulerBoardCompactionService {
+
+    private final SchedulerMapper schedulerMapper;
+    private final RoomInfoMapper roomInfoMapper;
+    private final RoomStateTableMirror roomStateTableMirror;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbcTemplate;
+
+    private final boolean enabled;
+    private final long minAgeHours;
+    private final long intervalMinutes;
+
+    private final ScheduledExecutorService compactionTicker = Executors.newSingleThreadScheduledExecutor();
+
+    private static final String COMPACTED_BEFORE = "scheduler_board.compacted_before";
+    private static final String SETTLED_SINCE = "scheduler_board.settled_since";
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+    /**
+     * 结算时间与本轮开始时间之间的余量，覆盖结算事务提交前的延迟和两台机器的时钟误差。
+     */
+    private static final long SETTLEMENT_SLACK_MINUTES = 10;
+
+    /**
+     * 已经压缩过的时间窗上界。下一轮从这个小时开始扫描，避免每次都重扫全部历史。
+     */
+    private volatile LocalDateTime compactedBefore;
+    /**
+     * 上一轮开始的时间，此后结算的记录可能落在已扫过的时间窗里。
+     */
+    private volatile LocalDateTime settledSince;
+
+    public SchedulerBoardCompactionService(SchedulerMapper schedulerMapper,
+                                           RoomInfoMapper roomInfoMapper,
+                                           RoomStateTableMirror roomStateTableMirror,
+                                           TransactionTemplate transactionTemplate,
+                                           ApplicationEventPublisher eventPublisher,
+                                           ObjectProvider<JdbcTemplate> jdbcTemplate,
+                                           @Value("${scheduler.compaction.enabled:true}") boolean enabled,
+                                           @Value("${scheduler.compaction.min-age-hours:24}") long minAgeHours,
+                                           @Value("${scheduler.compaction.interval-minutes:60}") long intervalMinutes) {
+        this.schedulerMapper = schedulerMapper;
+        this.roomInfoMapper = roomInfoMapper;
+        this.roomStateTableMirror = roomStateTableMirror;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.jdbcTemplate = jdbcTemplate.getIfAvailable();
+        this.enabled = enabled;
+        this.minAgeHours = minAgeHours;
+        this.intervalMinutes = intervalMinutes;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            System.out.println("Scheduler board compaction is disabled.");
+            return;
+        }
+        compactionTicker.scheduleWithFixedDelay(this::runSafely, intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
+        System.out.println("Scheduler board compaction started, min age " + minAgeHours + "h, interval " + intervalMinutes + "min.");
+    }
+
+    @PreDestroy
+    public void stop() {
+        compactionTicker.shutdownNow();
+    }
+
+    private void runSafely() {
+        try {
+            compact();
+        } catch (Exception e) {
+            // 压缩失败不影响业务，下一轮会从同一个时间窗重新开始
+            System.err.println("Scheduler board compaction failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 执行一轮压缩。
+     *
+     * @return 本轮被删除（合并掉）的记录条数
+     */
+    public synchronized int compact() {
+        if (compactedBefore == null) {
+            compactedBefore = loadWatermark(COMPACTED_BEFORE);
+            settledSince = loadWatermark(SETTLED_SINCE);
+        }
+        LocalDateTime startedAt = LocalDateTime.now();
+        LocalDateTime before = startedAt.minusHours(minAgeHours).truncatedTo(ChronoUnit.HOURS);
+        LocalDateTime from = compactedBefore;
+
+        RoomRowView row = new RoomRowView();
+        int removed = 0;
+        if (from.isAfter(EPOCH)) {
+            // 已扫过的时间窗里新结算的记录，按 (房间, 小时) 重新压缩
+            Set<String> hours = new LinkedHashSet<>();
+            for (SchedulerBoardRecord late : schedulerMapper.findLateSettlements(settledSince.minusMinutes(SETTLEMENT_SLACK_MINUTES), from)) {
+                LocalDateTime hour = late.getStartTime().truncatedTo(ChronoUnit.HOURS);
+                if (hours.add(late.getRoomId() + "|" + hour)) {
+                    removed += compactWindow(late.getRoomId(), hour, hour.plusHours(1), row);
+                }
+            }
+        }
+        if (from.isBefore(before)) {
+            for (Integer roomId : schedulerMapper.findRoomIdsWithRecordsBetween(from, before)) {
+                removed += compactWindow(roomId, from, before, row);
+            }
+            compactedBefore = before;
+        }
+
+        settledSince = startedAt;
+        saveWatermark(COMPACTED_BEFORE, compactedBefore);
+        saveWatermark(SETTLED_SINCE, settledSince);
+        if (removed > 0) {
+            System.out.println("Scheduler board compaction merged away " + removed + " record(s) before " + compactedBefore);
+        }
+        return removed;
+    }
+
+    private int compactWindow(int roomId, LocalDateTime from, LocalDateTime before, RoomRowView row) {
+        LocalDateTime checkinTime = checkinTime(roomId, row);
+        Integer merged = transactionTemplate.execute(status -> compactRoom(roomId, from, before, checkinTime));
+        if (merged == null || merged == 0) {
+            return 0;
+        }
+        eventPublisher.publishEvent(new SchedulerBoardCompactedEvent(roomId, from, before));
+        return merged;
+    }
+
+    private LocalDateTime loadWatermark(String name) {
+        if (jdbcTemplate == null) {
+            return EPOCH;
+        }
+        List<LocalDateTime> values = jdbcTemplate.query("SELECT watermark FROM maintenance_watermark WHERE name = ?",
+                (rs, i) -> rs.getTimestamp(1).toLocalDateTime(), name);
+        return values.isEmpty() ? EPOCH : values.get(0);
+    }
+
+    private void saveWatermark(String name, LocalDateTime value) {
+        if (jdbcTemplate == null) {
+            return;
+        }
+        if (jdbcTemplate.update("UPDATE maintenance_watermark SET watermark = ? WHERE name = ?", value, name) == 0) {
+            jdbcTemplate.update("INSERT INTO maintenance_watermark (name, watermark) VALUES (?, ?)", name, value);
+        }
+    }
+
+    private LocalDateTime checkinTime(int roomId, RoomRowView row) {
+        RoomStateTable table = roomStateTableMirror.table();
+        if (!roomStateTableMirror.isLoaded() || !table.accepts(roomId)) {
+            return roomInfoMapper.findById(roomId).map(RoomInfo::getCheckinTime).orElse(null);
+        }
+        if (!table.read(roomId, row) || row.checkinMillis() == RoomStateTable.NO_TIME) {
+            return null;
+        }
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(row.checkinMillis()), ZoneId.systemDefault());
+    }
+
+    private int compactRoom(int roomId, LocalDateTime from, LocalDateTime before, LocalDateTime checkinTime) {
+        List<SchedulerBoardRecord> candidates = schedulerMapper.findCompactionCandidates(roomId, from, before);
+
+        // 分组键：风速 + 小时 + 是否属于本次入住。LinkedHashMap 保持查询出来的 (speed, start_time) 顺序。
+        Map<String, List<SchedulerBoardRecord>> groups = new LinkedHashMap<>();
+        for (SchedulerBoardRecord record : candidates) {
+            boolean currentStay = checkinTime != null && !record.getStartTime().isBefore(checkinTime);
+            String key = record.getSpeed() + "|" + record.getStartTime().truncatedTo(ChronoUnit.HOURS) + "|" + currentStay;
+            groups.computeIfAbsent(key, k -> new ArrayList<>()).add(record);
+        }
+
+        int removed = 0;
+        for (List<SchedulerBoardRecord> group : groups.values()) {
+            if (group.size() < 2) {
+                continue;
+            }
+            schedulerMapper.insertRecord(merge(group));
+            List<Long> ids = group.stream().map(SchedulerBoardRecord::getId).toList();
+            removed += schedulerMapper.deleteByIds(ids);
+        }
+        return removed;
+    }
+
+    private SchedulerBoardRecord merge(List<SchedulerBoardRecord> group) {
+        SchedulerBoardRecord first = group.get(0);
+        LocalDateTime startTime = first.getStartTime();
+        LocalDateTime endTime = first.getEndTime();
+        long durationSeconds = 0;
+        BigDecimal cost = BigDecimal.ZERO;
+
+        for (SchedulerBoardRecord record : group) {
+            if (record.getStartTime().isBefore(startTime)) {
+                startTime = record.getStartTime();
+            }
+            if (record.getEndTime().isAfter(endTime)) {
+                endTime = record.getEndTime();
+            }
+            durationSeconds += record.getDurationSeconds();
+            cost = cost.add(record.getCost());
+        }
+
+        return new SchedulerBoardRecord(first.getRoomId(), startTime, endTime, durationSeconds, first.getSpeed(), cost);
+    }
+}
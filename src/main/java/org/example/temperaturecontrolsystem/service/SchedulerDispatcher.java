@@ -0,0 +1,190 @@
+package org.example.temperaturecontrolsystem.service;
+
+import org.example.temperaturecontrolsystem.entity.SchedulerRequest;
+import org.example.temperaturecontrolsystem.exception.SchedulerBatchException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 在事务中发给调度器的消息先收集起来，事务提交后再投递，回滚则丢弃。
+ * <p>
+ * 同一事务中同一房间的消息会合并：重复的消息只发一次，"add" 之后的 "update" 并入 "add"，
+ * 连续的 "update" 只保留最终风速，"delete" 取代之前尚未投递的其他消息。
+ * 合并后只剩一条消息时照常提交（风速调整仍经过防抖窗口），多条时作为一条批量消息提交，
+ * 调度器在一次加锁中处理完。批量中某条消息处理失败时，只有并入这条消息的调用方 future 异常完成。
+ * 没有事务时直接提交。
+ */
+@Component
+public class SchedulerDispatcher {
+
+    private final SchedulerService schedulerService;
+
+    private final AtomicLong dispatched = new AtomicLong();
+    private final AtomicLong merged = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    public SchedulerDispatcher(SchedulerService schedulerService) {
+        this.schedulerService = schedulerService;
+    }
+
+    /**
+     * @return 消息被调度器处理完时完成；与其他消息合并时随合并后的消息一起完成；事务回滚时异常完成
+     * @throws IllegalStateException 调度器正在关闭
+     */
+    public CompletableFuture<Void> dispatch(SchedulerRequest msg) {
+        if (!schedulerService.isAcceptingCommands()) {
+            // 在指令的事务里抛出，指令对数据库的修改随之回滚
+            throw new IllegalStateException("Scheduler is shutting down, command rejected.");
+        }
+        dispatched.incrementAndGet();
+        PendingMessages pending = currentPending();
+        if (pending == null) {
+            delivered.incrementAndGet();
+            return schedulerService.submitMsg(msg);
+        }
+        return pending.add(msg);
+    }
+
+    public void dispatchAll(List<SchedulerRequest> messages) {
+        messages.forEach(this::dispatch);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("dispatched", dispatched.get());
+        stats.put("merged", merged.get());
+        stats.put("delivered", delivered.get());
+        stats.put("batches", batches.get());
+        stats.put("droppedOnRollback", dropped.get());
+        return stats;
+    }
+
+    /**
+     * 当前事务的待投递消息。查找已注册的同步回调而不是绑定资源，
+     * 这样 REQUIRES_NEW 的内层事务挂起外层同步后会得到自己的一份。
+     */
+    private PendingMessages currentPending() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingMessages pending && pending.owner() == this) {
+                return pending;
+            }
+        }
+        PendingMessages pending = new PendingMessages();
+        TransactionSynchronizationManager.registerSynchronization(pending);
+        return pending;
+    }
+
+    /**
+     * 一个房间合并后的消息，以及所有并入它的调用方 future。
+     */
+    private static final class Pending {
+        SchedulerRequest msg;
+        final List<CompletableFuture<Void>> waiters = new ArrayList<>();
+
+        Pending(SchedulerRequest msg) {
+            this.msg = msg;
+        }
+    }
+
+    private final class PendingMessages implements TransactionSynchronization {
+        /**
+         * 房间号 -> 按顺序投递的消息。只有 "delete" 之后再 "add" 时一个房间会有两条。
+         */
+        private final Map<Integer, List<Pending>> byRoom = new LinkedHashMap<>();
+
+        SchedulerDispatcher owner() {
+            return SchedulerDispatcher.this;
+        }
+
+        CompletableFuture<Void> add(SchedulerRequest msg) {
+            CompletableFuture<Void> waiter = new CompletableFuture<>();
+            List<Pending> queued = byRoom.computeIfAbsent(msg.getRoomId(), id -> new ArrayList<>());
+            Pending last = queued.isEmpty() ? null : queued.get(queued.size() - 1);
+
+            if ("delete".equals(msg.getType()) && !queued.isEmpty()) {
+                // delete 覆盖之前的一切；被取代的消息的调用方随 delete 一起完成
+                Pending delete = new Pending(msg);
+                queued.forEach(p -> delete.waiters.addAll(p.waiters));
+                merged.addAndGet(queued.size());
+                queued.clear();
+                queued.add(delete);
+                delete.waiters.add(waiter);
+            } else if (last != null && last.msg.getType().equals(msg.getType())
+                    && Objects.equals(last.msg.getSpeed(), msg.getSpeed())) {
+                merged.incrementAndGet();
+                last.waiters.add(waiter);
+            } else if (last != null && "update".equals(msg.getType())
+                    && ("add".equals(last.msg.getType()) || "update".equals(last.msg.getType()))) {
+                merged.incrementAndGet();
+                last.msg = new SchedulerRequest(msg.getRoomId(), last.msg.getType(), msg.getSpeed());
+                last.waiters.add(waiter);
+            } else {
+                Pending pending = new Pending(msg);
+                pending.waiters.add(waiter);
+                queued.add(pending);
+            }
+            return waiter;
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            List<Pending> messages = new ArrayList<>();
+            byRoom.values().forEach(messages::addAll);
+            if (messages.isEmpty()) {
+                return;
+            }
+            if (status != STATUS_COMMITTED) {
+                dropped.addAndGet(messages.size());
+                IllegalStateException rolledBack = new IllegalStateException("Transaction rolled back, scheduler message dropped.");
+                messages.forEach(p -> p.waiters.forEach(waiter -> waiter.completeExceptionally(rolledBack)));
+                return;
+            }
+
+            delivered.addAndGet(messages.size());
+            if (messages.size() == 1) {
+                Pending only = messages.get(0);
+                forward(schedulerService.submitMsg(only.msg), only.waiters);
+                return;
+            }
+            batches.incrementAndGet();
+            CompletableFuture<Void> applied = schedulerService.submitBatch(messages.stream().map(p -> p.msg).toList());
+            applied.whenComplete((result, error) -> {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                for (int i = 0; i < messages.size(); i++) {
+                    // 批量中只有部分消息失败时，只让这些消息的调用方失败
+                    Throwable failure = cause instanceof SchedulerBatchException batchFailure ? batchFailure.failureAt(i) : cause;
+                    complete(messages.get(i).waiters, failure);
+                }
+            });
+        }
+    }
+
+    private static void forward(CompletableFuture<Void> applied, List<CompletableFuture<Void>> waiters) {
+        applied.whenComplete((result, error) -> complete(waiters, error));
+    }
+
+    private static void complete(List<CompletableFuture<Void>> waiters, Throwable error) {
+        waiters.forEach(waiter -> {
+            if (error != null) {
+                waiter.completeExceptionally(error);
+            } else {
+                waiter.complete(null);
+            }
+        });
+    }
+}
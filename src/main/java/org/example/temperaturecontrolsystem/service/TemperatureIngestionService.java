@@ -0,0 +1,164 @@
+package org.example.temperaturecontrolsystem.service;
+
+import org.example.temperaturecontrolsystem.dto.BulkTemperatureResponse;
+import org.example.temperaturecontrolsystem.dto.TemperatureReading;
+import org.example.temperaturecontrolsystem.entity.RoomInfo;
+import org.example.temperaturecontrolsystem.mapper.RoomInfoMapper;
+import org.example.temperaturecontrolsystem.timeseries.TemperatureSeriesStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 楼宇网关的批量温度上报。
+ * <p>
+ * 一次请求中的读数先逐条校验，同一房间只保留采样时间最新的一条（没有采样时间的按请求中的先后顺序），
+ * 再按 room.temperature.bulk-chunk-size 分块，每块一条 UPDATE ... CASE 语句，全部在同一个事务中完成。
+ * 启用了 {@link TemperatureWriteBuffer} 时读数交给它合并落库。
+ * <p>
+ * 采样时间比服务器时间晚超过 room.temperature.max-clock-skew-seconds 的读数按时钟错误拒绝，
+ * 否则它会成为该房间“最新”的读数，并让温度历史把之后的正常读数都当成乱序丢弃。
+ * 合法读数按房间、采样时间排序后在事务提交后写入温度历史，请求内的先后顺序不影响历史，回滚的请求也不会留下历史点。
+ */
+@Service
+public class TemperatureIngestionService {
+
+    static final double MIN_TEMPERATURE = -40.0;
+    static final double MAX_TEMPERATURE = 80.0;
+
+    private final RoomInfoMapper roomInfoMapper;
+    private final TemperatureWriteBuffer temperatureWriteBuffer;
+    private final TemperatureSeriesStore temperatureSeriesStore;
+    private final int maxReadings;
+    private final int chunkSize;
+    private final long maxClockSkewMillis;
+
+    private record SeriesPoint(int roomId, long timestampMillis, double temperature) {
+    }
+
+    public TemperatureIngestionService(RoomInfoMapper roomInfoMapper,
+                                       TemperatureWriteBuffer temperatureWriteBuffer,
+                                       TemperatureSeriesStore temperatureSeriesStore,
+                                       @Value("${room.temperature.bulk-max-readings:10000}") int maxReadings,
+                                       @Value("${room.temperature.bulk-chunk-size:500}") int chunkSize,
+                                       @Value("${room.temperature.max-clock-skew-seconds:60}") long maxClockSkewSeconds) {
+        this.roomInfoMapper = roomInfoMapper;
+        this.temperatureWriteBuffer = temperatureWriteBuffer;
+        this.temperatureSeriesStore = temperatureSeriesStore;
+        this.maxReadings = maxReadings;
+        this.chunkSize = chunkSize;
+        this.maxClockSkewMillis = TimeUnit.SECONDS.toMillis(maxClockSkewSeconds);
+    }
+
+    @Transactional
+    public BulkTemperatureResponse ingest(List<TemperatureReading> readings) {
+        if (readings == null || readings.isEmpty()) {
+            throw new IllegalArgumentException("No readings supplied.");
+        }
+        if (readings.size() > maxReadings) {
+            throw new IllegalArgumentException("Too many readings in one request: " + readings.size() + " > " + maxReadings);
+        }
+
+        BulkTemperatureResponse response = new BulkTemperatureResponse();
+        response.setReceived(readings.size());
+
+        // 房间号列表走房间缓存，不额外查库
+        Set<Integer> knownRooms = roomInfoMapper.findAll().stream()
+                .map(RoomInfo::getRoomId)
+                .collect(Collectors.toSet());
+
+        Map<Integer, TemperatureReading> latest = new LinkedHashMap<>();
+        List<SeriesPoint> points = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (TemperatureReading reading : readings) {
+            String problem = validate(reading, knownRooms);
+            long sampledAt = now;
+            if (problem == null && reading.getTimestamp() != null) {
+                sampledAt = reading.getTimestamp().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                if (sampledAt - now > maxClockSkewMillis) {
+                    problem = "Timestamp is more than " + maxClockSkewMillis / 1000 + "s in the future.";
+                }
+            }
+            if (problem != null) {
+                response.getRejected().add(new BulkTemperatureResponse.Rejection(reading == null ? null : reading.getRoomId(), problem));
+                continue;
+            }
+            // 历史记录保留每一条合法读数，房间表只写最新一条
+            points.add(new SeriesPoint(reading.getRoomId(), sampledAt, reading.getTemperature()));
+
+            TemperatureReading previous = latest.get(reading.getRoomId());
+            if (previous == null || !isOlder(reading, previous)) {
+                latest.put(reading.getRoomId(), reading);
+            }
+            if (previous != null) {
+                response.setSuperseded(response.getSuperseded() + 1);
+            }
+        }
+
+        appendAfterCommit(points);
+
+        List<TemperatureReading> toApply = new ArrayList<>(latest.values());
+        if (temperatureWriteBuffer.isEnabled()) {
+            for (TemperatureReading reading : toApply) {
+                temperatureWriteBuffer.offer(reading.getRoomId(), reading.getTemperature());
+            }
+            response.setApplied(toApply.size());
+            return response;
+        }
+
+        int applied = 0;
+        for (int from = 0; from < toApply.size(); from += chunkSize) {
+            applied += roomInfoMapper.updateCurrentTemperatures(toApply.subList(from, Math.min(from + chunkSize, toApply.size())));
+        }
+        response.setApplied(applied);
+        return response;
+    }
+
+    private void appendAfterCommit(List<SeriesPoint> points) {
+        points.sort(Comparator.comparingInt(SeriesPoint::roomId).thenComparingLong(SeriesPoint::timestampMillis));
+        Runnable append = () -> points.forEach(p -> temperatureSeriesStore.append(p.roomId(), p.timestampMillis(), p.temperature()));
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            append.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                append.run();
+            }
+        });
+    }
+
+    private static String validate(TemperatureReading reading, Set<Integer> knownRooms) {
+        if (reading == null || reading.getRoomId() == null) {
+            return "Missing roomId.";
+        }
+        if (reading.getTemperature() == null || !Double.isFinite(reading.getTemperature())) {
+            return "Missing or invalid temperature.";
+        }
+        if (reading.getTemperature() < MIN_TEMPERATURE || reading.getTemperature() > MAX_TEMPERATURE) {
+            return "Temperature out of range [" + MIN_TEMPERATURE + ", " + MAX_TEMPERATURE + "].";
+        }
+        if (!knownRooms.contains(reading.getRoomId())) {
+            return "Room " + reading.getRoomId() + " not found.";
+        }
+        return null;
+    }
+
+    private static boolean isOlder(TemperatureReading reading, TemperatureReading other) {
+        return reading.getTimestamp() != null && other.getTimestamp() != null
+                && reading.getTimestamp().isBefore(other.getTimestamp());
+    }
+}
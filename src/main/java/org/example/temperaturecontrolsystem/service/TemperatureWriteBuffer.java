@@ -0,0 +1,289 @@
+package org.example.temperaturecontrolsystem.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.example.temperaturecontrolsystem.cache.RoomInfoCache;
+import org.example.temperaturecontrolsystem.dto.TemperatureReading;
+import org.example.temperaturecontrolsystem.event.RoomStateChangedEvent;
+import org.example.temperaturecontrolsystem.mapper.RoomInfoMapper;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 当前温度的死区过滤与合并写入。
+ * <p>
+ * 每条读数都会立即写进房间缓存，读取方总能看到最新温度；但只有与上次落库的值相差至少
+ * room.temperature.dead-band，或距上次落库已超过 room.temperature.max-interval-seconds 的读数才会标记为待写入。
+ * 待写入的房间只保留最新一个值，每隔 room.temperature.flush-interval-millis 用一条批量语句写回 room_infos。
+ * <p>
+ * 房间状态变化事件也只在读数越过死区时发布，推送和变更日志不会被传感器噪声淹没。
+ * <p>
+ * 缓存条目被淘汰或从数据库重新加载之前，缓存会回调 {@link #persistBeforeReload}，先把该房间的待写值落库，
+ * 重新加载读到的就是最新温度。
+ */
+@Component
+public class TemperatureWriteBuffer {
+
+    private static final class RoomTemperature {
+        double persistedValue = Double.NaN;
+        long persistedAtMillis;
+        boolean dirty;
+        double pendingValue;
+    }
+
+    private final RoomInfoMapper databaseMapper;
+    private final RoomInfoCache roomInfoCache;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate separateTransaction;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final boolean enabled;
+    private final double deadBand;
+    private final long maxIntervalMillis;
+    private final long flushIntervalMillis;
+    private final int chunkSize;
+
+    private final Map<Integer, RoomTemperature> rooms = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flushTicker = Executors.newSingleThreadScheduledExecutor();
+
+    private final LongAdder received = new LongAdder();
+    private final LongAdder suppressed = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder flushedRows = new LongAdder();
+    private final LongAdder evictionWrites = new LongAdder();
+
+    /**
+     * 直接使用 MyBatis 生成的 mapper 落库：缓存里已经是最新值，不需要再经过 CachingRoomInfoMapper。
+     */
+    public TemperatureWriteBuffer(@Qualifier("roomInfoMapper") RoomInfoMapper databaseMapper,
+                                  RoomInfoCache roomInfoCache,
+                                  TransactionTemplate transactionTemplate,
+                                  ApplicationEventPublisher eventPublisher,
+                                  @Value("${room.temperature.buffer.enabled:true}") boolean enabled,
+                                  @Value("${room.temperature.dead-band:0.2}") double deadBand,
+                                  @Value("${room.temperature.max-interval-seconds:300}") long maxIntervalSeconds,
+                                  @Value("${room.temperature.flush-interval-millis:2000}") long flushIntervalMillis,
+                                  @Value("${room.temperature.bulk-chunk-size:500}") int chunkSize) {
+        this.databaseMapper = databaseMapper;
+        this.roomInfoCache = roomInfoCache;
+        this.transactionTemplate = transactionTemplate;
+        this.separateTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager(), transactionTemplate);
+        this.separateTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+        this.deadBand = deadBand;
+        this.maxIntervalMillis = TimeUnit.SECONDS.toMillis(maxIntervalSeconds);
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.chunkSize = chunkSize;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            System.out.println("Temperature write buffer is disabled, readings are written through.");
+            return;
+        }
+        roomInfoCache.setUnpersistedWriter(this::persistBeforeReload);
+        flushTicker.scheduleWithFixedDelay(this::flushSafely, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        System.out.println("Temperature write buffer started, dead band " + deadBand + ", flush every " + flushIntervalMillis + "ms.");
+    }
+
+    @PreDestroy
+    public void stop() {
+        flushTicker.shutdownNow();
+        if (enabled) {
+            flushSafely();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 接收一条读数。调用方需要事先确认房间存在。
+     */
+    public void offer(int roomId, double temperature) {
+        received.increment();
+        RoomInfoCache.Change change = roomInfoCache.applyUnpersisted(roomId, room -> room.setCurrentTempera(temperature));
+
+        RoomTemperature state = rooms.computeIfAbsent(roomId, id -> new RoomTemperature());
+        boolean significant;
+        synchronized (state) {
+            long now = System.currentTimeMillis();
+            if (Double.isNaN(state.persistedValue)) {
+                // 第一次见到这个房间：以缓存中（即数据库中）的值为已落库的值，从现在开始计算落库间隔
+                state.persistedValue = change.before() != null && change.before().getCurrentTempera() != null
+                        ? change.before().getCurrentTempera() : Double.NaN;
+                state.persistedAtMillis = now;
+            }
+            significant = Double.isNaN(state.persistedValue)
+                    || Math.abs(temperature - state.persistedValue) >= deadBand
+                    || (now - state.persistedAtMillis >= maxIntervalMillis && temperature != state.persistedValue);
+            if (state.dirty) {
+                // 已经在等待落库，只替换成最新值
+                state.pendingValue = temperature;
+                coalesced.increment();
+            } else if (significant) {
+                state.dirty = true;
+                state.pendingValue = temperature;
+            } else {
+                suppressed.increment();
+            }
+        }
+
+        if (significant) {
+            eventPublisher.publishEvent(new RoomStateChangedEvent(roomId, change.before(), change.after()));
+        }
+    }
+
+    /**
+     * 把所有待写入的房间写回数据库。
+     *
+     * @return 写入的行数
+     */
+    public int flush() {
+        List<TemperatureReading> batch = new ArrayList<>();
+        for (Map.Entry<Integer, RoomTemperature> entry : rooms.entrySet()) {
+            RoomTemperature state = entry.getValue();
+            synchronized (state) {
+                if (state.dirty) {
+                    batch.add(new TemperatureReading(entry.getKey(), state.pendingValue, null));
+                }
+            }
+        }
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        Integer written = transactionTemplate.execute(status -> {
+            int rows = 0;
+            for (int from = 0; from < batch.size(); from += chunkSize) {
+                rows += databaseMapper.updateCurrentTemperatures(batch.subList(from, Math.min(from + chunkSize, batch.size())));
+            }
+            return rows;
+        });
+
+        // 提交成功后才清除待写标记；写入期间到达的更新值保持待写
+        long now = System.currentTimeMillis();
+        for (TemperatureReading reading : batch) {
+            persisted(rooms.get(reading.getRoomId()), reading.getTemperature(), now);
+        }
+        flushes.increment();
+        flushedRows.add(batch.size());
+        return written == null ? 0 : written;
+    }
+
+    /**
+     * 缓存淘汰或重新加载某个房间之前调用，把它的待写值单独落库。
+     * 当前线程处在事务中时，事务可能持有这一行的锁，等事务结束后再在独立事务中写入，并把值补回缓存。
+     */
+    public void persistBeforeReload(int roomId) {
+        RoomTemperature state = rooms.get(roomId);
+        if (state == null) {
+            return;
+        }
+        synchronized (state) {
+            if (!state.dirty) {
+                return;
+            }
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    persistNow(roomId, state, true);
+                }
+            });
+        } else {
+            persistNow(roomId, state, false);
+        }
+    }
+
+    private void persistNow(int roomId, RoomTemperature state, boolean refreshCache) {
+        double value;
+        synchronized (state) {
+            if (!state.dirty) {
+                return;
+            }
+            value = state.pendingValue;
+        }
+        try {
+            separateTransaction.executeWithoutResult(status -> databaseMapper.updateCurrentTemperature(roomId, value));
+        } catch (Exception e) {
+            // 待写标记保留，由下一轮定时落库重试
+            System.err.println("Temperature write buffer failed to persist room " + roomId + " before reload: " + e.getMessage());
+            return;
+        }
+        boolean latest = persisted(state, value, System.currentTimeMillis());
+        evictionWrites.increment();
+        // 之后又来了新读数时，缓存里已经是更新的值
+        if (refreshCache && latest) {
+            roomInfoCache.applyWrite(roomId, room -> room.setCurrentTempera(value));
+        }
+    }
+
+    /**
+     * @return 写入的就是最新的待写值
+     */
+    private static boolean persisted(RoomTemperature state, double value, long now) {
+        synchronized (state) {
+            state.persistedValue = value;
+            state.persistedAtMillis = now;
+            if (state.pendingValue == value) {
+                state.dirty = false;
+            }
+            return !state.dirty;
+        }
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (Exception e) {
+            // 待写标记保留，下一轮重试
+            System.err.println("Temperature write buffer flush failed: " + e.getMessage());
+        }
+    }
+
+    public Map<String, Object> stats() {
+        long r = received.sum();
+        long rows = flushedRows.sum();
+        int pending = 0;
+        for (RoomTemperature state : rooms.values()) {
+            synchronized (state) {
+                if (state.dirty) {
+                    pending++;
+                }
+            }
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("received", r);
+        stats.put("suppressed", suppressed.sum());
+        stats.put("coalesced", coalesced.sum());
+        stats.put("pending", pending);
+        stats.put("flushes", flushes.sum());
+        stats.put("flushedRows", rows);
+        stats.put("evictionWrites", evictionWrites.sum());
+        stats.put("writeReduction", rows == 0 ? 0.0 : (double) r / rows);
+        return stats;
+    }
+}
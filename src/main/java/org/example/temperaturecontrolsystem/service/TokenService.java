@@ -0,0 +1,111 @@
+package org.example.temperaturecontrolsystem.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 无状态的登录令牌：base64url(角色:过期时刻:账号) + "." + base64url(HMAC-SHA256)。
+ * <p>
+ * 校验只做一次 HMAC 和一次过期时间比较，不查数据库也不在服务端保存会话，
+ * 所以令牌在过期前无法单独吊销；需要吊销时更换 auth.token.secret。
+ * 没有配置密钥时启动时随机生成一个，重启后之前签发的令牌全部失效。
+ */
+@Service
+public class TokenService {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    /**
+     * 校验通过的令牌携带的身份。
+     */
+    public record Principal(String account, String role, long expiresAtMillis) {
+    }
+
+    private final SecretKeySpec key;
+    private final long ttlMillis;
+    private final ThreadLocal<Mac> macs;
+
+    public TokenService(@Value("${auth.token.secret:}") String secret,
+                        @Value("${auth.token.ttl-minutes:720}") long ttlMinutes) {
+        byte[] keyBytes;
+        if (secret.isBlank()) {
+            keyBytes = new byte[32];
+            new SecureRandom().nextBytes(keyBytes);
+            System.out.println("auth.token.secret is not set, tokens are signed with a random key and expire on restart.");
+        } else {
+            keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        this.key = new SecretKeySpec(keyBytes, ALGORITHM);
+        this.ttlMillis = TimeUnit.MINUTES.toMillis(ttlMinutes);
+        // Mac 不是线程安全的，每个线程初始化一次后复用
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HMAC-SHA256 is not available.", e);
+            }
+        });
+    }
+
+    /**
+     * 新身份，过期时刻为现在加上 auth.token.ttl-minutes。用 {@link #sign} 得到令牌。
+     */
+    public Principal newPrincipal(String account, String role) {
+        return new Principal(account, role, System.currentTimeMillis() + ttlMillis);
+    }
+
+    public String sign(Principal principal) {
+        String payload = ENCODER.encodeToString(
+                (principal.role() + ":" + principal.expiresAtMillis() + ":" + principal.account()).getBytes(StandardCharsets.UTF_8));
+        return payload + "." + ENCODER.encodeToString(hmac(payload));
+    }
+
+    /**
+     * @return 签名正确且未过期时返回令牌中的身份，否则返回 null
+     */
+    public Principal verify(String token) {
+        if (token == null) {
+            return null;
+        }
+        int dot = token.indexOf('.');
+        if (dot <= 0 || dot == token.length() - 1) {
+            return null;
+        }
+        String payload = token.substring(0, dot);
+        try {
+            byte[] signature = DECODER.decode(token.substring(dot + 1));
+            if (!MessageDigest.isEqual(signature, hmac(payload))) {
+                return null;
+            }
+            String[] parts = new String(DECODER.decode(payload), StandardCharsets.UTF_8).split(":", 3);
+            if (parts.length != 3) {
+                return null;
+            }
+            long expiresAt = Long.parseLong(parts[1]);
+            if (expiresAt <= System.currentTimeMillis()) {
+                return null;
+            }
+            return new Principal(parts[2], parts[0], expiresAt);
+        } catch (IllegalArgumentException e) {
+            // base64 或过期时间格式错误
+            return null;
+        }
+    }
+
+    private byte[] hmac(String payload) {
+        return macs.get().doFinal(payload.getBytes(StandardCharsets.US_ASCII));
+    }
+}
@@ -0,0 +1,158 @@
+package org.example.temperaturecontrolsystem.service;
+
+import jakarta.annotation.PreDestroy;
+import org.example.temperaturecontrolsystem.archive.UsageArchiveStore;
+import org.example.temperaturecontrolsystem.config.ReplicaRouter;
+import org.example.temperaturecontrolsystem.dto.RoomUsageSummary;
+import org.example.temperaturecontrolsystem.entity.SchedulerBoardRecord;
+import org.example.temperaturecontrolsystem.mapper.SchedulerMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * 跨多个月的使用量汇总。
+ * <p>
+ * 库里的记录用一条查询流式读取（见 {@link SchedulerMapper#streamRecordsInChunk}），只在内存中保留“房间 -> 汇总”的映射，
+ * 内存与行数无关。早于归档边界的部分直接扫描本地列式归档文件，与库里的查询并发进行。
+ * <p>
+ * report.aggregation.parallelism 大于 1 时把范围切成 report.aggregation.chunk-hours 长的时间块，在有界线程池上并发查询，
+ * 各块的部分结果再用 fork-join 两两合并。只有数据库有空闲的 CPU、单条查询的扫描成为瓶颈时才值得这样做；
+ * 在单核的内嵌 H2 上分块比单条查询慢（见 UsageAggregationBenchmarkTests），所以默认是 1。
+ */
+@Service
+public class UsageAggregationService {
+
+    private final SchedulerMapper schedulerMapper;
+    private final UsageArchiveStore archiveStore;
+    private final ReplicaRouter replicaRouter;
+    private final Duration chunkLength;
+    private final int parallelism;
+    private final ExecutorService chunkPool;
+
+    public UsageAggregationService(SchedulerMapper schedulerMapper,
+                                   UsageArchiveStore archiveStore,
+                                   ReplicaRouter replicaRouter,
+                                   @Value("${report.aggregation.chunk-hours:24}") long chunkHours,
+                                   @Value("${report.aggregation.parallelism:1}") int parallelism) {
+        this.schedulerMapper = schedulerMapper;
+        this.archiveStore = archiveStore;
+        this.replicaRouter = replicaRouter;
+        this.chunkLength = Duration.ofHours(chunkHours);
+        this.parallelism = parallelism;
+        // 额外一个线程给归档扫描，与库里的查询并发
+        this.chunkPool = Executors.newFixedThreadPool(parallelism + 1);
+    }
+
+    @PreDestroy
+    public void stop() {
+        chunkPool.shutdownNow();
+    }
+
+    /**
+     * @return 按房间号升序排列的每个房间的汇总
+     */
+    public List<RoomUsageSummary> summarize(LocalDateTime startTime, LocalDateTime endTime) {
+        List<CompletableFuture<Map<Integer, RoomUsageSummary>>> partials = new ArrayList<>();
+
+        LocalDateTime dbStart = startTime;
+        LocalDateTime archivedBefore = archiveStore.archivedBefore();
+        if (archivedBefore != null && startTime.isBefore(archivedBefore)) {
+            LocalDateTime archiveEnd = endTime.isBefore(archivedBefore) ? endTime : archivedBefore.minusNanos(1);
+            partials.add(CompletableFuture.supplyAsync(() -> summarizeArchive(startTime, archiveEnd), chunkPool));
+            dbStart = archivedBefore;
+        }
+
+        for (LocalDateTime from = dbStart; !from.isAfter(endTime); from = from.plus(chunkLength)) {
+            LocalDateTime to = parallelism == 1 ? endTime : from.plus(chunkLength);
+            boolean lastChunk = !to.isBefore(endTime);
+            LocalDateTime chunkStart = from;
+            LocalDateTime chunkEnd = lastChunk ? endTime : to;
+            partials.add(CompletableFuture.supplyAsync(() -> summarizeChunk(chunkStart, chunkEnd, lastChunk), chunkPool));
+            if (lastChunk) {
+                break;
+            }
+        }
+
+        List<Map<Integer, RoomUsageSummary>> results;
+        try {
+            results = partials.stream().map(CompletableFuture::join).toList();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException re ? re : e;
+        }
+
+        Map<Integer, RoomUsageSummary> merged = ForkJoinPool.commonPool().invoke(new MergeTask(results, 0, results.size()));
+        List<RoomUsageSummary> summaries = new ArrayList<>(merged.values());
+        summaries.sort(Comparator.comparingInt(RoomUsageSummary::getRoomId));
+        return summaries;
+    }
+
+    /**
+     * 在只读副本上读；副本出错回退到主库重读时部分结果重新开始累计，不会重复计入。
+     */
+    private Map<Integer, RoomUsageSummary> summarizeChunk(LocalDateTime from, LocalDateTime to, boolean lastChunk) {
+        return replicaRouter.read(() -> {
+            Map<Integer, RoomUsageSummary> partial = new HashMap<>();
+            schedulerMapper.streamRecordsInChunk(from, to, lastChunk, context -> accumulate(partial, context.getResultObject()));
+            return partial;
+        });
+    }
+
+    private Map<Integer, RoomUsageSummary> summarizeArchive(LocalDateTime from, LocalDateTime to) {
+        Map<Integer, RoomUsageSummary> partial = new HashMap<>();
+        for (SchedulerBoardRecord record : archiveStore.readSchedulerBoard(null, from, to)) {
+            accumulate(partial, record);
+        }
+        return partial;
+    }
+
+    private static void accumulate(Map<Integer, RoomUsageSummary> partial, SchedulerBoardRecord record) {
+        partial.computeIfAbsent(record.getRoomId(), RoomUsageSummary::new)
+                .add(record.getDurationSeconds(), record.getCost());
+    }
+
+    /**
+     * 把若干个部分结果二分后并行合并。
+     */
+    private static class MergeTask extends RecursiveTask<Map<Integer, RoomUsageSummary>> {
+        private final List<Map<Integer, RoomUsageSummary>> partials;
+        private final int from;
+        private final int to;
+
+        MergeTask(List<Map<Integer, RoomUsageSummary>> partials, int from, int to) {
+            this.partials = partials;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Map<Integer, RoomUsageSummary> compute() {
+            if (to - from <= 1) {
+                return from < to ? partials.get(from) : new HashMap<>();
+            }
+            int mid = (from + to) >>> 1;
+            MergeTask left = new MergeTask(partials, from, mid);
+            left.fork();
+            Map<Integer, RoomUsageSummary> right = new MergeTask(partials, mid, to).compute();
+            Map<Integer, RoomUsageSummary> result = left.join();
+            right.forEach((roomId, summary) -> result.merge(roomId, summary, (a, b) -> {
+                a.merge(b);
+                return a;
+            }));
+            return result;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package org.example.temperaturecontrolsystem.timeseries;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 从 ByteBuffer 的指定偏移处按位读取，高位在前。不修改 buffer 的 position。
+ */
+final class BitReader {
+
+    private final ByteBuffer buffer;
+    private final int base;
+    private long position;
+
+    BitReader(ByteBuffer buffer, int base) {
+        this.buffer = buffer;
+        this.base = base;
+    }
+
+    boolean readBit() {
+        int b = buffer.get(base + (int) (position >>> 3));
+        boolean bit = (b & (0x80 >>> (position & 7))) != 0;
+        position++;
+        return bit;
+    }
+
+    long readBits(int count) {
+        long value = 0;
+        for (int i = 0; i < count; i++) {
+            value = (value << 1) | (readBit() ? 1 : 0);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,48 @@
+package org.example.temperaturecontrolsystem.timeseries;
+
+import java.util.Arrays;
+
+/**
+ * 按位追加写入的可增长缓冲区，高位在前。
+ */
+final class BitWriter {
+
+    private byte[] bytes = new byte[64];
+    private long bitLength;
+
+    void writeBit(boolean bit) {
+        ensureCapacity(1);
+        if (bit) {
+            bytes[(int) (bitLength >>> 3)] |= (byte) (0x80 >>> (bitLength & 7));
+        }
+        bitLength++;
+    }
+
+    /**
+     * 写入 value 的低 count 位（count 不超过 64）。
+     */
+    void writeBits(long value, int count) {
+        ensureCapacity(count);
+        for (int i = count - 1; i >= 0; i--) {
+            if (((value >>> i) & 1) != 0) {
+                bytes[(int) (bitLength >>> 3)] |= (byte) (0x80 >>> (bitLength & 7));
+            }
+            bitLength++;
+        }
+    }
+
+    long bitLength() {
+        return bitLength;
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(bytes, (int) ((bitLength + 7) >>> 3));
+    }
+
+    private void ensureCapacity(int bits) {
+        long needed = (bitLength + bits + 7) >>> 3;
+        if (needed > bytes.length) {
+            bytes = Arrays.copyOf(bytes, (int) Math.max(needed, bytes.length * 2L));
+        }
+    }
+}
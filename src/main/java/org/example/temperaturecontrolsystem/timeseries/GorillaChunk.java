@@ -0,0 +1,158 @@
+package org.example.temperaturecontrolsystem.timeseries;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 一个房间一段连续时间内的温度点，按 Gorilla（Facebook, VLDB 2015）的方式压缩：
+ * <ul>
+ *     <li>时间戳（epoch 毫秒）：首个原样 64 位，之后写二阶差分，按大小用 0 / 10 / 110 / 1110 / 1111 前缀加 0 / 7 / 9 / 12 / 64 位；</li>
+ *     <li>温度：先按 {@value #SCALE} 定点化成 long（即 0.01°C 精度），再与前一个值按位异或，相同写 0；
+ *     否则在前一个值的有效位窗口内写 10 + 有效位，窗口变化时写 11 + 5 位前导零个数 + 6 位有效位长度 + 有效位。</li>
+ * </ul>
+ * 原论文直接异或 double 的位模式，但 24.1、24.2 这类十进制小数的尾数几乎每一位都不同，压缩效果很差；
+ * 定点化之后相邻读数只差几个低位。等间隔上报、温度变化缓慢时每个点约 1 - 2 字节。时间戳必须非递减。
+ */
+final class GorillaChunk {
+
+    static final int SCALE = 100;
+
+    @FunctionalInterface
+    interface PointConsumer {
+        void accept(long timestampMillis, double value);
+    }
+
+    private final BitWriter out = new BitWriter();
+    private int count;
+    private long firstTimestamp;
+    private long lastTimestamp;
+    private long previousDelta;
+    private long previousBits;
+    private int previousLeading = -1;
+    private int previousTrailing;
+
+    void append(long timestampMillis, double value) {
+        long bits = Math.round(value * SCALE);
+        if (count == 0) {
+            out.writeBits(timestampMillis, 64);
+            out.writeBits(bits, 64);
+            firstTimestamp = timestampMillis;
+        } else {
+            long delta = timestampMillis - lastTimestamp;
+            writeDeltaOfDelta(delta - previousDelta);
+            previousDelta = delta;
+            writeValue(bits ^ previousBits);
+        }
+        lastTimestamp = timestampMillis;
+        previousBits = bits;
+        count++;
+    }
+
+    int count() {
+        return count;
+    }
+
+    long firstTimestamp() {
+        return firstTimestamp;
+    }
+
+    long lastTimestamp() {
+        return lastTimestamp;
+    }
+
+    byte[] toByteArray() {
+        return out.toByteArray();
+    }
+
+    private void writeDeltaOfDelta(long dod) {
+        if (dod == 0) {
+            out.writeBit(false);
+        } else if (dod >= -64 && dod <= 63) {
+            out.writeBits(0b10, 2);
+            out.writeBits(dod, 7);
+        } else if (dod >= -256 && dod <= 255) {
+            out.writeBits(0b110, 3);
+            out.writeBits(dod, 9);
+        } else if (dod >= -2048 && dod <= 2047) {
+            out.writeBits(0b1110, 4);
+            out.writeBits(dod, 12);
+        } else {
+            out.writeBits(0b1111, 4);
+            out.writeBits(dod, 64);
+        }
+    }
+
+    private void writeValue(long xor) {
+        if (xor == 0) {
+            out.writeBit(false);
+            return;
+        }
+        out.writeBit(true);
+        int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+        int trailing = Long.numberOfTrailingZeros(xor);
+        if (previousLeading >= 0 && leading >= previousLeading && trailing >= previousTrailing) {
+            out.writeBit(false);
+            out.writeBits(xor >>> previousTrailing, 64 - previousLeading - previousTrailing);
+        } else {
+            int significant = 64 - leading - trailing;
+            out.writeBit(true);
+            out.writeBits(leading, 5);
+            out.writeBits(significant - 1, 6);
+            out.writeBits(xor >>> trailing, significant);
+            previousLeading = leading;
+            previousTrailing = trailing;
+        }
+    }
+
+    /**
+     * 解码 buffer 中从 offset 开始的 count 个点。
+     */
+    static void decode(ByteBuffer buffer, int offset, int count, PointConsumer consumer) {
+        if (count == 0) {
+            return;
+        }
+        BitReader in = new BitReader(buffer, offset);
+        long timestamp = in.readBits(64);
+        long bits = in.readBits(64);
+        consumer.accept(timestamp, (double) bits / SCALE);
+
+        long delta = 0;
+        int leading = 0;
+        int trailing = 0;
+        for (int i = 1; i < count; i++) {
+            delta += readDeltaOfDelta(in);
+            timestamp += delta;
+
+            if (in.readBit()) {
+                if (in.readBit()) {
+                    leading = (int) in.readBits(5);
+                    int significant = (int) in.readBits(6) + 1;
+                    trailing = 64 - leading - significant;
+                }
+                int significant = 64 - leading - trailing;
+                bits ^= in.readBits(significant) << trailing;
+            }
+            consumer.accept(timestamp, (double) bits / SCALE);
+        }
+    }
+
+    private static long readDeltaOfDelta(BitReader in) {
+        if (!in.readBit()) {
+            return 0;
+        }
+        if (!in.readBit()) {
+            return signExtend(in.readBits(7), 7);
+        }
+        if (!in.readBit()) {
+            return signExtend(in.readBits(9), 9);
+        }
+        if (!in.readBit()) {
+            return signExtend(in.readBits(12), 12);
+        }
+        return in.readBits(64);
+    }
+
+    private static long signExtend(long value, int bits) {
+        int shift = 64 - bits;
+        return (value << shift) >> shift;
+    }
+}
@@ -0,0 +1,418 @@
+package org.example.temperaturecontrolsystem.timeseries;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * 每个房间的温度历史（嵌入式时序存储）。
+ * <p>
+ * 每个房间在内存中有一个正在写入的头块（{@link GorillaChunk}），点数达到 timeseries.chunk-points
+ * 或跨度超过 timeseries.max-chunk-minutes 时封存：追加写入按天划分的段文件
+ * {@code <dir>/temperature-yyyyMMdd.tss}，之后通过内存映射读取。
+ * <p>
+ * 段文件由若干块顺序组成，每块是一个固定头加压缩数据：
+ * <pre>
+ * int magic, int roomId, int count, long firstTimestamp, long lastTimestamp, int byteLength, byte[byteLength]
+ * </pre>
+ * 启动时扫描全部段文件重建索引；末尾不完整的块（写入时崩溃）会被截掉。
+ * 头块只在内存中，进程异常退出会丢失最近一个块的数据；正常停机时会全部封存。
+ */
+@Component
+public class TemperatureSeriesStore {
+
+    private static final int MAGIC = 0x54535331; // "TSS1"
+    private static final int HEADER_BYTES = 4 + 4 + 4 + 8 + 8 + 4;
+    private static final String PREFIX = "temperature-";
+    private static final String SUFFIX = ".tss";
+    private static final DateTimeFormatter DAY = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private record BlockRef(Path segment, long dataOffset, int count, long firstTimestamp, long lastTimestamp,
+                            int byteLength) {
+    }
+
+    private static final class Series {
+        final CopyOnWriteArrayList<BlockRef> sealed = new CopyOnWriteArrayList<>();
+        GorillaChunk head = new GorillaChunk();
+        long lastTimestamp = Long.MIN_VALUE;
+    }
+
+    /**
+     * 一个温度点；降采样时 value 为桶内平均值，min / max / count 为桶内统计。
+     */
+    public record Sample(long timestampMillis, double value, double min, double max, int count) {
+    }
+
+    private final boolean enabled;
+    private final Path baseDir;
+    private final int chunkPoints;
+    private final long maxChunkMillis;
+    private final int retentionDays;
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    private final Map<Integer, Series> series = new ConcurrentHashMap<>();
+    private final Map<Path, MappedByteBuffer> mappedSegments = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService maintenanceTicker = Executors.newSingleThreadScheduledExecutor();
+
+    private final LongAdder appended = new LongAdder();
+    private final LongAdder outOfOrder = new LongAdder();
+    private final LongAdder sealedBlocks = new LongAdder();
+    private final LongAdder sealedBytes = new LongAdder();
+    private final LongAdder sealedPoints = new LongAdder();
+
+    public TemperatureSeriesStore(@Value("${timeseries.enabled:true}") boolean enabled,
+                                  @Value("${timeseries.dir:data/timeseries}") String baseDir,
+                                  @Value("${timeseries.chunk-points:720}") int chunkPoints,
+                                  @Value("${timeseries.max-chunk-minutes:120}") long maxChunkMinutes,
+                                  @Value("${timeseries.retention-days:90}") int retentionDays) {
+        this.enabled = enabled;
+        this.baseDir = Path.of(baseDir);
+        this.chunkPoints = chunkPoints;
+        this.maxChunkMillis = TimeUnit.MINUTES.toMillis(maxChunkMinutes);
+        this.retentionDays = retentionDays;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Files.createDirectories(baseDir);
+        int blocks = 0;
+        for (Path segment : listSegments()) {
+            blocks += loadSegment(segment);
+        }
+        maintenanceTicker.scheduleWithFixedDelay(this::maintainSafely, 1, 1, TimeUnit.MINUTES);
+        System.out.println("Temperature series store opened " + baseDir + " with " + blocks + " sealed block(s).");
+    }
+
+    @PreDestroy
+    public void stop() {
+        maintenanceTicker.shutdownNow();
+        if (!enabled) {
+            return;
+        }
+        for (Map.Entry<Integer, Series> entry : series.entrySet()) {
+            synchronized (entry.getValue()) {
+                seal(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 追加一个温度点。同一房间的时间戳必须非递减，更早的点会被丢弃。
+     */
+    public void append(int roomId, long timestampMillis, double temperature) {
+        if (!enabled) {
+            return;
+        }
+        Series s = series.computeIfAbsent(roomId, id -> new Series());
+        synchronized (s) {
+            if (timestampMillis < s.lastTimestamp) {
+                outOfOrder.increment();
+                return;
+            }
+            if (s.head.count() > 0 && timestampMillis - s.head.firstTimestamp() >= maxChunkMillis) {
+                seal(roomId, s);
+            }
+            s.head.append(timestampMillis, temperature);
+            s.lastTimestamp = timestampMillis;
+            appended.increment();
+            if (s.head.count() >= chunkPoints) {
+                seal(roomId, s);
+            }
+        }
+    }
+
+    /**
+     * 查询 [fromMillis, toMillis] 内的温度。stepMillis 大于 0 时按该步长分桶降采样。
+     */
+    public List<Sample> query(int roomId, long fromMillis, long toMillis, long stepMillis) {
+        Series s = series.get(roomId);
+        if (s == null) {
+            return List.of();
+        }
+
+        List<Sample> samples = new ArrayList<>();
+        Bucketer bucketer = new Bucketer(fromMillis, stepMillis, samples);
+        GorillaChunk.PointConsumer collector = (timestamp, value) -> {
+            if (timestamp >= fromMillis && timestamp <= toMillis) {
+                bucketer.accept(timestamp, value);
+            }
+        };
+
+        // 封存块列表和头块在同一把锁下取快照，避免查询期间恰好封存的块被漏掉
+        List<BlockRef> blocks;
+        byte[] head;
+        int headCount;
+        synchronized (s) {
+            blocks = List.copyOf(s.sealed);
+            headCount = s.head.count();
+            head = headCount == 0 || s.head.lastTimestamp() < fromMillis || s.head.firstTimestamp() > toMillis
+                    ? null : s.head.toByteArray();
+        }
+
+        // 封存块按时间顺序排列，先读封存块再读头块即为时间顺序
+        for (BlockRef block : blocks) {
+            if (block.lastTimestamp() < fromMillis || block.firstTimestamp() > toMillis) {
+                continue;
+            }
+            ByteBuffer data = mapped(block.segment(), block.dataOffset() + block.byteLength());
+            GorillaChunk.decode(data, (int) block.dataOffset(), block.count(), collector);
+        }
+        if (head != null) {
+            GorillaChunk.decode(ByteBuffer.wrap(head), 0, headCount, collector);
+        }
+        bucketer.finish();
+        return samples;
+    }
+
+    public Map<String, Object> stats() {
+        long points = sealedPoints.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("rooms", series.size());
+        stats.put("appended", appended.sum());
+        stats.put("outOfOrder", outOfOrder.sum());
+        stats.put("sealedBlocks", sealedBlocks.sum());
+        stats.put("sealedPoints", points);
+        stats.put("sealedBytes", sealedBytes.sum());
+        stats.put("bytesPerPoint", points == 0 ? 0.0 : (double) sealedBytes.sum() / points);
+        return stats;
+    }
+
+    /**
+     * 封存头块并写入当天的段文件。调用方持有 s 的锁。
+     */
+    private void seal(int roomId, Series s) {
+        GorillaChunk chunk = s.head;
+        if (chunk.count() == 0) {
+            return;
+        }
+        byte[] data = chunk.toByteArray();
+        Path segment = baseDir.resolve(PREFIX + DAY.format(toDate(chunk.firstTimestamp())) + SUFFIX);
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.BIG_ENDIAN);
+        header.putInt(MAGIC).putInt(roomId).putInt(chunk.count())
+                .putLong(chunk.firstTimestamp()).putLong(chunk.lastTimestamp()).putInt(data.length);
+        header.flip();
+
+        long dataOffset;
+        synchronized (this) {
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                long position = channel.size();
+                channel.position(position);
+                writeFully(channel, header);
+                writeFully(channel, ByteBuffer.wrap(data));
+                dataOffset = position + HEADER_BYTES;
+            } catch (IOException e) {
+                // 保留头块，下一次封存时重试
+                System.err.println("Failed to seal temperature block for room " + roomId + ": " + e.getMessage());
+                return;
+            }
+        }
+
+        s.sealed.add(new BlockRef(segment, dataOffset, chunk.count(), chunk.firstTimestamp(), chunk.lastTimestamp(), data.length));
+        s.head = new GorillaChunk();
+        sealedBlocks.increment();
+        sealedBytes.add(data.length + HEADER_BYTES);
+        sealedPoints.add(chunk.count());
+    }
+
+    private void maintainSafely() {
+        try {
+            // 长时间没有新读数的头块也按时封存，避免停在内存里
+            long now = System.currentTimeMillis();
+            for (Map.Entry<Integer, Series> entry : series.entrySet()) {
+                Series s = entry.getValue();
+                synchronized (s) {
+                    if (s.head.count() > 0 && now - s.head.firstTimestamp() >= maxChunkMillis) {
+                        seal(entry.getKey(), s);
+                    }
+                }
+            }
+            dropExpiredSegments();
+        } catch (Exception e) {
+            System.err.println("Temperature series maintenance failed: " + e.getMessage());
+        }
+    }
+
+    private void dropExpiredSegments() throws IOException {
+        LocalDate oldestKept = LocalDate.now(zone).minusDays(retentionDays);
+        for (Path segment : listSegments()) {
+            LocalDate day = dayOf(segment);
+            if (!day.isBefore(oldestKept)) {
+                continue;
+            }
+            for (Series s : series.values()) {
+                s.sealed.removeIf(block -> block.segment().equals(segment));
+            }
+            mappedSegments.remove(segment);
+            Files.deleteIfExists(segment);
+            System.out.println("Dropped expired temperature segment " + segment.getFileName());
+        }
+    }
+
+    private int loadSegment(Path segment) throws IOException {
+        int blocks = 0;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.BIG_ENDIAN);
+            long position = 0;
+            while (position + HEADER_BYTES <= size) {
+                int p = (int) position;
+                if (buffer.getInt(p) != MAGIC) {
+                    break;
+                }
+                int roomId = buffer.getInt(p + 4);
+                int count = buffer.getInt(p + 8);
+                long first = buffer.getLong(p + 12);
+                long last = buffer.getLong(p + 20);
+                int length = buffer.getInt(p + 28);
+                if (position + HEADER_BYTES + length > size) {
+                    break;
+                }
+                Series s = series.computeIfAbsent(roomId, id -> new Series());
+                s.sealed.add(new BlockRef(segment, position + HEADER_BYTES, count, first, last, length));
+                s.lastTimestamp = Math.max(s.lastTimestamp, last);
+                sealedBlocks.increment();
+                sealedBytes.add(HEADER_BYTES + length);
+                sealedPoints.add(count);
+                position += HEADER_BYTES + length;
+                blocks++;
+            }
+            if (position < size) {
+                System.err.println("Truncating incomplete tail of " + segment.getFileName() + " at offset " + position);
+                channel.truncate(position);
+            }
+        }
+        for (Series s : series.values()) {
+            s.sealed.sort(Comparator.comparingLong(BlockRef::firstTimestamp));
+        }
+        return blocks;
+    }
+
+    /**
+     * 返回段文件的只读映射，至少覆盖到 requiredSize；段文件在映射之后又追加过块时重新映射。
+     */
+    private ByteBuffer mapped(Path segment, long requiredSize) {
+        MappedByteBuffer buffer = mappedSegments.get(segment);
+        if (buffer != null && buffer.capacity() >= requiredSize) {
+            return buffer;
+        }
+        synchronized (mappedSegments) {
+            buffer = mappedSegments.get(segment);
+            if (buffer != null && buffer.capacity() >= requiredSize) {
+                return buffer;
+            }
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            mappedSegments.put(segment, buffer);
+            return buffer;
+        }
+    }
+
+    private List<Path> listSegments() throws IOException {
+        if (!Files.isDirectory(baseDir)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(baseDir)) {
+            return files.filter(p -> p.getFileName().toString().startsWith(PREFIX) && p.getFileName().toString().endsWith(SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static LocalDate dayOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return LocalDate.parse(name.substring(PREFIX.length(), name.length() - SUFFIX.length()), DAY);
+    }
+
+    private LocalDate toDate(long millis) {
+        return Instant.ofEpochMilli(millis).atZone(zone).toLocalDate();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * 把按时间顺序到达的点聚合成固定步长的桶；步长为 0 时原样输出。
+     */
+    private static final class Bucketer {
+        private final long origin;
+        private final long step;
+        private final List<Sample> out;
+        private long bucket = Long.MIN_VALUE;
+        private double sum;
+        private double min;
+        private double max;
+        private int count;
+
+        Bucketer(long origin, long step, List<Sample> out) {
+            this.origin = origin;
+            this.step = step;
+            this.out = out;
+        }
+
+        void accept(long timestamp, double value) {
+            if (step <= 0) {
+                out.add(new Sample(timestamp, value, value, value, 1));
+                return;
+            }
+            long b = Math.floorDiv(timestamp - origin, step);
+            if (b != bucket) {
+                finish();
+                bucket = b;
+            }
+            sum += value;
+            min = count == 0 ? value : Math.min(min, value);
+            max = count == 0 ? value : Math.max(max, value);
+            count++;
+        }
+
+        void finish() {
+            if (step > 0 && count > 0) {
+                out.add(new Sample(origin + bucket * step, sum / count, min, max, count));
+            }
+            sum = 0;
+            count = 0;
+        }
+    }
+}
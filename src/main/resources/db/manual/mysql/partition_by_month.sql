@@ -0,0 +1,29 @@
+-- 按月分区（MySQL，手动执行，不在 Flyway 的自动迁移中）。
+-- 分区键必须出现在主键中，所以主键改为 (id, 时间列)。
+-- 初始只有一个 p_future 分区，具体的月分区由 PartitionMaintenanceService 从 p_future 中拆分出来；
+-- 表未分区时该任务只打印提示、跳过轮转和归档。
+--
+-- 这些 ALTER TABLE 会重建整张表，期间表被锁住写入，耗时与 scheduler_board / op_records 的行数成正比。执行步骤：
+--   1. 在维护窗口内停止应用，备份两张表（mysqldump --single-transaction scheduler_board op_records）；
+--   2. 在从库或副本上先执行一次，记录耗时；
+--   3. 在主库上执行本文件：mysql temperaturecontrolsystem < partition_by_month.sql；
+--   4. 启动应用，确认日志中出现 "Created N partition(s) for scheduler_board"。
+-- 回滚：ALTER TABLE <表> REMOVE PARTITIONING; 主键可以保持 (id, 时间列)，id 仍然唯一。
+
+ALTER TABLE scheduler_board
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (id, start_time);
+
+ALTER TABLE scheduler_board
+    PARTITION BY RANGE COLUMNS (start_time) (
+        PARTITION p_future VALUES LESS THAN (MAXVALUE)
+    );
+
+ALTER TABLE op_records
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (id, op_time);
+
+ALTER TABLE op_records
+    PARTITION BY RANGE COLUMNS (op_time) (
+        PARTITION p_future VALUES LESS THAN (MAXVALUE)
+    );
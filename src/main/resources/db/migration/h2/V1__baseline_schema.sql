@@ -0,0 +1,43 @@
+-- 本地内嵌数据库（测试 / 压测）使用的表结构，与 mysql/V1 保持一致。
+
+CREATE TABLE IF NOT EXISTS room_infos (
+    room_id         INT          NOT NULL,
+    client_id       VARCHAR(64)  NULL,
+    client_name     VARCHAR(64)  NULL,
+    checkin_time    TIMESTAMP    NULL,
+    checkout_time   TIMESTAMP    NULL,
+    state           INT          NOT NULL DEFAULT 0,
+    ac_state        INT          NOT NULL DEFAULT 0,
+    current_speed   VARCHAR(16)  NULL,
+    current_tempera DOUBLE       NULL,
+    target_tempera  DOUBLE       NULL,
+    PRIMARY KEY (room_id)
+);
+
+CREATE TABLE IF NOT EXISTS scheduler_board (
+    id               BIGINT         NOT NULL AUTO_INCREMENT,
+    room_id          INT            NOT NULL,
+    start_time       TIMESTAMP      NOT NULL,
+    end_time         TIMESTAMP      NOT NULL,
+    duration_seconds BIGINT         NOT NULL,
+    speed            INT            NOT NULL,
+    cost             DECIMAL(16, 6) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS op_records (
+    id        BIGINT      NOT NULL AUTO_INCREMENT,
+    room_id   INT         NOT NULL,
+    op_time   TIMESTAMP   NOT NULL,
+    op_type   INT         NOT NULL,
+    old_state VARCHAR(32) NULL,
+    new_state VARCHAR(32) NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS users (
+    account_column  VARCHAR(64)  NOT NULL,
+    password_column VARCHAR(128) NOT NULL,
+    role_column     VARCHAR(32)  NOT NULL,
+    PRIMARY KEY (account_column)
+);
@@ -0,0 +1,7 @@
+CREATE INDEX idx_scheduler_board_room_start ON scheduler_board (room_id, start_time);
+
+CREATE INDEX idx_scheduler_board_start ON scheduler_board (start_time);
+
+CREATE INDEX idx_op_records_room_time ON op_records (room_id, op_time);
+
+CREATE INDEX idx_room_infos_ac_state ON room_infos (ac_state);
@@ -0,0 +1 @@
+CREATE INDEX idx_scheduler_board_end ON scheduler_board (end_time);
@@ -0,0 +1,5 @@
+CREATE TABLE IF NOT EXISTS maintenance_watermark (
+    name      VARCHAR(64) NOT NULL,
+    watermark TIMESTAMP   NOT NULL,
+    PRIMARY KEY (name)
+);
@@ -0,0 +1,43 @@
+-- 基线表结构，只在空库上执行。已有的库通过 baseline-on-migrate 在版本 1 接入，跳过本文件。
+
+CREATE TABLE IF NOT EXISTS room_infos (
+    room_id         INT          NOT NULL,
+    client_id       VARCHAR(64)  NULL,
+    client_name     VARCHAR(64)  NULL,
+    checkin_time    DATETIME     NULL,
+    checkout_time   DATETIME     NULL,
+    state           INT          NOT NULL DEFAULT 0,
+    ac_state        INT          NOT NULL DEFAULT 0,
+    current_speed   VARCHAR(16)  NULL,
+    current_tempera DOUBLE       NULL,
+    target_tempera  DOUBLE       NULL,
+    PRIMARY KEY (room_id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+CREATE TABLE IF NOT EXISTS scheduler_board (
+    id               BIGINT         NOT NULL AUTO_INCREMENT,
+    room_id          INT            NOT NULL,
+    start_time       DATETIME       NOT NULL,
+    end_time         DATETIME       NOT NULL,
+    duration_seconds BIGINT         NOT NULL,
+    speed            INT            NOT NULL,
+    cost             DECIMAL(16, 6) NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+CREATE TABLE IF NOT EXISTS op_records (
+    id        BIGINT      NOT NULL AUTO_INCREMENT,
+    room_id   INT         NOT NULL,
+    op_time   DATETIME    NOT NULL,
+    op_type   INT         NOT NULL,
+    old_state VARCHAR(32) NULL,
+    new_state VARCHAR(32) NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+CREATE TABLE IF NOT EXISTS users (
+    account_column  VARCHAR(64)  NOT NULL,
+    password_column VARCHAR(128) NOT NULL,
+    role_column     VARCHAR(32)  NOT NULL,
+    PRIMARY KEY (account_column)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
@@ -0,0 +1,2 @@
+-- 仪表盘当日营收校对：WHERE end_time >= ? AND end_time < ?
+CREATE INDEX idx_scheduler_board_end ON scheduler_board (end_time);
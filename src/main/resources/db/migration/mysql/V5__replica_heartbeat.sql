@@ -0,0 +1,8 @@
+-- 只读副本的复制延迟探测：应用定期在主库更新这一行，从副本读回后与当前时间比较
+CREATE TABLE IF NOT EXISTS replica_heartbeat (
+    id          INT    NOT NULL,
+    beat_millis BIGINT NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+INSERT IGNORE INTO replica_heartbeat (id, beat_millis) VALUES (1, 0);
@@ -0,0 +1,6 @@
+-- 后台维护任务的进度水位（例如 scheduler_board 压缩已经处理到的时间），重启后从这里继续
+CREATE TABLE IF NOT EXISTS maintenance_watermark (
+    name      VARCHAR(64) NOT NULL,
+    watermark DATETIME    NOT NULL,
+    PRIMARY KEY (name)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
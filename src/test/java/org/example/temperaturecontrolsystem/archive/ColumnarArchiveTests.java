@@ -0,0 +1,120 @@
+package org.example.temperaturecontrolsystem.archive;
+
+import org.example.temperaturecontrolsystem.entity.SchedulerBoardRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 列式归档写入后读回：多个 block、乱序的开始时间（负的 zigzag 差值）、房间字典、定点 cost，以及按房间和时间的过滤。
+ */
+class ColumnarArchiveTests {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2026, 3, 1, 0, 0);
+    private static final int[] ROOMS = {101, 102, 2_000_000_000, 7};
+    private static final String[] COSTS = {"0", "0.5", "12.345678", "-3.25", "99999999.999999", "0.000001"};
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void roundTripsEveryColumnAcrossBlocks() throws Exception {
+        Random random = new Random(28);
+        List<SchedulerBoardRecord> written = new ArrayList<>();
+        LocalDateTime start = BASE;
+        for (int i = 0; i < ColumnarArchiveWriter.BLOCK_ROWS * 2 + 17; i++) {
+            // 大多数向后走几十秒，偶尔往回跳，也有相同的开始时间
+            start = start.plusSeconds(random.nextInt(10) == 0 ? -random.nextInt(3_600) : random.nextInt(120));
+            long duration = i % 1000 == 0 ? 40L * 24 * 3600 : random.nextInt(3_600);
+            written.add(new SchedulerBoardRecord(ROOMS[i % ROOMS.length], start, start.plusSeconds(duration), duration,
+                    1 + i % 3, new BigDecimal(COSTS[i % COSTS.length])));
+        }
+        Path file = write(written);
+
+        List<SchedulerBoardRecord> read = new ArrayList<>();
+        new ColumnarArchiveReader(file).scan(null, LocalDateTime.MIN, LocalDateTime.MAX.minusYears(1), read::add);
+
+        assertThat(read).hasSize(written.size());
+        for (int i = 0; i < written.size(); i++) {
+            SchedulerBoardRecord expected = written.get(i);
+            SchedulerBoardRecord actual = read.get(i);
+            assertThat(actual.getRoomId()).isEqualTo(expected.getRoomId());
+            assertThat(actual.getStartTime()).isEqualTo(expected.getStartTime());
+            assertThat(actual.getEndTime()).isEqualTo(expected.getEndTime());
+            assertThat(actual.getDurationSeconds()).isEqualTo(expected.getDurationSeconds());
+            assertThat(actual.getSpeed()).isEqualTo(expected.getSpeed());
+            assertThat(actual.getCost()).isEqualByComparingTo(expected.getCost());
+        }
+    }
+
+    @Test
+    void filtersByRoomAndStartTime() throws Exception {
+        List<SchedulerBoardRecord> written = new ArrayList<>();
+        for (int i = 0; i < ColumnarArchiveWriter.BLOCK_ROWS * 3; i++) {
+            LocalDateTime start = BASE.plusMinutes(i);
+            written.add(new SchedulerBoardRecord(ROOMS[i % 2], start, start.plusMinutes(1), 60L, 2, BigDecimal.ONE));
+        }
+        ColumnarArchiveReader reader = new ColumnarArchiveReader(write(written));
+
+        LocalDateTime from = BASE.plusMinutes(5_000);
+        LocalDateTime to = BASE.plusMinutes(5_099);
+        List<SchedulerBoardRecord> read = new ArrayList<>();
+        reader.scan(ROOMS[1], from, to, read::add);
+        assertThat(read).hasSize(50).allSatisfy(record -> {
+            assertThat(record.getRoomId()).isEqualTo(ROOMS[1]);
+            assertThat(record.getStartTime()).isBetween(from, to);
+        });
+
+        List<SchedulerBoardRecord> none = new ArrayList<>();
+        reader.scan(12_345, BASE, BASE.plusYears(1), none::add);
+        assertThat(none).isEmpty();
+    }
+
+    @Test
+    void truncatesTimesToWholeSecondsAndRoundsCost() throws Exception {
+        LocalDateTime start = BASE.plusNanos(987_654_321);
+        Path file = write(List.of(new SchedulerBoardRecord(101, start, start.plusSeconds(10).plusNanos(1_000_000), 10L, 3,
+                new BigDecimal("1.23456789"))));
+
+        List<SchedulerBoardRecord> read = new ArrayList<>();
+        new ColumnarArchiveReader(file).scan(101, BASE, BASE.plusHours(1), read::add);
+
+        assertThat(read).singleElement().satisfies(record -> {
+            assertThat(record.getStartTime()).isEqualTo(start.truncatedTo(ChronoUnit.SECONDS));
+            assertThat(record.getEndTime()).isEqualTo(BASE.plusSeconds(10));
+            assertThat(record.getCost()).isEqualByComparingTo("1.234568");
+        });
+    }
+
+    @Test
+    void uncommittedWriterLeavesNoFile() throws Exception {
+        Path target = dir.resolve("aborted.col");
+        try (ColumnarArchiveWriter writer = new ColumnarArchiveWriter(dir.resolve("aborted.col.tmp"), target)) {
+            writer.append(new SchedulerBoardRecord(101, BASE, BASE.plusMinutes(1), 60L, 2, BigDecimal.ONE));
+        }
+        assertThat(target).doesNotExist();
+        assertThat(dir.resolve("aborted.col.tmp")).doesNotExist();
+    }
+
+    private Path write(List<SchedulerBoardRecord> records) throws Exception {
+        Path target = Files.createTempFile(dir, "archive", ".col");
+        try (ColumnarArchiveWriter writer = new ColumnarArchiveWriter(dir.resolve(target.getFileName() + ".tmp"), target)) {
+            for (SchedulerBoardRecord record : records) {
+                writer.append(record);
+            }
+            writer.commit();
+            assertThat(writer.rows()).isEqualTo(records.size());
+        }
+        return target;
+    }
+}
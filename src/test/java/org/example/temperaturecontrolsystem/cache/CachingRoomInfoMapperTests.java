@@ -0,0 +1,88 @@
+package org.example.temperaturecontrolsystem.cache;
+
+import org.example.temperaturecontrolsystem.entity.RoomInfo;
+import org.example.temperaturecontrolsystem.support.TestRooms;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 事务中的写入立即对本事务可见，回滚后缓存回到已提交的值；批量更新逐个房间应用到缓存。
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class CachingRoomInfoMapperTests {
+
+    private static final int ROOM = 44_001;
+    private static final int OTHER_ROOM = 44_002;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private CachingRoomInfoMapper cachingRoomInfoMapper;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private TestRooms rooms;
+
+    @BeforeEach
+    void seed() {
+        rooms = new TestRooms(jdbcTemplate, cachingRoomInfoMapper);
+        rooms.insert(ROOM, 2, roomId -> true);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        rooms.delete(ROOM, 2);
+    }
+
+    @Test
+    void readsItsOwnWritesInsideTheTransaction() {
+        transactionTemplate.executeWithoutResult(status -> {
+            cachingRoomInfoMapper.updateSpeed(ROOM, "high");
+            assertThat(cachingRoomInfoMapper.findById(ROOM).orElseThrow().getCurrentSpeed()).isEqualTo("high");
+        });
+        assertThat(cachingRoomInfoMapper.findById(ROOM).orElseThrow().getCurrentSpeed()).isEqualTo("high");
+        assertThat(speedInDatabase(ROOM)).isEqualTo("high");
+    }
+
+    @Test
+    void rollbackEvictsTheUncommittedValue() {
+        transactionTemplate.executeWithoutResult(status -> {
+            cachingRoomInfoMapper.updateSpeed(ROOM, "high");
+            cachingRoomInfoMapper.updateTargetTemperature(ROOM, 18.0);
+            status.setRollbackOnly();
+        });
+
+        RoomInfo room = cachingRoomInfoMapper.findById(ROOM).orElseThrow();
+        assertThat(room.getCurrentSpeed()).isEqualTo("medium");
+        assertThat(room.getTargetTempera()).isEqualTo(25.0);
+    }
+
+    @Test
+    void bulkUpdatesApplyToEveryRoom() {
+        List<Integer> rooms = List.of(ROOM, OTHER_ROOM);
+        assertThat(cachingRoomInfoMapper.updateSpeeds(rooms, "low")).isEqualTo(2);
+        assertThat(cachingRoomInfoMapper.updateTargetTemperatures(rooms, 21.0)).isEqualTo(2);
+
+        for (int roomId : rooms) {
+            RoomInfo room = cachingRoomInfoMapper.findById(roomId).orElseThrow();
+            assertThat(room.getCurrentSpeed()).isEqualTo("low");
+            assertThat(room.getTargetTempera()).isEqualTo(21.0);
+            assertThat(speedInDatabase(roomId)).isEqualTo("low");
+        }
+    }
+
+    private String speedInDatabase(int roomId) {
+        return jdbcTemplate.queryForObject("SELECT current_speed FROM room_infos WHERE room_id = ?", String.class, roomId);
+    }
+}
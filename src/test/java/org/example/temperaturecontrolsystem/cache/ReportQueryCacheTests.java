@@ -0,0 +1,96 @@
+package org.example.temperaturecontrolsystem.cache;
+
+import org.example.temperaturecontrolsystem.entity.SchedulerBoardRecord;
+import org.example.temperaturecontrolsystem.event.BillingSettledEvent;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 结算只淘汰受影响的条目，与失效并发的查询不回填，缓存按记录总数限制大小。
+ */
+class ReportQueryCacheTests {
+
+    private static final LocalDateTime JANUARY = LocalDateTime.of(2026, 1, 1, 0, 0);
+    private static final LocalDateTime FEBRUARY = JANUARY.plusMonths(1);
+    private static final LocalDateTime MARCH = FEBRUARY.plusMonths(1);
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void settlementEvictsOnlyTheRoomAndCoveringRanges() {
+        ReportQueryCache cache = new ReportQueryCache(256, 200_000, 20_000);
+        List<ReportQueryCache.Key> keys = List.of(
+                ReportQueryCache.Key.room(1),
+                ReportQueryCache.Key.room(2),
+                ReportQueryCache.Key.range(JANUARY, FEBRUARY),
+                ReportQueryCache.Key.range(FEBRUARY, MARCH),
+                ReportQueryCache.Key.range(JANUARY, MARCH));
+        keys.forEach(key -> cache.get(key, loader(1)));
+        assertThat(loads).hasValue(keys.size());
+
+        cache.onBillingSettled(new BillingSettledEvent(new SchedulerBoardRecord(1, JANUARY.plusDays(14),
+                JANUARY.plusDays(14).plusMinutes(10), 600L, 2, new BigDecimal("5.00"))));
+
+        loads.set(0);
+        keys.forEach(key -> cache.get(key, loader(1)));
+        // 房间 1、一月、一至三月重新加载；房间 2 和二月继续命中
+        assertThat(loads).hasValue(3);
+        assertThat(cache.stats().get("invalidations")).isEqualTo(3L);
+    }
+
+    @Test
+    void loadRacingAnInvalidationIsNotCached() {
+        ReportQueryCache cache = new ReportQueryCache(256, 200_000, 20_000);
+        ReportQueryCache.Key key = ReportQueryCache.Key.room(1);
+
+        cache.get(key, () -> {
+            // 查询已经读完数据，结算在回填之前发生
+            List<SchedulerBoardRecord> stale = loader(1).get();
+            cache.invalidate(1, JANUARY, JANUARY);
+            return stale;
+        });
+        cache.get(key, loader(1));
+        assertThat(loads).hasValue(2);
+
+        cache.get(key, loader(1));
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void boundedByTotalRecords() {
+        ReportQueryCache cache = new ReportQueryCache(256, 5, 4);
+        cache.get(ReportQueryCache.Key.room(1), loader(3));
+        cache.get(ReportQueryCache.Key.room(2), loader(2));
+        assertThat(cache.stats()).containsEntry("size", 2).containsEntry("records", 5L);
+
+        // 再放 3 条，超过 5 条的上限，淘汰最久未用的房间 1
+        cache.get(ReportQueryCache.Key.room(3), loader(3));
+        assertThat(cache.stats()).containsEntry("size", 2).containsEntry("records", 5L).containsEntry("evictions", 1L);
+
+        // 超过单条目上限的结果不进缓存
+        cache.get(ReportQueryCache.Key.range(JANUARY, MARCH), loader(5));
+        cache.get(ReportQueryCache.Key.range(JANUARY, MARCH), loader(5));
+        assertThat(cache.stats()).containsEntry("size", 2).containsEntry("records", 5L).containsEntry("oversized", 2L);
+
+        cache.invalidate(3, JANUARY, JANUARY);
+        assertThat(cache.stats()).containsEntry("size", 1).containsEntry("records", 2L);
+        cache.clear();
+        assertThat(cache.stats()).containsEntry("size", 0).containsEntry("records", 0L);
+    }
+
+    private Supplier<List<SchedulerBoardRecord>> loader(int records) {
+        return () -> {
+            loads.incrementAndGet();
+            return new ArrayList<>(Collections.nCopies(records, new SchedulerBoardRecord()));
+        };
+    }
+}
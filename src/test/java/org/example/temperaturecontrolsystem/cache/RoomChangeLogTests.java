@@ -0,0 +1,63 @@
+package org.example.temperaturecontrolsystem.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 增量轮询在日志截断和服务重启之后要求全量重同步，而不是返回一段不完整的增量。
+ */
+class RoomChangeLogTests {
+
+    @Test
+    void deltaWithinRetention() {
+        RoomChangeLog log = new RoomChangeLog(10, 1_000);
+        assertThat(log.since(0).fullResync()).isTrue();
+
+        long version = log.append(1);
+        log.append(2);
+        log.append(1);
+
+        RoomChangeLog.Delta delta = log.since(version);
+        assertThat(delta.fullResync()).isFalse();
+        assertThat(delta.roomIds()).containsExactlyInAnyOrder(1, 2);
+        assertThat(delta.snapshotVersion()).isEqualTo(log.currentVersion());
+        assertThat(log.since(log.currentVersion()).roomIds()).isEmpty();
+    }
+
+    @Test
+    void truncatedVersionForcesFullResync() {
+        RoomChangeLog log = new RoomChangeLog(3, 1_000);
+        long first = log.append(1);
+        long second = log.append(2);
+        log.append(3);
+        log.append(4);
+        log.append(5);
+
+        // 只保留 3、4、5：first 之后的 2 已经被挤出
+        assertThat(log.since(first).fullResync()).isTrue();
+        assertThat(log.since(second).fullResync()).isFalse();
+        assertThat(log.since(second).roomIds()).containsExactlyInAnyOrder(3, 4, 5);
+    }
+
+    @Test
+    void versionFromBeforeRestartForcesFullResync() {
+        RoomChangeLog beforeRestart = new RoomChangeLog(10_000, 1_000_000);
+        for (int i = 0; i < 500; i++) {
+            beforeRestart.append(i);
+        }
+        long token = beforeRestart.currentVersion();
+
+        // 重启后已经发生了比重启前更多的变化，旧的版本号仍然不能当作增量的起点
+        RoomChangeLog afterRestart = new RoomChangeLog(10_000, 2_000_000);
+        for (int i = 0; i < 600; i++) {
+            afterRestart.append(i);
+        }
+        RoomChangeLog.Delta delta = afterRestart.since(token);
+        assertThat(delta.fullResync()).isTrue();
+        assertThat(delta.snapshotVersion()).isEqualTo(afterRestart.currentVersion());
+
+        // 版本号比当前还新（例如时钟回拨后重启）同样要求全量重同步
+        assertThat(new RoomChangeLog(10_000, 500_000).since(token).fullResync()).isTrue();
+    }
+}
@@ -0,0 +1,138 @@
+package org.example.temperaturecontrolsystem.cache;
+
+import org.example.temperaturecontrolsystem.entity.RoomInfo;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 房间缓存的两种一致性模式、加载与写入并发时的回填，以及重新加载前把未落库的值写回数据库。
+ */
+class RoomInfoCacheTests {
+
+    private final Map<Integer, RoomInfo> database = new TreeMap<>();
+    private final List<String> calls = new ArrayList<>();
+
+    RoomInfoCacheTests() {
+        database.put(101, room(101, 25.0));
+        database.put(102, room(102, 26.0));
+    }
+
+    @Test
+    void writeThroughReadsItsOwnWrites() {
+        RoomInfoCache cache = new RoomInfoCache("write-through", 0);
+        cache.warm(rooms());
+
+        database.get(101).setCurrentSpeed("high");
+        cache.applyWrite(101, room -> room.setCurrentSpeed("high"));
+
+        assertThat(cache.get(101, this::failingLoader).orElseThrow().getCurrentSpeed()).isEqualTo("high");
+        assertThat(cache.getAll(this::failingListLoader)).extracting(RoomInfo::getRoomId).containsExactly(101, 102);
+    }
+
+    @Test
+    void invalidateModeReloadsAfterAWrite() {
+        RoomInfoCache cache = new RoomInfoCache("invalidate", 0);
+        cache.warm(rooms());
+
+        database.get(101).setCurrentSpeed("high");
+        cache.applyWrite(101, room -> room.setCurrentSpeed("high"));
+
+        assertThat(cache.get(101, () -> load(101)).orElseThrow().getCurrentSpeed()).isEqualTo("high");
+        assertThat(calls).containsExactly("load 101");
+        assertThat(cache.get(101, this::failingLoader).orElseThrow().getCurrentSpeed()).isEqualTo("high");
+    }
+
+    @Test
+    void loadRacingAWriteDoesNotOverwriteIt() {
+        RoomInfoCache cache = new RoomInfoCache("write-through", 0);
+
+        // 加载读到了旧值，返回之前另一个线程入住并把新值放进了缓存
+        Optional<RoomInfo> loaded = cache.get(101, () -> {
+            Optional<RoomInfo> stale = load(101);
+            RoomInfo checkedIn = room(101, 25.0);
+            checkedIn.setClientName("newer");
+            cache.put(checkedIn);
+            return stale;
+        });
+
+        assertThat(loaded.orElseThrow().getClientName()).isNull();
+        assertThat(cache.get(101, this::failingLoader).orElseThrow().getClientName()).isEqualTo("newer");
+    }
+
+    @Test
+    void staleReloadPersistsUnpersistedValuesFirst() throws Exception {
+        RoomInfoCache cache = new RoomInfoCache("write-through", 1);
+        cache.setUnpersistedWriter(roomId -> {
+            calls.add("persist " + roomId);
+            database.get(roomId).setCurrentTempera(23.5);
+        });
+        cache.warm(rooms());
+        cache.applyUnpersisted(101, room -> room.setCurrentTempera(23.5));
+        assertThat(cache.get(101, this::failingLoader).orElseThrow().getCurrentTempera()).isEqualTo(23.5);
+
+        Thread.sleep(1_100);
+        assertThat(cache.get(101, () -> load(101)).orElseThrow().getCurrentTempera()).isEqualTo(23.5);
+        assertThat(calls).containsExactly("persist 101", "load 101");
+
+        // 重新加载之后条目已经落库，不会再写一次
+        calls.clear();
+        cache.invalidate(101);
+        assertThat(calls).isEmpty();
+    }
+
+    @Test
+    void invalidateAndFullReloadPersistUnpersistedValues() {
+        RoomInfoCache cache = new RoomInfoCache("write-through", 0);
+        cache.setUnpersistedWriter(roomId -> calls.add("persist " + roomId));
+        cache.warm(rooms());
+        cache.applyUnpersisted(101, room -> room.setCurrentTempera(20.0));
+        cache.applyUnpersisted(102, room -> room.setCurrentTempera(20.0));
+
+        cache.invalidate(102);
+        assertThat(calls).containsExactly("persist 102");
+
+        // 缺了一条，全表查询走数据库，加载之前先落库剩下的 101
+        cache.getAll(this::load);
+        assertThat(calls).containsExactly("persist 102", "persist 101", "load all");
+    }
+
+    private Optional<RoomInfo> load(int roomId) {
+        calls.add("load " + roomId);
+        return Optional.ofNullable(database.get(roomId)).map(RoomInfoCache::copy);
+    }
+
+    private List<RoomInfo> load() {
+        calls.add("load all");
+        return rooms();
+    }
+
+    private List<RoomInfo> rooms() {
+        return database.values().stream().map(RoomInfoCache::copy).toList();
+    }
+
+    private Optional<RoomInfo> failingLoader() {
+        throw new AssertionError("should be served from the cache");
+    }
+
+    private List<RoomInfo> failingListLoader() {
+        throw new AssertionError("should be served from the cache");
+    }
+
+    private static RoomInfo room(int roomId, double temperature) {
+        RoomInfo room = new RoomInfo();
+        room.setRoomId(roomId);
+        room.setState(1);
+        room.setAcState(0);
+        room.setCurrentSpeed("medium");
+        room.setCurrentTempera(temperature);
+        room.setTargetTempera(25.0);
+        return room;
+    }
+}
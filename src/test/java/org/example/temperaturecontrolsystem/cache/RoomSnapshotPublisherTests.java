@@ -0,0 +1,85 @@
+package org.example.temperaturecontrolsystem.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.temperaturecontrolsystem.entity.RoomInfo;
+import org.example.temperaturecontrolsystem.mapper.RoomInfoMapper;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 房间快照的 ETag 只在快照里的字段变化时改变，并且能发现过期重新加载读到的库内变化。
+ */
+class RoomSnapshotPublisherTests {
+
+    private final Map<Integer, RoomInfo> database = new TreeMap<>();
+    private final RoomInfoCache cache = new RoomInfoCache("write-through", 1);
+    private final RoomSnapshotPublisher publisher = new RoomSnapshotPublisher(mapper(), cache, new ObjectMapper(), 1024);
+
+    RoomSnapshotPublisherTests() {
+        database.put(101, room(101, 25.0));
+        database.put(102, room(102, 26.0));
+    }
+
+    @Test
+    void readingsThatDoNotChangeTheSnapshotKeepTheEtag() {
+        String etag = publisher.current().etag();
+
+        cache.applyUnpersisted(101, room -> room.setCurrentTempera(25.0));
+        cache.applyWrite(102, room -> room.setAcState(0));
+        assertThat(publisher.current().etag()).isEqualTo(etag);
+
+        cache.applyUnpersisted(101, room -> room.setCurrentTempera(24.5));
+        RoomSnapshotPublisher.Snapshot changed = publisher.current();
+        assertThat(changed.etag()).isNotEqualTo(etag);
+        assertThat(new String(changed.json(), StandardCharsets.UTF_8)).contains("24.5");
+    }
+
+    @Test
+    void staleReloadWithDifferentValuesChangesTheEtag() throws Exception {
+        String etag = publisher.current().etag();
+
+        // 绕过本进程直接改库：过期之前仍是旧快照
+        database.get(102).setTargetTempera(18.0);
+        assertThat(publisher.current().etag()).isEqualTo(etag);
+
+        Thread.sleep(1_100);
+        RoomSnapshotPublisher.Snapshot reloaded = publisher.current();
+        assertThat(reloaded.etag()).isNotEqualTo(etag);
+        assertThat(new String(reloaded.json(), StandardCharsets.UTF_8)).contains("18.0");
+
+        // 重新加载读到相同的值不算变化
+        Thread.sleep(1_100);
+        assertThat(publisher.current().etag()).isEqualTo(reloaded.etag());
+    }
+
+    /**
+     * 只实现快照用到的 findAll：经过缓存读取 database 中的副本。
+     */
+    private RoomInfoMapper mapper() {
+        return (RoomInfoMapper) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{RoomInfoMapper.class},
+                (proxy, method, args) -> {
+                    if (!method.getName().equals("findAll")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    return cache.getAll(() -> database.values().stream().map(RoomInfoCache::copy).toList());
+                });
+    }
+
+    private static RoomInfo room(int roomId, double temperature) {
+        RoomInfo room = new RoomInfo();
+        room.setRoomId(roomId);
+        room.setState(1);
+        room.setAcState(0);
+        room.setCurrentSpeed("medium");
+        room.setCurrentTempera(temperature);
+        room.setTargetTempera(25.0);
+        return room;
+    }
+}
@@ -0,0 +1,161 @@
+package org.example.temperaturecontrolsystem.config;
+
+import org.example.temperaturecontrolsystem.cache.ReportQueryCache;
+import org.example.temperaturecontrolsystem.entity.SchedulerBoardRecord;
+import org.example.temperaturecontrolsystem.mapper.SchedulerMapper;
+import org.example.temperaturecontrolsystem.metrics.LatencyHistogram;
+import org.example.temperaturecontrolsystem.service.ReportService;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 两个内存 H2 分别充当主库和只读副本，"复制"由测试直接把数据和心跳写进副本。
+ * 比较报表压在主库上和压在副本上时调度器写入主库的延迟；回退到主库的正确性见 ReplicaRoutingTests。
+ * 主库连接池只有 2 个连接，放大报表查询占用连接池的影响。
+ * mvn test -Pbenchmark -Dtest=ReplicaRoutingBenchmarkTests
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + ReplicaRoutingBenchmarkTests.PRIMARY_URL,
+        "spring.datasource.hikari.maximum-pool-size=2",
+        "replica.datasource.url=" + ReplicaRoutingBenchmarkTests.REPLICA_URL,
+        "replica.datasource.username=sa",
+        "replica.datasource.driver-class-name=org.h2.Driver",
+        "replica.max-lag-seconds=5",
+        "replica.lag.check-interval-millis=600000"
+})
+@ActiveProfiles("test")
+@Tag("benchmark")
+class ReplicaRoutingBenchmarkTests {
+
+    static final String PRIMARY_URL = "jdbc:h2:mem:replica-routing-primary;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_URL = "jdbc:h2:mem:replica-routing-replica;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    private static final LocalDateTime FROM = LocalDateTime.of(2026, 1, 1, 0, 0);
+    private static final LocalDateTime TO = LocalDateTime.of(2026, 2, 1, 0, 0);
+    private static final int ROOMS = 50;
+    private static final int RECORDS_PER_ROOM = 400;
+    private static final int WRITES = 300;
+    private static final int REPORTERS = 4;
+    private static final int WRITER_ROOM = 999;
+
+    @Autowired
+    private JdbcTemplate primary;
+    @Autowired
+    private ReplicaLagMonitor lagMonitor;
+    @Autowired
+    private ReplicaRouter router;
+    @Autowired
+    private ReportService reportService;
+    @Autowired
+    private ReportQueryCache reportQueryCache;
+    @Autowired
+    private SchedulerMapper schedulerMapper;
+
+    private final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+    @BeforeEach
+    void seed() {
+        Flyway.configure()
+                .dataSource(replica.getDataSource())
+                .locations("classpath:db/migration/h2")
+                .load()
+                .migrate();
+        List<Object[]> rows = new ArrayList<>();
+        for (int room = 0; room < ROOMS; room++) {
+            for (int i = 0; i < RECORDS_PER_ROOM; i++) {
+                LocalDateTime start = FROM.plusMinutes((long) i * 100 + room);
+                rows.add(new Object[]{room + 1, start, start.plusMinutes(5), 300L, 1 + i % 3, new BigDecimal("2.5")});
+            }
+        }
+        String insert = "INSERT INTO scheduler_board (room_id, start_time, end_time, duration_seconds, speed, cost) VALUES (?, ?, ?, ?, ?, ?)";
+        primary.batchUpdate(insert, rows);
+        replica.batchUpdate(insert, rows);
+        reportQueryCache.clear();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        primary.update("DELETE FROM scheduler_board");
+        replica.update("DELETE FROM scheduler_board");
+        reportQueryCache.clear();
+    }
+
+    @Test
+    void reportsOnReplicaKeepPrimaryWritesFast() throws Exception {
+        replica.update("UPDATE replica_heartbeat SET beat_millis = ? WHERE id = 1", System.currentTimeMillis() - 60_000);
+        lagMonitor.checkNow();
+        Map<String, Object> onPrimary = writeLatencyUnderReportLoad();
+
+        replicateHeartbeat();
+        lagMonitor.checkNow();
+        long replicaReadsBefore = (Long) router.stats().get("replicaReads");
+        Map<String, Object> onReplica = writeLatencyUnderReportLoad();
+        long replicaReads = (Long) router.stats().get("replicaReads") - replicaReadsBefore;
+
+        System.out.printf("[benchmark] %d billing inserts while %d threads run usage summaries over %d rows (primary pool of 2): " +
+                        "reports on primary %s, reports on replica %s (%d replica reads)%n",
+                WRITES, REPORTERS, ROOMS * RECORDS_PER_ROOM, onPrimary, onReplica, replicaReads);
+        assertThat(replicaReads).isPositive();
+        assertThat((Long) onReplica.get("meanMicros")).isLessThan((Long) onPrimary.get("meanMicros"));
+    }
+
+    private Map<String, Object> writeLatencyUnderReportLoad() throws Exception {
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService reporters = Executors.newFixedThreadPool(REPORTERS);
+        LatencyHistogram latency = new LatencyHistogram();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < REPORTERS; i++) {
+                futures.add(reporters.submit(() -> {
+                    while (running.get()) {
+                        reportService.getUsageSummary(FROM, TO);
+                    }
+                    return null;
+                }));
+            }
+            Thread.sleep(200);
+            for (int i = 0; i < WRITES; i++) {
+                LocalDateTime start = TO.plusMinutes(i);
+                long t0 = System.nanoTime();
+                schedulerMapper.insertRecord(new SchedulerBoardRecord(WRITER_ROOM, start, start.plusMinutes(1), 60L, 2, BigDecimal.ONE));
+                latency.recordNanos(System.nanoTime() - t0);
+            }
+            running.set(false);
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            running.set(false);
+            reporters.shutdownNow();
+        }
+        return latency.snapshot();
+    }
+
+    /**
+     * 副本追上主库：心跳是刚刚写入的。
+     */
+    private void replicateHeartbeat() {
+        replica.update("UPDATE replica_heartbeat SET beat_millis = ? WHERE id = 1", System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,123 @@
+package org.example.temperaturecontrolsystem.config;
+
+import org.example.temperaturecontrolsystem.cache.ReportQueryCache;
+import org.example.temperaturecontrolsystem.service.ReportService;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 两个内存 H2 分别充当主库和只读副本，"复制"由测试直接把数据和心跳写进副本。
+ * 副本延迟超限或查询出错时，报表读回退到主库。
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + ReplicaRoutingTests.PRIMARY_URL,
+        "replica.datasource.url=" + ReplicaRoutingTests.REPLICA_URL,
+        "replica.datasource.username=sa",
+        "replica.datasource.driver-class-name=org.h2.Driver",
+        "replica.max-lag-seconds=5",
+        "replica.lag.check-interval-millis=600000"
+})
+@ActiveProfiles("test")
+class ReplicaRoutingTests {
+
+    static final String PRIMARY_URL = "jdbc:h2:mem:replica-routing-tests-primary;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_URL = "jdbc:h2:mem:replica-routing-tests-replica;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    private static final LocalDateTime FROM = LocalDateTime.of(2026, 1, 1, 0, 0);
+    private static final LocalDateTime TO = LocalDateTime.of(2026, 2, 1, 0, 0);
+    private static final int ROOMS = 5;
+    private static final int RECORDS_PER_ROOM = 20;
+
+    @Autowired
+    private JdbcTemplate primary;
+    @Autowired
+    private ReplicaLagMonitor lagMonitor;
+    @Autowired
+    private ReplicaRouter router;
+    @Autowired
+    private ReportService reportService;
+    @Autowired
+    private ReportQueryCache reportQueryCache;
+
+    private final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+    @BeforeEach
+    void seed() {
+        Flyway.configure()
+                .dataSource(replica.getDataSource())
+                .locations("classpath:db/migration/h2")
+                .load()
+                .migrate();
+        List<Object[]> rows = new ArrayList<>();
+        for (int room = 0; room < ROOMS; room++) {
+            for (int i = 0; i < RECORDS_PER_ROOM; i++) {
+                LocalDateTime start = FROM.plusMinutes((long) i * 100 + room);
+                rows.add(new Object[]{room + 1, start, start.plusMinutes(5), 300L, 1 + i % 3, new BigDecimal("2.5")});
+            }
+        }
+        String insert = "INSERT INTO scheduler_board (room_id, start_time, end_time, duration_seconds, speed, cost) VALUES (?, ?, ?, ?, ?, ?)";
+        primary.batchUpdate(insert, rows);
+        replica.batchUpdate(insert, rows);
+        reportQueryCache.clear();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        primary.update("DELETE FROM scheduler_board");
+        replica.update("DELETE FROM scheduler_board");
+        reportQueryCache.clear();
+    }
+
+    @Test
+    void readsFollowReplicaHealth() {
+        // 只在主库上的一条新记录：读到它说明走的是主库
+        primary.update("INSERT INTO scheduler_board (room_id, start_time, end_time, duration_seconds, speed, cost) " +
+                "VALUES (1, ?, ?, 60, 1, 1)", FROM.plusDays(1), FROM.plusDays(1).plusMinutes(1));
+        int total = ROOMS * RECORDS_PER_ROOM;
+
+        replicateHeartbeat();
+        lagMonitor.checkNow();
+        assertThat(router.isReplicaUsable()).isTrue();
+        assertThat(reportService.getRecordsInTimeRange(FROM, TO)).hasSize(total);
+
+        replica.update("UPDATE replica_heartbeat SET beat_millis = ? WHERE id = 1", System.currentTimeMillis() - 60_000);
+        lagMonitor.checkNow();
+        assertThat(router.isReplicaUsable()).isFalse();
+        reportQueryCache.clear();
+        assertThat(reportService.getRecordsInTimeRange(FROM, TO)).hasSize(total + 1);
+
+        // 副本上的查询出错：本次在主库上重试，副本标记为不可用直到下一次探测成功
+        replicateHeartbeat();
+        lagMonitor.checkNow();
+        replica.execute("ALTER TABLE scheduler_board RENAME TO scheduler_board_offline");
+        try {
+            reportQueryCache.clear();
+            assertThat(reportService.getRecordsInTimeRange(FROM, TO)).hasSize(total + 1);
+            assertThat(router.isReplicaUsable()).isFalse();
+        } finally {
+            replica.execute("ALTER TABLE scheduler_board_offline RENAME TO scheduler_board");
+        }
+        assertThat(router.stats()).containsEntry("replicaFailures", 1L);
+    }
+
+    /**
+     * 副本追上主库：心跳是刚刚写入的。
+     */
+    private void replicateHeartbeat() {
+        replica.update("UPDATE replica_heartbeat SET beat_millis = ? WHERE id = 1", System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,57 @@
+package org.example.temperaturecontrolsystem.controller;
+
+import org.example.temperaturecontrolsystem.cache.CachingRoomInfoMapper;
+import org.example.temperaturecontrolsystem.dto.SetSpeedRequest;
+import org.example.temperaturecontrolsystem.support.TestRooms;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * until 参数不合法时直接拒绝，指令不会被执行，客户端重试也不会重复发送。
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class AirConditionerControllerTests {
+
+    private static final int ROOM = 43_002;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private CachingRoomInfoMapper cachingRoomInfoMapper;
+    @Autowired
+    private AirConditionerController airConditionerController;
+
+    private TestRooms rooms;
+
+    @BeforeEach
+    void seed() {
+        rooms = new TestRooms(jdbcTemplate, cachingRoomInfoMapper);
+        rooms.insert(ROOM, true);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        rooms.delete(ROOM, 1);
+    }
+
+    @Test
+    void invalidUntilIsRejectedBeforeTheCommandRuns() {
+        assertThat(airConditionerController.turnOn(ROOM, true, "foo", 1_000).getStatusCode().value()).isEqualTo(400);
+        SetSpeedRequest request = new SetSpeedRequest();
+        request.setSpeed("high");
+        assertThat(airConditionerController.setSpeed(ROOM, request, true, "foo", 1_000).getStatusCode().value()).isEqualTo(400);
+
+        assertThat(jdbcTemplate.queryForObject("SELECT ac_state FROM room_infos WHERE room_id = ?", Integer.class, ROOM)).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT current_speed FROM room_infos WHERE room_id = ?", String.class, ROOM))
+                .isEqualTo("medium");
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM op_records WHERE room_id = ?", Integer.class, ROOM)).isZero();
+    }
+}
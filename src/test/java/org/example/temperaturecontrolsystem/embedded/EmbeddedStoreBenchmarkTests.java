@@ -0,0 +1,138 @@
+package org.example.temperaturecontrolsystem.embedded;
+
+import org.example.temperaturecontrolsystem.TemperatureControlSystemApplication;
+import org.example.temperaturecontrolsystem.cache.CachingRoomInfoMapper;
+import org.example.temperaturecontrolsystem.dto.CheckInRequest;
+import org.example.temperaturecontrolsystem.dto.CheckOutRequest;
+import org.example.temperaturecontrolsystem.metrics.LatencyHistogram;
+import org.example.temperaturecontrolsystem.service.AirConditionerService;
+import org.example.temperaturecontrolsystem.service.CheckInOutService;
+import org.example.temperaturecontrolsystem.service.RoomStateService;
+import org.example.temperaturecontrolsystem.support.StatementCounter;
+import org.example.temperaturecontrolsystem.support.TestRooms;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 同一组服务调用在 embedded profile 与 MyBatis / JDBC 路径上的延迟；崩溃恢复的正确性见 EmbeddedStoreTests。
+ * 沙箱里连不到 MySQL，JDBC 路径用 H2，每条语句额外睡眠 SIMULATED_RTT_MILLIS 模拟一次网络往返；
+ * embedded 路径每次提交都等待日志 fsync。
+ * mvn test -Pbenchmark -Dtest=EmbeddedStoreBenchmarkTests
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Tag("benchmark")
+@Import(StatementCounter.Config.class)
+class EmbeddedStoreBenchmarkTests {
+
+    private static final int FIRST_ROOM = 70_000;
+    private static final int ROOMS = 100;
+    private static final int COMMANDS_PER_ROOM = 4;
+    private static final long SIMULATED_RTT_MILLIS = 1;
+
+    @TempDir
+    Path dir;
+
+    @Autowired
+    private ApplicationContext jdbcContext;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private CachingRoomInfoMapper cachingRoomInfoMapper;
+
+    @AfterEach
+    void cleanUp() {
+        StatementCounter.reset();
+        new TestRooms(jdbcTemplate, cachingRoomInfoMapper).delete(FIRST_ROOM, ROOMS);
+    }
+
+    @Test
+    void requestLatencyAgainstJdbcPath() {
+        StatementCounter.simulateRoundTrips(SIMULATED_RTT_MILLIS);
+        StatementCounter.getAndReset();
+        Map<String, Object> jdbc = runWorkload(jdbcContext);
+        int jdbcStatements = StatementCounter.getAndReset();
+        StatementCounter.simulateRoundTrips(0);
+
+        Map<String, Object> embedded;
+        Map<String, Object> storeStats;
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(TemperatureControlSystemApplication.class)
+                .profiles("embedded")
+                .web(WebApplicationType.NONE)
+                .properties("embedded.dir=" + dir.resolve("store"),
+                        "embedded.snapshot.interval-seconds=0",
+                        "room.temperature.buffer.enabled=false",
+                        "scheduler.compaction.enabled=false",
+                        "archive.dir=target/test-archive",
+                        "timeseries.dir=" + dir.resolve("timeseries"))
+                .run()) {
+            embedded = runWorkload(context);
+            storeStats = context.getBean(EmbeddedStore.class).stats();
+        }
+
+        System.out.printf("[benchmark] %d rooms x (check-in, %d target-temperature commands, status, check-out): " +
+                        "MyBatis/H2 with %dms simulated RTT %s (%d statements), embedded store with journal fsync %s; store %s%n",
+                ROOMS, COMMANDS_PER_ROOM, SIMULATED_RTT_MILLIS, jdbc, jdbcStatements, embedded, storeStats);
+        assertThat((Long) embedded.get("p50Micros")).isLessThan((Long) jdbc.get("p50Micros"));
+        assertThat(storeStats).containsEntry("rooms", ROOMS);
+    }
+
+    /**
+     * 逐个房间：入住、改目标温度若干次、查询状态、退房，每个服务调用计一次延迟。
+     */
+    private static Map<String, Object> runWorkload(ApplicationContext context) {
+        CheckInOutService checkInOut = context.getBean(CheckInOutService.class);
+        AirConditionerService airConditioner = context.getBean(AirConditionerService.class);
+        RoomStateService roomState = context.getBean(RoomStateService.class);
+        LatencyHistogram latency = new LatencyHistogram();
+        for (int i = 0; i < ROOMS; i++) {
+            int roomId = FIRST_ROOM + i;
+            CheckInRequest checkIn = new CheckInRequest();
+            checkIn.setRoomNumber(roomId);
+            checkIn.setClientName("bench");
+            checkIn.setClientID("bench-" + i);
+            timed(latency, () -> {
+                checkInOut.checkIn(checkIn);
+                return null;
+            });
+            for (int c = 0; c < COMMANDS_PER_ROOM; c++) {
+                double target = 20.0 + c % 2;
+                timed(latency, () -> {
+                    airConditioner.setTemperature(roomId, target);
+                    return null;
+                });
+            }
+            timed(latency, () -> roomState.getRoomStatus(roomId));
+            CheckOutRequest checkOut = new CheckOutRequest();
+            checkOut.setRoomNumber(roomId);
+            timed(latency, () -> {
+                checkInOut.checkOut(checkOut);
+                return null;
+            });
+        }
+        return latency.snapshot();
+    }
+
+    private static void timed(LatencyHistogram latency, Supplier<?> call) {
+        long start = System.nanoTime();
+        call.get();
+        latency.recordNanos(System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,123 @@
+package org.example.temperaturecontrolsystem.embedded;
+
+import org.example.temperaturecontrolsystem.entity.RoomInfo;
+import org.example.temperaturecontrolsystem.entity.SchedulerBoardRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 进程内存储引擎的崩溃恢复：快照 + 日志重放，日志末尾写了一半的行被丢弃，回滚的事务既不进日志也不进快照。
+ */
+class EmbeddedStoreTests {
+
+    private static final int ROOM = 101;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void recoversFromSnapshotAndJournal() throws Exception {
+        EmbeddedStore store = new EmbeddedStore(dir.toString(), true, 0, "desk:pw:front-desk");
+        EmbeddedRoomInfoMapper rooms = new EmbeddedRoomInfoMapper(store);
+        EmbeddedSchedulerMapper board = new EmbeddedSchedulerMapper(store);
+        TransactionTemplate transactions = new TransactionTemplate(new EmbeddedTransactionManager(store));
+        LocalDateTime t0 = LocalDateTime.of(2026, 1, 1, 12, 0);
+
+        RoomInfo room = new RoomInfo();
+        room.setRoomId(ROOM);
+        room.setClientName("guest");
+        room.setCheckinTime(t0);
+        rooms.insertForCheckIn(room);
+        for (int i = 0; i < 3; i++) {
+            board.insertRecord(new SchedulerBoardRecord(ROOM, t0.plusMinutes(i), t0.plusMinutes(i + 1), 60L, 2, BigDecimal.ONE));
+        }
+        store.snapshot();
+
+        // 快照之后：只在日志里
+        assertThat(rooms.turnAcOnLogged(ROOM, t0)).isNotNull();
+        rooms.updateTargetTemperature(ROOM, 20.0);
+        board.deleteByIds(List.of(1L));
+        transactions.executeWithoutResult(status -> {
+            board.insertRecord(new SchedulerBoardRecord(ROOM, t0.plusHours(1), t0.plusHours(2), 3600L, 3, BigDecimal.TEN));
+            rooms.updateSpeed(ROOM, "high");
+            status.setRollbackOnly();
+        });
+        // 模拟崩溃：不关闭（关闭会写快照），并在日志末尾留下写了一半的一行
+        Files.writeString(dir.resolve("journal.log"), "{\"type\":\"room\",\"ro", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        EmbeddedStore recovered = new EmbeddedStore(dir.toString(), true, 0, "");
+        try {
+            RoomInfo restored = new EmbeddedRoomInfoMapper(recovered).findById(ROOM).orElseThrow();
+            EmbeddedSchedulerMapper restoredBoard = new EmbeddedSchedulerMapper(recovered);
+            assertThat(restored.getAcState()).isEqualTo(1);
+            assertThat(restored.getTargetTempera()).isEqualTo(20.0);
+            assertThat(restored.getCurrentSpeed()).isEqualTo("medium");
+            assertThat(restoredBoard.findAllRecordsByRoomId(ROOM)).hasSize(2);
+            assertThat(restoredBoard.getTotalCostByRoomIdSince(ROOM, t0)).contains(new BigDecimal("2"));
+            assertThat(recovered.stats()).containsEntry("opRecords", 1).containsEntry("users", 1);
+            assertThat(new EmbeddedUserMapper(recovered).findByAccount("desk")).isPresent();
+        } finally {
+            recovered.close();
+        }
+    }
+
+    @Test
+    void snapshotWaitsForOpenTransactions() throws Exception {
+        EmbeddedStore store = new EmbeddedStore(dir.toString(), true, 0, "");
+        EmbeddedSchedulerMapper board = new EmbeddedSchedulerMapper(store);
+        TransactionTemplate transactions = new TransactionTemplate(new EmbeddedTransactionManager(store));
+        LocalDateTime t0 = LocalDateTime.of(2026, 1, 1, 12, 0);
+        CountDownLatch written = new CountDownLatch(1);
+        CountDownLatch rollBack = new CountDownLatch(1);
+
+        CompletableFuture<Void> transaction = CompletableFuture.runAsync(() -> transactions.executeWithoutResult(status -> {
+            board.insertRecord(new SchedulerBoardRecord(ROOM, t0, t0.plusHours(1), 3600L, 3, BigDecimal.TEN));
+            written.countDown();
+            try {
+                rollBack.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            status.setRollbackOnly();
+        }));
+        written.await();
+        CompletableFuture<Void> snapshot = CompletableFuture.runAsync(() -> {
+            try {
+                store.snapshot();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        Thread.sleep(200);
+        assertThat(snapshot).isNotDone();
+
+        rollBack.countDown();
+        transaction.get(5, TimeUnit.SECONDS);
+        snapshot.get(5, TimeUnit.SECONDS);
+
+        // 模拟崩溃：快照与日志里都没有回滚掉的记录
+        EmbeddedStore recovered = new EmbeddedStore(dir.toString(), true, 0, "");
+        try {
+            assertThat(new EmbeddedSchedulerMapper(recovered).findAllRecordsByRoomId(ROOM)).isEmpty();
+        } finally {
+            recovered.close();
+            store.close();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package org.example.temperaturecontrolsystem.ingest;
+
+import org.example.temperaturecontrolsystem.cache.CachingRoomInfoMapper;
+import org.example.temperaturecontrolsystem.support.TestRooms;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 本地 UDP 压测：按突发方式发送报文，统计监听器的处理速率和入库延迟分位数；
+ * 重放丢弃和序号重置见 UdpTemperatureListenerTests。
+ * mvn test -Pbenchmark -Dtest=UdpTemperatureListenerBenchmarkTests
+ */
+@SpringBootTest(properties = {
+        "udp.ingest.enabled=true",
+        "udp.ingest.port=0",
+        "room.temperature.buffer.enabled=true"
+})
+@ActiveProfiles("test")
+@Tag("benchmark")
+class UdpTemperatureListenerBenchmarkTests {
+
+    private static final int FIRST_ROOM = 30_000;
+    private static final int ROOMS = 200;
+    private static final int PACKETS = 100_000;
+    private static final int BURST = 100;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private CachingRoomInfoMapper cachingRoomInfoMapper;
+    @Autowired
+    private UdpTemperatureListener listener;
+
+    private TestRooms rooms;
+
+    @BeforeEach
+    void seed() {
+        rooms = new TestRooms(jdbcTemplate, cachingRoomInfoMapper);
+        rooms.insert(FIRST_ROOM, ROOMS, roomId -> false);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        rooms.delete(FIRST_ROOM, ROOMS);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void ingestsBinaryDatagrams() throws Exception {
+        InetSocketAddress target = new InetSocketAddress("127.0.0.1", listener.getLocalPort());
+        ByteBuffer packet = ByteBuffer.allocateDirect(UdpTemperatureListener.DATAGRAM_SIZE);
+        int[] sequence = new int[ROOMS];
+        int replays = 0;
+
+        long start = System.nanoTime();
+        try (DatagramChannel sender = DatagramChannel.open()) {
+            for (int sent = 0; sent < PACKETS; sent++) {
+                int room = sent % ROOMS;
+                send(sender, target, packet, FIRST_ROOM + room, ++sequence[room], 22.0f + (sent % 50) / 10.0f);
+                if (sent % BURST == BURST - 1) {
+                    // 每个突发末尾重放一个旧序号，应被丢弃
+                    send(sender, target, packet, FIRST_ROOM + room, sequence[room] - 1, 99.0f);
+                    replays++;
+                    // 给单核上的接收线程留出处理时间，避免内核缓冲区溢出丢包
+                    Thread.sleep(1);
+                }
+            }
+        }
+
+        // 等到全部收到，或者 500ms 内没有新报文（其余的已被内核丢弃）
+        long expected = PACKETS + replays;
+        long lastCount = -1;
+        long lastProgress = System.nanoTime();
+        while (true) {
+            long count = ((Number) listener.stats().get("received")).longValue();
+            if (count != lastCount) {
+                lastCount = count;
+                lastProgress = System.nanoTime();
+            }
+            if (count >= expected || System.nanoTime() - lastProgress > 500_000_000L) {
+                break;
+            }
+            Thread.sleep(5);
+        }
+        long elapsed = lastProgress - start;
+        awaitQueueDrained();
+
+        Map<String, Object> stats = listener.stats();
+        Map<String, Object> latency = (Map<String, Object>) stats.get("ingestLatency");
+        long received = ((Number) stats.get("received")).longValue();
+        long applied = ((Number) stats.get("applied")).longValue();
+        System.out.printf("[benchmark] sent %d datagrams, received %d, applied %d, out-of-order dropped %s: %.0f packets/s (paced sender), " +
+                        "ingest latency mean %sus p50 %sus p99 %sus p99.9 %sus%n",
+                expected, received, applied, stats.get("outOfOrder"), received / (elapsed / 1e9),
+                latency.get("meanMicros"), latency.get("p50Micros"), latency.get("p99Micros"), latency.get("p999Micros"));
+
+        assertThat(applied).isGreaterThan(PACKETS * 9L / 10);
+        assertThat(((Number) stats.get("rejected")).longValue()).isZero();
+        assertThat(((Number) stats.get("queueOverflow")).longValue()).isZero();
+    }
+
+    private void awaitQueueDrained() throws InterruptedException {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (((Number) listener.stats().get("queued")).intValue() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        // 最后一条出队后还在写入，留出时间
+        Thread.sleep(50);
+    }
+
+    private static void send(DatagramChannel sender, InetSocketAddress target, ByteBuffer packet,
+                             int roomId, int sequence, float temperature) throws Exception {
+        packet.clear();
+        packet.putInt(roomId).putInt(sequence).putFloat(temperature).putLong(System.currentTimeMillis());
+        packet.flip();
+        sender.send(packet, target);
+    }
+}
@@ -0,0 +1,113 @@
+package org.example.temperaturecontrolsystem.ingest;
+
+import org.example.temperaturecontrolsystem.cache.CachingRoomInfoMapper;
+import org.example.temperaturecontrolsystem.support.TestRooms;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 重放的旧序号被丢弃；温控器重启后序号从 1 重新开始，静默超过 sequence-reset-seconds 后被接受。
+ */
+@SpringBootTest(properties = {
+        "udp.ingest.enabled=true",
+        "udp.ingest.port=0",
+        "udp.ingest.sequence-reset-seconds=1",
+        "room.temperature.buffer.enabled=true"
+})
+@ActiveProfiles("test")
+class UdpTemperatureListenerTests {
+
+    private static final int REPLAY_ROOM = 49_101;
+    private static final int RESTART_ROOM = 49_102;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private CachingRoomInfoMapper cachingRoomInfoMapper;
+    @Autowired
+    private UdpTemperatureListener listener;
+
+    private TestRooms rooms;
+    private InetSocketAddress target;
+    private final ByteBuffer packet = ByteBuffer.allocateDirect(UdpTemperatureListener.DATAGRAM_SIZE);
+
+    @BeforeEach
+    void seed() throws Exception {
+        rooms = new TestRooms(jdbcTemplate, cachingRoomInfoMapper);
+        rooms.insert(REPLAY_ROOM, 2, roomId -> false);
+        target = new InetSocketAddress("127.0.0.1", listener.getLocalPort());
+    }
+
+    @AfterEach
+    void cleanUp() {
+        rooms.delete(REPLAY_ROOM, 2);
+    }
+
+    @Test
+    void replayedSequenceIsDropped() throws Exception {
+        long outOfOrder = stat("outOfOrder");
+        try (DatagramChannel sender = DatagramChannel.open()) {
+            send(sender, REPLAY_ROOM, 1, 20.5f);
+            send(sender, REPLAY_ROOM, 2, 21.5f);
+            send(sender, REPLAY_ROOM, 1, 99.0f);
+        }
+        awaitStat("outOfOrder", outOfOrder + 1);
+        awaitQueueDrained();
+        assertThat(cachingRoomInfoMapper.findById(REPLAY_ROOM).orElseThrow().getCurrentTempera()).isEqualTo(21.5);
+    }
+
+    @Test
+    void sequenceRestartsAfterSilence() throws Exception {
+        long resets = stat("sequenceResets");
+        try (DatagramChannel sender = DatagramChannel.open()) {
+            send(sender, RESTART_ROOM, 5, 20.5f);
+            // 静默期内从 1 开始的报文被当作重放丢弃，超过重置窗口后接受
+            send(sender, RESTART_ROOM, 1, 18.5f);
+            Thread.sleep(1_500);
+            send(sender, RESTART_ROOM, 1, 19.5f);
+        }
+        awaitStat("sequenceResets", resets + 1);
+        awaitQueueDrained();
+        assertThat(cachingRoomInfoMapper.findById(RESTART_ROOM).orElseThrow().getCurrentTempera()).isEqualTo(19.5);
+    }
+
+    private long stat(String key) {
+        return ((Number) listener.stats().get(key)).longValue();
+    }
+
+    private void awaitStat(String key, long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (stat(key) < expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(stat(key)).as(key).isEqualTo(expected);
+    }
+
+    private void awaitQueueDrained() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (((Number) listener.stats().get("queued")).intValue() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        // 最后一条出队后还在写入，留出时间
+        Thread.sleep(50);
+    }
+
+    private void send(DatagramChannel sender, int roomId, int sequence, float temperature) throws Exception {
+        packet.clear();
+        packet.putInt(roomId).putInt(sequence).putFloat(temperature).putLong(System.currentTimeMillis());
+        packet.flip();
+        sender.send(packet, target);
+    }
+}
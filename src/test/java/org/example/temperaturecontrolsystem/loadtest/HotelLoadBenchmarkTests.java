@@ -0,0 +1,110 @@
+package org.example.temperaturecontrolsystem.loadtest;
+
+import org.example.temperaturecontrolsystem.service.SchedulerDispatcher;
+import org.example.temperaturecontrolsystem.service.SchedulerService;
+import org.example.temperaturecontrolsystem.support.StatementCounter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 在随机端口上启动完整应用（独立的内存 H2），按 {@link HotelLoadScenario} 模拟客人和控制台的 HTTP 负载，
+ * 打印每个阶段各接口的吞吐和 p50 / p99 / p999 延迟、SQL 语句数，以及调度器从指令提交到处理完成、到开始送风的等待时间。
+ * <p>
+ * 规模和种子可以用系统属性调整，例如 5000 个房间：-Dloadtest.rooms=5000。种子不变时客人的请求序列不变，
+ * 打印的指纹相同，不同版本的结果可以直接比较。任何接口出现 2xx / 304 以外的状态码，或 p99 超过
+ * loadtest.max-p99-millis 时测试失败。
+ * mvn test -Pbenchmark -Dtest=HotelLoadBenchmarkTests
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:hotel-load;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "room.temperature.buffer.enabled=true"
+})
+@ActiveProfiles("test")
+@Tag("benchmark")
+@Import(StatementCounter.Config.class)
+class HotelLoadBenchmarkTests {
+
+    private static final int FIRST_ROOM = 80_000;
+    private static final int ROOMS = Integer.getInteger("loadtest.rooms", 500);
+    private static final int GUESTS = Integer.getInteger("loadtest.guests", 32);
+    private static final int ACTIONS_PER_ROOM = Integer.getInteger("loadtest.actions-per-room", 20);
+    private static final int CONSOLES = Integer.getInteger("loadtest.consoles", 4);
+    private static final long CONSOLE_POLL_MILLIS = Long.getLong("loadtest.console-poll-millis", 200);
+    private static final long SEED = Long.getLong("loadtest.seed", 20_261_019L);
+    private static final long MAX_P99_MILLIS = Long.getLong("loadtest.max-p99-millis", 2_000);
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private SchedulerService schedulerService;
+    @Autowired
+    private SchedulerDispatcher schedulerDispatcher;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("INSERT INTO users (account_column, password_column, role_column) VALUES " +
+                "('load-manager', 'pw', 'manager'), ('load-desk', 'pw', 'front-desk'), ('load-panel', 'pw', 'guest-panel')");
+    }
+
+    @AfterEach
+    void cleanUp() {
+        StatementCounter.reset();
+        jdbcTemplate.update("DELETE FROM users WHERE account_column LIKE 'load-%'");
+    }
+
+    @Test
+    void guestsAndConsolesOverHttp() throws Exception {
+        HotelLoadScenario.Settings settings = new HotelLoadScenario.Settings(
+                FIRST_ROOM, ROOMS, GUESTS, ACTIONS_PER_ROOM, CONSOLES, CONSOLE_POLL_MILLIS, SEED);
+        HotelLoadScenario scenario = new HotelLoadScenario("http://localhost:" + port, settings, StatementCounter::get);
+        assertThat(new HotelLoadScenario("http://localhost:" + port, settings, StatementCounter::get).fingerprint())
+                .isEqualTo(scenario.fingerprint());
+
+        List<HotelLoadScenario.Phase> phases = scenario.run(
+                new HotelLoadScenario.Credentials("load-desk", "pw"),
+                new HotelLoadScenario.Credentials("load-manager", "pw"),
+                new HotelLoadScenario.Credentials("load-panel", "pw"));
+
+        System.out.printf("[benchmark] hotel load: %s, scenario fingerprint %016x%n", settings, scenario.fingerprint());
+        scenario.report().forEach(line -> System.out.println("[benchmark]   " + line));
+        Map<String, Object> commandStats = schedulerService.commandStats();
+        System.out.println("[benchmark]   scheduler command -> applied " + commandStats.get("commandToApplied")
+                + ", command -> service " + commandStats.get("commandToService"));
+        System.out.println("[benchmark]   scheduler dispatch " + schedulerDispatcher.stats()
+                + ", speed debounce " + schedulerService.speedDebounceStats());
+
+        for (HotelLoadScenario.Phase phase : phases) {
+            assertThat(phase.unexpected()).as("unexpected statuses in phase %s", phase.name).isZero();
+            phase.endpoints.forEach((name, endpoint) -> assertThat(endpoint.latency.percentileMicros(99))
+                    .as("p99 of %s in phase %s", name, phase.name)
+                    .isLessThanOrEqualTo(MAX_P99_MILLIS * 1000));
+        }
+        // 退房发出的 delete 在提交后异步处理，等调度器处理完再检查
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (checkedOutRooms() < ROOMS && System.nanoTime() < deadline) {
+            Thread.sleep(100);
+        }
+        assertThat(checkedOutRooms()).isEqualTo(ROOMS);
+    }
+
+    private int checkedOutRooms() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM room_infos WHERE room_id >= ? AND state = 0 AND ac_state = 0",
+                Integer.class, FIRST_ROOM);
+    }
+}
@@ -0,0 +1,357 @@
+package org.example.temperaturecontrolsystem.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.temperaturecontrolsystem.metrics.LatencyHistogram;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * 按酒店客人的行为通过 HTTP 压测整个应用：前台登录后为所有房间办理入住，客人在房间里开关空调、调风速和目标温度、
+ * 上报传感器读数、查看房间状态，同时几个控制台轮询全部房间状态、仪表盘和报表，最后前台逐个退房并打印账单。
+ * <p>
+ * 每个客人线程负责一组固定的房间，动作序列在开始前由 seed 生成，同样的参数每次发出同样的请求序列（{@link #fingerprint()}），
+ * 可以和之前的结果比较。控制台按时间轮询，请求数随运行时长变化。
+ * <p>
+ * 每个阶段分别统计各接口的请求数、吞吐、延迟分位和状态码，以及这个阶段执行的 SQL 语句数。
+ */
+class HotelLoadScenario {
+
+    /**
+     * @param actionsPerRoom    入住期间平均每个房间的客人动作数
+     * @param consolePollMillis 控制台两次轮询之间的间隔
+     */
+    record Settings(int firstRoom, int rooms, int guests, int actionsPerRoom,
+                    int consoles, long consolePollMillis, long seed) {
+    }
+
+    record Credentials(String account, String password) {
+    }
+
+    /**
+     * 一个阶段内某个接口的统计。2xx 和 304 之外的状态码计入 unexpected。
+     */
+    static final class Endpoint {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final Map<Integer, LongAdder> statuses = new ConcurrentSkipListMap<>();
+        final LongAdder unexpected = new LongAdder();
+    }
+
+    static final class Phase {
+        final String name;
+        final Map<String, Endpoint> endpoints = new ConcurrentSkipListMap<>();
+        long wallNanos;
+        int statements;
+
+        Phase(String name) {
+            this.name = name;
+        }
+
+        long requests() {
+            return endpoints.values().stream().mapToLong(endpoint -> endpoint.latency.count()).sum();
+        }
+
+        long unexpected() {
+            return endpoints.values().stream().mapToLong(endpoint -> endpoint.unexpected.sum()).sum();
+        }
+    }
+
+    private enum Action { SENSOR, STATUS, TARGET, SPEED, TURN_ON, TURN_OFF }
+
+    private record Step(int roomId, Action action, double value) {
+    }
+
+    private static final String[] SPEEDS = {"low", "medium", "high"};
+    private static final int MAX_LOGGED_ERRORS = 20;
+
+    private final String baseUrl;
+    private final Settings settings;
+    private final IntSupplier statementCounter;
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<List<Step>> plans = new ArrayList<>();
+    private final List<Phase> phases = new ArrayList<>();
+    private final LongAdder loggedErrors = new LongAdder();
+    private long fingerprint = 17;
+
+    /**
+     * @param statementCounter 当前已执行的 SQL 语句数，用于统计每个阶段的语句数
+     */
+    HotelLoadScenario(String baseUrl, Settings settings, IntSupplier statementCounter) {
+        this.baseUrl = baseUrl;
+        this.settings = settings;
+        this.statementCounter = statementCounter;
+        for (int guest = 0; guest < settings.guests(); guest++) {
+            plans.add(plan(guest));
+        }
+    }
+
+    /**
+     * 客人动作序列的指纹，只取决于 Settings。
+     */
+    long fingerprint() {
+        return fingerprint;
+    }
+
+    List<Phase> phases() {
+        return phases;
+    }
+
+    List<Phase> run(Credentials frontDesk, Credentials manager, Credentials guestPanel) throws Exception {
+        Phase login = new Phase("login");
+        int statementsBefore = statementCounter.getAsInt();
+        long t0 = System.nanoTime();
+        String desk = login(login, frontDesk);
+        String reports = login(login, manager);
+        String panel = login(login, guestPanel);
+        login.wallNanos = System.nanoTime() - t0;
+        login.statements = statementCounter.getAsInt() - statementsBefore;
+        phases.add(login);
+
+        phases.add(runPhase("check-in", (phase, guest) -> {
+            for (int roomId : roomsOf(guest)) {
+                send(phase, "POST /api/check-in", post("/api/check-in",
+                        "{\"roomNumber\":" + roomId + ",\"clientName\":\"Guest " + roomId + "\",\"clientID\":\"ID-" + roomId + "\"}"), desk);
+            }
+        }, null));
+
+        LocalDateTime now = LocalDateTime.now();
+        String reportWindow = "startTime=" + now.minusDays(1).truncatedTo(ChronoUnit.HOURS)
+                + "&endTime=" + now.plusDays(1).truncatedTo(ChronoUnit.HOURS);
+        phases.add(runPhase("stay", (phase, guest) -> {
+            for (Step step : plans.get(guest)) {
+                stay(phase, step, panel);
+            }
+        }, (phase, running) -> {
+            String etag = null;
+            for (long poll = 0; running.get(); poll++) {
+                HttpRequest.Builder status = get("/api/rooms/status").header("Accept-Encoding", "gzip");
+                if (etag != null) {
+                    status.header("If-None-Match", etag);
+                }
+                etag = send(phase, "GET /api/rooms/status", status, panel).headers().firstValue("ETag").orElse(etag);
+                if (poll % 5 == 0) {
+                    send(phase, "GET /api/dashboard/summary", get("/api/dashboard/summary"), desk);
+                }
+                if (poll % 10 == 0) {
+                    send(phase, "GET /api/reports/usage/summary", get("/api/reports/usage/summary?" + reportWindow), reports);
+                }
+                Thread.sleep(settings.consolePollMillis());
+            }
+        }));
+
+        phases.add(runPhase("check-out", (phase, guest) -> {
+            for (int roomId : roomsOf(guest)) {
+                send(phase, "POST /api/check-out", post("/api/check-out", "{\"roomNumber\":" + roomId + "}"), desk);
+                send(phase, "GET /api/rooms/{id}/bill", get("/api/rooms/" + roomId + "/bill"), desk);
+            }
+        }, null));
+        return phases;
+    }
+
+    /**
+     * 每个阶段一行汇总，每个接口一行：请求数、吞吐（按阶段的墙钟时间）、延迟分位（微秒）和状态码分布。
+     */
+    List<String> report() {
+        List<String> lines = new ArrayList<>();
+        for (Phase phase : phases) {
+            double seconds = phase.wallNanos / 1e9;
+            lines.add(String.format("phase %-9s %7d requests in %6.2fs (%7.0f req/s), %7d statements (%.2f per request), %d unexpected status(es)",
+                    phase.name, phase.requests(), seconds, phase.requests() / Math.max(seconds, 1e-9),
+                    phase.statements, (double) phase.statements / Math.max(phase.requests(), 1), phase.unexpected()));
+            phase.endpoints.forEach((name, endpoint) -> {
+                Map<String, Object> latency = endpoint.latency.snapshot();
+                lines.add(String.format("  %-40s %7d req %7.0f req/s  p50 %6dus  p99 %7dus  p999 %7dus  max %7dus  %s",
+                        name, endpoint.latency.count(), endpoint.latency.count() / Math.max(seconds, 1e-9),
+                        latency.get("p50Micros"), latency.get("p99Micros"), latency.get("p999Micros"), latency.get("maxMicros"),
+                        endpoint.statuses));
+            });
+        }
+        return lines;
+    }
+
+    @FunctionalInterface
+    private interface GuestWork {
+        void run(Phase phase, int guest) throws Exception;
+    }
+
+    @FunctionalInterface
+    private interface ConsoleWork {
+        void run(Phase phase, AtomicBoolean running) throws Exception;
+    }
+
+    /**
+     * 所有客人线程跑完 guestWork 时阶段结束；consoleWork 不为 null 时控制台线程在阶段内一直轮询。
+     */
+    private Phase runPhase(String name, GuestWork guestWork, ConsoleWork consoleWork) throws Exception {
+        Phase phase = new Phase(name);
+        int consoles = consoleWork == null ? 0 : settings.consoles();
+        ExecutorService pool = Executors.newFixedThreadPool(settings.guests() + consoles);
+        AtomicBoolean running = new AtomicBoolean(true);
+        int statementsBefore = statementCounter.getAsInt();
+        long t0 = System.nanoTime();
+        try {
+            List<Future<?>> guests = new ArrayList<>();
+            List<Future<?>> consoleFutures = new ArrayList<>();
+            for (int console = 0; console < consoles; console++) {
+                consoleFutures.add(pool.submit((Callable<Void>) () -> {
+                    consoleWork.run(phase, running);
+                    return null;
+                }));
+            }
+            for (int guest = 0; guest < settings.guests(); guest++) {
+                int index = guest;
+                guests.add(pool.submit((Callable<Void>) () -> {
+                    guestWork.run(phase, index);
+                    return null;
+                }));
+            }
+            for (Future<?> future : guests) {
+                future.get(10, TimeUnit.MINUTES);
+            }
+            phase.wallNanos = System.nanoTime() - t0;
+            running.set(false);
+            for (Future<?> future : consoleFutures) {
+                future.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            running.set(false);
+            pool.shutdownNow();
+        }
+        phase.statements = statementCounter.getAsInt() - statementsBefore;
+        return phase;
+    }
+
+    private void stay(Phase phase, Step step, String token) throws Exception {
+        int roomId = step.roomId();
+        switch (step.action()) {
+            case SENSOR -> send(phase, "PUT /api/rooms/{id}/current-temperature",
+                    request("/api/rooms/" + roomId + "/current-temperature")
+                            .PUT(HttpRequest.BodyPublishers.ofString("{\"currentTemperature\":" + step.value() + "}")), token);
+            case STATUS -> send(phase, "GET /api/rooms/{id}/status", get("/api/rooms/" + roomId + "/status"), token);
+            case TARGET -> send(phase, "POST /api/ac/{id}/set-temperature",
+                    post("/api/ac/" + roomId + "/set-temperature", "{\"temperature\":" + step.value() + "}"), token);
+            case SPEED -> send(phase, "POST /api/ac/{id}/set-speed",
+                    post("/api/ac/" + roomId + "/set-speed", "{\"speed\":\"" + SPEEDS[(int) step.value()] + "\"}"), token);
+            case TURN_ON -> send(phase, "POST /api/ac/{id}/turn-on", post("/api/ac/" + roomId + "/turn-on", ""), token);
+            case TURN_OFF -> send(phase, "POST /api/ac/{id}/turn-off", post("/api/ac/" + roomId + "/turn-off", ""), token);
+        }
+    }
+
+    /**
+     * 生成一个客人线程的动作序列。各房间的空调开关状态和室温在生成时推演，开机只发给关着的空调，关机只发给开着的。
+     * 动作比例：上报读数 35%，查看状态 25%，开关空调 15%，调目标温度 15%，调风速 10%。
+     */
+    private List<Step> plan(int guest) {
+        Random random = new Random(settings.seed() * 31 + guest);
+        List<Integer> rooms = roomsOf(guest);
+        List<Step> steps = new ArrayList<>();
+        if (rooms.isEmpty()) {
+            return steps;
+        }
+        Map<Integer, Boolean> acOn = new HashMap<>();
+        Map<Integer, Double> temperature = new HashMap<>();
+        for (int roomId : rooms) {
+            acOn.put(roomId, false);
+            temperature.put(roomId, 24.0 + random.nextInt(60) / 10.0);
+        }
+        for (int i = 0; i < rooms.size() * settings.actionsPerRoom(); i++) {
+            int roomId = rooms.get(random.nextInt(rooms.size()));
+            int roll = random.nextInt(100);
+            Step step;
+            if (roll < 35) {
+                double reading = Math.round((temperature.get(roomId) + (random.nextInt(7) - 3) / 10.0) * 10) / 10.0;
+                temperature.put(roomId, reading);
+                step = new Step(roomId, Action.SENSOR, reading);
+            } else if (roll < 60) {
+                step = new Step(roomId, Action.STATUS, 0);
+            } else if (roll < 75) {
+                boolean on = acOn.get(roomId);
+                acOn.put(roomId, !on);
+                step = new Step(roomId, on ? Action.TURN_OFF : Action.TURN_ON, 0);
+            } else if (roll < 90) {
+                step = new Step(roomId, Action.TARGET, 18.0 + random.nextInt(21) / 2.0);
+            } else {
+                step = new Step(roomId, Action.SPEED, random.nextInt(SPEEDS.length));
+            }
+            steps.add(step);
+            fingerprint = fingerprint * 31 + step.roomId();
+            fingerprint = fingerprint * 31 + step.action().ordinal();
+            fingerprint = fingerprint * 31 + Double.hashCode(step.value());
+        }
+        return steps;
+    }
+
+    private List<Integer> roomsOf(int guest) {
+        List<Integer> rooms = new ArrayList<>();
+        for (int i = guest; i < settings.rooms(); i += settings.guests()) {
+            rooms.add(settings.firstRoom() + i);
+        }
+        return rooms;
+    }
+
+    private String login(Phase phase, Credentials credentials) throws Exception {
+        HttpResponse<String> response = send(phase, "POST /api/login", post("/api/login",
+                objectMapper.writeValueAsString(Map.of("account", credentials.account(), "password", credentials.password()))), null);
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Login failed for " + credentials.account() + ": " + response.body());
+        }
+        return objectMapper.readTree(response.body()).get("token").asText();
+    }
+
+    private HttpResponse<String> send(Phase phase, String endpoint, HttpRequest.Builder request, String token) throws Exception {
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        long t0 = System.nanoTime();
+        HttpResponse<String> response = client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        long elapsed = System.nanoTime() - t0;
+
+        Endpoint stats = phase.endpoints.computeIfAbsent(endpoint, k -> new Endpoint());
+        stats.latency.recordNanos(elapsed);
+        int status = response.statusCode();
+        stats.statuses.computeIfAbsent(status, k -> new LongAdder()).increment();
+        if (status / 100 != 2 && status != 304) {
+            stats.unexpected.increment();
+            loggedErrors.increment();
+            if (loggedErrors.sum() <= MAX_LOGGED_ERRORS) {
+                System.err.println("Load test request " + response.request().method() + " " + response.request().uri()
+                        + " returned " + status + ": " + response.body());
+            }
+        }
+        return response;
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json");
+    }
+
+    private HttpRequest.Builder get(String path) {
+        return request(path).GET();
+    }
+
+    private HttpRequest.Builder post(String path, String body) {
+        return request(path).POST(HttpRequest.BodyPublishers.ofString(body));
+    }
+}
@@ -0,0 +1,81 @@
+package org.example.temperaturecontrolsystem.loadtest;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * HTTP 冒烟测试：在随机端口上用很小的规模跑一遍 {@link HotelLoadScenario}（入住、客人操作、控制台轮询、退房结账），
+ * 每个阶段都不能出现 2xx / 304 以外的状态码，每个主要接口都至少被调用过一次；另外检查未登录请求被拒绝。
+ * 完整规模的负载见 HotelLoadBenchmarkTests。
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties =
+        "spring.datasource.url=jdbc:h2:mem:hotel-smoke;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1")
+@ActiveProfiles("test")
+class HotelSmokeTests {
+
+    private static final int FIRST_ROOM = 90_000;
+    private static final int ROOMS = 6;
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("INSERT INTO users (account_column, password_column, role_column) VALUES " +
+                "('smoke-manager', 'pw', 'manager'), ('smoke-desk', 'pw', 'front-desk'), ('smoke-panel', 'pw', 'guest-panel')");
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM users WHERE account_column LIKE 'smoke-%'");
+    }
+
+    @Test
+    void hotelDayOverHttp() throws Exception {
+        HotelLoadScenario scenario = new HotelLoadScenario("http://localhost:" + port,
+                new HotelLoadScenario.Settings(FIRST_ROOM, ROOMS, 2, 6, 1, 50, 50L), () -> 0);
+
+        List<HotelLoadScenario.Phase> phases = scenario.run(
+                new HotelLoadScenario.Credentials("smoke-desk", "pw"),
+                new HotelLoadScenario.Credentials("smoke-manager", "pw"),
+                new HotelLoadScenario.Credentials("smoke-panel", "pw"));
+
+        for (HotelLoadScenario.Phase phase : phases) {
+            assertThat(phase.unexpected()).as("unexpected statuses in phase %s: %s", phase.name, scenario.report()).isZero();
+        }
+        Set<String> called = phases.stream().flatMap(phase -> phase.endpoints.keySet().stream())
+                .collect(Collectors.toSet());
+        assertThat(called).contains("POST /api/login", "POST /api/check-in", "GET /api/rooms/status",
+                "POST /api/check-out", "GET /api/rooms/{id}/bill");
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM room_infos WHERE room_id >= ? AND state = 0",
+                Integer.class, FIRST_ROOM)).isEqualTo(ROOMS);
+    }
+
+    @Test
+    void requestsWithoutTokenAreRejected() throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(
+                URI.create("http://localhost:" + port + "/api/rooms/status")).GET().build(), HttpResponse.BodyHandlers.ofString());
+
+        assertThat(response.statusCode()).isEqualTo(401);
+        assertThat(response.body()).contains("\"error\"");
+    }
+}
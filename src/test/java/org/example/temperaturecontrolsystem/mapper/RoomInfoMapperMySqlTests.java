@@ -0,0 +1,95 @@
+package org.example.temperaturecontrolsystem.mapper;
+
+import org.example.temperaturecontrolsystem.entity.OpRecord;
+import org.example.temperaturecontrolsystem.entity.RoomInfo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * RoomInfoMapper 中带操作记录的条件更新在 MySQL 上的多语句版本（H2 走另一套 SQL，默认测试覆盖不到）。
+ * 数据源是 Testcontainers 的 jdbc:tc: URL，连接参数与生产一致，带 allowMultiQueries=true；
+ * 表结构由 Flyway 的 db/migration/mysql 建立。需要 Docker。
+ * mvn test -Pmysql -Dtest=RoomInfoMapperMySqlTests
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:tc:mysql:8.4:///temperaturecontrolsystem?serverTimezone=UTC&allowMultiQueries=true&useCursorFetch=true",
+        "spring.datasource.driver-class-name=org.testcontainers.jdbc.ContainerDatabaseDriver",
+        "spring.datasource.username=test",
+        "spring.datasource.password=test"
+})
+@ActiveProfiles("test")
+@Tag("mysql")
+class RoomInfoMapperMySqlTests {
+
+    private static final int ROOM = 43_001;
+
+    @Autowired
+    private RoomInfoMapper roomInfoMapper;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void seed() {
+        RoomInfo room = new RoomInfo();
+        room.setRoomId(ROOM);
+        room.setClientName("mysql");
+        room.setCheckinTime(LocalDateTime.now());
+        roomInfoMapper.insertForCheckIn(room);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM op_records WHERE room_id = ?", ROOM);
+        jdbcTemplate.update("DELETE FROM room_infos WHERE room_id = ?", ROOM);
+    }
+
+    @Test
+    void loggedCommandsWriteOneOpRecordOnlyWhenStateChanges() {
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+
+        OpRecord on = roomInfoMapper.turnAcOnLogged(ROOM, now);
+        assertThat(on).isNotNull();
+        assertThat(on.getId()).isNotNull();
+        assertThat(on.getOpType()).isEqualTo(1);
+        assertThat(on.getNewState()).isEqualTo("AC_STATE_ON");
+        assertThat(roomInfoMapper.turnAcOnLogged(ROOM, now)).isNull();
+
+        OpRecord speed = roomInfoMapper.updateSpeedLogged(ROOM, "high", now);
+        assertThat(speed.getOldState()).isEqualTo("medium");
+        assertThat(speed.getNewState()).isEqualTo("high");
+        assertThat(roomInfoMapper.updateSpeedLogged(ROOM, "HIGH", now)).isNull();
+
+        OpRecord off = roomInfoMapper.turnAcOffLogged(ROOM, now);
+        assertThat(off.getOpType()).isEqualTo(2);
+        assertThat(roomInfoMapper.findById(ROOM).orElseThrow().getCurrentSpeed()).isEqualTo("medium");
+        assertThat(roomInfoMapper.turnAcOffLogged(ROOM, now)).isNull();
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM op_records WHERE room_id = ?", Integer.class, ROOM))
+                .isEqualTo(3);
+    }
+
+    @Test
+    void targetTemperatureOldStateUsesJavaDoubleFormat() {
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+
+        OpRecord first = roomInfoMapper.updateTargetTemperatureLogged(ROOM, 22.5, String.valueOf(22.5), now);
+        assertThat(first.getOldState()).isEqualTo(String.valueOf(25.0));
+        assertThat(first.getNewState()).isEqualTo("22.5");
+
+        OpRecord second = roomInfoMapper.updateTargetTemperatureLogged(ROOM, 18.0, String.valueOf(18.0), now);
+        assertThat(second.getOldState()).isEqualTo("22.5");
+
+        assertThat(roomInfoMapper.updateTargetTemperatureLogged(ROOM, 18.001, "18.001", now)).isNull();
+        assertThat(roomInfoMapper.updateTargetTemperatureLogged(-1, 20.0, "20.0", now)).isNull();
+    }
+}
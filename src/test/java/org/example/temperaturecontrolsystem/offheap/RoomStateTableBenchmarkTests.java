@@ -0,0 +1,108 @@
+package org.example.temperaturecontrolsystem.offheap;
+
+import org.example.temperaturecontrolsystem.entity.RoomInfo;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * 10 万个房间：比较 List&lt;RoomInfo&gt; 与堆外表的全表扫描耗时；并发读写的一致性见 RoomStateTableTests。
+ * 堆外表的大小按列宽计算后打印；List&lt;RoomInfo&gt; 的堆占用依赖 GC 时机，不在这里测量。
+ * mvn test -Pbenchmark -Dtest=RoomStateTableBenchmarkTests
+ */
+@Tag("benchmark")
+class RoomStateTableBenchmarkTests {
+
+    private static final int ROOMS = 100_000;
+    private static final int SCANS = 50;
+
+    @Test
+    void scansWithoutMaterializingRooms() {
+        List<RoomInfo> rooms = generate();
+
+        RoomStateTable table = new RoomStateTable(ROOMS);
+        rooms.forEach(table::put);
+
+        // 预热后各扫 SCANS 次：统计入住且在送风的房间数和这些房间的平均温差
+        double[] listResult = scanList(rooms);
+        double[] tableResult = scanTable(table);
+        long listStart = System.nanoTime();
+        for (int i = 0; i < SCANS; i++) {
+            listResult = scanList(rooms);
+        }
+        long listNanos = (System.nanoTime() - listStart) / SCANS;
+        long tableStart = System.nanoTime();
+        for (int i = 0; i < SCANS; i++) {
+            tableResult = scanTable(table);
+        }
+        long tableNanos = (System.nanoTime() - tableStart) / SCANS;
+
+        System.out.printf("[benchmark] %d rooms: off-heap table %d KB (%d B/room); " +
+                        "scan List<RoomInfo> %.2fms vs table %.2fms (%.1fx)%n",
+                ROOMS, table.offHeapBytes() / 1024, RoomStateTable.BYTES_PER_ROW,
+                listNanos / 1e6, tableNanos / 1e6, (double) listNanos / tableNanos);
+
+        assertThat(tableResult[0]).isEqualTo(listResult[0]);
+        assertThat(tableResult[1]).isCloseTo(listResult[1], within(1e-3));
+        assertThat(rooms).hasSize(ROOMS);
+    }
+
+    private static double[] scanList(List<RoomInfo> rooms) {
+        long count = 0;
+        double delta = 0;
+        for (RoomInfo room : rooms) {
+            if (room.getState() == 1 && room.getAcState() == 1) {
+                count++;
+                delta += room.getCurrentTempera() - room.getTargetTempera();
+            }
+        }
+        return new double[]{count, count == 0 ? 0 : delta / count};
+    }
+
+    private static double[] scanTable(RoomStateTable table) {
+        double[] acc = new double[2];
+        table.forEach(row -> {
+            if (row.state() == 1 && row.acState() == 1) {
+                acc[0]++;
+                acc[1] += row.currentTemperature() - row.targetTemperature();
+            }
+        });
+        return new double[]{acc[0], acc[0] == 0 ? 0 : acc[1] / acc[0]};
+    }
+
+    private static List<RoomInfo> generate() {
+        Random random = new Random(11);
+        List<RoomInfo> rooms = new ArrayList<>(ROOMS);
+        for (int i = 1; i <= ROOMS; i++) {
+            RoomInfo room = room(i, 18 + random.nextInt(120) / 10.0);
+            room.setState(random.nextInt(10) < 7 ? 1 : 0);
+            room.setAcState(room.getState() == 1 ? random.nextInt(3) : 0);
+            room.setCurrentSpeed(random.nextBoolean() ? "medium" : "high");
+            if (room.getState() == 1) {
+                room.setClientId("C" + i);
+                room.setClientName("guest-" + i);
+                room.setCheckinTime(LocalDateTime.of(2025, 1, 1, 12, 0).plusMinutes(i));
+            }
+            rooms.add(room);
+        }
+        return rooms;
+    }
+
+    private static RoomInfo room(int roomId, double temperature) {
+        RoomInfo room = new RoomInfo();
+        room.setRoomId(roomId);
+        room.setState(1);
+        room.setAcState(1);
+        room.setCurrentSpeed("medium");
+        room.setCurrentTempera(temperature);
+        room.setTargetTempera(25.0);
+        return room;
+    }
+}
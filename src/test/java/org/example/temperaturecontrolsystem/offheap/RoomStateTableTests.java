@@ -0,0 +1,62 @@
+package org.example.temperaturecontrolsystem.offheap;
+
+import org.example.temperaturecontrolsystem.entity.RoomInfo;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 堆外表在并发写入下读到的行总是一致的，不会读到一半新一半旧的行。
+ */
+class RoomStateTableTests {
+
+    @Test
+    void readersNeverSeeTornRows() throws Exception {
+        RoomStateTable table = new RoomStateTable(16);
+        // 初始行也要满足当前温度 == 目标温度，否则写线程第一次写入前读到的行会被误计为撕裂
+        RoomInfo room = room(7, 20.0);
+        room.setTargetTempera(20.0);
+        table.put(room);
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread writer = new Thread(() -> {
+            RoomInfo update = room(7, 0);
+            for (int i = 0; running.get(); i++) {
+                // 当前温度和目标温度总是同时写入同一个值
+                update.setCurrentTempera((double) (i % 1000));
+                update.setTargetTempera((double) (i % 1000));
+                table.put(update);
+            }
+        });
+        writer.start();
+
+        RoomRowView view = new RoomRowView();
+        long torn = 0;
+        try {
+            for (int i = 0; i < 200_000; i++) {
+                assertThat(table.read(7, view)).isTrue();
+                if (view.currentTemperature() != view.targetTemperature()) {
+                    torn++;
+                }
+            }
+        } finally {
+            running.set(false);
+            writer.join();
+        }
+        assertThat(torn).isZero();
+        assertThat(table.read(8, view)).isFalse();
+    }
+
+    private static RoomInfo room(int roomId, double temperature) {
+        RoomInfo room = new RoomInfo();
+        room.setRoomId(roomId);
+        room.setState(1);
+        room.setAcState(1);
+        room.setCurrentSpeed("medium");
+        room.setCurrentTempera(temperature);
+        room.setTargetTempera(25.0);
+        return room;
+    }
+}
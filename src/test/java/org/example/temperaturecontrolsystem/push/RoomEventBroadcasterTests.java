@@ -0,0 +1,108 @@
+package org.example.temperaturecontrolsystem.push;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.temperaturecontrolsystem.entity.RoomInfo;
+import org.example.temperaturecontrolsystem.event.RoomStateChangedEvent;
+import org.example.temperaturecontrolsystem.mapper.RoomInfoMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 新连接读取快照期间发生的房间变化不会丢失，并且排在快照之后推送。
+ */
+class RoomEventBroadcasterTests {
+
+    private final CountDownLatch reading = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final RoomEventBroadcaster broadcaster = new RoomEventBroadcaster(mapper(), new ObjectMapper(), 1, 20);
+
+    @AfterEach
+    void stop() {
+        broadcaster.stop();
+    }
+
+    @Test
+    void changeDuringSnapshotReadIsDeliveredAfterSnapshot() throws Exception {
+        CompletableFuture<SseEmitter> subscribed = CompletableFuture.supplyAsync(broadcaster::subscribeAll);
+        assertThat(reading.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // 快照已经读到 25.0，此时房间变成 26.0
+        broadcaster.onRoomStateChanged(new RoomStateChangedEvent(101, room(25.0), room(26.0)));
+        release.countDown();
+
+        StringBuffer received = new StringBuffer();
+        capture(subscribed.get(5, TimeUnit.SECONDS), received);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (received.indexOf("event:room") < 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        String stream = received.toString();
+        assertThat(stream).contains("event:snapshot", "event:room");
+        assertThat(stream.indexOf("event:snapshot")).isLessThan(stream.indexOf("event:room"));
+        assertThat(stream.substring(stream.indexOf("event:room"))).contains("\"currentTempera\":26.0");
+        assertThat(broadcaster.subscriberCounts()).containsEntry("all", 1);
+    }
+
+    /**
+     * findAll 先通知 reading，等到 release 之后才返回 25.0 的房间，模拟一次较慢的查询。
+     */
+    private RoomInfoMapper mapper() {
+        return (RoomInfoMapper) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{RoomInfoMapper.class},
+                (proxy, method, args) -> {
+                    if (!method.getName().equals("findAll")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    reading.countDown();
+                    release.await(5, TimeUnit.SECONDS);
+                    return List.of(room(25.0));
+                });
+    }
+
+    /**
+     * 没有 Servlet 容器时把发出的帧拼进 received（ResponseBodyEmitter 的 Handler 不是公开 API，只能反射接上）。
+     */
+    @SuppressWarnings("unchecked")
+    private static void capture(SseEmitter emitter, StringBuffer received) throws Exception {
+        Class<?> handlerType = Class.forName(ResponseBodyEmitter.class.getName() + "$Handler");
+        Object handler = Proxy.newProxyInstance(handlerType.getClassLoader(), new Class<?>[]{handlerType},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("send")) {
+                        if (args[0] instanceof Set<?> items) {
+                            for (ResponseBodyEmitter.DataWithMediaType item : (Set<ResponseBodyEmitter.DataWithMediaType>) items) {
+                                received.append(item.getData());
+                            }
+                        } else {
+                            received.append(args[0]);
+                        }
+                    }
+                    return null;
+                });
+        Method initialize = ResponseBodyEmitter.class.getDeclaredMethod("initialize", handlerType);
+        initialize.setAccessible(true);
+        initialize.invoke(emitter, handler);
+    }
+
+    private static RoomInfo room(double temperature) {
+        RoomInfo room = new RoomInfo();
+        room.setRoomId(101);
+        room.setState(1);
+        room.setAcState(1);
+        room.setCurrentSpeed("medium");
+        room.setCurrentTempera(temperature);
+        room.setTargetTempera(22.0);
+        return room;
+    }
+}
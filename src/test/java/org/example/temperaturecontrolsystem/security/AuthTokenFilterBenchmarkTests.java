@@ -0,0 +1,109 @@
+package org.example.temperaturecontrolsystem.security;
+
+import org.example.temperaturecontrolsystem.mapper.UserMapper;
+import org.example.temperaturecontrolsystem.service.AuthService;
+import org.example.temperaturecontrolsystem.service.TokenService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 每个请求的鉴权开销：内存中校验令牌和角色，对比每个请求按账号查一次 users 表（本地 H2，远程 MySQL 只会更慢）。
+ * 角色规则见 AuthTokenFilterTests，登录时的用户缓存见 AuthServiceTests。
+ * mvn test -Pbenchmark -Dtest=AuthTokenFilterBenchmarkTests
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Tag("benchmark")
+class AuthTokenFilterBenchmarkTests {
+
+    private static final int REQUESTS = 200_000;
+    private static final int DB_LOOKUPS = 20_000;
+    private static final int LOGINS = 1_000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private AuthTokenFilter authTokenFilter;
+    @Autowired
+    private TokenService tokenService;
+    @Autowired
+    private AuthService authService;
+    @Autowired
+    private UserMapper userMapper;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("INSERT INTO users (account_column, password_column, role_column) VALUES " +
+                "('bench-manager', 'pw', 'manager'), ('bench-desk', 'pw', 'front-desk'), ('bench-panel', 'pw', 'guest-panel')");
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM users WHERE account_column LIKE 'bench-%'");
+    }
+
+    @Test
+    void tokenChecksStayInMemory() throws Exception {
+        String panel = token("bench-panel");
+
+        for (int i = 0; i < REQUESTS; i++) {
+            status("GET", "/api/rooms/101/status", panel);
+        }
+        long t0 = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            status("GET", "/api/rooms/" + (100 + i % 100) + "/status", panel);
+        }
+        long filterNanos = (System.nanoTime() - t0) / REQUESTS;
+
+        t0 = System.nanoTime();
+        for (int i = 0; i < DB_LOOKUPS; i++) {
+            userMapper.findByAccount("bench-panel");
+        }
+        long lookupNanos = (System.nanoTime() - t0) / DB_LOOKUPS;
+
+        System.out.printf("[benchmark] per-request auth: token + role check %dns, users lookup per request %dns (x%.0f)%n",
+                filterNanos, lookupNanos, (double) lookupNanos / filterNanos);
+        assertThat(filterNanos).isLessThan(lookupNanos);
+    }
+
+    @Test
+    void repeatedLoginLatency() {
+        long missesBefore = ((Number) authService.userCacheStats().get("misses")).longValue();
+        long t0 = System.nanoTime();
+        for (int i = 0; i < LOGINS; i++) {
+            authService.authenticate("bench-desk", "pw");
+        }
+        long loginNanos = (System.nanoTime() - t0) / LOGINS;
+        long misses = ((Number) authService.userCacheStats().get("misses")).longValue() - missesBefore;
+
+        System.out.printf("[benchmark] %d logins of one account: %d users lookup(s), %dns per login%n", LOGINS, misses, loginNanos);
+    }
+
+    private String token(String account) {
+        Map<String, Object> user = jdbcTemplate.queryForMap("SELECT role_column FROM users WHERE account_column = ?", account);
+        return tokenService.sign(tokenService.newPrincipal(account, (String) user.get("role_column")));
+    }
+
+    private int status(String method, String path, String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        if (token != null) {
+            request.addHeader("Authorization", "Bearer " + token);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        authTokenFilter.doFilter(request, response, new MockFilterChain());
+        return response.getStatus();
+    }
+}
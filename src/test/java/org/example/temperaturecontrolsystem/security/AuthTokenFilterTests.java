@@ -0,0 +1,93 @@
+package org.example.temperaturecontrolsystem.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.temperaturecontrolsystem.service.TokenService;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 各类接口按角色开放；令牌被篡改、过期、角色不够时拒绝访问；路径里的矩阵参数和编码不能绕过规则。
+ */
+class AuthTokenFilterTests {
+
+    private final TokenService tokenService = new TokenService("auth-filter-tests", 60);
+    private final AuthTokenFilter filter = new AuthTokenFilter(tokenService, new ObjectMapper(), true,
+            new String[]{"manager"}, new String[]{"front-desk"}, new String[]{"guest-panel"});
+
+    @Test
+    void rolesFollowTheEndpointGroups() throws Exception {
+        String manager = token("boss", "manager");
+        String desk = token("desk", "front-desk");
+        String panel = token("panel", "guest-panel");
+
+        assertThat(status("POST", "/api/ac/101/turn-on", panel)).isEqualTo(200);
+        assertThat(status("POST", "/api/ac/bulk", panel)).isEqualTo(403);
+        assertThat(status("POST", "/api/ac/bulk", desk)).isEqualTo(200);
+        assertThat(status("POST", "/api/check-out", panel)).isEqualTo(403);
+        assertThat(status("POST", "/api/check-out", desk)).isEqualTo(200);
+        assertThat(status("GET", "/api/dashboard/summary", desk)).isEqualTo(200);
+        assertThat(status("GET", "/api/reports/usage", desk)).isEqualTo(403);
+        assertThat(status("GET", "/api/ac/commands/stats", desk)).isEqualTo(403);
+        assertThat(status("GET", "/api/reports/usage", manager)).isEqualTo(200);
+        assertThat(status("GET", "/api/ac/commands/stats", manager)).isEqualTo(200);
+        assertThat(status("POST", "/api/check-out", manager)).isEqualTo(200);
+    }
+
+    @Test
+    void tamperedAndExpiredTokensAreUnauthorized() throws Exception {
+        String panel = token("panel", "guest-panel");
+        assertThat(status("GET", "/api/rooms/status", panel)).isEqualTo(200);
+        assertThat(status("GET", "/api/rooms/status", null)).isEqualTo(401);
+
+        // 把载荷里的角色改成 manager，签名不变
+        String signature = panel.substring(panel.indexOf('.'));
+        String payload = new String(Base64.getUrlDecoder().decode(panel.substring(0, panel.indexOf('.'))), StandardCharsets.UTF_8);
+        String forged = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(payload.replace("guest-panel", "manager").getBytes(StandardCharsets.UTF_8)) + signature;
+        assertThat(status("GET", "/api/reports/usage", forged)).isEqualTo(401);
+        assertThat(status("GET", "/api/rooms/status", panel.substring(0, panel.length() - 2))).isEqualTo(401);
+
+        TokenService.Principal expired = new TokenService.Principal("panel", "guest-panel", System.currentTimeMillis() - 1);
+        assertThat(status("GET", "/api/rooms/status", tokenService.sign(expired))).isEqualTo(401);
+        TokenService.Principal otherKey = new TokenService.Principal("panel", "manager", System.currentTimeMillis() + 60_000);
+        assertThat(status("GET", "/api/rooms/status", new TokenService("other-secret", 60).sign(otherKey))).isEqualTo(401);
+    }
+
+    @Test
+    void wrongRoleIsForbiddenWhateverThePathSpelling() throws Exception {
+        String desk = token("desk", "front-desk");
+        String manager = token("boss", "manager");
+
+        assertThat(status("GET", "/api/rooms/cache/stats", desk)).isEqualTo(403);
+        assertThat(status("GET", "/api/rooms/cache/stats;x", desk)).isEqualTo(403);
+        assertThat(status("GET", "/api/rooms/cache/stat%73", desk)).isEqualTo(403);
+        assertThat(status("GET", "/api/rooms/cache/stats/", desk)).isEqualTo(403);
+        assertThat(status("GET", "/api;x/rooms/cache/stats", desk)).isEqualTo(403);
+        assertThat(status("GET", "/api;x/rooms/status", null)).isEqualTo(401);
+        assertThat(status("GET", "/api/reports;x/usage", desk)).isEqualTo(403);
+        assertThat(status("GET", "/api/rooms/cache/stats;x", manager)).isEqualTo(200);
+        assertThat(status("GET", "/api/reports/usage", manager)).isEqualTo(200);
+        assertThat(status("POST", "/api/login", null)).isEqualTo(200);
+    }
+
+    private String token(String account, String role) {
+        return tokenService.sign(tokenService.newPrincipal(account, role));
+    }
+
+    private int status(String method, String path, String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        if (token != null) {
+            request.addHeader("Authorization", "Bearer " + token);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response.getStatus();
+    }
+}
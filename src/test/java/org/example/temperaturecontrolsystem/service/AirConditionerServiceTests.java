@@ -0,0 +1,97 @@
+package org.example.temperaturecontrolsystem.service;
+
+import org.example.temperaturecontrolsystem.cache.CachingRoomInfoMapper;
+import org.example.temperaturecontrolsystem.entity.RoomInfo;
+import org.example.temperaturecontrolsystem.support.StatementCounter;
+import org.example.temperaturecontrolsystem.support.TestRooms;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 目标温度指令是一条条件语句：变化时更新并写操作记录，重复指令不更新也不记录，并发的相同指令只记录一次。
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(StatementCounter.Config.class)
+class AirConditionerServiceTests {
+
+    private static final int ROOM = 48_001;
+    private static final int THREADS = 8;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private CachingRoomInfoMapper cachingRoomInfoMapper;
+    @Autowired
+    private AirConditionerService airConditionerService;
+
+    private TestRooms rooms;
+
+    @BeforeEach
+    void seed() {
+        rooms = new TestRooms(jdbcTemplate, cachingRoomInfoMapper);
+        rooms.insert(ROOM, true);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        StatementCounter.reset();
+        rooms.delete(ROOM, 1);
+    }
+
+    @Test
+    void targetTemperatureIsOneConditionalStatement() {
+        StatementCounter.getAndReset();
+        airConditionerService.setTemperature(ROOM, 21.0);
+        assertThat(StatementCounter.getAndReset()).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT old_state FROM op_records WHERE room_id = ? AND op_type = 3",
+                String.class, ROOM)).isEqualTo("25.0");
+
+        // 重复指令：条件语句本身就是唯一的一次往返
+        airConditionerService.setTemperature(ROOM, 21.0);
+        assertThat(StatementCounter.getAndReset()).isEqualTo(1);
+        assertThat(rooms.count("SELECT COUNT(*) FROM op_records WHERE room_id = ? AND op_type = 3", ROOM)).isEqualTo(1);
+        assertThat(cachingRoomInfoMapper.findById(ROOM)).get().extracting(RoomInfo::getTargetTempera).isEqualTo(21.0);
+    }
+
+    @Test
+    void concurrentIdenticalCommandsAreRecordedOnce() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    airConditionerService.setTemperature(ROOM, 18.0);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThat(rooms.count("SELECT COUNT(*) FROM op_records WHERE room_id = ? AND op_type = 3", ROOM)).isEqualTo(1);
+        assertThat(cachingRoomInfoMapper.findById(ROOM)).get().extracting(RoomInfo::getTargetTempera).isEqualTo(18.0);
+    }
+}
@@ -0,0 +1,66 @@
+package org.example.temperaturecontrolsystem.service;
+
+import org.example.temperaturecontrolsystem.entity.UserEntity;
+import org.example.temperaturecontrolsystem.exception.InvalidCredentialsException;
+import org.example.temperaturecontrolsystem.mapper.UserMapper;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 登录时的用户缓存：同一账号反复登录只查一次库，不存在的账号不进缓存。
+ */
+class AuthServiceTests {
+
+    private final List<String> lookups = new ArrayList<>();
+
+    @Test
+    void repeatedLoginsUseTheUserCache() {
+        AuthService authService = new AuthService(userMapper(), 60, 1000);
+        for (int i = 0; i < 10; i++) {
+            assertThat(authService.authenticate("desk", "pw")).isEqualTo("front-desk");
+        }
+        assertThatThrownBy(() -> authService.authenticate("desk", "wrong")).isInstanceOf(InvalidCredentialsException.class);
+
+        assertThat(lookups).containsExactly("desk");
+        assertThat(authService.userCacheStats()).containsEntry("misses", 1L).containsEntry("hits", 10L);
+    }
+
+    @Test
+    void unknownAccountsAreNotCached() {
+        AuthService authService = new AuthService(userMapper(), 60, 1000);
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> authService.authenticate("nobody", "pw")).isInstanceOf(InvalidCredentialsException.class);
+        }
+
+        assertThat(lookups).containsExactly("nobody", "nobody", "nobody");
+        assertThat(authService.userCacheStats()).containsEntry("entries", 0);
+    }
+
+    @Test
+    void zeroTtlDisablesTheCache() {
+        AuthService authService = new AuthService(userMapper(), 0, 1000);
+        authService.authenticate("desk", "pw");
+        authService.authenticate("desk", "pw");
+
+        assertThat(lookups).containsExactly("desk", "desk");
+    }
+
+    private UserMapper userMapper() {
+        return (UserMapper) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{UserMapper.class},
+                (proxy, method, args) -> {
+                    if (!method.getName().equals("findByAccount")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    String account = (String) args[0];
+                    lookups.add(account);
+                    return "desk".equals(account) ? Optional.of(new UserEntity("desk", "pw", "front-desk")) : Optional.empty();
+                });
+    }
+}
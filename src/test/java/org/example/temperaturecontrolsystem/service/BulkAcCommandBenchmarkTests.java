@@ -0,0 +1,82 @@
+package org.example.temperaturecontrolsystem.service;
+
+import org.example.temperaturecontrolsystem.cache.CachingRoomInfoMapper;
+import org.example.temperaturecontrolsystem.dto.BulkAcCommandRequest;
+import org.example.temperaturecontrolsystem.dto.BulkAcCommandResponse;
+import org.example.temperaturecontrolsystem.support.TestRooms;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 比较逐个房间调用 AirConditionerService 与一条批量指令的耗时；选房和开关机的正确性见 BulkAcCommandServiceTests。
+ * mvn test -Pbenchmark -Dtest=BulkAcCommandBenchmarkTests
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Tag("benchmark")
+class BulkAcCommandBenchmarkTests {
+
+    private static final int FIRST_ROOM = 40_000;
+    private static final int ROOMS = 1_000;
+    private static final int ROUNDS = 5;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private CachingRoomInfoMapper cachingRoomInfoMapper;
+    @Autowired
+    private AirConditionerService airConditionerService;
+    @Autowired
+    private BulkAcCommandService bulkAcCommandService;
+
+    private TestRooms rooms;
+
+    @BeforeEach
+    void seed() {
+        rooms = new TestRooms(jdbcTemplate, cachingRoomInfoMapper);
+        rooms.insert(FIRST_ROOM, ROOMS, roomId -> roomId % 2 == 1);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        rooms.delete(FIRST_ROOM, ROOMS);
+    }
+
+    @Test
+    void bulkTargetOutperformsPerRoomCalls() {
+        long singleNanos = Long.MAX_VALUE;
+        long bulkNanos = Long.MAX_VALUE;
+
+        for (int round = 0; round < ROUNDS; round++) {
+            long t0 = System.nanoTime();
+            for (int i = 0; i < ROOMS; i++) {
+                airConditionerService.setTemperature(FIRST_ROOM + i, 20.0 + round);
+            }
+            long t1 = System.nanoTime();
+
+            BulkAcCommandRequest request = new BulkAcCommandRequest();
+            request.setFromRoom(FIRST_ROOM);
+            request.setToRoom(FIRST_ROOM + ROOMS - 1);
+            request.setAction("target");
+            request.setTemperature(26.0 + round);
+            BulkAcCommandResponse response = bulkAcCommandService.execute(request);
+            long t2 = System.nanoTime();
+
+            assertThat(response.getApplied()).isEqualTo(ROOMS);
+            singleNanos = Math.min(singleNanos, t1 - t0);
+            bulkNanos = Math.min(bulkNanos, t2 - t1);
+        }
+
+        System.out.printf("[benchmark] target temperature for %d rooms: per-room calls %.1fms, bulk command %.1fms (x%.1f)%n",
+                ROOMS, singleNanos / 1e6, bulkNanos / 1e6, (double) singleNanos / bulkNanos);
+        assertThat(bulkNanos).isLessThan(singleNanos);
+    }
+}
@@ -0,0 +1,96 @@
+package org.example.temperaturecontrolsystem.service;
+
+import org.example.temperaturecontrolsystem.cache.CachingRoomInfoMapper;
+import org.example.temperaturecontrolsystem.dto.BulkAcCommandRequest;
+import org.example.temperaturecontrolsystem.dto.BulkAcCommandResponse;
+import org.example.temperaturecontrolsystem.support.TestRooms;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 批量指令按楼层、入住状态或房间列表选房，跳过已处于目标状态的房间，开关机经过调度器生效。
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class BulkAcCommandServiceTests {
+
+    // 楼层 460：46000..46019，单号已入住
+    private static final int FIRST_ROOM = 46_000;
+    private static final int ROOMS = 20;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private CachingRoomInfoMapper cachingRoomInfoMapper;
+    @Autowired
+    private BulkAcCommandService bulkAcCommandService;
+
+    private TestRooms rooms;
+
+    @BeforeEach
+    void seed() {
+        rooms = new TestRooms(jdbcTemplate, cachingRoomInfoMapper);
+        rooms.insert(FIRST_ROOM, ROOMS, roomId -> roomId % 2 == 1);
+    }
+
+    @AfterEach
+    void cleanUp() throws Exception {
+        BulkAcCommandRequest off = new BulkAcCommandRequest();
+        off.setFromRoom(FIRST_ROOM);
+        off.setToRoom(FIRST_ROOM + ROOMS - 1);
+        off.setAction("off");
+        bulkAcCommandService.execute(off);
+        rooms.awaitCount(0, "SELECT COUNT(*) FROM room_infos WHERE room_id >= ? AND room_id < ? AND ac_state <> 0",
+                FIRST_ROOM, FIRST_ROOM + ROOMS);
+        rooms.delete(FIRST_ROOM, ROOMS);
+    }
+
+    @Test
+    void targetForARangeSkipsRoomsAlreadyThere() {
+        cachingRoomInfoMapper.updateTargetTemperature(FIRST_ROOM, 22.0);
+
+        BulkAcCommandRequest request = new BulkAcCommandRequest();
+        request.setFromRoom(FIRST_ROOM);
+        request.setToRoom(FIRST_ROOM + ROOMS - 1);
+        request.setAction("target");
+        request.setTemperature(22.0);
+        BulkAcCommandResponse response = bulkAcCommandService.execute(request);
+
+        assertThat(response.getMatched()).isEqualTo(ROOMS);
+        assertThat(response.getApplied()).isEqualTo(ROOMS - 1);
+        assertThat(response.getUnchanged()).isEqualTo(1);
+        assertThat(response.getAppliedRoomIds()).doesNotContain(FIRST_ROOM);
+        assertThat(rooms.count("SELECT COUNT(*) FROM room_infos WHERE room_id >= ? AND target_tempera = 22.0", FIRST_ROOM))
+                .isEqualTo(ROOMS);
+        assertThat(rooms.count("SELECT COUNT(*) FROM op_records WHERE room_id >= ? AND op_type = 3", FIRST_ROOM))
+                .isEqualTo(ROOMS - 1);
+        assertThat(cachingRoomInfoMapper.findById(FIRST_ROOM + ROOMS - 1).orElseThrow().getTargetTempera()).isEqualTo(22.0);
+    }
+
+    @Test
+    void onAndOffGoThroughTheScheduler() throws Exception {
+        BulkAcCommandRequest on = new BulkAcCommandRequest();
+        on.setFloor(FIRST_ROOM / 100);
+        on.setOccupancy("vacant");
+        on.setAction("on");
+        BulkAcCommandResponse response = bulkAcCommandService.execute(on);
+        assertThat(response.getApplied()).isEqualTo(ROOMS / 2);
+        assertThat(response.getAppliedRoomIds()).allMatch(roomId -> roomId % 2 == 0);
+
+        rooms.awaitCount(ROOMS / 2, "SELECT COUNT(*) FROM room_infos WHERE room_id >= ? AND ac_state <> 0", FIRST_ROOM);
+
+        BulkAcCommandRequest off = new BulkAcCommandRequest();
+        off.setRoomIds(response.getAppliedRoomIds());
+        off.setAction("off");
+        assertThat(bulkAcCommandService.execute(off).getApplied()).isEqualTo(ROOMS / 2);
+
+        rooms.awaitCount(ROOMS, "SELECT COUNT(*) FROM room_infos WHERE room_id >= ? AND ac_state = 0", FIRST_ROOM);
+    }
+}
@@ -0,0 +1,111 @@
+package org.example.temperaturecontrolsystem.service;
+
+import org.example.temperaturecontrolsystem.cache.CachingRoomInfoMapper;
+import org.example.temperaturecontrolsystem.entity.OpRecord;
+import org.example.temperaturecontrolsystem.entity.RoomInfo;
+import org.example.temperaturecontrolsystem.mapper.OpRecordMapper;
+import org.example.temperaturecontrolsystem.support.StatementCounter;
+import org.example.temperaturecontrolsystem.support.TestRooms;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 比较原先"缓存里读旧值 → UPDATE → INSERT 操作记录"的写法与一条条件语句的语句数和耗时；条件语句的正确性见 AirConditionerServiceTests。
+ * 本地 H2 没有网络延迟，每条语句额外睡眠 SIMULATED_RTT_MILLIS 模拟到远程 MySQL 的一次往返。
+ * mvn test -Pbenchmark -Dtest=ConditionalAcCommandBenchmarkTests
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Tag("benchmark")
+@Import(StatementCounter.Config.class)
+class ConditionalAcCommandBenchmarkTests {
+
+    private static final int ROOM = 50_200;
+    private static final int COMMANDS = 200;
+    private static final long SIMULATED_RTT_MILLIS = 1;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private CachingRoomInfoMapper cachingRoomInfoMapper;
+    @Autowired
+    private OpRecordMapper opRecordMapper;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private AirConditionerService airConditionerService;
+
+    private TestRooms rooms;
+
+    @BeforeEach
+    void seed() {
+        rooms = new TestRooms(jdbcTemplate, cachingRoomInfoMapper);
+        rooms.insert(ROOM, true);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        StatementCounter.reset();
+        rooms.delete(ROOM, 1);
+    }
+
+    @Test
+    void conditionalStatementSavesRoundTrips() {
+        StatementCounter.simulateRoundTrips(SIMULATED_RTT_MILLIS);
+        StatementCounter.getAndReset();
+        long t0 = System.nanoTime();
+        for (int i = 0; i < COMMANDS; i++) {
+            double target = 20.0 + i % 2;
+            transactionTemplate.executeWithoutResult(status -> previousSetTemperature(ROOM, target));
+        }
+        long previousNanos = System.nanoTime() - t0;
+        int previousStatements = StatementCounter.getAndReset();
+
+        t0 = System.nanoTime();
+        for (int i = 0; i < COMMANDS; i++) {
+            airConditionerService.setTemperature(ROOM, 20.0 + i % 2);
+        }
+        long conditionalNanos = System.nanoTime() - t0;
+        int conditionalStatements = StatementCounter.getAndReset();
+
+        // 重复指令：条件语句本身就是唯一的一次往返，不更新也不写操作记录
+        airConditionerService.setTemperature(ROOM, 21.0);
+        int repeatStatements = StatementCounter.getAndReset();
+
+        System.out.printf("[benchmark] %d target-temperature commands with %dms simulated RTT per statement: " +
+                        "read+update+insert %.2f statements/command %.1fms total, conditional statement %.2f statements/command %.1fms total (x%.1f); " +
+                        "repeated command %d statement(s)%n",
+                COMMANDS, SIMULATED_RTT_MILLIS,
+                (double) previousStatements / COMMANDS, previousNanos / 1e6,
+                (double) conditionalStatements / COMMANDS, conditionalNanos / 1e6,
+                (double) previousNanos / conditionalNanos, repeatStatements);
+
+        assertThat(conditionalNanos).isLessThan(previousNanos);
+    }
+
+    /**
+     * 改动之前 AirConditionerService.setTemperature 的写法：缓存里读旧值、比较、更新、再单独写一条操作记录。
+     */
+    private void previousSetTemperature(int roomNumber, double newTemperature) {
+        RoomInfo room = cachingRoomInfoMapper.findById(roomNumber).orElseThrow();
+        double oldTemperature = room.getTargetTempera();
+        if (Math.abs(newTemperature - oldTemperature) < 0.01) {
+            return;
+        }
+        cachingRoomInfoMapper.updateTargetTemperature(roomNumber, newTemperature);
+        opRecordMapper.insert(new OpRecord(roomNumber, LocalDateTime.now(), AirConditionerService.OP_TYPE_TEMP,
+                String.valueOf(oldTemperature), String.valueOf(newTemperature)));
+    }
+}
@@ -0,0 +1,148 @@
+package org.example.temperaturecontrolsystem.service;
+
+import org.example.temperaturecontrolsystem.dto.RoomStateCounts;
+import org.example.temperaturecontrolsystem.dto.SettlementTotals;
+import org.example.temperaturecontrolsystem.entity.RoomInfo;
+import org.example.temperaturecontrolsystem.event.RoomStateChangedEvent;
+import org.example.temperaturecontrolsystem.mapper.RoomInfoMapper;
+import org.example.temperaturecontrolsystem.mapper.SchedulerMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 计数器随事件增量更新；核对查询期间有已提交、还没送达的事件时丢弃本轮结果，不会重复计数。
+ */
+class DashboardServiceTests {
+
+    /**
+     * 模拟的数据库计数：10 间房，已入住 occupied 间。
+     */
+    private long occupied = 3;
+    private final DashboardService dashboardService = new DashboardService(roomInfoMapper(), schedulerMapper(), 300);
+
+    @AfterEach
+    void endTransaction() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+    }
+
+    @Test
+    void eventsUpdateCountersIncrementally() {
+        assertThat(dashboardService.reconcile()).isTrue();
+        assertThat(dashboardService.getSummary().getOccupiedRooms()).isEqualTo(3);
+
+        // 不在事务中：立即处理
+        RoomStateChangedEvent checkIn = checkIn();
+        dashboardService.onPublished(checkIn);
+        dashboardService.onRoomStateChanged(checkIn);
+        occupied++;
+
+        assertThat(dashboardService.getSummary().getOccupiedRooms()).isEqualTo(4);
+        assertThat(dashboardService.reconcile()).isTrue();
+        assertThat(dashboardService.stats()).containsEntry("corrections", 0L);
+    }
+
+    @Test
+    void committedButUndeliveredEventSkipsTheRound() {
+        assertThat(dashboardService.reconcile()).isTrue();
+
+        beginTransaction();
+        RoomStateChangedEvent checkIn = checkIn();
+        dashboardService.onPublished(checkIn);
+        assertThat(dashboardService.stats()).containsEntry("pendingEvents", 1);
+
+        // 事务在核对的两条查询之间提交，查询结果已经包含这次入住，但提交后的监听器还没执行
+        occupied++;
+        assertThat(dashboardService.reconcile()).isFalse();
+        assertThat(dashboardService.getSummary().getOccupiedRooms()).isEqualTo(3);
+
+        dashboardService.onRoomStateChanged(checkIn);
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+        assertThat(dashboardService.stats()).containsEntry("pendingEvents", 0);
+        assertThat(dashboardService.getSummary().getOccupiedRooms()).isEqualTo(4);
+
+        assertThat(dashboardService.reconcile()).isTrue();
+        assertThat(dashboardService.getSummary().getOccupiedRooms()).isEqualTo(4);
+        assertThat(dashboardService.stats()).containsEntry("corrections", 0L).containsEntry("skippedReconciliations", 1L);
+    }
+
+    @Test
+    void rolledBackEventIsNoLongerPending() {
+        beginTransaction();
+        dashboardService.onPublished(checkIn());
+        assertThat(dashboardService.reconcile()).isFalse();
+
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+        assertThat(dashboardService.stats()).containsEntry("pendingEvents", 0);
+        assertThat(dashboardService.reconcile()).isTrue();
+        assertThat(dashboardService.getSummary().getOccupiedRooms()).isEqualTo(3);
+    }
+
+    @Test
+    void temperatureChangesAreNotTracked() {
+        beginTransaction();
+        RoomInfo before = room(1);
+        RoomInfo after = room(1);
+        after.setCurrentTempera(22.0);
+        dashboardService.onPublished(new RoomStateChangedEvent(101, before, after));
+        assertThat(dashboardService.stats()).containsEntry("pendingEvents", 0);
+    }
+
+    private static void beginTransaction() {
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+    }
+
+    /**
+     * 与事务管理器一样，先清理同步再回调 afterCompletion。
+     */
+    private static void complete(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+    }
+
+    private static RoomStateChangedEvent checkIn() {
+        return new RoomStateChangedEvent(101, room(0), room(1));
+    }
+
+    private static RoomInfo room(int state) {
+        RoomInfo room = new RoomInfo();
+        room.setRoomId(101);
+        room.setState(state);
+        room.setAcState(0);
+        room.setCurrentTempera(25.0);
+        return room;
+    }
+
+    private RoomInfoMapper roomInfoMapper() {
+        return (RoomInfoMapper) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{RoomInfoMapper.class},
+                (proxy, method, args) -> {
+                    if (!method.getName().equals("countRoomStates")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    return new RoomStateCounts(10, occupied, 0, 0);
+                });
+    }
+
+    private SchedulerMapper schedulerMapper() {
+        return (SchedulerMapper) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{SchedulerMapper.class},
+                (proxy, method, args) -> {
+                    if (!method.getName().equals("sumSettlementsEndedBetween")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    return new SettlementTotals(0, BigDecimal.ZERO);
+                });
+    }
+}
@@ -0,0 +1,115 @@
+package org.example.temperaturecontrolsystem.service;
+
+import org.example.temperaturecontrolsystem.cache.CachingRoomInfoMapper;
+import org.example.temperaturecontrolsystem.entity.SchedulerRequest;
+import org.example.temperaturecontrolsystem.mapper.OpRecordMapper;
+import org.example.temperaturecontrolsystem.mapper.SchedulerMapper;
+import org.example.temperaturecontrolsystem.support.StatementCounter;
+import org.example.temperaturecontrolsystem.support.TestRooms;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 关闭时逐个房间 turnOff 与调度器批量结算的语句数和耗时；批量结算的正确性见 SchedulerServiceTests。
+ * 关闭的是单独创建的 SchedulerService 实例，不影响上下文里的调度器。每条语句额外睡眠 SIMULATED_RTT_MILLIS 模拟远程 MySQL。
+ * mvn test -Pbenchmark -Dtest=GracefulShutdownBenchmarkTests
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Tag("benchmark")
+@Import(StatementCounter.Config.class)
+class GracefulShutdownBenchmarkTests {
+
+    private static final int FIRST_ROOM = 60_000;
+    private static final int ROOMS = 500;
+    private static final int PREVIOUS_FIRST_ROOM = FIRST_ROOM + ROOMS;
+    private static final long SIMULATED_RTT_MILLIS = 1;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private CachingRoomInfoMapper cachingRoomInfoMapper;
+    @Autowired
+    private SchedulerMapper schedulerMapper;
+    @Autowired
+    private OpRecordMapper opRecordMapper;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Autowired
+    private AirConditionerService airConditionerService;
+
+    private TestRooms rooms;
+
+    @BeforeEach
+    void seed() {
+        rooms = new TestRooms(jdbcTemplate, cachingRoomInfoMapper);
+        rooms.insert(FIRST_ROOM, 2 * ROOMS, roomId -> true);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        StatementCounter.reset();
+        rooms.delete(FIRST_ROOM, 2 * ROOMS);
+    }
+
+    @Test
+    void batchedSettlementOutpacesPerRoomTurnOff() throws Exception {
+        SchedulerService scheduler = new SchedulerService(schedulerMapper, cachingRoomInfoMapper, eventPublisher,
+                opRecordMapper, transactionTemplate, 0, 20);
+        scheduler.start();
+        List<SchedulerRequest> adds = new ArrayList<>();
+        for (int i = 0; i < ROOMS; i++) {
+            adds.add(new SchedulerRequest(FIRST_ROOM + i, "add", "medium"));
+        }
+        scheduler.submitBatch(adds).get(10, TimeUnit.SECONDS);
+        rooms.awaitCount(2, "SELECT COUNT(*) FROM room_infos WHERE room_id BETWEEN ? AND ? AND ac_state = 1",
+                FIRST_ROOM, PREVIOUS_FIRST_ROOM - 1);
+
+        StatementCounter.simulateRoundTrips(SIMULATED_RTT_MILLIS);
+        StatementCounter.getAndReset();
+        long t0 = System.nanoTime();
+        scheduler.stop();
+        long batchedNanos = System.nanoTime() - t0;
+        int batchedStatements = StatementCounter.getAndReset();
+        StatementCounter.simulateRoundTrips(0);
+
+        // 改动之前的 AirConditionerService.cleanupOnShutdown：逐个房间 turnOff，每个房间再发一条消息给调度器
+        jdbcTemplate.update("UPDATE room_infos SET ac_state = 2 WHERE room_id >= ?", PREVIOUS_FIRST_ROOM);
+        cachingRoomInfoMapper.warmUp();
+        StatementCounter.simulateRoundTrips(SIMULATED_RTT_MILLIS);
+        StatementCounter.getAndReset();
+        t0 = System.nanoTime();
+        List<CompletableFuture<Void>> deletes = new ArrayList<>();
+        for (Integer roomId : cachingRoomInfoMapper.findAllActiveAcRoomIds()) {
+            deletes.add(airConditionerService.turnOff(roomId));
+        }
+        CompletableFuture.allOf(deletes.toArray(CompletableFuture[]::new)).get(60, TimeUnit.SECONDS);
+        long previousNanos = System.nanoTime() - t0;
+        int previousStatements = StatementCounter.getAndReset();
+        StatementCounter.simulateRoundTrips(0);
+
+        System.out.printf("[benchmark] shutdown with %d active ACs (%dms simulated RTT per statement): " +
+                        "per-room turnOff %d statements %.1fms, batched settlement %d statements %.1fms (x%.1f)%n",
+                ROOMS, SIMULATED_RTT_MILLIS, previousStatements, previousNanos / 1e6,
+                batchedStatements, batchedNanos / 1e6, (double) previousNanos / batchedNanos);
+        assertThat(batchedNanos).isLessThan(previousNanos);
+    }
+}
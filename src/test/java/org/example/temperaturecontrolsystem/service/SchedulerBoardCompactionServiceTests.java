@@ -0,0 +1,92 @@
+package org.example.temperaturecontrolsystem.service;
+
+import org.example.temperaturecontrolsystem.mapper.RoomInfoMapper;
+import org.example.temperaturecontrolsystem.mapper.SchedulerMapper;
+import org.example.temperaturecontrolsystem.offheap.RoomStateTableMirror;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 压缩进度在重启后保留，时间窗扫过之后才结算的记录在下一轮被合并。
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class SchedulerBoardCompactionServiceTests {
+
+    private static final int ROOM = 42_001;
+    private static final int UNTOUCHED_ROOM = 42_002;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ApplicationContext context;
+
+    private final LocalDateTime hour = LocalDateTime.now().minusDays(3).truncatedTo(ChronoUnit.HOURS);
+
+    @BeforeEach
+    void clearWatermark() {
+        jdbcTemplate.update("DELETE FROM maintenance_watermark");
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM scheduler_board WHERE room_id IN (?, ?)", ROOM, UNTOUCHED_ROOM);
+        jdbcTemplate.update("DELETE FROM maintenance_watermark");
+    }
+
+    @Test
+    void resumesFromPersistedWatermarkAndMergesLateSettlements() {
+        insert(ROOM, hour.plusMinutes(5), hour.plusMinutes(10), "1.00");
+        insert(ROOM, hour.plusMinutes(10), hour.plusMinutes(20), "2.00");
+        insert(ROOM, hour.plusMinutes(20), hour.plusMinutes(30), "3.00");
+
+        assertThat(newService().compact()).isEqualTo(3);
+        assertThat(rows(ROOM)).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM maintenance_watermark", Integer.class)).isEqualTo(2);
+
+        // 已扫过的小时里：一条刚结算的长时间送风记录，和两条早就结算、但不在上一轮扫描范围内写入的记录
+        insert(ROOM, hour.plusMinutes(40), LocalDateTime.now(), "4.00");
+        insert(UNTOUCHED_ROOM, hour.plusMinutes(5), hour.plusMinutes(10), "1.00");
+        insert(UNTOUCHED_ROOM, hour.plusMinutes(10), hour.plusMinutes(20), "1.00");
+
+        // 新实例相当于重启：从表里读回进度，不会从 1970 年重新扫描
+        assertThat(newService().compact()).isEqualTo(2);
+        assertThat(rows(ROOM)).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT SUM(cost) FROM scheduler_board WHERE room_id = ?",
+                BigDecimal.class, ROOM)).isEqualByComparingTo("10.00");
+        assertThat(rows(UNTOUCHED_ROOM)).isEqualTo(2);
+    }
+
+    private SchedulerBoardCompactionService newService() {
+        return new SchedulerBoardCompactionService(
+                context.getBean(SchedulerMapper.class),
+                context.getBean(RoomInfoMapper.class),
+                context.getBean(RoomStateTableMirror.class),
+                context.getBean(TransactionTemplate.class),
+                context,
+                context.getBeanProvider(JdbcTemplate.class),
+                false, 24, 60);
+    }
+
+    private void insert(int roomId, LocalDateTime start, LocalDateTime end, String cost) {
+        jdbcTemplate.update("INSERT INTO scheduler_board (room_id, start_time, end_time, duration_seconds, speed, cost) " +
+                "VALUES (?, ?, ?, ?, 2, ?)", roomId, start, end, ChronoUnit.SECONDS.between(start, end), new BigDecimal(cost));
+    }
+
+    private int rows(int roomId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM scheduler_board WHERE room_id = ?", Integer.class, roomId);
+    }
+}
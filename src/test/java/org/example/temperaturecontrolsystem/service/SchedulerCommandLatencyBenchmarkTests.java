@@ -0,0 +1,72 @@
+package org.example.temperaturecontrolsystem.service;
+
+import org.example.temperaturecontrolsystem.cache.CachingRoomInfoMapper;
+import org.example.temperaturecontrolsystem.support.TestRooms;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 反复开关同一个房间的空调，等待每条指令被调度器处理、房间开始送风，统计端到端延迟分位数；
+ * future 的完成语义见 SchedulerServiceTests。
+ * mvn test -Pbenchmark -Dtest=SchedulerCommandLatencyBenchmarkTests
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Tag("benchmark")
+class SchedulerCommandLatencyBenchmarkTests {
+
+    private static final int ROOM = 50_100;
+    private static final int ROUNDS = 10;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private CachingRoomInfoMapper cachingRoomInfoMapper;
+    @Autowired
+    private AirConditionerService airConditionerService;
+    @Autowired
+    private SchedulerService schedulerService;
+
+    private TestRooms rooms;
+
+    @BeforeEach
+    void seed() {
+        rooms = new TestRooms(jdbcTemplate, cachingRoomInfoMapper);
+        rooms.insert(ROOM, true);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        rooms.delete(ROOM, 1);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void commandLatencyPercentiles() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            airConditionerService.turnOn(ROOM).get(5, TimeUnit.SECONDS);
+            schedulerService.whenServed(ROOM).get(5, TimeUnit.SECONDS);
+            airConditionerService.turnOff(ROOM).get(5, TimeUnit.SECONDS);
+        }
+
+        Map<String, Object> stats = schedulerService.commandStats();
+        Map<String, Object> toApplied = (Map<String, Object>) stats.get("commandToApplied");
+        Map<String, Object> toService = (Map<String, Object>) stats.get("commandToService");
+        System.out.printf("[benchmark] %d on/off rounds: command->applied p50 %sus p99 %sus max %sus; " +
+                        "command->service p50 %sus p99 %sus max %sus (scheduler ticks every 1s)%n",
+                ROUNDS, toApplied.get("p50Micros"), toApplied.get("p99Micros"), toApplied.get("maxMicros"),
+                toService.get("p50Micros"), toService.get("p99Micros"), toService.get("maxMicros"));
+        assertThat(((Number) toService.get("count")).longValue()).isGreaterThanOrEqualTo(ROUNDS);
+    }
+}
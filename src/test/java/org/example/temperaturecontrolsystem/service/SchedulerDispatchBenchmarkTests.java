@@ -0,0 +1,105 @@
+package org.example.temperaturecontrolsystem.service;
+
+import org.example.temperaturecontrolsystem.cache.CachingRoomInfoMapper;
+import org.example.temperaturecontrolsystem.entity.SchedulerRequest;
+import org.example.temperaturecontrolsystem.support.TestRooms;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 事务内的调度器消息在提交后合并投递：比较一个事务里开 ROOMS 台空调时逐条提交与提交后一次批量投递的耗时。
+ * 回滚和退房时的投递语义见 SchedulerDispatcherTests。
+ * mvn test -Pbenchmark -Dtest=SchedulerDispatchBenchmarkTests
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Tag("benchmark")
+class SchedulerDispatchBenchmarkTests {
+
+    private static final int FIRST_ROOM = 51_000;
+    private static final int ROOMS = 300;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private CachingRoomInfoMapper cachingRoomInfoMapper;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private AirConditionerService airConditionerService;
+    @Autowired
+    private SchedulerService schedulerService;
+    @Autowired
+    private SchedulerDispatcher schedulerDispatcher;
+
+    private TestRooms rooms;
+
+    @BeforeEach
+    void seed() {
+        rooms = new TestRooms(jdbcTemplate, cachingRoomInfoMapper);
+        rooms.insert(FIRST_ROOM, 2 * ROOMS, roomId -> true);
+    }
+
+    @AfterEach
+    void cleanUp() throws Exception {
+        List<SchedulerRequest> deletes = new ArrayList<>();
+        for (int i = 0; i < 2 * ROOMS; i++) {
+            deletes.add(new SchedulerRequest(FIRST_ROOM + i, "delete", null));
+        }
+        schedulerService.submitBatch(deletes).get(10, TimeUnit.SECONDS);
+        rooms.delete(FIRST_ROOM, 2 * ROOMS);
+    }
+
+    @Test
+    void messagesAreDeliveredAsOneBatchAfterCommit() throws Exception {
+        // 改动前：事务中每条指令直接提交给调度器，一条消息一次加锁
+        List<CompletableFuture<Void>> direct = new ArrayList<>();
+        long t0 = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < ROOMS; i++) {
+                cachingRoomInfoMapper.turnAcOnLogged(FIRST_ROOM + i, LocalDateTime.now());
+                direct.add(schedulerService.submitMsg(new SchedulerRequest(FIRST_ROOM + i, "add", "medium")));
+            }
+        });
+        CompletableFuture.allOf(direct.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+        long directNanos = System.nanoTime() - t0;
+
+        Map<String, Object> before = schedulerDispatcher.stats();
+        List<CompletableFuture<Void>> dispatched = new ArrayList<>();
+        t0 = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = ROOMS; i < 2 * ROOMS; i++) {
+                dispatched.add(airConditionerService.turnOn(FIRST_ROOM + i));
+            }
+        });
+        CompletableFuture.allOf(dispatched.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+        long batchedNanos = System.nanoTime() - t0;
+        Map<String, Object> after = schedulerDispatcher.stats();
+
+        System.out.printf("[benchmark] %d turn-on commands in one transaction: submitted one by one %.1fms (%d messages), " +
+                        "dispatched after commit %.1fms (%d batch) (x%.1f)%n",
+                ROOMS, directNanos / 1e6, ROOMS, batchedNanos / 1e6, delta(before, after, "batches"),
+                (double) directNanos / batchedNanos);
+        assertThat(delta(before, after, "batches")).isEqualTo(1);
+    }
+
+    private static long delta(Map<String, Object> before, Map<String, Object> after, String key) {
+        return ((Number) after.get(key)).longValue() - ((Number) before.get(key)).longValue();
+    }
+}
@@ -0,0 +1,151 @@
+package org.example.temperaturecontrolsystem.service;
+
+import org.example.temperaturecontrolsystem.cache.CachingRoomInfoMapper;
+import org.example.temperaturecontrolsystem.dto.CheckOutRequest;
+import org.example.temperaturecontrolsystem.entity.SchedulerRequest;
+import org.example.temperaturecontrolsystem.exception.SchedulerBatchException;
+import org.example.temperaturecontrolsystem.support.TestRooms;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 事务内的调度器消息在提交后合并成一批投递，回滚时丢弃；退房时重复的 delete 被合并。
+ * 批量投递中某条消息处理失败时，只有这条消息的调用方收到异常，其余消息照常生效。
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class SchedulerDispatcherTests {
+
+    private static final int FIRST_ROOM = 45_001;
+    private static final int ROOMS = 8;
+    private static final int ROOM = FIRST_ROOM;
+    private static final int BROKEN_ROOM = FIRST_ROOM + 1;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private CachingRoomInfoMapper cachingRoomInfoMapper;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private SchedulerService schedulerService;
+    @Autowired
+    private SchedulerDispatcher schedulerDispatcher;
+    @Autowired
+    private AirConditionerService airConditionerService;
+    @Autowired
+    private CheckInOutService checkInOutService;
+
+    private TestRooms rooms;
+
+    @BeforeEach
+    void seed() {
+        rooms = new TestRooms(jdbcTemplate, cachingRoomInfoMapper);
+        rooms.insert(FIRST_ROOM, ROOMS, roomId -> true);
+    }
+
+    @AfterEach
+    void cleanUp() throws Exception {
+        List<SchedulerRequest> deletes = new ArrayList<>();
+        for (int i = 0; i < ROOMS; i++) {
+            deletes.add(new SchedulerRequest(FIRST_ROOM + i, "delete", null));
+        }
+        schedulerService.submitBatch(deletes).get(10, TimeUnit.SECONDS);
+        rooms.delete(FIRST_ROOM, ROOMS);
+    }
+
+    @Test
+    void messagesAreDeliveredAsOneBatchAfterCommit() throws Exception {
+        Map<String, Object> before = schedulerDispatcher.stats();
+        List<CompletableFuture<Void>> dispatched = new ArrayList<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 2; i < ROOMS; i++) {
+                dispatched.add(airConditionerService.turnOn(FIRST_ROOM + i));
+            }
+            // 提交之前调度器还看不到这些消息
+            assertThat(dispatched).noneMatch(CompletableFuture::isDone);
+        });
+        CompletableFuture.allOf(dispatched.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+        Map<String, Object> after = schedulerDispatcher.stats();
+
+        assertThat(delta(before, after, "batches")).isEqualTo(1);
+        assertThat(rooms.count("SELECT COUNT(*) FROM room_infos WHERE room_id BETWEEN ? AND ? AND ac_state <> 0",
+                FIRST_ROOM + 2, FIRST_ROOM + ROOMS - 1)).isEqualTo(ROOMS - 2);
+    }
+
+    @Test
+    void rollbackDropsMessagesAndCheckOutSendsOneDelete() throws Exception {
+        List<CompletableFuture<Void>> rolledBack = new ArrayList<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            rolledBack.add(airConditionerService.turnOn(ROOM));
+            status.setRollbackOnly();
+        });
+        assertThatThrownBy(() -> rolledBack.get(0).get(1, TimeUnit.SECONDS)).hasMessageContaining("rolled back");
+        assertThat(acState(ROOM)).isZero();
+
+        airConditionerService.turnOn(ROOM).get(5, TimeUnit.SECONDS);
+        Map<String, Object> before = schedulerDispatcher.stats();
+        CheckOutRequest checkOut = new CheckOutRequest();
+        checkOut.setRoomNumber(ROOM);
+        checkInOutService.checkOut(checkOut);
+        Map<String, Object> after = schedulerDispatcher.stats();
+
+        assertThat(delta(before, after, "dispatched")).isEqualTo(2);
+        assertThat(delta(before, after, "delivered")).isEqualTo(1);
+    }
+
+    @Test
+    void failedItemFailsOnlyItsOwnCaller() throws Exception {
+        // 没有风速的 add 在调度器里处理失败
+        List<CompletableFuture<Void>> futures = transactionTemplate.execute(status -> List.of(
+                schedulerDispatcher.dispatch(new SchedulerRequest(ROOM, "add", "medium")),
+                schedulerDispatcher.dispatch(new SchedulerRequest(BROKEN_ROOM, "add", null))));
+
+        futures.get(0).get(10, TimeUnit.SECONDS);
+        assertThatThrownBy(() -> futures.get(1).get(10, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(NullPointerException.class);
+        assertThat(acState(ROOM)).isNotZero();
+        assertThat(acState(BROKEN_ROOM)).isZero();
+    }
+
+    @Test
+    void submittedBatchCompletesExceptionallyWithPerItemFailures() {
+        CompletableFuture<Void> applied = schedulerService.submitBatch(List.of(
+                new SchedulerRequest(BROKEN_ROOM, "add", null),
+                new SchedulerRequest(ROOM, "add", "high")));
+
+        assertThatThrownBy(() -> applied.get(10, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .cause()
+                .isInstanceOfSatisfying(SchedulerBatchException.class, failure -> {
+                    assertThat(failure.failures()).containsOnlyKeys(0);
+                    assertThat(failure.failureAt(1)).isNull();
+                });
+        assertThat(acState(ROOM)).isNotZero();
+    }
+
+    private int acState(int roomId) {
+        return rooms.count("SELECT ac_state FROM room_infos WHERE room_id = ?", roomId);
+    }
+
+    private static long delta(Map<String, Object> before, Map<String, Object> after, String key) {
+        return ((Number) after.get(key)).longValue() - ((Number) before.get(key)).longValue();
+    }
+}
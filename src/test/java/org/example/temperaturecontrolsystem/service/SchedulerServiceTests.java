@@ -0,0 +1,146 @@
+package org.example.temperaturecontrolsystem.service;
+
+import org.example.temperaturecontrolsystem.cache.CachingRoomInfoMapper;
+import org.example.temperaturecontrolsystem.entity.SchedulerRequest;
+import org.example.temperaturecontrolsystem.mapper.OpRecordMapper;
+import org.example.temperaturecontrolsystem.mapper.SchedulerMapper;
+import org.example.temperaturecontrolsystem.support.StatementCounter;
+import org.example.temperaturecontrolsystem.support.TestRooms;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 指令完成的 future、等待房间开始送风的 future 的生命周期，以及关闭调度器时的批量结算。
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(StatementCounter.Config.class)
+class SchedulerServiceTests {
+
+    private static final int ROOM = 43_001;
+    // 关闭测试用单独的调度器实例和房间段 43100..43119
+    private static final int FIRST_SHUTDOWN_ROOM = 43_100;
+    private static final int SHUTDOWN_ROOMS = 20;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private CachingRoomInfoMapper cachingRoomInfoMapper;
+    @Autowired
+    private SchedulerMapper schedulerMapper;
+    @Autowired
+    private OpRecordMapper opRecordMapper;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Autowired
+    private AirConditionerService airConditionerService;
+    @Autowired
+    private SchedulerService schedulerService;
+
+    private TestRooms rooms;
+
+    @BeforeEach
+    void seed() {
+        rooms = new TestRooms(jdbcTemplate, cachingRoomInfoMapper);
+        rooms.insert(ROOM, true);
+        rooms.insert(FIRST_SHUTDOWN_ROOM, SHUTDOWN_ROOMS, roomId -> true);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        StatementCounter.reset();
+        rooms.delete(ROOM, 1);
+        rooms.delete(FIRST_SHUTDOWN_ROOM, SHUTDOWN_ROOMS);
+    }
+
+    @Test
+    void commandsCompleteWhenAppliedAndServed() throws Exception {
+        for (int round = 0; round < 3; round++) {
+            airConditionerService.turnOn(ROOM).get(5, TimeUnit.SECONDS);
+            schedulerService.whenServed(ROOM).get(5, TimeUnit.SECONDS);
+            assertThat(rooms.count("SELECT ac_state FROM room_infos WHERE room_id = ?", ROOM)).isEqualTo(1);
+
+            airConditionerService.turnOff(ROOM).get(5, TimeUnit.SECONDS);
+            assertThat(rooms.count("SELECT ac_state FROM room_infos WHERE room_id = ?", ROOM)).isZero();
+        }
+
+        // 关机后等待送风的 future 完成，不会一直挂着
+        CompletableFuture<Void> served = schedulerService.whenServed(ROOM);
+        airConditionerService.turnOn(ROOM).get(5, TimeUnit.SECONDS);
+        airConditionerService.turnOff(ROOM).get(5, TimeUnit.SECONDS);
+        assertThat(served).isDone();
+    }
+
+    @Test
+    void cancelledServiceWaiterIsForgotten() {
+        int before = serviceWaiters();
+        // 空调关着，房间永远不会开始送风
+        CompletableFuture<Void> first = schedulerService.whenServed(ROOM);
+        CompletableFuture<Void> second = schedulerService.whenServed(ROOM);
+        assertThat(serviceWaiters()).isEqualTo(before + 2);
+
+        first.cancel(false);
+        assertThat(serviceWaiters()).isEqualTo(before + 1);
+        assertThat(second).isNotDone();
+
+        second.cancel(false);
+        assertThat(serviceWaiters()).isEqualTo(before);
+    }
+
+    @Test
+    void stopSettlesRunningSlotsInOneBatch() throws Exception {
+        SchedulerService scheduler = new SchedulerService(schedulerMapper, cachingRoomInfoMapper, eventPublisher,
+                opRecordMapper, transactionTemplate, 0, 20);
+        scheduler.start();
+        List<SchedulerRequest> adds = new ArrayList<>();
+        for (int i = 0; i < SHUTDOWN_ROOMS; i++) {
+            adds.add(new SchedulerRequest(FIRST_SHUTDOWN_ROOM + i, "add", "medium"));
+        }
+        scheduler.submitBatch(adds).get(10, TimeUnit.SECONDS);
+        rooms.awaitCount(2, "SELECT COUNT(*) FROM room_infos WHERE room_id BETWEEN ? AND ? AND ac_state = 1",
+                FIRST_SHUTDOWN_ROOM, FIRST_SHUTDOWN_ROOM + SHUTDOWN_ROOMS - 1);
+        CompletableFuture<Void> neverServed = scheduler.whenServed(FIRST_SHUTDOWN_ROOM + SHUTDOWN_ROOMS - 1);
+        // 关闭前刚提交、尚在队列中的消息也要处理完
+        CompletableFuture<Void> lastUpdate = scheduler.submitMsg(
+                new SchedulerRequest(FIRST_SHUTDOWN_ROOM + SHUTDOWN_ROOMS - 2, "update", "high"));
+
+        StatementCounter.getAndReset();
+        scheduler.stop();
+        int statements = StatementCounter.getAndReset();
+
+        assertThat(lastUpdate).isCompleted();
+        assertThat(neverServed).isCompletedExceptionally();
+        assertThat(scheduler.isAcceptingCommands()).isFalse();
+        assertThat(scheduler.submitMsg(new SchedulerRequest(FIRST_SHUTDOWN_ROOM, "add", "low"))).isCompletedExceptionally();
+        // 正在送风的 2 个房间按同一个结束时间计费，其余房间全部关机并记录操作
+        assertThat(rooms.count("SELECT COUNT(*) FROM scheduler_board WHERE room_id >= ?", FIRST_SHUTDOWN_ROOM)).isEqualTo(2);
+        assertThat(rooms.count("SELECT COUNT(DISTINCT end_time) FROM scheduler_board WHERE room_id >= ?", FIRST_SHUTDOWN_ROOM))
+                .isEqualTo(1);
+        assertThat(rooms.count("SELECT COUNT(*) FROM room_infos WHERE room_id >= ? AND ac_state <> 0", FIRST_SHUTDOWN_ROOM))
+                .isZero();
+        assertThat(rooms.count("SELECT COUNT(*) FROM op_records WHERE room_id >= ? AND op_type = 2", FIRST_SHUTDOWN_ROOM))
+                .isEqualTo(SHUTDOWN_ROOMS);
+        assertThat(statements).isLessThanOrEqualTo(4);
+    }
+
+    private int serviceWaiters() {
+        return (Integer) schedulerService.commandStats().get("serviceWaiters");
+    }
+}
@@ -0,0 +1,75 @@
+package org.example.temperaturecontrolsystem.service;
+
+import org.example.temperaturecontrolsystem.cache.CachingRoomInfoMapper;
+import org.example.temperaturecontrolsystem.support.TestRooms;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 正在送风的房间连续点按 5 次风速键：每次都立即记录操作，但调度器只停机、结算、重新排队一次。
+ */
+@SpringBootTest(properties = "scheduler.speed-debounce-millis=300")
+@ActiveProfiles("test")
+class SpeedDebounceTests {
+
+    private static final int ROOM = 47_001;
+    private static final List<String> TAPS = List.of("high", "low", "high", "medium", "high");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private CachingRoomInfoMapper cachingRoomInfoMapper;
+    @Autowired
+    private AirConditionerService airConditionerService;
+    @Autowired
+    private SchedulerService schedulerService;
+
+    private TestRooms rooms;
+
+    @BeforeEach
+    void seed() {
+        rooms = new TestRooms(jdbcTemplate, cachingRoomInfoMapper);
+        rooms.insert(ROOM, true);
+    }
+
+    @AfterEach
+    void cleanUp() throws Exception {
+        airConditionerService.turnOff(ROOM);
+        rooms.awaitCount(1, "SELECT COUNT(*) FROM room_infos WHERE room_id = ? AND ac_state = 0", ROOM);
+        rooms.delete(ROOM, 1);
+    }
+
+    @Test
+    void rapidSpeedChangesStopTheServiceOnce() throws Exception {
+        // turnOn 立即把 ac_state 写成 1，要等调度器真正开始送风，否则调整风速时房间还在等待队列里
+        airConditionerService.turnOn(ROOM);
+        schedulerService.whenServed(ROOM).get(10, TimeUnit.SECONDS);
+        long mergedBefore = (Long) schedulerService.speedDebounceStats().get("merged");
+
+        for (String speed : TAPS) {
+            airConditionerService.setSpeed(ROOM, speed);
+            Thread.sleep(50);
+        }
+        // 每次调整都立即落库并记录操作
+        assertThat(rooms.count("SELECT COUNT(*) FROM op_records WHERE room_id = ? AND op_type = 4", ROOM)).isEqualTo(TAPS.size());
+        assertThat(jdbcTemplate.queryForObject("SELECT current_speed FROM room_infos WHERE room_id = ?", String.class, ROOM))
+                .isEqualTo("high");
+
+        // 窗口结束后最终风速生效：结算一次旧风速的服务，再以新风速重新开始
+        rooms.awaitCount(1, "SELECT COUNT(*) FROM scheduler_board WHERE room_id = ?", ROOM);
+        rooms.awaitCount(1, "SELECT COUNT(*) FROM room_infos WHERE room_id = ? AND ac_state = 1", ROOM);
+        Thread.sleep(500);
+        assertThat(rooms.count("SELECT COUNT(*) FROM scheduler_board WHERE room_id = ?", ROOM)).isEqualTo(1);
+        assertThat((Long) schedulerService.speedDebounceStats().get("merged") - mergedBefore).isEqualTo(TAPS.size() - 1);
+    }
+}
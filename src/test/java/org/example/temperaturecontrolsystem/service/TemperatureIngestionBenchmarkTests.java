@@ -0,0 +1,110 @@
+package org.example.temperaturecontrolsystem.service;
+
+import org.example.temperaturecontrolsystem.cache.CachingRoomInfoMapper;
+import org.example.temperaturecontrolsystem.dto.BulkTemperatureResponse;
+import org.example.temperaturecontrolsystem.dto.TemperatureReading;
+import org.example.temperaturecontrolsystem.support.StatementCounter;
+import org.example.temperaturecontrolsystem.support.TestRooms;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 比较逐条 PUT 路径（每条读数一条 UPDATE）与批量上报路径的语句数和吞吐。
+ * <p>
+ * 内存 H2 没有网络往返，逐条路径在这里并不慢，所以每条语句额外睡眠 SIMULATED_RTT_MILLIS 模拟远程 MySQL。
+ * 吞吐只打印，不作为构建是否通过的条件；分块语句数的检查见 TemperatureIngestionServiceTests。
+ * mvn test -Pbenchmark -Dtest=TemperatureIngestionBenchmarkTests
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Tag("benchmark")
+@Import(StatementCounter.Config.class)
+class TemperatureIngestionBenchmarkTests {
+
+    private static final int FIRST_ROOM = 10_000;
+    private static final int ROOMS = 2_000;
+    private static final int ROUNDS = 3;
+    private static final long SIMULATED_RTT_MILLIS = 1;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private CachingRoomInfoMapper cachingRoomInfoMapper;
+    @Autowired
+    private RoomStateService roomStateService;
+    @Autowired
+    private TemperatureIngestionService temperatureIngestionService;
+
+    private TestRooms rooms;
+
+    @BeforeEach
+    void seed() {
+        rooms = new TestRooms(jdbcTemplate, cachingRoomInfoMapper);
+        rooms.insert(FIRST_ROOM, ROOMS, roomId -> false);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        StatementCounter.reset();
+        rooms.delete(FIRST_ROOM, ROOMS);
+    }
+
+    @Test
+    void bulkIngestionUsesChunkedStatements() {
+        long singleNanos = Long.MAX_VALUE;
+        long bulkNanos = Long.MAX_VALUE;
+        int singleStatements = 0;
+        int bulkStatements = 0;
+
+        for (int round = 0; round < ROUNDS; round++) {
+            List<TemperatureReading> readings = readings(20.0 + round);
+            StatementCounter.simulateRoundTrips(SIMULATED_RTT_MILLIS);
+            StatementCounter.getAndReset();
+            long t0 = System.nanoTime();
+            for (TemperatureReading reading : readings) {
+                roomStateService.updateCurrentTemperature(reading.getRoomId(), reading.getTemperature());
+            }
+            long t1 = System.nanoTime();
+            singleStatements = StatementCounter.getAndReset();
+
+            readings = readings(30.0 + round);
+            t1 = System.nanoTime();
+            BulkTemperatureResponse response = temperatureIngestionService.ingest(readings);
+            long t2 = System.nanoTime();
+            bulkStatements = StatementCounter.getAndReset();
+            StatementCounter.simulateRoundTrips(0);
+
+            assertThat(response.getApplied()).isEqualTo(ROOMS);
+            singleNanos = Math.min(singleNanos, t1 - t0);
+            bulkNanos = Math.min(bulkNanos, t2 - t1);
+        }
+
+        System.out.printf("[benchmark] %d readings (%dms simulated RTT per statement): single-reading path %d statements " +
+                        "%.0f readings/s, bulk path %d statements %.0f readings/s (x%.1f)%n",
+                ROOMS, SIMULATED_RTT_MILLIS, singleStatements, ROOMS / (singleNanos / 1e9),
+                bulkStatements, ROOMS / (bulkNanos / 1e9), (double) singleNanos / bulkNanos);
+        assertThat(bulkNanos).isLessThan(singleNanos);
+    }
+
+    private static List<TemperatureReading> readings(double temperature) {
+        List<TemperatureReading> readings = new ArrayList<>(ROOMS);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < ROOMS; i++) {
+            readings.add(new TemperatureReading(FIRST_ROOM + i, temperature, now));
+        }
+        return readings;
+    }
+}
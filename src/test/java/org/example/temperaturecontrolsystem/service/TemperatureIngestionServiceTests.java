@@ -0,0 +1,108 @@
+package org.example.temperaturecontrolsystem.service;
+
+import org.example.temperaturecontrolsystem.cache.CachingRoomInfoMapper;
+import org.example.temperaturecontrolsystem.dto.BulkTemperatureResponse;
+import org.example.temperaturecontrolsystem.dto.TemperatureReading;
+import org.example.temperaturecontrolsystem.support.StatementCounter;
+import org.example.temperaturecontrolsystem.support.TestRooms;
+import org.example.temperaturecontrolsystem.timeseries.TemperatureSeriesStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 批量温度上报：按块写库的语句数，以及写入温度历史的顺序和时间戳检查。
+ */
+@SpringBootTest(properties = "room.temperature.bulk-chunk-size=" + TemperatureIngestionServiceTests.CHUNK_SIZE)
+@ActiveProfiles("test")
+@Import(StatementCounter.Config.class)
+class TemperatureIngestionServiceTests {
+
+    // 温度历史在 target/test-timeseries 中跨测试运行保留，每次换一个房间，避免与上一次运行写入的点冲突
+    private static final int ROOM = 41_000 + ThreadLocalRandom.current().nextInt(1_000);
+    private static final int FIRST_BULK_ROOM = 42_000;
+    private static final int BULK_ROOMS = 25;
+    static final int CHUNK_SIZE = 10;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private CachingRoomInfoMapper cachingRoomInfoMapper;
+    @Autowired
+    private TemperatureIngestionService temperatureIngestionService;
+    @Autowired
+    private TemperatureSeriesStore temperatureSeriesStore;
+
+    private TestRooms rooms;
+
+    @BeforeEach
+    void seed() {
+        rooms = new TestRooms(jdbcTemplate, cachingRoomInfoMapper);
+        rooms.insert(ROOM, false);
+        rooms.insert(FIRST_BULK_ROOM, BULK_ROOMS, roomId -> false);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        StatementCounter.reset();
+        rooms.delete(ROOM, 1);
+        rooms.delete(FIRST_BULK_ROOM, BULK_ROOMS);
+    }
+
+    @Test
+    void bulkIngestionUsesChunkedStatements() {
+        List<TemperatureReading> readings = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < BULK_ROOMS; i++) {
+            readings.add(new TemperatureReading(FIRST_BULK_ROOM + i, 30.0, now));
+        }
+        readings.add(new TemperatureReading(FIRST_BULK_ROOM - 1, 22.0, null));
+
+        StatementCounter.getAndReset();
+        BulkTemperatureResponse response = temperatureIngestionService.ingest(readings);
+        int statements = StatementCounter.getAndReset();
+
+        assertThat(response.getApplied()).isEqualTo(BULK_ROOMS);
+        assertThat(response.getRejected()).singleElement()
+                .satisfies(rejection -> assertThat(rejection.getRoomId()).isEqualTo(FIRST_BULK_ROOM - 1));
+        assertThat(rooms.count("SELECT COUNT(*) FROM room_infos WHERE room_id >= ? AND current_tempera = 30.0", FIRST_BULK_ROOM))
+                .isEqualTo(BULK_ROOMS);
+        assertThat(statements).isEqualTo((BULK_ROOMS + CHUNK_SIZE - 1) / CHUNK_SIZE);
+    }
+
+    @Test
+    void unsortedBatchKeepsEveryPointAndFutureTimestampsAreRejected() {
+        LocalDateTime base = LocalDateTime.now().minusMinutes(10);
+        BulkTemperatureResponse response = temperatureIngestionService.ingest(List.of(
+                new TemperatureReading(ROOM, 23.0, base.plusSeconds(30)),
+                new TemperatureReading(ROOM, 21.0, base.plusSeconds(10)),
+                new TemperatureReading(ROOM, 40.0, base.plusDays(1)),
+                new TemperatureReading(ROOM, 22.0, base.plusSeconds(20))));
+
+        assertThat(response.getRejected()).singleElement()
+                .satisfies(rejection -> assertThat(rejection.getReason()).contains("future"));
+        assertThat(response.getApplied()).isEqualTo(1);
+        assertThat(cachingRoomInfoMapper.findById(ROOM).orElseThrow().getCurrentTempera()).isEqualTo(23.0);
+
+        long from = base.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        List<TemperatureSeriesStore.Sample> samples = temperatureSeriesStore.query(ROOM, from, from + 3_600_000, 0);
+        assertThat(samples).extracting(TemperatureSeriesStore.Sample::value).containsExactly(21.0, 22.0, 23.0);
+
+        // 之后正常时间的读数不会被当成乱序
+        temperatureIngestionService.ingest(List.of(new TemperatureReading(ROOM, 24.0, base.plusSeconds(40))));
+        assertThat(temperatureSeriesStore.query(ROOM, from, from + 3_600_000, 0)).hasSize(4);
+    }
+}
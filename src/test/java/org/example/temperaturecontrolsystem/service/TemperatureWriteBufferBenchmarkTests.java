@@ -0,0 +1,78 @@
+package org.example.temperaturecontrolsystem.service;
+
+import org.example.temperaturecontrolsystem.cache.CachingRoomInfoMapper;
+import org.example.temperaturecontrolsystem.support.TestRooms;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 模拟传感器以高频上报带噪声的温度，统计经过死区过滤和合并之后实际写库的行数；过滤和合并的语义见 TemperatureWriteBufferTests。
+ * mvn test -Pbenchmark -Dtest=TemperatureWriteBufferBenchmarkTests
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Tag("benchmark")
+class TemperatureWriteBufferBenchmarkTests {
+
+    private static final int FIRST_ROOM = 20_000;
+    private static final int ROOMS = 200;
+    private static final int TICKS = 100;
+    private static final int READINGS_PER_FLUSH = 4;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private CachingRoomInfoMapper cachingRoomInfoMapper;
+    @Autowired
+    private TemperatureWriteBuffer temperatureWriteBuffer;
+
+    private TestRooms rooms;
+
+    @BeforeEach
+    void seed() {
+        rooms = new TestRooms(jdbcTemplate, cachingRoomInfoMapper);
+        rooms.insert(FIRST_ROOM, ROOMS, roomId -> false);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        rooms.delete(FIRST_ROOM, ROOMS);
+    }
+
+    @Test
+    void deadBandAndCoalescingCutDatabaseWrites() {
+        Random random = new Random(7);
+        double[] drift = new double[ROOMS];
+        long received = 0;
+        long written = 0;
+
+        for (int tick = 0; tick < TICKS; tick++) {
+            for (int i = 0; i < ROOMS; i++) {
+                // 缓慢漂移 + 0.05°C 量级的传感器噪声
+                drift[i] += (random.nextDouble() - 0.5) * 0.02;
+                double reading = Math.round((25.0 + drift[i] + random.nextGaussian() * 0.05) * 100) / 100.0;
+                temperatureWriteBuffer.offer(FIRST_ROOM + i, reading);
+                received++;
+            }
+            if ((tick + 1) % READINGS_PER_FLUSH == 0) {
+                written += temperatureWriteBuffer.flush();
+            }
+        }
+        written += temperatureWriteBuffer.flush();
+
+        System.out.printf("[benchmark] %d readings from %d rooms: %d rows written (x%.1f fewer writes than write-per-reading)%n",
+                received, ROOMS, written, (double) received / Math.max(written, 1));
+
+        assertThat(received).isGreaterThanOrEqualTo(written * 10);
+    }
+}
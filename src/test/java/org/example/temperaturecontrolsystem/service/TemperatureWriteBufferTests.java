@@ -0,0 +1,122 @@
+package org.example.temperaturecontrolsystem.service;
+
+import org.example.temperaturecontrolsystem.cache.CachingRoomInfoMapper;
+import org.example.temperaturecontrolsystem.cache.RoomInfoCache;
+import org.example.temperaturecontrolsystem.mapper.RoomInfoMapper;
+import org.example.temperaturecontrolsystem.support.TestRooms;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 温度写缓冲：死区过滤与合并，第一次见到房间时的死区判断，以及缓存淘汰、重新加载前把待写值落库。
+ * test profile 关闭了缓冲，这里单独创建一个启用的实例，定时落库间隔设得很长，只靠显式调用和缓存回调写库。
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class TemperatureWriteBufferTests {
+
+    private static final int ROOM = 44_101;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private CachingRoomInfoMapper cachingRoomInfoMapper;
+    @Autowired
+    private RoomInfoCache roomInfoCache;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private ApplicationContext context;
+
+    private TestRooms rooms;
+    private TemperatureWriteBuffer buffer;
+
+    @BeforeEach
+    void seed() {
+        rooms = new TestRooms(jdbcTemplate, cachingRoomInfoMapper);
+        rooms.insert(ROOM, true);
+        buffer = new TemperatureWriteBuffer(context.getBean("roomInfoMapper", RoomInfoMapper.class), roomInfoCache,
+                transactionTemplate, context, true, 0.2, 300, 3_600_000, 500);
+        buffer.start();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        buffer.stop();
+        roomInfoCache.setUnpersistedWriter(roomId -> { });
+        rooms.delete(ROOM, 1);
+    }
+
+    @Test
+    void readingsAreCoalescedAndFilteredByDeadBand() {
+        buffer.offer(ROOM, 26.0);
+        buffer.offer(ROOM, 26.1);
+        buffer.offer(ROOM, 26.15);
+        assertThat(persistedTemperature()).isEqualTo(25.0);
+        assertThat(buffer.flush()).isEqualTo(1);
+        assertThat(persistedTemperature()).isEqualTo(26.15);
+
+        // 与已落库的值相差不到死区：只更新内存
+        buffer.offer(ROOM, 26.25);
+        assertThat(buffer.flush()).isZero();
+        assertThat(persistedTemperature()).isEqualTo(26.15);
+        assertThat(cachingRoomInfoMapper.findById(ROOM).orElseThrow().getCurrentTempera()).isEqualTo(26.25);
+        assertThat(buffer.stats()).containsEntry("coalesced", 2L).containsEntry("suppressed", 1L);
+    }
+
+    @Test
+    void firstReadingInsideDeadBandIsNotWritten() {
+        buffer.offer(ROOM, 25.1);
+
+        assertThat(buffer.stats()).containsEntry("suppressed", 1L).containsEntry("pending", 0);
+        assertThat(buffer.flush()).isZero();
+        assertThat(cachingRoomInfoMapper.findById(ROOM).orElseThrow().getCurrentTempera()).isEqualTo(25.1);
+    }
+
+    @Test
+    void pendingValueIsPersistedBeforeEvictionAndReload() {
+        buffer.offer(ROOM, 27.0);
+        assertThat(persistedTemperature()).isEqualTo(25.0);
+
+        roomInfoCache.invalidate(ROOM);
+        assertThat(persistedTemperature()).isEqualTo(27.0);
+        assertThat(cachingRoomInfoMapper.findById(ROOM).orElseThrow().getCurrentTempera()).isEqualTo(27.0);
+
+        buffer.offer(ROOM, 29.0);
+        cachingRoomInfoMapper.warmUp();
+        assertThat(persistedTemperature()).isEqualTo(29.0);
+        assertThat(cachingRoomInfoMapper.findById(ROOM).orElseThrow().getCurrentTempera()).isEqualTo(29.0);
+
+        assertThat(buffer.stats()).containsEntry("evictionWrites", 2L).containsEntry("pending", 0);
+        assertThat(buffer.flush()).isZero();
+    }
+
+    @Test
+    void evictionInsideTransactionPersistsAfterCompletion() {
+        buffer.offer(ROOM, 21.0);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            cachingRoomInfoMapper.updateTargetTemperature(ROOM, 22.0);
+            roomInfoCache.invalidate(ROOM);
+            // 事务持有这一行的锁，待写值等事务结束后再写
+            assertThat(buffer.stats()).containsEntry("pending", 1);
+        });
+
+        assertThat(persistedTemperature()).isEqualTo(21.0);
+        assertThat(cachingRoomInfoMapper.findById(ROOM).orElseThrow().getCurrentTempera()).isEqualTo(21.0);
+        assertThat(buffer.stats()).containsEntry("pending", 0);
+    }
+
+    private Double persistedTemperature() {
+        return jdbcTemplate.queryForObject("SELECT current_tempera FROM room_infos WHERE room_id = ?", Double.class, ROOM);
+    }
+}
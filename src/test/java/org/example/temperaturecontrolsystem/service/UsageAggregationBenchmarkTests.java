@@ -0,0 +1,126 @@
+package org.example.temperaturecontrolsystem.service;
+
+import org.example.temperaturecontrolsystem.archive.UsageArchiveStore;
+import org.example.temperaturecontrolsystem.config.ReplicaRouter;
+import org.example.temperaturecontrolsystem.dto.RoomUsageSummary;
+import org.example.temperaturecontrolsystem.entity.SchedulerBoardRecord;
+import org.example.temperaturecontrolsystem.mapper.SchedulerMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * 比较“单条大查询物化全部记录 + 单线程汇总”、默认的单条流式查询汇总和按天分块并行汇总在内嵌数据库上的耗时。
+ * 耗时只打印；结果一致性见 UsageAggregationServiceTests。
+ * mvn test -Pbenchmark -Dtest=UsageAggregationBenchmarkTests
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Tag("benchmark")
+class UsageAggregationBenchmarkTests {
+
+    private static final int ROOMS = 200;
+    private static final int ROWS = 300_000;
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final LocalDateTime END = START.plusDays(180);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private SchedulerMapper schedulerMapper;
+    @Autowired
+    private UsageAggregationService usageAggregationService;
+    @Autowired
+    private UsageArchiveStore archiveStore;
+    @Autowired
+    private ReplicaRouter replicaRouter;
+
+    @BeforeEach
+    void seed() {
+        Random random = new Random(42);
+        long span = java.time.Duration.between(START, END).getSeconds();
+        List<Object[]> batch = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            LocalDateTime start = START.plusSeconds((long) (random.nextDouble() * span));
+            long duration = 5 + random.nextInt(600);
+            int speed = 1 + random.nextInt(3);
+            BigDecimal cost = BigDecimal.valueOf(duration).multiply(BigDecimal.valueOf(speed)).multiply(new BigDecimal("0.005556"));
+            batch.add(new Object[]{100 + random.nextInt(ROOMS), Timestamp.valueOf(start),
+                    Timestamp.valueOf(start.plusSeconds(duration)), duration, speed, cost});
+            if (batch.size() == 5000) {
+                insert(batch);
+                batch.clear();
+            }
+        }
+        insert(batch);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM scheduler_board");
+    }
+
+    @Test
+    void streamedAndChunkedAggregationTiming() {
+        UsageAggregationService chunkedService = new UsageAggregationService(schedulerMapper, archiveStore, replicaRouter, 24, 4);
+        long singleNanos = Long.MAX_VALUE;
+        long streamedNanos = Long.MAX_VALUE;
+        long chunkedNanos = Long.MAX_VALUE;
+
+        try {
+            for (int round = 0; round < 5; round++) {
+                long t0 = System.nanoTime();
+                singleQuery();
+                long t1 = System.nanoTime();
+                summarize(usageAggregationService);
+                long t2 = System.nanoTime();
+                summarize(chunkedService);
+                long t3 = System.nanoTime();
+                singleNanos = Math.min(singleNanos, t1 - t0);
+                streamedNanos = Math.min(streamedNanos, t2 - t1);
+                chunkedNanos = Math.min(chunkedNanos, t3 - t2);
+            }
+        } finally {
+            chunkedService.stop();
+        }
+
+        System.out.printf("[benchmark] %d rows / %d rooms over 180 days: materialized single query %.1f ms, " +
+                        "streamed single query %.1f ms, 24h chunks x4 threads %.1f ms%n",
+                ROWS, ROOMS, singleNanos / 1e6, streamedNanos / 1e6, chunkedNanos / 1e6);
+    }
+
+    private Map<Integer, BigDecimal> singleQuery() {
+        Map<Integer, BigDecimal> totals = new TreeMap<>();
+        for (SchedulerBoardRecord record : schedulerMapper.findRecordsInTimeRange(START, END)) {
+            totals.merge(record.getRoomId(), record.getCost(), BigDecimal::add);
+        }
+        return totals;
+    }
+
+    private static Map<Integer, BigDecimal> summarize(UsageAggregationService service) {
+        Map<Integer, BigDecimal> totals = new TreeMap<>();
+        for (RoomUsageSummary summary : service.summarize(START, END)) {
+            totals.put(summary.getRoomId(), summary.getTotalCost());
+        }
+        return totals;
+    }
+
+    private void insert(List<Object[]> batch) {
+        jdbcTemplate.batchUpdate("INSERT INTO scheduler_board (room_id, start_time, end_time, duration_seconds, speed, cost) " +
+                "VALUES (?, ?, ?, ?, ?, ?)", batch);
+    }
+}
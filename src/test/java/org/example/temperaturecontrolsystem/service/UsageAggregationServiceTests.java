@@ -0,0 +1,98 @@
+package org.example.temperaturecontrolsystem.service;
+
+import org.example.temperaturecontrolsystem.archive.UsageArchiveStore;
+import org.example.temperaturecontrolsystem.config.ReplicaRouter;
+import org.example.temperaturecontrolsystem.dto.RoomUsageSummary;
+import org.example.temperaturecontrolsystem.entity.SchedulerBoardRecord;
+import org.example.temperaturecontrolsystem.mapper.SchedulerMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 默认的单条流式查询汇总和按天分块并行汇总，结果都与物化全部记录后逐条累加一致。
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class UsageAggregationServiceTests {
+
+    private static final int FIRST_ROOM = 49_000;
+    private static final int ROOMS = 10;
+    private static final int ROWS = 2_000;
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final LocalDateTime END = START.plusDays(30);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private SchedulerMapper schedulerMapper;
+    @Autowired
+    private UsageAggregationService usageAggregationService;
+    @Autowired
+    private UsageArchiveStore archiveStore;
+    @Autowired
+    private ReplicaRouter replicaRouter;
+
+    @BeforeEach
+    void seed() {
+        Random random = new Random(42);
+        long span = Duration.between(START, END).getSeconds();
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            LocalDateTime start = START.plusSeconds((long) (random.nextDouble() * span));
+            long duration = 5 + random.nextInt(600);
+            int speed = 1 + random.nextInt(3);
+            BigDecimal cost = BigDecimal.valueOf(duration).multiply(BigDecimal.valueOf(speed)).multiply(new BigDecimal("0.005556"));
+            rows.add(new Object[]{FIRST_ROOM + random.nextInt(ROOMS), Timestamp.valueOf(start),
+                    Timestamp.valueOf(start.plusSeconds(duration)), duration, speed, cost});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO scheduler_board (room_id, start_time, end_time, duration_seconds, speed, cost) " +
+                "VALUES (?, ?, ?, ?, ?, ?)", rows);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM scheduler_board WHERE room_id BETWEEN ? AND ?", FIRST_ROOM, FIRST_ROOM + ROOMS - 1);
+    }
+
+    @Test
+    void streamedAndChunkedAggregationMatchSingleQuery() {
+        Map<Integer, BigDecimal> expected = new TreeMap<>();
+        for (SchedulerBoardRecord record : schedulerMapper.findRecordsInTimeRange(START, END)) {
+            expected.merge(record.getRoomId(), record.getCost(), BigDecimal::add);
+        }
+        assertThat(expected).hasSize(ROOMS);
+
+        UsageAggregationService chunkedService = new UsageAggregationService(schedulerMapper, archiveStore, replicaRouter, 24, 4);
+        try {
+            assertThat(summarize(usageAggregationService)).isEqualTo(expected);
+            assertThat(summarize(chunkedService)).isEqualTo(expected);
+        } finally {
+            chunkedService.stop();
+        }
+    }
+
+    private static Map<Integer, BigDecimal> summarize(UsageAggregationService service) {
+        Map<Integer, BigDecimal> totals = new TreeMap<>();
+        for (RoomUsageSummary summary : service.summarize(START, END)) {
+            totals.put(summary.getRoomId(), summary.getTotalCost());
+        }
+        return totals;
+    }
+}
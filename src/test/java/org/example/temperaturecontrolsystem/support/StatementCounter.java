@@ -0,0 +1,64 @@
+package org.example.temperaturecontrolsystem.support;
+
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import java.sql.Connection;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 统计 MyBatis 执行的语句数。本地 H2 没有网络往返，需要时每条语句额外睡眠一段时间模拟远程 MySQL 的一次往返。
+ * 测试类用 {@code @Import(StatementCounter.Config.class)} 注册；计数是全局的，测试结束时应调用 {@link #reset()}。
+ */
+@Intercepts(@Signature(type = StatementHandler.class, method = "prepare", args = {Connection.class, Integer.class}))
+public class StatementCounter implements Interceptor {
+
+    private static final AtomicInteger statements = new AtomicInteger();
+    private static volatile long simulatedRttMillis;
+
+    @TestConfiguration
+    public static class Config {
+        @Bean
+        Interceptor statementCounter() {
+            return new StatementCounter();
+        }
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        statements.incrementAndGet();
+        long rtt = simulatedRttMillis;
+        if (rtt > 0) {
+            Thread.sleep(rtt);
+        }
+        return invocation.proceed();
+    }
+
+    public static int get() {
+        return statements.get();
+    }
+
+    /**
+     * @return 上次清零以来的语句数
+     */
+    public static int getAndReset() {
+        return statements.getAndSet(0);
+    }
+
+    /**
+     * 之后每条语句额外睡眠 millis 毫秒，0 表示不模拟。
+     */
+    public static void simulateRoundTrips(long millis) {
+        simulatedRttMillis = millis;
+    }
+
+    public static void reset() {
+        simulatedRttMillis = 0;
+        statements.set(0);
+    }
+}
@@ -0,0 +1,74 @@
+package org.example.temperaturecontrolsystem.support;
+
+import org.example.temperaturecontrolsystem.cache.CachingRoomInfoMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntPredicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 测试用房间：直接写 room_infos 并重新预热房间缓存（直接写库绕过了缓存），清理时连同计费记录和操作记录一起删除。
+ * 每个测试类使用自己的一段房间号，避免与其它测试互相影响。
+ */
+public class TestRooms {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CachingRoomInfoMapper cachingRoomInfoMapper;
+
+    public TestRooms(JdbcTemplate jdbcTemplate, CachingRoomInfoMapper cachingRoomInfoMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.cachingRoomInfoMapper = cachingRoomInfoMapper;
+    }
+
+    /**
+     * 插入一个空调关闭、中风、当前和目标温度都是 25.0 的房间。
+     */
+    public void insert(int roomId, boolean occupied) {
+        insert(roomId, 1, id -> occupied);
+    }
+
+    /**
+     * 插入房间号 [firstRoom, firstRoom + count) 的房间，occupied 按房间号决定是否已入住。
+     */
+    public void insert(int firstRoom, int count, IntPredicate occupied) {
+        List<Object[]> rows = new ArrayList<>(count);
+        for (int roomId = firstRoom; roomId < firstRoom + count; roomId++) {
+            rows.add(new Object[]{roomId, occupied.test(roomId) ? 1 : 0});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO room_infos (room_id, state, ac_state, current_speed, current_tempera, target_tempera) " +
+                "VALUES (?, ?, 0, 'medium', 25.0, 25.0)", rows);
+        cachingRoomInfoMapper.warmUp();
+    }
+
+    /**
+     * 删除房间号 [firstRoom, firstRoom + count) 的房间、计费记录和操作记录。
+     */
+    public void delete(int firstRoom, int count) {
+        int lastRoom = firstRoom + count - 1;
+        jdbcTemplate.update("DELETE FROM scheduler_board WHERE room_id BETWEEN ? AND ?", firstRoom, lastRoom);
+        jdbcTemplate.update("DELETE FROM op_records WHERE room_id BETWEEN ? AND ?", firstRoom, lastRoom);
+        jdbcTemplate.update("DELETE FROM room_infos WHERE room_id BETWEEN ? AND ?", firstRoom, lastRoom);
+        cachingRoomInfoMapper.warmUp();
+    }
+
+    public int count(String sql, Object... args) {
+        return jdbcTemplate.queryForObject(sql, Integer.class, args);
+    }
+
+    /**
+     * 等待 count(sql, args) 等于 expected，调度器异步处理的指令用它等结果，最多等 10 秒。
+     */
+    public void awaitCount(int expected, String sql, Object... args) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        int count = count(sql, args);
+        while (count != expected && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+            count = count(sql, args);
+        }
+        assertThat(count).as(sql).isEqualTo(expected);
+    }
+}
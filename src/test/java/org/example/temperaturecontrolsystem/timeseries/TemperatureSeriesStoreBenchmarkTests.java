@@ -0,0 +1,71 @@
+package org.example.temperaturecontrolsystem.timeseries;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 写入一天的 10 秒间隔温度数据，统计压缩率、重启耗时以及范围查询耗时；读回的正确性见 TemperatureSeriesStoreTests。
+ * mvn test -Pbenchmark -Dtest=TemperatureSeriesStoreBenchmarkTests
+ */
+@Tag("benchmark")
+class TemperatureSeriesStoreBenchmarkTests {
+
+    private static final int ROOMS = 100;
+    private static final int POINTS_PER_ROOM = 8640;
+    private static final long START = 1_735_689_600_000L; // 2025-01-01T00:00:00Z
+    private static final long INTERVAL = 10_000;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void compressionAndScanRate() throws Exception {
+        double[] previous = new double[ROOMS];
+        Random random = new Random(3);
+
+        TemperatureSeriesStore store = open();
+        for (int p = 0; p < POINTS_PER_ROOM; p++) {
+            for (int room = 0; room < ROOMS; room++) {
+                double last = p == 0 ? 24.0 : previous[room];
+                // 传感器分辨率 0.1°C，约每 10 个读数变化一次；时间戳带 ±50ms 抖动
+                double step = random.nextInt(10) == 0 ? (random.nextBoolean() ? 0.1 : -0.1) : 0;
+                double value = Math.round((last + step) * 10) / 10.0;
+                previous[room] = value;
+                store.append(room, START + p * INTERVAL + random.nextInt(100) - 50, value);
+            }
+        }
+        store.stop();
+
+        long t0 = System.nanoTime();
+        TemperatureSeriesStore reopened = open();
+        long openNanos = System.nanoTime() - t0;
+
+        long t1 = System.nanoTime();
+        int read = 0;
+        for (int room = 0; room < ROOMS; room++) {
+            List<TemperatureSeriesStore.Sample> samples = reopened.query(room, START - 1000, START + POINTS_PER_ROOM * INTERVAL, 0);
+            read += samples.size();
+        }
+        long queryNanos = System.nanoTime() - t1;
+
+        Object bytesPerPoint = reopened.stats().get("bytesPerPoint");
+        System.out.printf("[benchmark] %d points: %.2f bytes/point on disk (16 raw), reopen %.1f ms, full-day scan %.0f points/ms%n",
+                ROOMS * POINTS_PER_ROOM, (Double) bytesPerPoint, openNanos / 1e6, read / (queryNanos / 1e6));
+        assertThat(read).isEqualTo(ROOMS * POINTS_PER_ROOM);
+        assertThat((Double) bytesPerPoint).isLessThan(3.0);
+        reopened.stop();
+    }
+
+    private TemperatureSeriesStore open() throws Exception {
+        TemperatureSeriesStore store = new TemperatureSeriesStore(true, dir.toString(), 720, 120, 100_000);
+        store.start();
+        return store;
+    }
+}
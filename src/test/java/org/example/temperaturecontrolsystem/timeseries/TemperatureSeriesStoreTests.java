@@ -0,0 +1,65 @@
+package org.example.temperaturecontrolsystem.timeseries;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 写入两小时的 10 秒间隔温度数据，重启后按原样读回，并按小时降采样。
+ */
+class TemperatureSeriesStoreTests {
+
+    private static final int ROOMS = 3;
+    private static final int POINTS_PER_ROOM = 720;
+    private static final long START = 1_735_689_600_000L; // 2025-01-01T00:00:00Z
+    private static final long INTERVAL = 10_000;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void readsBackAfterRestart() throws Exception {
+        double[][] expected = new double[ROOMS][POINTS_PER_ROOM];
+        Random random = new Random(3);
+
+        TemperatureSeriesStore store = open();
+        for (int p = 0; p < POINTS_PER_ROOM; p++) {
+            for (int room = 0; room < ROOMS; room++) {
+                double previous = p == 0 ? 24.0 : expected[room][p - 1];
+                double step = random.nextInt(10) == 0 ? (random.nextBoolean() ? 0.1 : -0.1) : 0;
+                double value = Math.round((previous + step) * 10) / 10.0;
+                expected[room][p] = value;
+                store.append(room, START + p * INTERVAL + random.nextInt(100) - 50, value);
+            }
+        }
+        store.stop();
+
+        TemperatureSeriesStore reopened = open();
+        try {
+            for (int room = 0; room < ROOMS; room++) {
+                List<TemperatureSeriesStore.Sample> samples = reopened.query(room, START - 1000, START + POINTS_PER_ROOM * INTERVAL, 0);
+                assertThat(samples).hasSize(POINTS_PER_ROOM);
+                for (int p = 0; p < POINTS_PER_ROOM; p++) {
+                    assertThat(samples.get(p).value()).isEqualTo(expected[room][p]);
+                }
+            }
+
+            List<TemperatureSeriesStore.Sample> hourly = reopened.query(0, START - 1000, START + POINTS_PER_ROOM * INTERVAL, 3_600_000);
+            assertThat(hourly).hasSize(2);
+            assertThat(hourly.stream().mapToInt(TemperatureSeriesStore.Sample::count).sum()).isEqualTo(POINTS_PER_ROOM);
+        } finally {
+            reopened.stop();
+        }
+    }
+
+    private TemperatureSeriesStore open() throws Exception {
+        TemperatureSeriesStore store = new TemperatureSeriesStore(true, dir.toString(), 720, 120, 100_000);
+        store.start();
+        return store;
+    }
+}